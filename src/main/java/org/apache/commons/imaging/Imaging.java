@@ -38,6 +38,7 @@ import org.apache.commons.imaging.common.XmpEmbeddable;
 import org.apache.commons.imaging.icc.IccProfileInfo;
 import org.apache.commons.imaging.icc.IccProfileParser;
 import org.apache.commons.imaging.internal.ImageParserFactory;
+import org.apache.commons.io.IOUtils;
 
 /**
  * The primary application programming interface (API) to the Imaging library.
@@ -86,34 +87,74 @@ import org.apache.commons.imaging.internal.ImageParserFactory;
  */
 public final class Imaging {
 
-    private static final int[] MAGIC_NUMBERS_GIF = { 0x47, 0x49, };
-    private static final int[] MAGIC_NUMBERS_PNG = { 0x89, 0x50, };
-    private static final int[] MAGIC_NUMBERS_JPEG = { 0xff, 0xd8, };
-    private static final int[] MAGIC_NUMBERS_BMP = { 0x42, 0x4d, };
-    private static final int[] MAGIC_NUMBERS_TIFF_MOTOROLA = { 0x4D, 0x4D, };
-    private static final int[] MAGIC_NUMBERS_TIFF_INTEL = { 0x49, 0x49, };
-    private static final int[] MAGIC_NUMBERS_PAM = { 0x50, 0x37, };
-    private static final int[] MAGIC_NUMBERS_PSD = { 0x38, 0x42, };
-    private static final int[] MAGIC_NUMBERS_PBM_A = { 0x50, 0x31, };
-    private static final int[] MAGIC_NUMBERS_PBM_B = { 0x50, 0x34, };
-    private static final int[] MAGIC_NUMBERS_PGM_A = { 0x50, 0x32, };
-    private static final int[] MAGIC_NUMBERS_PGM_B = { 0x50, 0x35, };
-    private static final int[] MAGIC_NUMBERS_PPM_A = { 0x50, 0x33, };
-    private static final int[] MAGIC_NUMBERS_PPM_B = { 0x50, 0x36, };
-    private static final int[] MAGIC_NUMBERS_JBIG2_1 = { 0x97, 0x4A, };
-    private static final int[] MAGIC_NUMBERS_JBIG2_2 = { 0x42, 0x32, };
-    private static final int[] MAGIC_NUMBERS_ICNS = { 0x69, 0x63, };
-    private static final int[] MAGIC_NUMBERS_DCX = { 0xB1, 0x68, };
-    private static final int[] MAGIC_NUMBERS_RGBE = { 0x23, 0x3F, };
-    private static final int[] MAGIC_NUMBERS_RIFF_1 = { 0x52, 0x49, };
-    private static final int[] MAGIC_NUMBERS_RIFF_2 = { 0x46, 0x46, };
-    private static final byte[] MAGIC_NUMBERS_WEBP = { 0x57, 0x45, 0x42, 0x50, };
-
-    private static boolean compareBytePair(final int[] a, final int[] b) {
-        if (a.length != 2 && b.length != 2) {
-            throw new IllegalArgumentException("Invalid Byte Pair.");
+    /**
+     * The magic numbers identifying a format, where -1 matches any byte.
+     */
+    private static final class MagicNumber {
+        final int[] bytes;
+        final ImageFormat format;
+
+        MagicNumber(final ImageFormat format, final int... bytes) {
+            this.bytes = bytes;
+            this.format = format;
+        }
+
+        boolean matches(final byte[] header) {
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] >= 0 && bytes[i] != (0xff & header[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // @formatter:off
+    private static final MagicNumber[] MAGIC_NUMBERS = {
+        new MagicNumber(ImageFormats.GIF, 0x47, 0x49),
+        new MagicNumber(ImageFormats.PNG, 0x89, 0x50),
+        new MagicNumber(ImageFormats.JPEG, 0xff, 0xd8),
+        new MagicNumber(ImageFormats.BMP, 0x42, 0x4d),
+        new MagicNumber(ImageFormats.TIFF, 0x4D, 0x4D),
+        new MagicNumber(ImageFormats.TIFF, 0x49, 0x49),
+        new MagicNumber(ImageFormats.PSD, 0x38, 0x42),
+        new MagicNumber(ImageFormats.PAM, 0x50, 0x37),
+        new MagicNumber(ImageFormats.PBM, 0x50, 0x31),
+        new MagicNumber(ImageFormats.PBM, 0x50, 0x34),
+        new MagicNumber(ImageFormats.PGM, 0x50, 0x32),
+        new MagicNumber(ImageFormats.PGM, 0x50, 0x35),
+        new MagicNumber(ImageFormats.PPM, 0x50, 0x33),
+        new MagicNumber(ImageFormats.PPM, 0x50, 0x36),
+        new MagicNumber(ImageFormats.JBIG2, 0x97, 0x4A, 0x42, 0x32),
+        new MagicNumber(ImageFormats.ICNS, 0x69, 0x63),
+        new MagicNumber(ImageFormats.DCX, 0xB1, 0x68),
+        new MagicNumber(ImageFormats.RGBE, 0x23, 0x3F),
+        // RIFF, the file size, then WEBP
+        new MagicNumber(ImageFormats.WEBP, 0x52, 0x49, 0x46, 0x46, -1, -1, -1, -1, 0x57, 0x45, 0x42, 0x50),
+    };
+    // @formatter:on
+
+    /**
+     * The magic numbers by their first byte, so a format is found without trying every magic number.
+     */
+    private static final MagicNumber[][] MAGIC_NUMBERS_BY_FIRST_BYTE = new MagicNumber[256][];
+
+    private static final int MAGIC_NUMBERS_MAX_LENGTH;
+
+    static {
+        int maxLength = 0;
+        for (final MagicNumber magicNumber : MAGIC_NUMBERS) {
+            final int firstByte = magicNumber.bytes[0];
+            final MagicNumber[] magicNumbers = MAGIC_NUMBERS_BY_FIRST_BYTE[firstByte];
+            if (magicNumbers == null) {
+                MAGIC_NUMBERS_BY_FIRST_BYTE[firstByte] = new MagicNumber[] { magicNumber };
+            } else {
+                MAGIC_NUMBERS_BY_FIRST_BYTE[firstByte] = Arrays.copyOf(magicNumbers, magicNumbers.length + 1);
+                MAGIC_NUMBERS_BY_FIRST_BYTE[firstByte][magicNumbers.length] = magicNumber;
+            }
+            maxLength = Math.max(maxLength, magicNumber.bytes.length);
         }
-        return a[0] == b[0] && a[1] == b[1];
+        MAGIC_NUMBERS_MAX_LENGTH = maxLength;
     }
 
     /**
@@ -705,111 +746,38 @@ public final class Imaging {
             return ImageFormats.UNKNOWN;
         }
 
+        // the header is read once, and only the magic numbers starting with its first byte are compared to it
+        final byte[] header = new byte[MAGIC_NUMBERS_MAX_LENGTH];
+        final int length;
         try (InputStream is = byteSource.getInputStream()) {
-            final int i1 = is.read();
-            final int i2 = is.read();
-            if (i1 < 0 || i2 < 0) {
-                throw new IllegalArgumentException("Couldn't read magic numbers to guess format.");
-            }
-
-            final int b1 = i1 & 0xff;
-            final int b2 = i2 & 0xff;
-            final int[] bytePair = { b1, b2, };
-
-            if (compareBytePair(MAGIC_NUMBERS_GIF, bytePair)) {
-                return ImageFormats.GIF;
-                // } else if (b1 == 0x00 && b2 == 0x00) // too similar to TGA
-                // {
-                // return ImageFormat.IMAGE_FORMAT_ICO;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PNG, bytePair)) {
-                return ImageFormats.PNG;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_JPEG, bytePair)) {
-                return ImageFormats.JPEG;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_BMP, bytePair)) {
-                return ImageFormats.BMP;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_TIFF_MOTOROLA, bytePair)) {
-                return ImageFormats.TIFF;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_TIFF_INTEL, bytePair)) {
-                return ImageFormats.TIFF;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PSD, bytePair)) {
-                return ImageFormats.PSD;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PAM, bytePair)) {
-                return ImageFormats.PAM;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PBM_A, bytePair)) {
-                return ImageFormats.PBM;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PBM_B, bytePair)) {
-                return ImageFormats.PBM;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PGM_A, bytePair)) {
-                return ImageFormats.PGM;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PGM_B, bytePair)) {
-                return ImageFormats.PGM;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PPM_A, bytePair)) {
-                return ImageFormats.PPM;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PPM_B, bytePair)) {
-                return ImageFormats.PPM;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_JBIG2_1, bytePair)) {
-                final int i3 = is.read();
-                final int i4 = is.read();
-                if (i3 < 0 || i4 < 0) {
-                    throw new IllegalArgumentException("Couldn't read magic numbers to guess format.");
-                }
-
-                final int b3 = i3 & 0xff;
-                final int b4 = i4 & 0xff;
-                final int[] bytePair2 = { b3, b4, };
-                if (compareBytePair(MAGIC_NUMBERS_JBIG2_2, bytePair2)) {
-                    return ImageFormats.JBIG2;
-                }
-            } else if (compareBytePair(MAGIC_NUMBERS_ICNS, bytePair)) {
-                return ImageFormats.ICNS;
-            } else if (compareBytePair(MAGIC_NUMBERS_DCX, bytePair)) {
-                return ImageFormats.DCX;
-            } else if (compareBytePair(MAGIC_NUMBERS_RGBE, bytePair)) {
-                return ImageFormats.RGBE;
-            } else if (compareBytePair(MAGIC_NUMBERS_RIFF_1, bytePair)) {
-                final int i3 = is.read();
-                final int i4 = is.read();
-                if (i3 < 0 || i4 < 0) {
-                    throw new IllegalArgumentException("Couldn't read magic numbers to guess format.");
-                }
+            length = IOUtils.read(is, header);
+        }
+        if (length < 2) {
+            throw new IllegalArgumentException("Couldn't read magic numbers to guess format.");
+        }
 
-                final int b3 = i3 & 0xff;
-                final int b4 = i4 & 0xff;
-                final int[] bytePair2 = { b3, b4, };
-                if (compareBytePair(MAGIC_NUMBERS_RIFF_2, bytePair2)) {
-                    final byte[] bytes = new byte[4];
-                    if (is.read(bytes) < 4) { // Skip file size
+        final MagicNumber[] magicNumbers = MAGIC_NUMBERS_BY_FIRST_BYTE[0xff & header[0]];
+        if (magicNumbers != null) {
+            for (final MagicNumber magicNumber : magicNumbers) {
+                if (magicNumber.bytes[1] == (0xff & header[1])) {
+                    if (length < magicNumber.bytes.length) {
                         throw new IllegalArgumentException("Couldn't read magic numbers to guess format.");
                     }
-
-                    if (is.read(bytes) == 4 && Arrays.equals(MAGIC_NUMBERS_WEBP, bytes)) {
-                        return ImageFormats.WEBP;
+                    if (magicNumber.matches(header)) {
+                        return magicNumber.format;
                     }
                 }
             }
-            return Stream.of(ImageFormats.values()).filter(imageFormat -> Stream.of(imageFormat.getExtensions()).anyMatch(extension -> {
-                final String fileName = byteSource.getFileName();
-                if (fileName == null || fileName.trim().isEmpty()) {
-                    return false;
-                }
-                final String fileExtension = fileName.substring(fileName.lastIndexOf('.') + 1);
-                return extension != null && !extension.trim().isEmpty() && fileExtension.equalsIgnoreCase(extension);
-            })).findFirst().orElse(ImageFormats.UNKNOWN);
         }
+
+        return Stream.of(ImageFormats.values()).filter(imageFormat -> Stream.of(imageFormat.getExtensions()).anyMatch(extension -> {
+            final String fileName = byteSource.getFileName();
+            if (fileName == null || fileName.trim().isEmpty()) {
+                return false;
+            }
+            final String fileExtension = fileName.substring(fileName.lastIndexOf('.') + 1);
+            return extension != null && !extension.trim().isEmpty() && fileExtension.equalsIgnoreCase(extension);
+        })).findFirst().orElse(ImageFormats.UNKNOWN);
     }
 
     /**
@@ -857,7 +825,7 @@ public final class Imaging {
 
         final String normalizedFileName = fileName.toLowerCase(Locale.ENGLISH);
 
-        for (final AbstractImageParser<?> imageParser : AbstractImageParser.getAllImageParsers()) {
+        for (final AbstractImageParser<?> imageParser : ImageParserFactory.getImageParsers()) {
             for (final String extension : imageParser.getAcceptedExtensions()) {
                 if (normalizedFileName.endsWith(extension.toLowerCase(Locale.ENGLISH))) {
                     return true;
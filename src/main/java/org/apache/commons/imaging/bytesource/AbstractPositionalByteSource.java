@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.bytesource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.io.build.AbstractOrigin;
+
+/**
+ * A byte source able to read at any position, whose input streams are just a position in the data.
+ */
+abstract class AbstractPositionalByteSource extends ByteSource {
+
+    private final class PositionalInputStream extends InputStream {
+        private final byte[] singleByte = new byte[1];
+        private long position;
+        private long mark;
+
+        PositionalInputStream(final long position) {
+            this.position = position;
+        }
+
+        @Override
+        public synchronized void mark(final int readLimit) {
+            mark = position;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return read(singleByte, 0, 1) < 1 ? -1 : 0xff & singleByte[0];
+        }
+
+        @Override
+        public int read(final byte[] array, final int off, final int len) throws IOException {
+            Objects.requireNonNull(array, "array");
+            if (off < 0 || len < 0 || len > array.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (len == 0) {
+                return 0;
+            }
+            final int read = AbstractPositionalByteSource.this.read(position, array, off, len);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public synchronized void reset() {
+            position = mark;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+            final long skipped = Math.max(0, sizeUpTo(position + n) - position);
+            position += skipped;
+            return skipped;
+        }
+    }
+
+    AbstractPositionalByteSource(final AbstractOrigin<?, ?> origin, final String fileName) {
+        super(origin, fileName);
+    }
+
+    @Override
+    public byte[] getByteArray(final long position, final int length) throws IOException {
+        // We include a separate check for int overflow.
+        if (position < 0 || length < 0 || position + length < 0 || sizeUpTo(position + length) < position + length) {
+            throw new ImagingException("Could not read block (block start: " + position + ", block length: " + length + ", data length: "
+                    + sizeUpTo(position + length) + ").");
+        }
+
+        final byte[] bytes = Allocator.byteArray(length);
+        int total = 0;
+        while (total < length) {
+            final int read = read(position + total, bytes, total, length - total);
+            if (read < 1) {
+                throw new ImagingException("Could not read block.");
+            }
+            total += read;
+        }
+        return bytes;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new PositionalInputStream(0);
+    }
+
+    @Override
+    public InputStream getInputStream(final long start) throws IOException {
+        return new PositionalInputStream(start);
+    }
+
+    /**
+     * Reads bytes at the given position.
+     *
+     * @param position the position of the first byte to read.
+     * @param array    the array receiving the bytes.
+     * @param off      the index in the array of the first byte.
+     * @param len      the maximum number of bytes to read, greater than 0.
+     * @return the number of bytes read, possibly fewer than requested, or -1 at the end of the data.
+     * @throws IOException if the bytes can't be read.
+     */
+    abstract int read(long position, byte[] array, int off, int len) throws IOException;
+
+    /**
+     * Gets the size of the data, or the limit if the data is longer. This can be cheaper than {@link #size()}, by reading no further than the limit.
+     *
+     * @param limit the largest size needed.
+     * @return the lesser of the size of the data and the limit.
+     * @throws IOException if the data can't be read.
+     */
+    abstract long sizeUpTo(long limit) throws IOException;
+
+}
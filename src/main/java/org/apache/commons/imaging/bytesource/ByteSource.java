@@ -16,9 +16,11 @@
  */
 package org.apache.commons.imaging.bytesource;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.util.Objects;
 
@@ -29,7 +31,7 @@ import org.apache.commons.io.build.AbstractOrigin.ByteArrayOrigin;
 import org.apache.commons.io.build.AbstractOrigin.FileOrigin;
 import org.apache.commons.io.build.AbstractOrigin.PathOrigin;
 
-public class ByteSource {
+public class ByteSource implements Closeable {
 
     public static ByteSource array(final byte[] array) {
         return new ByteSource(new ByteArrayOrigin(array), null);
@@ -39,6 +41,18 @@ public class ByteSource {
         return new ByteSource(new ByteArrayOrigin(array), name);
     }
 
+    /**
+     * Creates a byte source reading a file channel with positional reads, which don't need to reopen the file or skip over data. The channel is not closed
+     * by the byte source, and must stay open while the byte source is used.
+     *
+     * @param channel  the channel to read.
+     * @param fileName the name of the file, or {@code null}.
+     * @return a byte source reading the channel.
+     */
+    public static ByteSource channel(final FileChannel channel, final String fileName) {
+        return new FileChannelByteSource(channel, fileName, 0);
+    }
+
     public static ByteSource file(final File file) {
         return new ByteSource(new FileOrigin(file), file.getName());
     }
@@ -47,6 +61,33 @@ public class ByteSource {
         return new InputStreamByteSource(is, name);
     }
 
+    /**
+     * Creates a byte source buffering an input stream as it is read, in chunks of the given size. Once the chunks reach the spill threshold, the rest of the
+     * stream is buffered in a temporary file instead of memory, which closing the byte source deletes.
+     *
+     * @param is             the stream to read, which is not closed by the byte source.
+     * @param name           the name of the stream, or {@code null}.
+     * @param chunkSize      the size of the chunks buffering the stream in memory.
+     * @param spillThreshold the number of bytes buffered in memory before using a temporary file, or {@link Long#MAX_VALUE} to never use one.
+     * @return a byte source reading the stream.
+     * @throws IllegalArgumentException if the chunk size is not positive, or the spill threshold is negative.
+     */
+    public static ByteSource inputStream(final InputStream is, final String name, final int chunkSize, final long spillThreshold) {
+        return new InputStreamByteSource(is, name, chunkSize, spillThreshold);
+    }
+
+    /**
+     * Creates a byte source reading a memory mapped file channel, which suits large files read at random positions. The file is mapped in regions of up to
+     * 1 GiB, the first time each region is read. The channel is not closed by the byte source, and must stay open while the byte source is used.
+     *
+     * @param channel  the channel to map.
+     * @param fileName the name of the file, or {@code null}.
+     * @return a byte source reading the mapped channel.
+     */
+    public static ByteSource mapped(final FileChannel channel, final String fileName) {
+        return new FileChannelByteSource(channel, fileName, FileChannelByteSource.MAP_REGION_SIZE);
+    }
+
     public static ByteSource path(final Path file) {
         return new ByteSource(new PathOrigin(file), Objects.toString(file.getFileName(), null));
     }
@@ -59,6 +100,17 @@ public class ByteSource {
         this.origin = origin;
     }
 
+    /**
+     * Releases what the byte source holds besides its origin, such as the temporary file of a spilled input stream. The origin itself, a stream, channel or
+     * file given by the caller, is not closed. Most byte sources hold nothing else, and closing them does nothing.
+     *
+     * @throws IOException if a resource can't be released.
+     */
+    @Override
+    public void close() throws IOException {
+        // nothing to release
+    }
+
     public byte[] getByteArray(final long position, final int length) throws IOException {
         return origin.getByteArray(position, length);
     }
@@ -71,7 +123,7 @@ public class ByteSource {
         return origin.getInputStream();
     }
 
-    public final InputStream getInputStream(final long start) throws IOException {
+    public InputStream getInputStream(final long start) throws IOException {
         InputStream is = null;
         boolean succeeded = false;
         try {
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.bytesource;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.commons.io.build.AbstractOrigin;
+
+/**
+ * Reads a file through a {@link FileChannel} with positional reads, so random access never needs to reopen the file or skip over data. Optionally, the file
+ * is memory mapped in regions, which are mapped the first time they are read.
+ */
+final class FileChannelByteSource extends AbstractPositionalByteSource {
+
+    /**
+     * Holds the channel, everything else is done by the byte source.
+     */
+    private static final class ChannelOrigin extends AbstractOrigin<FileChannel, ChannelOrigin> {
+        ChannelOrigin(final FileChannel channel) {
+            super(channel);
+        }
+    }
+
+    /**
+     * The size of the mapped regions, the largest power of two a {@link MappedByteBuffer} can hold.
+     */
+    static final int MAP_REGION_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final int mapRegionSize;
+    /**
+     * The regions, mapped the first time they are read, and looked up without locking so that concurrent readers aren't serialized.
+     */
+    private volatile AtomicReferenceArray<MappedByteBuffer> regions;
+    /**
+     * The size of the file when it was mapped, set before {@link #regions}.
+     */
+    private long mappedSize;
+
+    /**
+     * @param channel       the channel to read, which stays owned by the caller.
+     * @param fileName      the name of the file, or {@code null}.
+     * @param mapRegionSize the size of the regions in which the file is mapped, or 0 to read the channel without mapping it.
+     */
+    FileChannelByteSource(final FileChannel channel, final String fileName, final int mapRegionSize) {
+        super(new ChannelOrigin(Objects.requireNonNull(channel, "channel")), fileName);
+        this.channel = channel;
+        this.mapRegionSize = mapRegionSize;
+    }
+
+    private ByteBuffer getRegion(final int index) throws IOException {
+        final MappedByteBuffer region = getRegions().get(index);
+        return region != null ? region : mapRegion(index);
+    }
+
+    private AtomicReferenceArray<MappedByteBuffer> getRegions() throws IOException {
+        AtomicReferenceArray<MappedByteBuffer> result = regions;
+        if (result == null) {
+            synchronized (this) {
+                result = regions;
+                if (result == null) {
+                    mappedSize = channel.size();
+                    result = new AtomicReferenceArray<>((int) ((mappedSize + mapRegionSize - 1) / mapRegionSize));
+                    regions = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private synchronized ByteBuffer mapRegion(final int index) throws IOException {
+        MappedByteBuffer region = regions.get(index);
+        if (region == null) {
+            final long start = (long) index * mapRegionSize;
+            region = channel.map(MapMode.READ_ONLY, start, Math.min(mapRegionSize, mappedSize - start));
+            regions.set(index, region);
+        }
+        return region;
+    }
+
+    /**
+     * Reads bytes at the given position of the file, without changing the position of the channel.
+     */
+    @Override
+    int read(final long position, final byte[] array, final int off, final int len) throws IOException {
+        if (mapRegionSize == 0) {
+            return channel.read(ByteBuffer.wrap(array, off, len), position);
+        }
+        if (position >= size()) {
+            return -1;
+        }
+        // reads one region at a time, like a channel may return a partial read
+        final int offset = (int) (position % mapRegionSize);
+        final ByteBuffer region = getRegion((int) (position / mapRegionSize)).duplicate();
+        final int count = Math.min(len, region.limit() - offset);
+        // cast for Java 8, where ByteBuffer does not override position(int)
+        ((Buffer) region).position(offset);
+        region.get(array, off, count);
+        return count;
+    }
+
+    /**
+     * Gets the size of the file from the channel, without reading it, or the size of the file when it was mapped.
+     */
+    @Override
+    public long size() throws IOException {
+        if (mapRegionSize == 0) {
+            return channel.size();
+        }
+        getRegions();
+        return mappedSize;
+    }
+
+    @Override
+    long sizeUpTo(final long limit) throws IOException {
+        return Math.min(size(), limit);
+    }
+
+}
@@ -16,237 +16,136 @@
  */
 package org.apache.commons.imaging.bytesource;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Arrays;
-import java.util.Objects;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
-import org.apache.commons.imaging.ImagingException;
-import org.apache.commons.imaging.common.Allocator;
-import org.apache.commons.imaging.common.BinaryFunctions;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.build.AbstractOrigin.InputStreamOrigin;
 
-final class InputStreamByteSource extends ByteSource {
-
-    private final class Block {
+/**
+ * Buffers an input stream as it is read, so it can be read again at any position. The data is kept in chunks of equal size, found by dividing the position
+ * by the chunk size. Once the chunks reach the spill threshold, the rest of the data is kept in a temporary file instead. The file is opened with
+ * {@link StandardOpenOption#DELETE_ON_CLOSE}, which on most systems removes it right away, leaving only the open channel to refer to it. Closing the byte
+ * source closes the channel, which frees the file.
+ */
+final class InputStreamByteSource extends AbstractPositionalByteSource {
 
-        public final byte[] bytes;
-        private Block next;
-        private boolean triedNext;
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
 
-        Block(final byte[] bytes) {
-            this.bytes = bytes;
-        }
-
-        public Block getNext() throws IOException {
-            if (null != next) {
-                return next;
-            }
-            if (triedNext) {
-                return null;
-            }
-            triedNext = true;
-            next = readBlock();
-            return next;
-        }
+    private final InputStream inputStream;
+    private final int chunkSize;
+    private final long spillThreshold;
+    private final List<byte[]> chunks = new ArrayList<>();
+    // the number of bytes read from the stream, and how many of them are in the chunks
+    private long length;
+    private long chunksLength;
+    private boolean endOfStream;
+    private FileChannel spillChannel;
+    private byte[] spillBuffer;
 
+    InputStreamByteSource(final InputStream inputStream, final String fileName) {
+        this(inputStream, fileName, DEFAULT_CHUNK_SIZE, Long.MAX_VALUE);
     }
 
-    private final class BlockInputStream extends InputStream {
-        private Block block;
-        private boolean readFirst;
-        private int blockIndex;
-
-        @Override
-        public int read() throws IOException {
-            if (null == block) {
-                if (readFirst) {
-                    return -1;
-                }
-                block = getFirstBlock();
-                readFirst = true;
-            }
-
-            if (block != null && blockIndex >= block.bytes.length) {
-                block = block.getNext();
-                blockIndex = 0;
-            }
-
-            if (null == block) {
-                return -1;
-            }
-
-            if (blockIndex >= block.bytes.length) {
-                return -1;
-            }
-
-            return 0xff & block.bytes[blockIndex++];
+    InputStreamByteSource(final InputStream inputStream, final String fileName, final int chunkSize, final long spillThreshold) {
+        super(new InputStreamOrigin(inputStream), fileName);
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size " + chunkSize + ", must be positive");
         }
-
-        @Override
-        public int read(final byte[] array, final int off, final int len) throws IOException {
-            // first section copied verbatim from InputStream
-            Objects.requireNonNull(array, "array");
-            if (off < 0 || off > array.length || len < 0 || off + len > array.length || off + len < 0) {
-                throw new IndexOutOfBoundsException();
-            }
-            if (len == 0) {
-                return 0;
-            }
-
-            // optimized block read
-
-            if (null == block) {
-                if (readFirst) {
-                    return -1;
-                }
-                block = getFirstBlock();
-                readFirst = true;
-            }
-
-            if (block != null && blockIndex >= block.bytes.length) {
-                block = block.getNext();
-                blockIndex = 0;
-            }
-
-            if (null == block) {
-                return -1;
-            }
-
-            if (blockIndex >= block.bytes.length) {
-                return -1;
-            }
-
-            final int readSize = Math.min(len, block.bytes.length - blockIndex);
-            System.arraycopy(block.bytes, blockIndex, array, off, readSize);
-            blockIndex += readSize;
-            return readSize;
+        if (spillThreshold < 0) {
+            throw new IllegalArgumentException("Invalid spill threshold " + spillThreshold + ", must not be negative");
         }
+        this.inputStream = inputStream;
+        this.chunkSize = chunkSize;
+        this.spillThreshold = spillThreshold;
+    }
 
-        @Override
-        public long skip(final long n) throws IOException {
-
-            long remaining = n;
-
-            if (n <= 0) {
-                return 0;
-            }
+    /**
+     * Closes the temporary file, which deletes it. The stream is left open, as the caller owns it.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (spillChannel != null) {
+            spillChannel.close();
+        }
+    }
 
-            while (remaining > 0) {
-                // read the first block
-                if (null == block) {
-                    if (readFirst) {
-                        return -1;
-                    }
-                    block = getFirstBlock();
-                    readFirst = true;
+    /**
+     * Reads the stream until the given number of bytes are buffered, or the stream ends.
+     */
+    private void fill(final long target) throws IOException {
+        while (!endOfStream && length < target) {
+            final int read;
+            final int offset = (int) (chunksLength % chunkSize);
+            if (spillChannel == null && (offset != 0 || (long) chunks.size() * chunkSize < spillThreshold)) {
+                if (offset == 0) {
+                    chunks.add(new byte[chunkSize]);
                 }
-
-                // get next block
-                if (block != null && blockIndex >= block.bytes.length) {
-                    block = block.getNext();
-                    blockIndex = 0;
+                read = inputStream.read(chunks.get(chunks.size() - 1), offset, chunkSize - offset);
+                if (read > 0) {
+                    chunksLength += read;
                 }
-
-                if (null == block) {
-                    break;
+            } else {
+                if (spillChannel == null) {
+                    spillChannel = FileChannel.open(Files.createTempFile("imaging_", ".tmp"), StandardOpenOption.READ, StandardOpenOption.WRITE,
+                            StandardOpenOption.DELETE_ON_CLOSE);
+                    spillBuffer = new byte[chunkSize];
                 }
-
-                if (blockIndex >= block.bytes.length) {
-                    break;
+                read = inputStream.read(spillBuffer);
+                final ByteBuffer buffer = ByteBuffer.wrap(spillBuffer, 0, Math.max(0, read));
+                try {
+                    while (buffer.hasRemaining()) {
+                        spillChannel.write(buffer, length - chunksLength + buffer.position());
+                    }
+                } catch (final IOException e) {
+                    // the spilled data is incomplete, so the file is of no further use
+                    IOUtils.closeQuietly(spillChannel, e::addSuppressed);
+                    throw e;
                 }
-
-                final int readSize = Math.min((int) Math.min(BLOCK_SIZE, remaining), block.bytes.length - blockIndex);
-
-                blockIndex += readSize;
-                remaining -= readSize;
             }
-
-            return n - remaining;
+            if (read < 0) {
+                endOfStream = true;
+            } else {
+                length += read;
+            }
         }
-
-    }
-
-    private static final int BLOCK_SIZE = 1024;
-    private final InputStream inputStream;
-    private Block headBlock;
-    private byte[] readBuffer;
-    private long streamLength = -1;
-
-    InputStreamByteSource(final InputStream inputStream, final String fileName) {
-        super(new InputStreamOrigin(inputStream), fileName);
-        this.inputStream = new BufferedInputStream(inputStream);
     }
 
     @Override
-    public byte[] getByteArray(final long position, final int length) throws IOException {
-        // We include a separate check for int overflow.
-        if (position < 0 || length < 0 || position + length < 0 || position + length > size()) {
-            throw new ImagingException(
-                    "Could not read block (block start: " + position + ", block length: " + length + ", data length: " + streamLength + ").");
+    synchronized int read(final long position, final byte[] array, final int off, final int len) throws IOException {
+        fill(position + len);
+        if (position >= length) {
+            return -1;
         }
-
-        final InputStream cis = getInputStream();
-        BinaryFunctions.skipBytes(cis, position);
-
-        final byte[] bytes = Allocator.byteArray(length);
-        int total = 0;
-        while (true) {
-            final int read = cis.read(bytes, total, bytes.length - total);
-            if (read < 1) {
-                throw new ImagingException("Could not read block.");
-            }
-            total += read;
-            if (total >= length) {
-                return bytes;
-            }
-        }
-    }
-
-    private Block getFirstBlock() throws IOException {
-        if (null == headBlock) {
-            headBlock = readBlock();
+        if (position >= chunksLength) {
+            return spillChannel.read(ByteBuffer.wrap(array, off, (int) Math.min(len, length - position)), position - chunksLength);
         }
-        return headBlock;
+        // reads one chunk at a time
+        final int offset = (int) (position % chunkSize);
+        final int count = (int) Math.min(Math.min(len, chunkSize - offset), chunksLength - position);
+        System.arraycopy(chunks.get((int) (position / chunkSize)), offset, array, off, count);
+        return count;
     }
 
+    /**
+     * This operation can be VERY expensive; the entire stream must be buffered to determine its length.
+     */
     @Override
-    public InputStream getInputStream() throws IOException {
-        return new BlockInputStream();
-    }
-
-    private Block readBlock() throws IOException {
-        if (null == readBuffer) {
-            readBuffer = new byte[BLOCK_SIZE];
-        }
-
-        final int read = inputStream.read(readBuffer);
-        if (read < 1) {
-            return null;
-        }
-        if (read < BLOCK_SIZE) {
-            // return a copy.
-            return new Block(Arrays.copyOf(readBuffer, read));
-        }
-        // return current buffer.
-        final byte[] result = readBuffer;
-        readBuffer = null;
-        return new Block(result);
+    public synchronized long size() throws IOException {
+        fill(Long.MAX_VALUE);
+        return length;
     }
 
     @Override
-    public long size() throws IOException {
-        if (streamLength >= 0) {
-            return streamLength;
-        }
-
-        try (InputStream cis = getInputStream()) {
-            final long result = IOUtils.consume(cis);
-            streamLength = result;
-            return result;
-        }
+    synchronized long sizeUpTo(final long limit) throws IOException {
+        fill(limit);
+        return Math.min(length, limit);
     }
 
 }
@@ -47,4 +47,10 @@ final class BigEndianBinaryOutputStream extends BinaryOutputStream {
         write(0xff & value);
     }
 
+    @Override
+    public void write8Bytes(final long value) throws IOException {
+        write4Bytes((int) (value >> 32));
+        write4Bytes((int) value);
+    }
+
 }
@@ -58,4 +58,6 @@ public abstract class BinaryOutputStream extends FilterOutputStream {
     public abstract void write3Bytes(int value) throws IOException;
 
     public abstract void write4Bytes(int value) throws IOException;
+
+    public abstract void write8Bytes(long value) throws IOException;
 }
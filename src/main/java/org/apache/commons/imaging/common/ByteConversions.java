@@ -142,6 +142,21 @@ public final class ByteConversions {
         return result;
     }
 
+    /**
+     * Encodes an array of eight-byte (long) into an array of bytes based on the specified byte order.
+     *
+     * @param values    an array of long values
+     * @param byteOrder the byte order to be used for encoding
+     * @return an array of length 8 times the number of values
+     */
+    public static byte[] toBytes(final long[] values, final ByteOrder byteOrder) {
+        final byte[] result = Allocator.byteArray(values.length * 8L);
+        for (int i = 0; i < values.length; i++) {
+            toBytes(values[i], byteOrder, result, i * 8);
+        }
+        return result;
+    }
+
     private static void toBytes(final long value, final ByteOrder byteOrder, final byte[] result, final int offset) {
         if (byteOrder == ByteOrder.BIG_ENDIAN) {
             result[offset + 0] = (byte) (value >> 56);
@@ -270,4 +270,23 @@ public class ImageBuilder {
         }
         data[index] = argb;
     }
+
+    /**
+     * Sets the RGB or ARGB values for a run of consecutive pixels of a row, starting at position (x,y) within the image builder pixel field.
+     *
+     * @param x      the X coordinate of the first pixel to be set.
+     * @param y      the Y coordinate of the pixels to be set.
+     * @param argb   the RGB or ARGB values to be stored.
+     * @param offset the index of the value of the first pixel.
+     * @param count  the number of pixels to be set.
+     * @throws ArithmeticException       if the index computation overflows an int.
+     * @throws IndexOutOfBoundsException if the pixels are outside the pixel field, or the values outside the array.
+     */
+    public void setRgb(final int x, final int y, final int[] argb, final int offset, final int count) {
+        // Throw ArithmeticException if the result overflows an int.
+        final int rowOffset = Math.multiplyExact(y, width);
+        // Throw ArithmeticException if the result overflows an int.
+        final int index = Math.addExact(rowOffset, x);
+        System.arraycopy(argb, offset, data, index, count);
+    }
 }
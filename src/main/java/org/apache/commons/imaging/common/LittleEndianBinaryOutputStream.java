@@ -47,4 +47,10 @@ final class LittleEndianBinaryOutputStream extends BinaryOutputStream {
         write(0xff & value >> 24);
     }
 
+    @Override
+    public void write8Bytes(final long value) throws IOException {
+        write4Bytes((int) value);
+        write4Bytes((int) (value >> 32));
+    }
+
 }
@@ -25,7 +25,6 @@ import static org.apache.commons.imaging.common.BinaryFunctions.readBytes;
 
 import java.awt.Dimension;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -800,11 +799,10 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
 
             final GenericGifBlock block = readGenericGifBlock(is, -1);
             final byte[] bytes = block.appendSubBlocks();
-            final InputStream bais = new ByteArrayInputStream(bytes);
 
             final int size = imageWidth * imageHeight;
             final MyLzwDecompressor myLzwDecompressor = new MyLzwDecompressor(lzwMinimumCodeSize, ByteOrder.LITTLE_ENDIAN, false);
-            imageData = myLzwDecompressor.decompress(bais, size);
+            imageData = myLzwDecompressor.decompress(bytes, size);
         } else {
             final int LZWMinimumCodeSize = is.read();
             if (LOGGER.isLoggable(Level.FINEST)) {
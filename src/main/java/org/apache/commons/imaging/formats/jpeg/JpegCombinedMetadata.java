@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.jpeg;
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.imaging.ImageInfo;
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.formats.jpeg.segments.AbstractSegment;
+import org.apache.commons.imaging.formats.jpeg.segments.SofnSegment;
+import org.apache.commons.imaging.formats.jpeg.segments.UnknownSegment;
+import org.apache.commons.imaging.formats.tiff.TiffImageMetadata;
+import org.apache.commons.imaging.formats.tiff.TiffImagingParameters;
+
+/**
+ * The metadata segments of a JPEG file, read in a single traversal by {@link JpegImageParser#getCombinedMetadata}. The segments are kept as read, and each
+ * kind of metadata is only parsed the first time it is requested.
+ */
+public class JpegCombinedMetadata {
+
+    private final JpegImageParser parser;
+    private final JpegImagingParameters params;
+    private final List<UnknownSegment> segments;
+    private ImageInfo imageInfo;
+    private TiffImageMetadata exif;
+    private boolean exifParsed;
+    private JpegPhotoshopMetadata photoshop;
+    private boolean photoshopParsed;
+
+    JpegCombinedMetadata(final JpegImageParser parser, final JpegImagingParameters params, final List<UnknownSegment> segments) {
+        this.parser = parser;
+        this.params = params;
+        this.segments = segments;
+    }
+
+    /**
+     * Gets the EXIF metadata, with its thumbnails.
+     *
+     * @return the EXIF metadata, or {@code null} if the file has none.
+     * @throws ImagingException if the EXIF metadata is invalid.
+     * @throws IOException      if the EXIF metadata can't be read.
+     */
+    public TiffImageMetadata getExifMetadata() throws ImagingException, IOException {
+        if (!exifParsed) {
+            exif = parser.parseExifMetadata(getExifRawData(), new TiffImagingParameters());
+            exifParsed = true;
+        }
+        return exif;
+    }
+
+    /**
+     * Gets the EXIF data, without the EXIF identifier code.
+     *
+     * @return the EXIF data, or {@code null} if the file has none.
+     * @throws ImagingException if the EXIF data is split across several segments.
+     * @throws IOException      if the EXIF data can't be read.
+     */
+    public byte[] getExifRawData() throws ImagingException, IOException {
+        return parser.getExifRawData(getSegments(JpegConstants.JPEG_APP1_MARKER));
+    }
+
+    AbstractSegment getFirstSegment(final int marker) throws ImagingException, IOException {
+        for (final UnknownSegment segment : segments) {
+            if (segment.marker == marker) {
+                return JpegImageParser.createSegment(marker, segment.getSegmentData());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the ICC profile, assembled from its segments.
+     *
+     * @return the ICC profile, or {@code null} if the file has none.
+     * @throws ImagingException if the segments of the ICC profile are inconsistent.
+     * @throws IOException      if the segments of the ICC profile can't be read.
+     */
+    public byte[] getIccProfileBytes() throws ImagingException, IOException {
+        return parser.getIccProfileBytes(getSegments(JpegConstants.JPEG_APP2_MARKER));
+    }
+
+    /**
+     * Gets the image information, like {@link JpegImageParser#getImageInfo(org.apache.commons.imaging.bytesource.ByteSource, JpegImagingParameters)}.
+     *
+     * @return the image information.
+     * @throws ImagingException if the file has no frame header or invalid metadata.
+     * @throws IOException      if the metadata can't be read.
+     */
+    public ImageInfo getImageInfo() throws ImagingException, IOException {
+        if (imageInfo == null) {
+            imageInfo = parser.getImageInfo(this);
+        }
+        return imageInfo;
+    }
+
+    /**
+     * Gets the size of the image, from its frame header.
+     *
+     * @return the size of the image.
+     * @throws ImagingException if the file has no frame header.
+     * @throws IOException      if the frame header can't be read.
+     */
+    public Dimension getImageSize() throws ImagingException, IOException {
+        final SofnSegment sofnSegment = getSofnSegment();
+        if (sofnSegment == null) {
+            throw new ImagingException("No JFIF Data Found.");
+        }
+        return new Dimension(sofnSegment.width, sofnSegment.height);
+    }
+
+    /**
+     * Gets the EXIF and Photoshop metadata, like {@link JpegImageParser#getMetadata(org.apache.commons.imaging.bytesource.ByteSource, JpegImagingParameters)}.
+     *
+     * @return the metadata, or {@code null} if the file has neither EXIF nor Photoshop metadata.
+     * @throws ImagingException if the metadata is invalid.
+     * @throws IOException      if the metadata can't be read.
+     */
+    public JpegImageMetadata getMetadata() throws ImagingException, IOException {
+        final TiffImageMetadata exifMetadata = getExifMetadata();
+        final JpegPhotoshopMetadata photoshopMetadata = getPhotoshopMetadata();
+        if (null == exifMetadata && null == photoshopMetadata) {
+            return null;
+        }
+        return new JpegImageMetadata(photoshopMetadata, exifMetadata);
+    }
+
+    /**
+     * Gets the Photoshop metadata, with its IPTC records.
+     *
+     * @return the Photoshop metadata, or {@code null} if the file has none.
+     * @throws ImagingException if the Photoshop metadata is invalid.
+     * @throws IOException      if the Photoshop metadata can't be read.
+     */
+    public JpegPhotoshopMetadata getPhotoshopMetadata() throws ImagingException, IOException {
+        if (!photoshopParsed) {
+            photoshop = parser.getPhotoshopMetadata(getSegments(JpegConstants.JPEG_APP13_MARKER), params);
+            photoshopParsed = true;
+        }
+        return photoshop;
+    }
+
+    List<AbstractSegment> getSegments(final int marker) throws ImagingException, IOException {
+        final List<AbstractSegment> result = new ArrayList<>();
+        for (final UnknownSegment segment : segments) {
+            if (segment.marker == marker) {
+                result.add(JpegImageParser.createSegment(marker, segment.getSegmentData()));
+            }
+        }
+        return result;
+    }
+
+    SofnSegment getSofnSegment() throws ImagingException, IOException {
+        for (final UnknownSegment segment : segments) {
+            if (JpegImageParser.isSofnMarker(segment.marker)) {
+                return (SofnSegment) JpegImageParser.createSegment(segment.marker, segment.getSegmentData());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the XMP metadata.
+     *
+     * @return the XMP XML, or {@code null} if the file has none.
+     * @throws ImagingException if the XMP segment is invalid.
+     * @throws IOException      if the XMP segment can't be read.
+     */
+    public String getXmpXml() throws ImagingException, IOException {
+        return parser.getXmpXml(getSegments(JpegConstants.JPEG_APP1_MARKER));
+    }
+}
@@ -68,6 +68,45 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
 
     private static final String DEFAULT_EXTENSION = ImageFormats.JPEG.getDefaultExtension();
     private static final String[] ACCEPTED_EXTENSIONS = ImageFormats.JPEG.getExtensions();
+    private static final int[] SOFN_MARKERS = { JpegConstants.SOF0_MARKER, JpegConstants.SOF1_MARKER, JpegConstants.SOF2_MARKER, JpegConstants.SOF3_MARKER,
+            JpegConstants.SOF5_MARKER, JpegConstants.SOF6_MARKER, JpegConstants.SOF7_MARKER, JpegConstants.SOF9_MARKER, JpegConstants.SOF10_MARKER,
+            JpegConstants.SOF11_MARKER, JpegConstants.SOF13_MARKER, JpegConstants.SOF14_MARKER, JpegConstants.SOF15_MARKER, };
+
+    static boolean isSofnMarker(final int marker) {
+        return Arrays.binarySearch(SOFN_MARKERS, marker) >= 0;
+    }
+
+    /**
+     * Creates the segment of the given marker, the class of the segment depending on the marker.
+     *
+     * @return the segment, or null for the markers without segment class.
+     */
+    static AbstractSegment createSegment(final int marker, final byte[] segmentData) throws ImagingException, IOException {
+        switch (marker) {
+        case JpegConstants.JPEG_APP13_MARKER:
+            return new App13Segment(marker, segmentData);
+        case JpegConstants.JPEG_APP14_MARKER:
+            return new App14Segment(marker, segmentData);
+        case JpegConstants.JPEG_APP2_MARKER:
+            return new App2Segment(marker, segmentData);
+        case JpegConstants.JFIF_MARKER:
+            return new JfifSegment(marker, segmentData);
+        default:
+            if (isSofnMarker(marker)) {
+                return new SofnSegment(marker, segmentData);
+            }
+            if (marker == JpegConstants.DQT_MARKER) {
+                return new DqtSegment(marker, segmentData);
+            }
+            if (marker >= JpegConstants.JPEG_APP1_MARKER && marker <= JpegConstants.JPEG_APP15_MARKER) {
+                return new UnknownSegment(marker, segmentData);
+            }
+            if (marker == JpegConstants.COM_MARKER) {
+                return new ComSegment(marker, segmentData);
+            }
+            return null;
+        }
+    }
 
     public static boolean isExifApp1Segment(final GenericSegment segment) {
         return startsWith(segment.getSegmentData(), JpegConstants.EXIF_IDENTIFIER_CODE);
@@ -204,7 +243,7 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
 
     @Override
     public final BufferedImage getBufferedImage(final ByteSource byteSource, final JpegImagingParameters params) throws ImagingException, IOException {
-        final JpegDecoder jpegDecoder = new JpegDecoder();
+        final JpegDecoder jpegDecoder = new JpegDecoder(params);
         return jpegDecoder.decode(byteSource);
     }
 
@@ -218,8 +257,11 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
         return new JpegImagingParameters();
     }
 
-    public TiffImageMetadata getExifMetadata(final ByteSource byteSource, TiffImagingParameters params) throws ImagingException, IOException {
-        final byte[] bytes = getExifRawData(byteSource);
+    public TiffImageMetadata getExifMetadata(final ByteSource byteSource, final TiffImagingParameters params) throws ImagingException, IOException {
+        return parseExifMetadata(getExifRawData(byteSource), params);
+    }
+
+    TiffImageMetadata parseExifMetadata(final byte[] bytes, TiffImagingParameters params) throws ImagingException, IOException {
         if (null == bytes) {
             return null;
         }
@@ -233,8 +275,10 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
     }
 
     public byte[] getExifRawData(final ByteSource byteSource) throws ImagingException, IOException {
-        final List<AbstractSegment> abstractSegments = readSegments(byteSource, new int[] { JpegConstants.JPEG_APP1_MARKER, }, false);
+        return getExifRawData(readSegments(byteSource, new int[] { JpegConstants.JPEG_APP1_MARKER, }, false));
+    }
 
+    byte[] getExifRawData(final List<AbstractSegment> abstractSegments) throws ImagingException {
         if (abstractSegments == null || abstractSegments.isEmpty()) {
             return null;
         }
@@ -268,8 +312,10 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
 
     @Override
     public byte[] getIccProfileBytes(final ByteSource byteSource, final JpegImagingParameters params) throws ImagingException, IOException {
-        final List<AbstractSegment> abstractSegments = readSegments(byteSource, new int[] { JpegConstants.JPEG_APP2_MARKER, }, false);
+        return getIccProfileBytes(readSegments(byteSource, new int[] { JpegConstants.JPEG_APP2_MARKER, }, false));
+    }
 
+    byte[] getIccProfileBytes(final List<AbstractSegment> abstractSegments) throws ImagingException {
         final List<App2Segment> filtered = new ArrayList<>();
         if (abstractSegments != null) {
             // throw away non-icc profile app2 segments.
@@ -294,33 +340,58 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
         return bytes;
     }
 
-    @Override
-    public ImageInfo getImageInfo(final ByteSource byteSource, final JpegImagingParameters params) throws ImagingException, IOException {
-        // List allSegments = readSegments(byteSource, null, false);
-
-        final List<AbstractSegment> SOF_segments = readSegments(byteSource, new int[] {
-                // kJFIFMarker,
+    /**
+     * Reads the metadata segments of a JPEG file in a single traversal: the frame header, the JFIF, EXIF, XMP, ICC profile, Photoshop and Adobe application
+     * segments, and the comments. Each kind of metadata is only parsed when requested from the result, so this is the cheapest way to get several of them.
+     *
+     * @param byteSource the JPEG file.
+     * @param params     the parameters used to parse the Photoshop metadata, may be {@code null}.
+     * @return the metadata segments of the file.
+     * @throws ImagingException if the file is not a valid JPEG file.
+     * @throws IOException      if an I/O error occurs.
+     */
+    public JpegCombinedMetadata getCombinedMetadata(final ByteSource byteSource, final JpegImagingParameters params) throws ImagingException, IOException {
+        final List<UnknownSegment> segments = new ArrayList<>();
 
-                JpegConstants.SOF0_MARKER, JpegConstants.SOF1_MARKER, JpegConstants.SOF2_MARKER, JpegConstants.SOF3_MARKER, JpegConstants.SOF5_MARKER,
-                JpegConstants.SOF6_MARKER, JpegConstants.SOF7_MARKER, JpegConstants.SOF9_MARKER, JpegConstants.SOF10_MARKER, JpegConstants.SOF11_MARKER,
-                JpegConstants.SOF13_MARKER, JpegConstants.SOF14_MARKER, JpegConstants.SOF15_MARKER,
+        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
+            @Override
+            public boolean beginSegment(final int marker) {
+                return marker >= JpegConstants.JPEG_APP0_MARKER && marker <= JpegConstants.JPEG_APP15_MARKER || marker == JpegConstants.COM_MARKER
+                        || isSofnMarker(marker);
+            }
 
-        }, false);
+            // return false to exit before reading image data.
+            @Override
+            public boolean beginSos() {
+                return false;
+            }
 
-        if (SOF_segments == null) {
-            throw new ImagingException("No SOFN Data Found.");
-        }
+            // return false to exit traversal.
+            @Override
+            public boolean visitSegment(final int marker, final byte[] markerBytes, final int markerLength, final byte[] markerLengthBytes,
+                    final byte[] segmentData) {
+                // the segments are parsed when needed
+                segments.add(new UnknownSegment(marker, segmentData));
+                return true;
+            }
 
-        // if (SOF_segments.size() != 1)
-        // System.out.println("Incoherent SOFN Data Found: "
-        // + SOF_segments.size());
+            @Override
+            public void visitSos(final int marker, final byte[] markerBytes, final byte[] imageData) {
+                // don't need image data
+            }
+        };
+        new JpegUtils().traverseJfif(byteSource, visitor);
 
-        final List<AbstractSegment> jfifSegments = readSegments(byteSource, new int[] { JpegConstants.JFIF_MARKER, }, true);
+        return new JpegCombinedMetadata(this, params == null ? new JpegImagingParameters() : params, segments);
+    }
 
-        final SofnSegment fSOFNSegment = (SofnSegment) SOF_segments.get(0);
-        // SofnSegment fSOFNSegment = (SofnSegment) findSegment(segments,
-        // SOFNmarkers);
+    @Override
+    public ImageInfo getImageInfo(final ByteSource byteSource, final JpegImagingParameters params) throws ImagingException, IOException {
+        return getCombinedMetadata(byteSource, params).getImageInfo();
+    }
 
+    ImageInfo getImageInfo(final JpegCombinedMetadata combinedMetadata) throws ImagingException, IOException {
+        final SofnSegment fSOFNSegment = combinedMetadata.getSofnSegment();
         if (fSOFNSegment == null) {
             throw new ImagingException("No SOFN Data Found.");
         }
@@ -328,17 +399,8 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
         final int width = fSOFNSegment.width;
         final int height = fSOFNSegment.height;
 
-        JfifSegment jfifSegment = null;
-
-        if (jfifSegments != null && !jfifSegments.isEmpty()) {
-            jfifSegment = (JfifSegment) jfifSegments.get(0);
-        }
-
-        final List<AbstractSegment> app14Segments = readSegments(byteSource, new int[] { JpegConstants.JPEG_APP14_MARKER }, true);
-        App14Segment app14Segment = null;
-        if (app14Segments != null && !app14Segments.isEmpty()) {
-            app14Segment = (App14Segment) app14Segments.get(0);
-        }
+        final JfifSegment jfifSegment = (JfifSegment) combinedMetadata.getFirstSegment(JpegConstants.JFIF_MARKER);
+        final App14Segment app14Segment = (App14Segment) combinedMetadata.getFirstSegment(JpegConstants.JPEG_APP14_MARKER);
 
         // JfifSegment fTheJFIFSegment = (JfifSegment) findSegment(segments,
         // kJFIFMarker);
@@ -372,7 +434,7 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
                 break;
             }
         } else {
-            final JpegImageMetadata metadata = (JpegImageMetadata) getMetadata(byteSource, params);
+            final JpegImageMetadata metadata = combinedMetadata.getMetadata();
 
             if (metadata != null) {
                 {
@@ -425,7 +487,7 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
             physicalHeightInch = (float) (height / (yDensity * unitsPerInch));
         }
 
-        final List<AbstractSegment> commentSegments = readSegments(byteSource, new int[] { JpegConstants.COM_MARKER }, false);
+        final List<AbstractSegment> commentSegments = combinedMetadata.getSegments(JpegConstants.COM_MARKER);
         final List<String> comments = Allocator.arrayList(commentSegments.size());
         for (final AbstractSegment commentSegment : commentSegments) {
             final ComSegment comSegment = (ComSegment) commentSegment;
@@ -635,19 +697,8 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
     }
 
     @Override
-    public ImageMetadata getMetadata(final ByteSource byteSource, JpegImagingParameters params) throws ImagingException, IOException {
-        if (params == null) {
-            params = new JpegImagingParameters();
-        }
-        final TiffImageMetadata exif = getExifMetadata(byteSource, new TiffImagingParameters());
-
-        final JpegPhotoshopMetadata photoshop = getPhotoshopMetadata(byteSource, params);
-
-        if (null == exif && null == photoshop) {
-            return null;
-        }
-
-        return new JpegImageMetadata(photoshop, exif);
+    public ImageMetadata getMetadata(final ByteSource byteSource, final JpegImagingParameters params) throws ImagingException, IOException {
+        return getCombinedMetadata(byteSource, params).getMetadata();
     }
 
     @Override
@@ -656,8 +707,11 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
     }
 
     public JpegPhotoshopMetadata getPhotoshopMetadata(final ByteSource byteSource, final JpegImagingParameters params) throws ImagingException, IOException {
-        final List<AbstractSegment> abstractSegments = readSegments(byteSource, new int[] { JpegConstants.JPEG_APP13_MARKER, }, false);
+        return getPhotoshopMetadata(readSegments(byteSource, new int[] { JpegConstants.JPEG_APP13_MARKER, }, false), params);
+    }
 
+    JpegPhotoshopMetadata getPhotoshopMetadata(final List<AbstractSegment> abstractSegments, final JpegImagingParameters params)
+            throws ImagingException, IOException {
         if (abstractSegments == null || abstractSegments.isEmpty()) {
             return null;
         }
@@ -696,6 +750,11 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
         final List<String> result = new ArrayList<>();
 
         final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
+            @Override
+            public boolean beginSegment(final int marker) {
+                return marker == JpegConstants.JPEG_APP1_MARKER;
+            }
+
             // return false to exit before reading image data.
             @Override
             public boolean beginSos() {
@@ -736,10 +795,25 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
         return result.get(0);
     }
 
+    String getXmpXml(final List<AbstractSegment> abstractSegments) throws ImagingException {
+        for (final AbstractSegment s : abstractSegments) {
+            final byte[] segmentData = ((GenericSegment) s).getSegmentData();
+            if (new JpegXmpParser().isXmpJpegSegment(segmentData)) {
+                return new JpegXmpParser().parseXmpJpegSegment(segmentData);
+            }
+        }
+        return null;
+    }
+
     public boolean hasExifSegment(final ByteSource byteSource) throws ImagingException, IOException {
         final boolean[] result = { false, };
 
         final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
+            @Override
+            public boolean beginSegment(final int marker) {
+                return marker == JpegConstants.JPEG_APP1_MARKER;
+            }
+
             // return false to exit before reading image data.
             @Override
             public boolean beginSos() {
@@ -779,6 +853,11 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
         final boolean[] result = { false, };
 
         final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
+            @Override
+            public boolean beginSegment(final int marker) {
+                return marker == JpegConstants.JPEG_APP13_MARKER;
+            }
+
             // return false to exit before reading image data.
             @Override
             public boolean beginSos() {
@@ -818,6 +897,11 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
         final boolean[] result = { false, };
 
         final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
+            @Override
+            public boolean beginSegment(final int marker) {
+                return marker == JpegConstants.JPEG_APP1_MARKER;
+            }
+
             // return false to exit before reading image data.
             @Override
             public boolean beginSos() {
@@ -869,13 +953,13 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
     public List<AbstractSegment> readSegments(final ByteSource byteSource, final int[] markers, final boolean returnAfterFirst)
             throws ImagingException, IOException {
         final List<AbstractSegment> result = new ArrayList<>();
-        final int[] sofnSegments = {
-                // kJFIFMarker,
-                JpegConstants.SOF0_MARKER, JpegConstants.SOF1_MARKER, JpegConstants.SOF2_MARKER, JpegConstants.SOF3_MARKER, JpegConstants.SOF5_MARKER,
-                JpegConstants.SOF6_MARKER, JpegConstants.SOF7_MARKER, JpegConstants.SOF9_MARKER, JpegConstants.SOF10_MARKER, JpegConstants.SOF11_MARKER,
-                JpegConstants.SOF13_MARKER, JpegConstants.SOF14_MARKER, JpegConstants.SOF15_MARKER, };
 
         final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
+            @Override
+            public boolean beginSegment(final int marker) {
+                return keepMarker(marker, markers);
+            }
+
             // return false to exit before reading image data.
             @Override
             public boolean beginSos() {
@@ -900,31 +984,9 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
                     return true;
                 }
 
-                switch (marker) {
-                case JpegConstants.JPEG_APP13_MARKER:
-                    // Debug.debug("app 13 segment data", segmentData.length);
-                    result.add(new App13Segment(marker, segmentData));
-                    break;
-                case JpegConstants.JPEG_APP14_MARKER:
-                    result.add(new App14Segment(marker, segmentData));
-                    break;
-                case JpegConstants.JPEG_APP2_MARKER:
-                    result.add(new App2Segment(marker, segmentData));
-                    break;
-                case JpegConstants.JFIF_MARKER:
-                    result.add(new JfifSegment(marker, segmentData));
-                    break;
-                default:
-                    if (Arrays.binarySearch(sofnSegments, marker) >= 0) {
-                        result.add(new SofnSegment(marker, segmentData));
-                    } else if (marker == JpegConstants.DQT_MARKER) {
-                        result.add(new DqtSegment(marker, segmentData));
-                    } else if (marker >= JpegConstants.JPEG_APP1_MARKER && marker <= JpegConstants.JPEG_APP15_MARKER) {
-                        result.add(new UnknownSegment(marker, segmentData));
-                    } else if (marker == JpegConstants.COM_MARKER) {
-                        result.add(new ComSegment(marker, segmentData));
-                    }
-                    break;
+                final AbstractSegment segment = createSegment(marker, segmentData);
+                if (segment != null) {
+                    result.add(segment);
                 }
 
                 return !returnAfterFirst;
@@ -15,6 +15,8 @@
 
 package org.apache.commons.imaging.formats.jpeg;
 
+import java.util.concurrent.Executor;
+
 import org.apache.commons.imaging.common.XmpImagingParameters;
 
 /**
@@ -23,5 +25,61 @@ import org.apache.commons.imaging.common.XmpImagingParameters;
  * @since 1.0-alpha3
  */
 public class JpegImagingParameters extends XmpImagingParameters<JpegImagingParameters> {
-    // empty
+
+    /**
+     * Executor used to decode the restart intervals of sequential images concurrently. Default is {@code null}, decoding on the calling thread.
+     */
+    private Executor executor;
+
+    /**
+     * Denominator of the size at which images are decoded, one of 1, 2, 4 or 8. Default is 1, decoding at full size.
+     */
+    private int scaleDenominator = 1;
+
+    /**
+     * Gets the executor used to decode the restart intervals of sequential images concurrently.
+     *
+     * @return the executor, or {@code null} to decode on the calling thread.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Gets the denominator of the size at which images are decoded.
+     *
+     * @return 1, 2, 4 or 8 to decode images at full, half, quarter or eighth size.
+     */
+    public int getScaleDenominator() {
+        return scaleDenominator;
+    }
+
+    /**
+     * Sets the executor used to decode the restart intervals of sequential images concurrently, for example a {@link java.util.concurrent.ForkJoinPool}.
+     * Only images with a restart interval (DRI segment) benefit from it, other images are still decoded on the calling thread.
+     *
+     * @param executor the executor, or {@code null} to decode on the calling thread.
+     * @return this instance.
+     */
+    public JpegImagingParameters setExecutor(final Executor executor) {
+        this.executor = executor;
+        return asThis();
+    }
+
+    /**
+     * Sets the denominator of the size at which images are decoded. A downscaled image is produced directly from the low frequency DCT coefficients of each
+     * block, which is much faster than decoding the full image and scaling it afterwards, for example to create thumbnails. The width and height of the image
+     * are divided by the denominator and rounded up.
+     *
+     * @param scaleDenominator 1, 2, 4 or 8 to decode images at full, half, quarter or eighth size.
+     * @return this instance.
+     * @throws IllegalArgumentException if the denominator is not 1, 2, 4 or 8.
+     */
+    public JpegImagingParameters setScaleDenominator(final int scaleDenominator) {
+        if (scaleDenominator != 1 && scaleDenominator != 2 && scaleDenominator != 4 && scaleDenominator != 8) {
+            throw new IllegalArgumentException("Invalid scale denominator " + scaleDenominator + ", must be 1, 2, 4 or 8");
+        }
+        this.scaleDenominator = scaleDenominator;
+        return asThis();
+    }
 }
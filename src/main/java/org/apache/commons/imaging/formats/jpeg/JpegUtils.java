@@ -16,6 +16,7 @@
  */
 package org.apache.commons.imaging.formats.jpeg;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteOrder;
@@ -30,6 +31,11 @@ import org.apache.commons.io.IOUtils;
 
 public class JpegUtils extends BinaryFileParser {
     public interface Visitor {
+        // return false to skip the data of the segment without visiting it.
+        default boolean beginSegment(final int marker) {
+            return true;
+        }
+
         // return false to exit before reading image data.
         boolean beginSos();
 
@@ -117,6 +123,21 @@ public class JpegUtils extends BinaryFileParser {
         }
     }
 
+    private static void skipSegmentData(final InputStream is, final long length) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            long skipped = is.skip(remaining);
+            if (skipped <= 0) {
+                // streams may skip nothing without being at their end
+                if (is.read() < 0) {
+                    throw new IOException("Invalid Segment: insufficient data");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
     public JpegUtils() {
         super(ByteOrder.BIG_ENDIAN);
     }
@@ -148,8 +169,17 @@ public class JpegUtils extends BinaryFileParser {
         traverseJfif(byteSource, visitor);
     }
 
+    /**
+     * Traverses the segments of a JPEG file. The data of the segments the visitor doesn't need is skipped, and the image data following the SOS marker is only
+     * read if the visitor begins it.
+     *
+     * @param byteSource the JPEG file.
+     * @param visitor    the visitor of the segments.
+     * @throws ImagingException if the file is not a valid JPEG file.
+     * @throws IOException      if an I/O error occurs.
+     */
     public void traverseJfif(final ByteSource byteSource, final Visitor visitor) throws ImagingException, IOException {
-        try (InputStream is = byteSource.getInputStream()) {
+        try (InputStream is = new BufferedInputStream(byteSource.getInputStream())) {
             BinaryFunctions.readAndVerifyBytes(is, JpegConstants.SOI, "Not a Valid JPEG File: doesn't begin with 0xffd8");
 
             int markerCount;
@@ -177,6 +207,11 @@ public class JpegUtils extends BinaryFileParser {
                     throw new ImagingException("Invalid segment size");
                 }
 
+                if (!visitor.beginSegment(marker)) {
+                    skipSegmentData(is, segmentLength - 2);
+                    continue;
+                }
+
                 final byte[] segmentData = BinaryFunctions.readBytes("Segment Data", is, segmentLength - 2, "Invalid Segment: insufficient data");
 
                 if (!visitor.visitSegment(marker, markerBytes, segmentLength, segmentLengthBytes, segmentData)) {
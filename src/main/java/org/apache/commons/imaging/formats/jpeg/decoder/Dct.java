@@ -65,6 +65,10 @@ final class Dct {
     private static final float Q = C2 - C6;
     private static final float R = C2 + C6;
 
+    private static final float HALF_COS_1_8 = (float) (0.5 * Math.cos(Math.PI / 8.0));
+    private static final float HALF_COS_3_8 = (float) (0.5 * Math.cos(3.0 * Math.PI / 8.0));
+    private static final float HALF_SQRT_1_2 = (float) (0.5 / Math.sqrt(2.0));
+
     /**
      * Fast forward Dct using AA&N. Taken from the book "JPEG still image data compression standard", by Pennebaker and Mitchell, chapter 4, figure "4-8".
      *
@@ -316,6 +320,54 @@ final class Dct {
         }
     }
 
+    /**
+     * Inverse Dct of the 2x2 lowest frequency coefficients of an 8x8 block of dequantized (unscaled) coefficients, giving the block downscaled to 2x2 samples.
+     * The coefficients and the samples are stored in the top left corner of the matrix, with rows of 8 elements.
+     *
+     * @param matrix 8x8 matrix, transformed in place.
+     */
+    public static void inverseDct2x2(final float[] matrix) {
+        final float a0 = matrix[0] + matrix[8];
+        final float a1 = matrix[1] + matrix[9];
+        final float b0 = matrix[0] - matrix[8];
+        final float b1 = matrix[1] - matrix[9];
+        matrix[0] = (a0 + a1) * 0.125f;
+        matrix[1] = (a0 - a1) * 0.125f;
+        matrix[8] = (b0 + b1) * 0.125f;
+        matrix[9] = (b0 - b1) * 0.125f;
+    }
+
+    /**
+     * Inverse Dct of the 4x4 lowest frequency coefficients of an 8x8 block of dequantized (unscaled) coefficients, giving the block downscaled to 4x4 samples.
+     * The coefficients and the samples are stored in the top left corner of the matrix, with rows of 8 elements.
+     *
+     * @param matrix 8x8 matrix, transformed in place.
+     */
+    public static void inverseDct4x4(final float[] matrix) {
+        float e0, e1, o0, o1;
+        for (int i = 0; i < 4; i++) {
+            e0 = (matrix[8 * i] + matrix[8 * i + 2]) * HALF_SQRT_1_2;
+            e1 = (matrix[8 * i] - matrix[8 * i + 2]) * HALF_SQRT_1_2;
+            o0 = matrix[8 * i + 1] * HALF_COS_1_8 + matrix[8 * i + 3] * HALF_COS_3_8;
+            o1 = matrix[8 * i + 1] * HALF_COS_3_8 - matrix[8 * i + 3] * HALF_COS_1_8;
+            matrix[8 * i] = e0 + o0;
+            matrix[8 * i + 1] = e1 + o1;
+            matrix[8 * i + 2] = e1 - o1;
+            matrix[8 * i + 3] = e0 - o0;
+        }
+
+        for (int i = 0; i < 4; i++) {
+            e0 = (matrix[i] + matrix[16 + i]) * HALF_SQRT_1_2;
+            e1 = (matrix[i] - matrix[16 + i]) * HALF_SQRT_1_2;
+            o0 = matrix[8 + i] * HALF_COS_1_8 + matrix[24 + i] * HALF_COS_3_8;
+            o1 = matrix[8 + i] * HALF_COS_3_8 - matrix[24 + i] * HALF_COS_1_8;
+            matrix[i] = e0 + o0;
+            matrix[8 + i] = e1 + o1;
+            matrix[16 + i] = e1 - o1;
+            matrix[24 + i] = e0 - o0;
+        }
+    }
+
     public static void scaleDequantizationMatrix(final float[] matrix) {
         for (int y = 0; y < 8; y++) {
             for (int x = 0; x < 8; x++) {
@@ -30,13 +30,18 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.imaging.color.ColorConversions;
 import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.BinaryFileParser;
+import org.apache.commons.imaging.common.ByteConversions;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
+import org.apache.commons.imaging.formats.jpeg.JpegImagingParameters;
 import org.apache.commons.imaging.formats.jpeg.JpegUtils;
 import org.apache.commons.imaging.formats.jpeg.segments.DhtSegment;
 import org.apache.commons.imaging.formats.jpeg.segments.DhtSegment.HuffmanTable;
@@ -49,6 +54,8 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
 
     private static final int[] BAND_MASK_ARGB = { 0x00ff0000, 0x0000ff00, 0x000000ff, 0xff000000 };
     private static final int[] BAND_MASK_RGB = { 0x00ff0000, 0x0000ff00, 0x000000ff };
+    // minimum number of MCUs decoded by a task when decoding restart intervals concurrently
+    private static final int MIN_MCUS_PER_TASK = 256;
 
     /*
      * JPEG is an advanced image format that takes significant computation to decode. Keep decoding fast: - Don't allocate memory inside loops, allocate it once
@@ -65,25 +72,28 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
      * of restart markers found is equal to the number of start positions minus one (because restart markers are between intervals).
      *
      * @param scanPayload array to examine
+     * @param start       the start of the entropy-coded data in the array, inclusive
+     * @param end         the end of the entropy-coded data in the array, exclusive
      * @return the start positions
      */
-    static List<Integer> getIntervalStartPositions(final int[] scanPayload) {
+    static List<Integer> getIntervalStartPositions(final byte[] scanPayload, final int start, final int end) {
         final List<Integer> intervalStarts = new ArrayList<>();
-        intervalStarts.add(0);
+        intervalStarts.add(start);
         boolean foundFF = false;
         boolean foundD0toD7 = false;
-        int pos = 0;
-        while (pos < scanPayload.length) {
+        int pos = start;
+        while (pos < end) {
+            final int value = 0xff & scanPayload[pos];
             if (foundFF) {
                 // found 0xFF D0 .. 0xFF D7 => RST marker
-                if (scanPayload[pos] >= (0xff & JpegConstants.RST0_MARKER) && scanPayload[pos] <= (0xff & JpegConstants.RST7_MARKER)) {
+                if (value >= (0xff & JpegConstants.RST0_MARKER) && value <= (0xff & JpegConstants.RST7_MARKER)) {
                     foundD0toD7 = true;
                 } else { // found 0xFF followed by something else => no RST marker
                     foundFF = false;
                 }
             }
 
-            if (scanPayload[pos] == 0xFF) {
+            if (value == 0xFF) {
                 foundFF = true;
             }
 
@@ -100,13 +110,15 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
     }
 
     /**
-     * Returns an array of JpegInputStream where each field contains the JpegInputStream for one interval.
+     * Returns an array of JpegInputStream where each field contains the JpegInputStream for one interval. The streams read the provided array in place.
      *
      * @param scanPayload array to read intervals from
+     * @param start       the start of the entropy-coded data in the array, inclusive
+     * @param end         the end of the entropy-coded data in the array, exclusive
      * @return JpegInputStreams for all intervals, at least one stream is always provided
      */
-    static JpegInputStream[] splitByRstMarkers(final int[] scanPayload) {
-        final List<Integer> intervalStarts = getIntervalStartPositions(scanPayload);
+    static JpegInputStream[] splitByRstMarkers(final byte[] scanPayload, final int start, final int end) {
+        final List<Integer> intervalStarts = getIntervalStartPositions(scanPayload, start, end);
         // get number of intervals in payload to init an array of appropriate length
         final int intervalCount = intervalStarts.size();
         final JpegInputStream[] streams = Allocator.array(intervalCount, JpegInputStream[]::new, JpegInputStream.SHALLOW_SIZE);
@@ -118,10 +130,9 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                 // this interval is two bytes before the next interval starts
                 to = intervalStarts.get(i + 1) - 2;
             } else { // the last interval ends with the array
-                to = scanPayload.length;
+                to = end;
             }
-            final int[] interval = Arrays.copyOfRange(scanPayload, from, to);
-            streams[i] = new JpegInputStream(interval);
+            streams[i] = new JpegInputStream(scanPayload, from, to);
         }
         return streams;
     }
@@ -131,11 +142,28 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
     private final DhtSegment.HuffmanTable[] huffmanACTables = new DhtSegment.HuffmanTable[4];
     private SofnSegment sofnSegment;
     private SosSegment sosSegment;
+    private int restartInterval;
+    private boolean progressive;
+    private int hMax;
+    private int vMax;
     private final float[][] scaledQuantizationTables = new float[4][];
+    // dequantization tables in natural order without the AA&N scaling, for the reduced-size IDCTs
+    private final float[][] quantizationMatrices = new float[4][];
+    // the samples produced per block row and column of a component that is not subsampled: 8 / scale denominator
+    private final int blockSize;
+    private int outputWidth;
+    private int outputHeight;
     private BufferedImage image;
     private ImagingException imageReadException;
     private IOException ioException;
 
+    // quantized coefficients in zigzag order of all the blocks of each frame component,
+    // kept across the scans of progressive and other multi-scan images
+    private short[][] coefficients;
+    private int[] blocksPerLine;
+    // remaining blocks of the current end-of-band run in a progressive AC scan
+    private int eobrun;
+
     private final int[] zz = new int[64];
 
     private final int[] blockInt = new int[64];
@@ -144,31 +172,123 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
 
     private boolean useTiffRgb;
 
-    private Block[] allocateMcuMemory() throws ImagingException {
-        final Block[] mcu = Allocator.array(sosSegment.numberOfComponents, Block[]::new, Block.SHALLOW_SIZE);
-        for (int i = 0; i < sosSegment.numberOfComponents; i++) {
-            final SosSegment.Component scanComponent = sosSegment.getComponents(i);
-            SofnSegment.Component frameComponent = null;
-            for (int j = 0; j < sofnSegment.numberOfComponents; j++) {
-                if (sofnSegment.getComponents(j).componentIdentifier == scanComponent.scanComponentSelector) {
-                    frameComponent = sofnSegment.getComponents(j);
-                    break;
-                }
-            }
-            if (frameComponent == null) {
-                throw new ImagingException("Invalid component");
-            }
-            final Block fullBlock = new Block(8 * frameComponent.horizontalSamplingFactor, 8 * frameComponent.verticalSamplingFactor);
+    private final Executor executor;
+
+    public JpegDecoder() {
+        this((JpegImagingParameters) null);
+    }
+
+    /**
+     * Constructs a new decoder.
+     *
+     * @param params the decoding parameters, may be {@code null}.
+     */
+    public JpegDecoder(final JpegImagingParameters params) {
+        executor = params == null ? null : params.getExecutor();
+        blockSize = 8 / (params == null ? 1 : params.getScaleDenominator());
+    }
+
+    /**
+     * Constructs a decoder sharing the tables and headers of the given decoder, with its own buffers, to decode a part of the same scan.
+     */
+    private JpegDecoder(final JpegDecoder decoder) {
+        System.arraycopy(decoder.quantizationTables, 0, quantizationTables, 0, quantizationTables.length);
+        System.arraycopy(decoder.huffmanDCTables, 0, huffmanDCTables, 0, huffmanDCTables.length);
+        System.arraycopy(decoder.huffmanACTables, 0, huffmanACTables, 0, huffmanACTables.length);
+        System.arraycopy(decoder.scaledQuantizationTables, 0, scaledQuantizationTables, 0, scaledQuantizationTables.length);
+        System.arraycopy(decoder.quantizationMatrices, 0, quantizationMatrices, 0, quantizationMatrices.length);
+        sofnSegment = decoder.sofnSegment;
+        sosSegment = decoder.sosSegment;
+        restartInterval = decoder.restartInterval;
+        progressive = decoder.progressive;
+        hMax = decoder.hMax;
+        vMax = decoder.vMax;
+        useTiffRgb = decoder.useTiffRgb;
+        blockSize = decoder.blockSize;
+        outputWidth = decoder.outputWidth;
+        outputHeight = decoder.outputHeight;
+        executor = null;
+    }
+
+    private void allocateCoefficients() {
+        if (coefficients != null) {
+            return;
+        }
+        final int xMCUs = (sofnSegment.width + 8 * hMax - 1) / (8 * hMax);
+        final int yMCUs = (sofnSegment.height + 8 * vMax - 1) / (8 * vMax);
+        coefficients = new short[sofnSegment.numberOfComponents][];
+        blocksPerLine = new int[sofnSegment.numberOfComponents];
+        for (int i = 0; i < sofnSegment.numberOfComponents; i++) {
+            final SofnSegment.Component frameComponent = sofnSegment.getComponents(i);
+            blocksPerLine[i] = xMCUs * frameComponent.horizontalSamplingFactor;
+            final long blocks = (long) blocksPerLine[i] * yMCUs * frameComponent.verticalSamplingFactor;
+            coefficients[i] = Allocator.shortArray(Allocator.check(64 * blocks, Short.BYTES));
+        }
+    }
+
+    private Block[] allocateMcuMemory(final SofnSegment.Component[] frameComponents) {
+        final Block[] mcu = Allocator.array(frameComponents.length, Block[]::new, Block.SHALLOW_SIZE);
+        for (int i = 0; i < frameComponents.length; i++) {
+            final SofnSegment.Component frameComponent = frameComponents[i];
+            final int size = getBlockSize(frameComponent);
+            final Block fullBlock = new Block(size * frameComponent.horizontalSamplingFactor, size * frameComponent.verticalSamplingFactor);
             mcu[i] = fullBlock;
         }
         return mcu;
     }
 
+    @Override
+    public boolean beginSegment(final int marker) {
+        // application and comment segments don't affect decoding
+        return marker != JpegConstants.COM_MARKER && (marker < JpegConstants.JPEG_APP0_MARKER || marker > JpegConstants.JPEG_APP15_MARKER);
+    }
+
     @Override
     public boolean beginSos() {
         return true;
     }
 
+    private BufferedImage createImage() throws ImagingException {
+        ColorModel colorModel;
+        WritableRaster raster;
+        Allocator.check(Integer.BYTES * outputWidth * outputHeight);
+        switch (sofnSegment.numberOfComponents) {
+        case 4:
+            // Special handling for the application-RGB case: TIFF files with
+            // JPEG compression can support an alpha channel. This extension
+            // to the JPEG standard is implemented by specifying a color model
+            // with a fourth channel for alpha.
+            if (useTiffRgb) {
+                colorModel = new DirectColorModel(32, 0x00ff0000, 0x0000ff00, 0x000000ff, 0xff000000);
+                raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, outputWidth, outputHeight, BAND_MASK_ARGB, null);
+            } else {
+                colorModel = new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff);
+                raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, outputWidth, outputHeight, BAND_MASK_RGB, null);
+            }
+
+            break;
+        case 3:
+            colorModel = new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff);
+            raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, outputWidth, outputHeight, new int[] { 0x00ff0000, 0x0000ff00, 0x000000ff },
+                    null);
+            break;
+        case 1:
+            colorModel = new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff);
+            raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, outputWidth, outputHeight, new int[] { 0x00ff0000, 0x0000ff00, 0x000000ff },
+                    null);
+            // FIXME: why do images come out too bright with CS_GRAY?
+            // colorModel = new ComponentColorModel(
+            // ColorSpace.getInstance(ColorSpace.CS_GRAY), false, true,
+            // Transparency.OPAQUE, DataBuffer.TYPE_BYTE);
+            // raster = colorModel.createCompatibleWritableRaster(
+            // sofnSegment.width, sofnSegment.height);
+            break;
+        default:
+            throw new ImagingException(sofnSegment.numberOfComponents + " components are invalid or unsupported");
+        }
+        return new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), new Properties());
+    }
+
     public BufferedImage decode(final ByteSource byteSource) throws IOException, ImagingException {
         final JpegUtils jpegUtils = new JpegUtils();
         jpegUtils.traverseJfif(byteSource, this);
@@ -182,6 +302,12 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
     }
 
     private int decode(final JpegInputStream is, final DhtSegment.HuffmanTable huffmanTable) throws ImagingException {
+        // most codes are short enough to be resolved by a single table lookup
+        final int lookahead = huffmanTable.getLookahead(is.peekBits(HuffmanTable.LOOKAHEAD_BITS));
+        if (lookahead != 0) {
+            is.skipBits(lookahead >> 8);
+            return lookahead & 0xff;
+        }
         // "DECODE", section F.2.2.3, figure F.16, page 109 of T.81
         int i = 1;
         int code = is.nextBit();
@@ -194,6 +320,345 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
         return huffmanTable.getHuffVal(j);
     }
 
+    private void decodeAcFirst(final JpegInputStream is, final DhtSegment.HuffmanTable huffmanTable, final short[] coefficients, final int offset)
+            throws ImagingException {
+        // "Decoding of AC coefficients in progressive mode", section G.1.2.2 of T.81
+        if (eobrun > 0) {
+            eobrun--;
+            return;
+        }
+        final int se = sosSegment.endOfSpectralSelection;
+        final int al = sosSegment.successiveApproximationBitLow;
+        for (int k = sosSegment.startOfSpectralSelection; k <= se; k++) {
+            final int rs = decode(is, huffmanTable);
+            final int ssss = rs & 0xf;
+            final int r = rs >> 4;
+            if (ssss == 0) {
+                if (r != 15) {
+                    // EOBn: this block and the next 2^n - 1 + appended bits blocks end here
+                    eobrun = (1 << r) - 1 + receive(r, is);
+                    break;
+                }
+                k += 15;
+            } else {
+                k += r;
+                if (k > se) {
+                    throw new ImagingException("Invalid AC coefficient index " + k);
+                }
+                coefficients[offset + k] = (short) (extend(receive(ssss, is), ssss) << al);
+            }
+        }
+    }
+
+    private void decodeAcRefine(final JpegInputStream is, final DhtSegment.HuffmanTable huffmanTable, final short[] coefficients, final int offset)
+            throws ImagingException {
+        // "Decoding of AC coefficients in progressive mode", section G.1.2.3 of T.81
+        final int se = sosSegment.endOfSpectralSelection;
+        final int p1 = 1 << sosSegment.successiveApproximationBitLow;
+        final int m1 = -1 << sosSegment.successiveApproximationBitLow;
+        int k = sosSegment.startOfSpectralSelection;
+        if (eobrun == 0) {
+            for (; k <= se; k++) {
+                final int rs = decode(is, huffmanTable);
+                int r = rs >> 4;
+                int newValue = 0;
+                if ((rs & 0xf) != 0) {
+                    // a coefficient becoming nonzero is always +/-1 at this bit position
+                    newValue = is.nextBit() != 0 ? p1 : m1;
+                } else if (r != 15) {
+                    eobrun = (1 << r) + receive(r, is);
+                    break;
+                }
+                // skip r zero coefficients, appending correction bits to the nonzero ones passed on the way
+                while (k <= se) {
+                    final int index = offset + k;
+                    if (coefficients[index] != 0) {
+                        refineCoefficient(is, coefficients, index, p1, m1);
+                    } else {
+                        if (r == 0) {
+                            break;
+                        }
+                        r--;
+                    }
+                    k++;
+                }
+                if (newValue != 0) {
+                    if (k > se) {
+                        throw new ImagingException("Invalid AC coefficient index " + k);
+                    }
+                    coefficients[offset + k] = (short) newValue;
+                }
+            }
+        }
+        if (eobrun > 0) {
+            // the rest of the block is in the end-of-band run, only correction bits follow
+            for (; k <= se; k++) {
+                final int index = offset + k;
+                if (coefficients[index] != 0) {
+                    refineCoefficient(is, coefficients, index, p1, m1);
+                }
+            }
+            eobrun--;
+        }
+    }
+
+    private void decodeDataUnit(final JpegInputStream is, final int scanComponentIndex, final int[] preds, final short[] coefficients, final int offset)
+            throws ImagingException {
+        final SosSegment.Component scanComponent = sosSegment.getComponents(scanComponentIndex);
+        if (!progressive) {
+            Arrays.fill(zz, 0);
+            preds[scanComponentIndex] = readDataUnit(is, scanComponent, preds[scanComponentIndex], zz);
+            for (int k = 0; k < 64; k++) {
+                coefficients[offset + k] = (short) zz[k];
+            }
+        } else if (sosSegment.startOfSpectralSelection == 0) {
+            // "Decoding of DC coefficients", section G.1.2.1 of T.81
+            if (sosSegment.successiveApproximationBitHigh == 0) {
+                final int t = decode(is, huffmanDCTables[scanComponent.dcCodingTableSelector]);
+                preds[scanComponentIndex] += extend(receive(t, is), t);
+                coefficients[offset] = (short) (preds[scanComponentIndex] << sosSegment.successiveApproximationBitLow);
+            } else if (is.nextBit() != 0) {
+                coefficients[offset] |= 1 << sosSegment.successiveApproximationBitLow;
+            }
+        } else if (sosSegment.successiveApproximationBitHigh == 0) {
+            decodeAcFirst(is, huffmanACTables[scanComponent.acCodingTableSelector], coefficients, offset);
+        } else {
+            decodeAcRefine(is, huffmanACTables[scanComponent.acCodingTableSelector], coefficients, offset);
+        }
+    }
+
+    /**
+     * Dequantizes and transforms the coefficients of one block, storing the samples into the given position of a MCU block. Downscaled images only use the
+     * lowest frequency coefficients, transformed by a reduced-size IDCT.
+     */
+    private void decodeBlock(final int[] zz, final SofnSegment.Component frameComponent, final Block fullBlock, final int x, final int y) {
+        final int shift = 1 << sofnSegment.precision - 1;
+        final int max = (1 << sofnSegment.precision) - 1;
+
+        final int size = fullBlock.width / frameComponent.horizontalSamplingFactor;
+        ZigZag.zigZagToBlock(zz, blockInt);
+        if (size == 8) {
+            final float[] scaledQuantizationTable = scaledQuantizationTables[frameComponent.quantTabDestSelector];
+            for (int j = 0; j < 64; j++) {
+                block[j] = blockInt[j] * scaledQuantizationTable[j];
+            }
+            Dct.inverseDct8x8(block);
+        } else {
+            final float[] quantizationMatrix = quantizationMatrices[frameComponent.quantTabDestSelector];
+            for (int v = 0; v < size; v++) {
+                for (int u = 0; u < size; u++) {
+                    block[8 * v + u] = blockInt[8 * v + u] * quantizationMatrix[8 * v + u];
+                }
+            }
+            if (size == 4) {
+                Dct.inverseDct4x4(block);
+            } else if (size == 2) {
+                Dct.inverseDct2x2(block);
+            } else {
+                // the average of the block is its DC coefficient divided by 8
+                block[0] *= 0.125f;
+            }
+        }
+
+        final int rowLength = fullBlock.width;
+        int dstRowOffset = size * y * rowLength + size * x;
+        for (int yy = 0; yy < size; yy++) {
+            for (int xx = 0; xx < size; xx++) {
+                float sample = block[8 * yy + xx];
+                sample += shift;
+                int result;
+                if (sample < 0) {
+                    result = 0;
+                } else if (sample > max) {
+                    result = max;
+                } else {
+                    result = fastRound(sample);
+                }
+                fullBlock.samples[dstRowOffset + xx] = result;
+            }
+            dstRowOffset += rowLength;
+        }
+    }
+
+    /**
+     * Decodes groups of consecutive restart intervals of a sequential scan on the executor. The intervals are independent of each other and cover disjoint
+     * MCUs, so each task writes its own part of the image.
+     */
+    private void decodeIntervalsConcurrently(final JpegInputStream[] bitInputStreams, final int mcus, final DataBuffer dataBuffer) throws ImagingException {
+        final int intervalsPerTask = Math.max(1, MIN_MCUS_PER_TASK / restartInterval);
+        final List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (int first = 0; first < bitInputStreams.length; first += intervalsPerTask) {
+            final int firstInterval = first;
+            final int lastMcu = (int) Math.min(mcus, (long) (firstInterval + intervalsPerTask) * restartInterval);
+            final JpegDecoder taskDecoder = new JpegDecoder(this);
+            tasks.add(CompletableFuture.runAsync(() -> {
+                try {
+                    taskDecoder.decodeMcus(bitInputStreams, firstInterval, firstInterval * restartInterval, lastMcu, dataBuffer);
+                } catch (final ImagingException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+        }
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof ImagingException) {
+                throw (ImagingException) e.getCause();
+            }
+            throw new ImagingException("Error parsing JPEG", e.getCause());
+        }
+    }
+
+    /**
+     * Decodes the MCUs of a sequential scan from {@code firstMcu} (inclusive) to {@code lastMcu} (exclusive) into the image.
+     *
+     * @param bitInputStreams the restart intervals of the scan
+     * @param firstInterval   the restart interval holding {@code firstMcu}
+     */
+    private void decodeMcus(final JpegInputStream[] bitInputStreams, final int firstInterval, final int firstMcu, final int lastMcu,
+            final DataBuffer dataBuffer) throws ImagingException {
+        final int hSize = blockSize * hMax;
+        final int vSize = blockSize * vMax;
+        final int xMCUs = (sofnSegment.width + 8 * hMax - 1) / (8 * hMax);
+        final SofnSegment.Component[] frameComponents = getScanFrameComponents();
+        final Block[] mcu = allocateMcuMemory(frameComponents);
+        final Block[] scaledMCU = Allocator.array(mcu.length, Block[]::new, Block.SHALLOW_SIZE);
+        Arrays.setAll(scaledMCU, i -> new Block(hSize, vSize));
+        final int[] preds = Allocator.intArray(sofnSegment.numberOfComponents);
+
+        int bitInputStreamCount = firstInterval;
+        JpegInputStream bitInputStream = bitInputStreams[firstInterval];
+        for (int mcuCount = firstMcu; mcuCount < lastMcu; mcuCount++) {
+            if (restartInterval != 0) {
+                // each restart interval holds restartInterval MCUs
+                // and starts with reset DC predictions, section F.2.1.3.1 of T.81
+                if (mcuCount != firstMcu && mcuCount % restartInterval == 0 && bitInputStreamCount + 1 < bitInputStreams.length) {
+                    bitInputStreamCount++;
+                    bitInputStream = bitInputStreams[bitInputStreamCount];
+                    Arrays.fill(preds, 0);
+                }
+            } else if (!bitInputStream.hasNext()) {
+                // Provide the next interval if an interval is read until it's end
+                // as long there are unread intervals available
+                bitInputStreamCount++;
+                if (bitInputStreamCount < bitInputStreams.length) {
+                    bitInputStream = bitInputStreams[bitInputStreamCount];
+                }
+            }
+
+            readMcu(bitInputStream, preds, mcu, frameComponents);
+            rescaleMcu(mcu, hSize, vSize, scaledMCU);
+            writeMcu(dataBuffer, scaledMCU, mcuCount % xMCUs * hSize, mcuCount / xMCUs * vSize, hSize, vSize);
+        }
+    }
+
+    /**
+     * Decodes the scans of a progressive image, or of a sequential image whose components are spread over several scans, into the coefficient buffers.
+     * Every scan after the current one is read from the remaining image data together with the table and restart interval definitions in between, and the
+     * image is produced from the coefficients once all the scans were decoded.
+     *
+     * @param imageData the data following the first SOS marker
+     * @param scanStart the position of the entropy-coded data of the current scan
+     */
+    private void decodeScans(final byte[] imageData, final int scanStart) throws ImagingException, IOException {
+        allocateCoefficients();
+        int pos = scanStart;
+        while (pos >= 0) {
+            final int scanEnd = getEndOfScan(imageData, pos);
+            decodeScan(splitByRstMarkers(imageData, pos, scanEnd));
+            pos = readSegmentsUntilScan(imageData, scanEnd);
+        }
+
+        final SofnSegment.Component[] frameComponents = sofnSegment.getComponents();
+        final int hSize = blockSize * hMax;
+        final int vSize = blockSize * vMax;
+        final int xMCUs = (sofnSegment.width + 8 * hMax - 1) / (8 * hMax);
+        final int yMCUs = (sofnSegment.height + 8 * vMax - 1) / (8 * vMax);
+        final Block[] mcu = allocateMcuMemory(frameComponents);
+        final Block[] scaledMCU = Allocator.array(mcu.length, Block[]::new, Block.SHALLOW_SIZE);
+        Arrays.setAll(scaledMCU, i -> new Block(hSize, vSize));
+        final BufferedImage result = createImage();
+        final DataBuffer dataBuffer = result.getRaster().getDataBuffer();
+        for (int yMCU = 0; yMCU < yMCUs; yMCU++) {
+            for (int xMCU = 0; xMCU < xMCUs; xMCU++) {
+                for (int i = 0; i < frameComponents.length; i++) {
+                    final SofnSegment.Component frameComponent = frameComponents[i];
+                    for (int y = 0; y < frameComponent.verticalSamplingFactor; y++) {
+                        for (int x = 0; x < frameComponent.horizontalSamplingFactor; x++) {
+                            final int row = yMCU * frameComponent.verticalSamplingFactor + y;
+                            final int column = xMCU * frameComponent.horizontalSamplingFactor + x;
+                            final int offset = 64 * (row * blocksPerLine[i] + column);
+                            for (int k = 0; k < 64; k++) {
+                                zz[k] = coefficients[i][offset + k];
+                            }
+                            decodeBlock(zz, frameComponent, mcu[i], x, y);
+                        }
+                    }
+                }
+                rescaleMcu(mcu, hSize, vSize, scaledMCU);
+                writeMcu(dataBuffer, scaledMCU, xMCU * hSize, yMCU * vSize, hSize, vSize);
+            }
+        }
+        image = result;
+    }
+
+    private void decodeScan(final JpegInputStream[] bitInputStreams) throws ImagingException {
+        final int ss = sosSegment.startOfSpectralSelection;
+        final int se = sosSegment.endOfSpectralSelection;
+        if (progressive && (ss > se || se > 63 || ss == 0 && se != 0 || ss != 0 && sosSegment.numberOfComponents != 1)) {
+            throw new ImagingException("Invalid progressive scan with spectral selection " + ss + " to " + se);
+        }
+        final int[] componentIndexes = new int[sosSegment.numberOfComponents];
+        for (int i = 0; i < componentIndexes.length; i++) {
+            componentIndexes[i] = getFrameComponentIndex(sosSegment.getComponents(i));
+        }
+
+        // a scan of a single component is not interleaved: each of its MCUs is one block, section A.2.2 of T.81
+        final int xUnits;
+        final int yUnits;
+        if (componentIndexes.length == 1) {
+            final SofnSegment.Component frameComponent = sofnSegment.getComponents(componentIndexes[0]);
+            final int componentWidth = (sofnSegment.width * frameComponent.horizontalSamplingFactor + hMax - 1) / hMax;
+            final int componentHeight = (sofnSegment.height * frameComponent.verticalSamplingFactor + vMax - 1) / vMax;
+            xUnits = (componentWidth + 7) / 8;
+            yUnits = (componentHeight + 7) / 8;
+        } else {
+            xUnits = (sofnSegment.width + 8 * hMax - 1) / (8 * hMax);
+            yUnits = (sofnSegment.height + 8 * vMax - 1) / (8 * vMax);
+        }
+
+        final int[] preds = new int[componentIndexes.length];
+        eobrun = 0;
+        int bitInputStreamCount = 0;
+        JpegInputStream bitInputStream = bitInputStreams[0];
+        for (int mcuCount = 0; mcuCount < xUnits * yUnits; mcuCount++) {
+            if (restartInterval != 0 && mcuCount != 0 && mcuCount % restartInterval == 0 && bitInputStreamCount + 1 < bitInputStreams.length) {
+                bitInputStreamCount++;
+                bitInputStream = bitInputStreams[bitInputStreamCount];
+                Arrays.fill(preds, 0);
+                eobrun = 0;
+            }
+            final int xUnit = mcuCount % xUnits;
+            final int yUnit = mcuCount / xUnits;
+            if (componentIndexes.length == 1) {
+                final int c = componentIndexes[0];
+                decodeDataUnit(bitInputStream, 0, preds, coefficients[c], 64 * (yUnit * blocksPerLine[c] + xUnit));
+                continue;
+            }
+            for (int i = 0; i < componentIndexes.length; i++) {
+                final int c = componentIndexes[i];
+                final SofnSegment.Component frameComponent = sofnSegment.getComponents(c);
+                for (int y = 0; y < frameComponent.verticalSamplingFactor; y++) {
+                    for (int x = 0; x < frameComponent.horizontalSamplingFactor; x++) {
+                        final int row = yUnit * frameComponent.verticalSamplingFactor + y;
+                        final int column = xUnit * frameComponent.horizontalSamplingFactor + x;
+                        decodeDataUnit(bitInputStream, i, preds, coefficients[c], 64 * (row * blocksPerLine[c] + column));
+                    }
+                }
+            }
+        }
+    }
+
     private int extend(int v, final int t) {
         // "EXTEND", section F.2.2.1, figure F.12, page 105 of T.81
         int vt = 1 << t - 1;
@@ -204,92 +669,150 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
         return v;
     }
 
-    private void readMcu(final JpegInputStream is, final int[] preds, final Block[] mcu) throws ImagingException {
-        for (int i = 0; i < sosSegment.numberOfComponents; i++) {
-            final SosSegment.Component scanComponent = sosSegment.getComponents(i);
-            SofnSegment.Component frameComponent = null;
-            for (int j = 0; j < sofnSegment.numberOfComponents; j++) {
-                if (sofnSegment.getComponents(j).componentIdentifier == scanComponent.scanComponentSelector) {
-                    frameComponent = sofnSegment.getComponents(j);
-                    break;
+    /**
+     * Returns the position of the marker ending the entropy-coded data that starts at the given position, skipping stuffed bytes and restart markers.
+     */
+    private int getEndOfScan(final byte[] imageData, final int start) {
+        for (int pos = start; pos + 1 < imageData.length; pos++) {
+            if (imageData[pos] == (byte) 0xff) {
+                final int next = 0xff & imageData[pos + 1];
+                if (next != 0 && next != 0xff && (next < (0xff & JpegConstants.RST0_MARKER) || next > (0xff & JpegConstants.RST7_MARKER))) {
+                    return pos;
                 }
             }
-            if (frameComponent == null) {
-                throw new ImagingException("Invalid component");
+        }
+        return imageData.length;
+    }
+
+    /**
+     * Returns the number of samples per block row and column of a component. A subsampled component of a downscaled image gets larger blocks, up to the full
+     * 8x8 IDCT, to keep its resolution instead of being upsampled.
+     */
+    private int getBlockSize(final SofnSegment.Component frameComponent) {
+        final int h = frameComponent.horizontalSamplingFactor;
+        final int v = frameComponent.verticalSamplingFactor;
+        if (blockSize == 8 || hMax % h != 0 || vMax % v != 0) {
+            return blockSize;
+        }
+        return Math.min(8, blockSize * Math.min(hMax / h, vMax / v));
+    }
+
+    private int getFrameComponentIndex(final SosSegment.Component scanComponent) throws ImagingException {
+        for (int j = 0; j < sofnSegment.numberOfComponents; j++) {
+            if (sofnSegment.getComponents(j).componentIdentifier == scanComponent.scanComponentSelector) {
+                return j;
             }
-            final Block fullBlock = mcu[i];
-            for (int y = 0; y < frameComponent.verticalSamplingFactor; y++) {
-                for (int x = 0; x < frameComponent.horizontalSamplingFactor; x++) {
-                    Arrays.fill(zz, 0);
-                    // page 104 of T.81
-                    final int t = decode(is, huffmanDCTables[scanComponent.dcCodingTableSelector]);
-                    int diff = receive(t, is);
-                    diff = extend(diff, t);
-                    zz[0] = preds[i] + diff;
-                    preds[i] = zz[0];
-
-                    // "Decode_AC_coefficients", figure F.13, page 106 of T.81
-                    int k = 1;
-                    while (true) {
-                        final int rs = decode(is, huffmanACTables[scanComponent.acCodingTableSelector]);
-                        final int ssss = rs & 0xf;
-                        final int rrrr = rs >> 4;
-                        final int r = rrrr;
-
-                        if (ssss == 0) {
-                            if (r != 15) {
-                                break;
-                            }
-                            k += 16;
-                        } else {
-                            k += r;
+        }
+        throw new ImagingException("Invalid component");
+    }
 
-                            // "Decode_ZZ(k)", figure F.14, page 107 of T.81
-                            zz[k] = receive(ssss, is);
-                            zz[k] = extend(zz[k], ssss);
+    private SofnSegment.Component[] getScanFrameComponents() throws ImagingException {
+        final SofnSegment.Component[] frameComponents = new SofnSegment.Component[sosSegment.numberOfComponents];
+        for (int i = 0; i < frameComponents.length; i++) {
+            frameComponents[i] = sofnSegment.getComponents(getFrameComponentIndex(sosSegment.getComponents(i)));
+        }
+        return frameComponents;
+    }
 
-                            if (k == 63) {
-                                break;
-                            }
-                            k++;
-                        }
-                    }
+    /**
+     * Decodes the DC and AC coefficients of a block of a sequential scan.
+     *
+     * @return the DC coefficient, the prediction for the next block of the component
+     */
+    private int readDataUnit(final JpegInputStream is, final SosSegment.Component scanComponent, final int pred, final int[] zz) throws ImagingException {
+        // page 104 of T.81
+        final int t = decode(is, huffmanDCTables[scanComponent.dcCodingTableSelector]);
+        int diff = receive(t, is);
+        diff = extend(diff, t);
+        zz[0] = pred + diff;
 
-                    final int shift = 1 << sofnSegment.precision - 1;
-                    final int max = (1 << sofnSegment.precision) - 1;
+        // "Decode_AC_coefficients", figure F.13, page 106 of T.81
+        int k = 1;
+        while (true) {
+            final int rs = decode(is, huffmanACTables[scanComponent.acCodingTableSelector]);
+            final int ssss = rs & 0xf;
+            final int rrrr = rs >> 4;
+            final int r = rrrr;
 
-                    final float[] scaledQuantizationTable = scaledQuantizationTables[frameComponent.quantTabDestSelector];
-                    ZigZag.zigZagToBlock(zz, blockInt);
-                    for (int j = 0; j < 64; j++) {
-                        block[j] = blockInt[j] * scaledQuantizationTable[j];
-                    }
-                    Dct.inverseDct8x8(block);
-
-                    int dstRowOffset = 8 * y * 8 * frameComponent.horizontalSamplingFactor + 8 * x;
-                    int srcNext = 0;
-                    for (int yy = 0; yy < 8; yy++) {
-                        for (int xx = 0; xx < 8; xx++) {
-                            float sample = block[srcNext++];
-                            sample += shift;
-                            int result;
-                            if (sample < 0) {
-                                result = 0;
-                            } else if (sample > max) {
-                                result = max;
-                            } else {
-                                result = fastRound(sample);
-                            }
-                            fullBlock.samples[dstRowOffset + xx] = result;
-                        }
-                        dstRowOffset += 8 * frameComponent.horizontalSamplingFactor;
-                    }
+            if (ssss == 0) {
+                if (r != 15) {
+                    break;
+                }
+                k += 16;
+            } else {
+                k += r;
+
+                // "Decode_ZZ(k)", figure F.14, page 107 of T.81
+                zz[k] = receive(ssss, is);
+                zz[k] = extend(zz[k], ssss);
+
+                if (k == 63) {
+                    break;
+                }
+                k++;
+            }
+        }
+        return zz[0];
+    }
+
+    private void readMcu(final JpegInputStream is, final int[] preds, final Block[] mcu, final SofnSegment.Component[] frameComponents)
+            throws ImagingException {
+        for (int i = 0; i < sosSegment.numberOfComponents; i++) {
+            final SosSegment.Component scanComponent = sosSegment.getComponents(i);
+            final SofnSegment.Component frameComponent = frameComponents[i];
+            final Block fullBlock = mcu[i];
+            for (int y = 0; y < frameComponent.verticalSamplingFactor; y++) {
+                for (int x = 0; x < frameComponent.horizontalSamplingFactor; x++) {
+                    Arrays.fill(zz, 0);
+                    preds[i] = readDataUnit(is, scanComponent, preds[i], zz);
+                    decodeBlock(zz, frameComponent, fullBlock, x, y);
                 }
             }
         }
     }
 
+    /**
+     * Reads the segments following the entropy-coded data of a scan, up to the header of the next scan.
+     *
+     * @return the position of the entropy-coded data of the next scan, or -1 at the end of the image
+     */
+    private int readSegmentsUntilScan(final byte[] imageData, int pos) throws ImagingException, IOException {
+        while (true) {
+            // markers may be preceded by any number of 0xFF fill bytes, section B.1.1.2 of T.81
+            while (pos < imageData.length && imageData[pos] == (byte) 0xff) {
+                pos++;
+            }
+            if (pos >= imageData.length) {
+                return -1;
+            }
+            final int marker = 0xff00 | 0xff & imageData[pos];
+            pos++;
+            if (marker == JpegConstants.EOI_MARKER) {
+                return -1;
+            }
+            if (pos + 2 > imageData.length) {
+                throw new ImagingException("Invalid segment: insufficient data");
+            }
+            final int segmentLength = ByteConversions.toUInt16(imageData, pos, getByteOrder());
+            if (segmentLength < 2 || pos + segmentLength > imageData.length) {
+                throw new ImagingException("Invalid segment size");
+            }
+            final byte[] segmentData = Arrays.copyOfRange(imageData, pos + 2, pos + segmentLength);
+            pos += segmentLength;
+            if (marker == JpegConstants.SOS_MARKER) {
+                sosSegment = new SosSegment(marker, segmentData);
+                return pos;
+            }
+            visitSegment(marker, Arrays.copyOfRange(imageData, pos - segmentLength - 2, pos - segmentLength), segmentLength,
+                    Arrays.copyOfRange(imageData, pos - segmentLength, pos - segmentLength + 2), segmentData);
+        }
+    }
+
     private int receive(final int ssss, final JpegInputStream is) throws ImagingException {
         // "RECEIVE", section F.2.2.4, figure F.17, page 110 of T.81
+        if (ssss <= JpegInputStream.MAX_PEEK_BITS) {
+            return is.readBits(ssss);
+        }
         int i = 0;
         int v = 0;
         while (i != ssss) {
@@ -299,6 +822,13 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
         return v;
     }
 
+    private void refineCoefficient(final JpegInputStream is, final short[] coefficients, final int index, final int p1, final int m1) throws ImagingException {
+        // a correction bit of 1 adds the bit position to the magnitude, unless already done
+        if (is.nextBit() != 0 && (coefficients[index] & p1) == 0) {
+            coefficients[index] += coefficients[index] >= 0 ? p1 : m1;
+        }
+    }
+
     private void rescaleMcu(final Block[] dataUnits, final int hSize, final int vSize, final Block[] ret) {
         for (int i = 0; i < dataUnits.length; i++) {
             final Block dataUnit = dataUnits[i];
@@ -349,10 +879,30 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                 JpegConstants.SOF11_MARKER, JpegConstants.SOF13_MARKER, JpegConstants.SOF14_MARKER, JpegConstants.SOF15_MARKER, };
 
         if (Arrays.binarySearch(sofnSegments, marker) >= 0) {
-            if (marker != JpegConstants.SOF0_MARKER) {
-                throw new ImagingException("Only sequential, baseline JPEGs " + "are supported at the moment");
+            if (marker != JpegConstants.SOF0_MARKER && marker != JpegConstants.SOF1_MARKER && marker != JpegConstants.SOF2_MARKER) {
+                throw new ImagingException("Only sequential and progressive Huffman-coded JPEGs are supported at the moment");
             }
             sofnSegment = new SofnSegment(marker, segmentData);
+            if (marker != JpegConstants.SOF0_MARKER && sofnSegment.precision != 8) {
+                throw new ImagingException("Only 8-bit sample precision is supported at the moment");
+            }
+            if (sofnSegment.numberOfComponents == 1 && segmentData.length > 7 && segmentData[7] != 0x11) {
+                // a single-component scan is never interleaved, so its MCU is one 8x8 data unit
+                // whatever sampling factors the frame declares, section A.2.2 of T.81
+                final byte[] normalizedData = segmentData.clone();
+                normalizedData[7] = 0x11;
+                sofnSegment = new SofnSegment(marker, normalizedData);
+            }
+            progressive = marker == JpegConstants.SOF2_MARKER;
+            final int scaleDenominator = 8 / blockSize;
+            outputWidth = (sofnSegment.width + scaleDenominator - 1) / scaleDenominator;
+            outputHeight = (sofnSegment.height + scaleDenominator - 1) / scaleDenominator;
+            hMax = 0;
+            vMax = 0;
+            for (int i = 0; i < sofnSegment.numberOfComponents; i++) {
+                hMax = Math.max(hMax, sofnSegment.getComponents(i).horizontalSamplingFactor);
+                vMax = Math.max(vMax, sofnSegment.getComponents(i).verticalSamplingFactor);
+            }
         } else if (marker == JpegConstants.DQT_MARKER) {
             final DqtSegment dqtSegment = new DqtSegment(marker, segmentData);
             for (final QuantizationTable table : dqtSegment.quantizationTables) {
@@ -367,9 +917,15 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                 for (int j = 0; j < mSize; j++) {
                     quantizationMatrixFloat[j] = quantizationMatrixInt[j];
                 }
+                quantizationMatrices[table.destinationIdentifier] = quantizationMatrixFloat.clone();
                 Dct.scaleDequantizationMatrix(quantizationMatrixFloat);
                 scaledQuantizationTables[table.destinationIdentifier] = quantizationMatrixFloat;
             }
+        } else if (marker == JpegConstants.DRI_MARKER) {
+            if (segmentData.length != 2) {
+                throw new ImagingException("Invalid DRI segment length " + segmentData.length);
+            }
+            restartInterval = ByteConversions.toUInt16(segmentData, getByteOrder());
         } else if (marker == JpegConstants.DHT_MARKER) {
             final DhtSegment dhtSegment = new DhtSegment(marker, segmentData);
             for (final HuffmanTable table : dhtSegment.huffmanTables) {
@@ -397,185 +953,28 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
             final int segmentLength = read2Bytes("segmentLength", is, "Not a Valid JPEG File", getByteOrder());
             final byte[] sosSegmentBytes = readBytes("SosSegment", is, segmentLength - 2, "Not a Valid JPEG File");
             sosSegment = new SosSegment(marker, sosSegmentBytes);
-            // read the payload of the scan, this is the remainder of image data after the header
+            if (progressive || sosSegment.numberOfComponents != sofnSegment.numberOfComponents) {
+                // the image is spread over several scans
+                decodeScans(imageData, segmentLength);
+                return;
+            }
+            // the payload of the scan is the remainder of image data after the header
             // the payload contains the entropy-encoded segments (or ECS) divided by RST markers
             // or only one ECS if the entropy-encoded data is not divided by RST markers
-            // length of payload = length of image data - length of data already read
-            final int[] scanPayload = Allocator.intArray(imageData.length - segmentLength);
-            int payloadReadCount = 0;
-            while (payloadReadCount < scanPayload.length) {
-                scanPayload[payloadReadCount] = is.read();
-                payloadReadCount++;
-            }
-
-            int hMax = 0;
-            int vMax = 0;
-            for (int i = 0; i < sofnSegment.numberOfComponents; i++) {
-                hMax = Math.max(hMax, sofnSegment.getComponents(i).horizontalSamplingFactor);
-                vMax = Math.max(vMax, sofnSegment.getComponents(i).verticalSamplingFactor);
-            }
-            final int hSize = 8 * hMax;
-            final int vSize = 8 * vMax;
-
-            final int xMCUs = (sofnSegment.width + hSize - 1) / hSize;
-            final int yMCUs = (sofnSegment.height + vSize - 1) / vSize;
-            final Block[] mcu = allocateMcuMemory();
-            final Block[] scaledMCU = Allocator.array(mcu.length, Block[]::new, Block.SHALLOW_SIZE);
-            Arrays.setAll(scaledMCU, i -> new Block(hSize, vSize));
-            final int[] preds = Allocator.intArray(sofnSegment.numberOfComponents);
-            ColorModel colorModel;
-            WritableRaster raster;
-            Allocator.check(Integer.BYTES * sofnSegment.width * sofnSegment.height);
-            switch (sofnSegment.numberOfComponents) {
-            case 4:
-                // Special handling for the application-RGB case: TIFF files with
-                // JPEG compression can support an alpha channel. This extension
-                // to the JPEG standard is implemented by specifying a color model
-                // with a fourth channel for alpha.
-                if (useTiffRgb) {
-                    colorModel = new DirectColorModel(32, 0x00ff0000, 0x0000ff00, 0x000000ff, 0xff000000);
-                    raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, sofnSegment.width, sofnSegment.height, BAND_MASK_ARGB, null);
-                } else {
-                    colorModel = new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff);
-                    raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, sofnSegment.width, sofnSegment.height, BAND_MASK_RGB, null);
-                }
-
-                break;
-            case 3:
-                colorModel = new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff);
-                raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, sofnSegment.width, sofnSegment.height, new int[] { 0x00ff0000, 0x0000ff00, 0x000000ff },
-                        null);
-                break;
-            case 1:
-                colorModel = new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff);
-                raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, sofnSegment.width, sofnSegment.height, new int[] { 0x00ff0000, 0x0000ff00, 0x000000ff },
-                        null);
-                // FIXME: why do images come out too bright with CS_GRAY?
-                // colorModel = new ComponentColorModel(
-                // ColorSpace.getInstance(ColorSpace.CS_GRAY), false, true,
-                // Transparency.OPAQUE, DataBuffer.TYPE_BYTE);
-                // raster = colorModel.createCompatibleWritableRaster(
-                // sofnSegment.width, sofnSegment.height);
-                break;
-            default:
-                throw new ImagingException(sofnSegment.numberOfComponents + " components are invalid or unsupported");
-            }
-            final DataBuffer dataBuffer = raster.getDataBuffer();
-
-            final JpegInputStream[] bitInputStreams = splitByRstMarkers(scanPayload);
-            int bitInputStreamCount = 0;
-            JpegInputStream bitInputStream = bitInputStreams[0];
-
-            for (int y1 = 0; y1 < vSize * yMCUs; y1 += vSize) {
-                for (int x1 = 0; x1 < hSize * xMCUs; x1 += hSize) {
-                    // Provide the next interval if an interval is read until it's end
-                    // as long there are unread intervals available
-                    if (!bitInputStream.hasNext()) {
-                        bitInputStreamCount++;
-                        if (bitInputStreamCount < bitInputStreams.length) {
-                            bitInputStream = bitInputStreams[bitInputStreamCount];
-                        }
-                    }
-
-                    readMcu(bitInputStream, preds, mcu);
-                    rescaleMcu(mcu, hSize, vSize, scaledMCU);
-                    int srcRowOffset = 0;
-                    int dstRowOffset = y1 * sofnSegment.width + x1;
-
-                    // The TIFF-RGB logic was adapted from the original x2,y2 loops
-                    // but special handling was added for TIFF-JPEG RGB colorspace
-                    // and conditional checks were reorganized for efficiency
-                    if (useTiffRgb && (scaledMCU.length == 3 || scaledMCU.length == 4)) {
-                        // The original (legacy) coding for the x2 and y2 loop was:
-                        // for(y2 = 0; y2 < vSize && y1 + y2 < sofnSegment.height; y2++)
-                        // for(x2 = 0; x2 < hSize && x1 + x2 < sofnSegment.width; x2++)
-                        // Here, we pre-compute the limits of the loop to reduce the
-                        // overhead for the loop conditional evaluation.
-                        final int x2Limit;
-                        if (x1 + hSize <= sofnSegment.width) {
-                            x2Limit = hSize;
-                        } else {
-                            x2Limit = sofnSegment.width - x1;
-                        }
-                        final int y2Limit;
-                        if (y1 + vSize <= sofnSegment.height) {
-                            y2Limit = vSize;
-                        } else {
-                            y2Limit = sofnSegment.height - y1;
-                        }
+            // the intervals are read in place from the image data
+            final int xMCUs = (sofnSegment.width + 8 * hMax - 1) / (8 * hMax);
+            final int yMCUs = (sofnSegment.height + 8 * vMax - 1) / (8 * vMax);
+            final int mcus = xMCUs * yMCUs;
+            final BufferedImage result = createImage();
+            final DataBuffer dataBuffer = result.getRaster().getDataBuffer();
 
-                        if (scaledMCU.length == 4) {
-                            // RGBA colorspace
-                            // Although conventional JPEGs don't include an alpha channel
-                            // TIFF images that use JPEG encoding may do so. For example,
-                            // we have seen this variation in some false-color satellite images
-                            // from the U.S. National Weather Service. Ordinary JPEG files
-                            // may include an APP14 marker of type Unknowm indicating that
-                            // the scaledMCU.length of 3 should be interpreted as the RGB colorspace
-                            // and the 4-channel variation is interpreted as CYMK. But TIFF files
-                            // use their own tags to specify colorspace and do not include the APP14 marker.
-                            for (int y2 = 0; y2 < y2Limit; y2++) {
-                                for (int x2 = 0; x2 < x2Limit; x2++) {
-                                    final int r = scaledMCU[0].samples[srcRowOffset + x2];
-                                    final int g = scaledMCU[1].samples[srcRowOffset + x2];
-                                    final int b = scaledMCU[2].samples[srcRowOffset + x2];
-                                    final int a = scaledMCU[3].samples[srcRowOffset + x2];
-                                    final int rgb = a << 24 | r << 16 | g << 8 | b;
-                                    dataBuffer.setElem(dstRowOffset + x2, rgb);
-                                }
-                                srcRowOffset += hSize;
-                                dstRowOffset += sofnSegment.width;
-                            }
-                        } else {
-                            // scaledMCU.length == 3, standard RGB
-                            for (int y2 = 0; y2 < y2Limit; y2++) {
-                                for (int x2 = 0; x2 < x2Limit; x2++) {
-                                    final int r = scaledMCU[0].samples[srcRowOffset + x2];
-                                    final int g = scaledMCU[1].samples[srcRowOffset + x2];
-                                    final int b = scaledMCU[2].samples[srcRowOffset + x2];
-                                    final int rgb = r << 16 | g << 8 | b;
-                                    dataBuffer.setElem(dstRowOffset + x2, rgb);
-                                }
-                                srcRowOffset += hSize;
-                                dstRowOffset += sofnSegment.width;
-                            }
-                        }
-                    } else {
-                        for (int y2 = 0; y2 < vSize && y1 + y2 < sofnSegment.height; y2++) {
-                            for (int x2 = 0; x2 < hSize && x1 + x2 < sofnSegment.width; x2++) {
-                                if (scaledMCU.length == 4) {
-                                    final int c = scaledMCU[0].samples[srcRowOffset + x2];
-                                    final int m = scaledMCU[1].samples[srcRowOffset + x2];
-                                    final int y = scaledMCU[2].samples[srcRowOffset + x2];
-                                    final int k = scaledMCU[3].samples[srcRowOffset + x2];
-                                    final int rgb = ColorConversions.convertCmykToRgb(c, m, y, k);
-                                    dataBuffer.setElem(dstRowOffset + x2, rgb);
-                                } else if (scaledMCU.length == 3) {
-                                    final int y = scaledMCU[0].samples[srcRowOffset + x2];
-                                    final int cb = scaledMCU[1].samples[srcRowOffset + x2];
-                                    final int cr = scaledMCU[2].samples[srcRowOffset + x2];
-                                    final int rgb = YCbCrConverter.convertYCbCrToRgb(y, cb, cr);
-                                    dataBuffer.setElem(dstRowOffset + x2, rgb);
-                                } else if (mcu.length == 1) {
-                                    final int y = scaledMCU[0].samples[srcRowOffset + x2];
-                                    dataBuffer.setElem(dstRowOffset + x2, y << 16 | y << 8 | y);
-                                } else {
-                                    throw new ImagingException("Unsupported JPEG with " + mcu.length + " components");
-                                }
-                            }
-                            srcRowOffset += hSize;
-                            dstRowOffset += sofnSegment.width;
-                        }
-                    }
-                }
+            final JpegInputStream[] bitInputStreams = splitByRstMarkers(imageData, segmentLength, imageData.length);
+            if (executor != null && restartInterval != 0 && bitInputStreams.length == (mcus + restartInterval - 1) / restartInterval) {
+                decodeIntervalsConcurrently(bitInputStreams, mcus, dataBuffer);
+            } else {
+                decodeMcus(bitInputStreams, 0, 0, mcus, dataBuffer);
             }
-            image = new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), new Properties());
-            // byte[] remainder = super.getStreamBytes(is);
-            // for (int i = 0; i < remainder.length; i++)
-            // {
-            // System.out.println("" + i + " = " +
-            // Integer.toHexString(remainder[i]));
-            // }
+            image = result;
         } catch (final ImagingException imageReadEx) {
             imageReadException = imageReadEx;
         } catch (final IOException ioEx) {
@@ -585,4 +984,96 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
             imageReadException = new ImagingException("Error parsing JPEG", ex);
         }
     }
+
+    private void writeMcu(final DataBuffer dataBuffer, final Block[] scaledMCU, final int x1, final int y1, final int hSize, final int vSize)
+            throws ImagingException {
+        int srcRowOffset = 0;
+        int dstRowOffset = y1 * outputWidth + x1;
+
+        // The TIFF-RGB logic was adapted from the original x2,y2 loops
+        // but special handling was added for TIFF-JPEG RGB colorspace
+        // and conditional checks were reorganized for efficiency
+        if (useTiffRgb && (scaledMCU.length == 3 || scaledMCU.length == 4)) {
+            // The original (legacy) coding for the x2 and y2 loop was:
+            // for(y2 = 0; y2 < vSize && y1 + y2 < outputHeight; y2++)
+            // for(x2 = 0; x2 < hSize && x1 + x2 < outputWidth; x2++)
+            // Here, we pre-compute the limits of the loop to reduce the
+            // overhead for the loop conditional evaluation.
+            final int x2Limit;
+            if (x1 + hSize <= outputWidth) {
+                x2Limit = hSize;
+            } else {
+                x2Limit = outputWidth - x1;
+            }
+            final int y2Limit;
+            if (y1 + vSize <= outputHeight) {
+                y2Limit = vSize;
+            } else {
+                y2Limit = outputHeight - y1;
+            }
+
+            if (scaledMCU.length == 4) {
+                // RGBA colorspace
+                // Although conventional JPEGs don't include an alpha channel
+                // TIFF images that use JPEG encoding may do so. For example,
+                // we have seen this variation in some false-color satellite images
+                // from the U.S. National Weather Service. Ordinary JPEG files
+                // may include an APP14 marker of type Unknowm indicating that
+                // the scaledMCU.length of 3 should be interpreted as the RGB colorspace
+                // and the 4-channel variation is interpreted as CYMK. But TIFF files
+                // use their own tags to specify colorspace and do not include the APP14 marker.
+                for (int y2 = 0; y2 < y2Limit; y2++) {
+                    for (int x2 = 0; x2 < x2Limit; x2++) {
+                        final int r = scaledMCU[0].samples[srcRowOffset + x2];
+                        final int g = scaledMCU[1].samples[srcRowOffset + x2];
+                        final int b = scaledMCU[2].samples[srcRowOffset + x2];
+                        final int a = scaledMCU[3].samples[srcRowOffset + x2];
+                        final int rgb = a << 24 | r << 16 | g << 8 | b;
+                        dataBuffer.setElem(dstRowOffset + x2, rgb);
+                    }
+                    srcRowOffset += hSize;
+                    dstRowOffset += outputWidth;
+                }
+            } else {
+                // scaledMCU.length == 3, standard RGB
+                for (int y2 = 0; y2 < y2Limit; y2++) {
+                    for (int x2 = 0; x2 < x2Limit; x2++) {
+                        final int r = scaledMCU[0].samples[srcRowOffset + x2];
+                        final int g = scaledMCU[1].samples[srcRowOffset + x2];
+                        final int b = scaledMCU[2].samples[srcRowOffset + x2];
+                        final int rgb = r << 16 | g << 8 | b;
+                        dataBuffer.setElem(dstRowOffset + x2, rgb);
+                    }
+                    srcRowOffset += hSize;
+                    dstRowOffset += outputWidth;
+                }
+            }
+        } else {
+            for (int y2 = 0; y2 < vSize && y1 + y2 < outputHeight; y2++) {
+                for (int x2 = 0; x2 < hSize && x1 + x2 < outputWidth; x2++) {
+                    if (scaledMCU.length == 4) {
+                        final int c = scaledMCU[0].samples[srcRowOffset + x2];
+                        final int m = scaledMCU[1].samples[srcRowOffset + x2];
+                        final int y = scaledMCU[2].samples[srcRowOffset + x2];
+                        final int k = scaledMCU[3].samples[srcRowOffset + x2];
+                        final int rgb = ColorConversions.convertCmykToRgb(c, m, y, k);
+                        dataBuffer.setElem(dstRowOffset + x2, rgb);
+                    } else if (scaledMCU.length == 3) {
+                        final int y = scaledMCU[0].samples[srcRowOffset + x2];
+                        final int cb = scaledMCU[1].samples[srcRowOffset + x2];
+                        final int cr = scaledMCU[2].samples[srcRowOffset + x2];
+                        final int rgb = YCbCrConverter.convertYCbCrToRgb(y, cb, cr);
+                        dataBuffer.setElem(dstRowOffset + x2, rgb);
+                    } else if (scaledMCU.length == 1) {
+                        final int y = scaledMCU[0].samples[srcRowOffset + x2];
+                        dataBuffer.setElem(dstRowOffset + x2, y << 16 | y << 8 | y);
+                    } else {
+                        throw new ImagingException("Unsupported JPEG with " + scaledMCU.length + " components");
+                    }
+                }
+                srcRowOffset += hSize;
+                dstRowOffset += outputWidth;
+            }
+        }
+    }
 }
@@ -15,23 +15,90 @@
 
 package org.apache.commons.imaging.formats.jpeg.decoder;
 
-import java.util.Arrays;
-
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
 
 final class JpegInputStream {
-    static final int SHALLOW_SIZE = 32;
+    static final int SHALLOW_SIZE = 48;
+    /** Maximum number of bits that {@link #peekBits(int)} can return at once. */
+    static final int MAX_PEEK_BITS = 32;
     // Figure F.18, F.2.2.5, page 111 of ITU-T T.81
-    private final int[] interval;
+    private final byte[] data;
+    // end of the interval in the array, exclusive
+    private final int end;
     // next position in the array to read
     private int nextPos;
-    private int cnt;
-    private int b;
+    // bits fetched from the interval but not consumed yet, right-aligned
+    private long bitBuffer;
+    private int bitCount;
+    // zero bits appended to the buffer after the end of the entropy-coded data
+    private int paddingBits;
+    // null while the end of the entropy-coded data was not reached
+    private String endOfDataMessage;
+    private boolean endOfData;
+
+    /**
+     * Constructs a stream reading an interval of entropy-coded data in place, without copying it.
+     *
+     * @param data  the array holding the interval
+     * @param start the start of the interval in the array, inclusive
+     * @param end   the end of the interval in the array, exclusive
+     */
+    JpegInputStream(final byte[] data, final int start, final int end) {
+        this.data = data;
+        this.end = end;
+        this.nextPos = start;
+    }
+
+    /**
+     * Makes sure at least {@link #MAX_PEEK_BITS} bits are buffered. Once the entropy-coded data ends, either at the end of the interval or at a marker, the
+     * buffer is padded with zero bits; consuming those throws the error the bit-by-bit reader would have thrown when reaching that point.
+     */
+    private void fill() {
+        while (bitCount < MAX_PEEK_BITS) {
+            int b = 0;
+            if (endOfData) {
+                paddingBits += 8;
+            } else if (!hasNextByte()) {
+                endOfData = true;
+                paddingBits += 8;
+            } else {
+                b = this.read();
+                if (b == 0xff) {
+                    if (!hasNextByte()) {
+                        endOfData(null);
+                        b = 0;
+                    } else {
+                        final int b2 = this.read();
+                        if (b2 != 0) {
+                            if (b2 == (0xff & JpegConstants.DNL_MARKER)) {
+                                endOfData("DNL not yet supported");
+                            } else {
+                                endOfData("Invalid marker found " + "in entropy data: 0xFF " + Integer.toHexString(b2));
+                            }
+                            b = 0;
+                        }
+                    }
+                }
+            }
+            bitBuffer = bitBuffer << 8 | b;
+            bitCount += 8;
+        }
+    }
 
-    JpegInputStream(final int[] interval) {
-        this.interval = Arrays.copyOf(interval, interval.length);
-        this.nextPos = 0;
+    private void endOfData(final String message) {
+        endOfData = true;
+        endOfDataMessage = message;
+        paddingBits += 8;
+    }
+
+    private void checkAvailable(final int n) throws ImagingException {
+        if (n > bitCount - paddingBits) {
+            if (endOfDataMessage != null) {
+                throw new ImagingException(endOfDataMessage);
+            }
+            throw new IllegalStateException("This stream hasn't any other value, all values were already read.");
+        }
     }
 
     /**
@@ -40,33 +107,59 @@ final class JpegInputStream {
      * @return {@code true} as long there are unread fields available, else {@code false}
      */
     public boolean hasNext() {
-        return nextPos < this.interval.length;
+        return bitCount > paddingBits || !endOfData && hasNextByte();
+    }
+
+    private boolean hasNextByte() {
+        return nextPos < this.end;
     }
 
     public int nextBit() throws ImagingException {
-        if (cnt == 0) {
-            b = this.read();
-            if (b < 0) {
-                throw new ImagingException("Premature End of File");
-            }
-            cnt = 8;
-            if (b == 0xff) {
-                final int b2 = this.read();
-                if (b2 < 0) {
-                    throw new ImagingException("Premature End of File");
-                }
-                if (b2 != 0) {
-                    if (b2 == (0xff & JpegConstants.DNL_MARKER)) {
-                        throw new ImagingException("DNL not yet supported");
-                    }
-                    throw new ImagingException("Invalid marker found " + "in entropy data: 0xFF " + Integer.toHexString(b2));
-                }
-            }
+        return readBits(1);
+    }
+
+    /**
+     * Returns the next {@code n} bits without consuming them. Bits past the end of the entropy-coded data read as zero.
+     *
+     * @param n number of bits, from 1 to {@link #MAX_PEEK_BITS}
+     * @return the bits, most significant bit first
+     */
+    int peekBits(final int n) {
+        if (bitCount < n) {
+            fill();
+        }
+        return (int) (bitBuffer >>> bitCount - n) & (int) ((1L << n) - 1);
+    }
+
+    /**
+     * Reads and consumes the next {@code n} bits, as {@code n} calls to {@link #nextBit()} would.
+     *
+     * @param n number of bits, from 0 to {@link #MAX_PEEK_BITS}
+     * @return the bits, most significant bit first
+     * @throws ImagingException if the entropy-coded data ends before {@code n} bits were read
+     */
+    int readBits(final int n) throws ImagingException {
+        if (n == 0) {
+            return 0;
+        }
+        final int bits = peekBits(n);
+        skipBits(n);
+        return bits;
+    }
+
+    /**
+     * Consumes {@code n} bits that were already examined with {@link #peekBits(int)}.
+     *
+     * @param n number of bits
+     * @throws ImagingException if the entropy-coded data ends before {@code n} bits were consumed
+     */
+    void skipBits(final int n) throws ImagingException {
+        if (bitCount < n) {
+            fill();
         }
-        final int bit = b >> 7 & 0x1;
-        cnt--;
-        b <<= 1;
-        return bit;
+        checkAvailable(n);
+        bitCount -= n;
+        bitBuffer &= (1L << bitCount) - 1;
     }
 
     /**
@@ -76,10 +169,10 @@ final class JpegInputStream {
      * @throws IllegalStateException if the stream hasn't any other value.
      */
     int read() {
-        if (!this.hasNext()) {
+        if (!this.hasNextByte()) {
             throw new IllegalStateException("This stream hasn't any other value, all values were already read.");
         }
-        final int value = this.interval[nextPos];
+        final int value = 0xff & this.data[nextPos];
         this.nextPos++;
         return value;
     }
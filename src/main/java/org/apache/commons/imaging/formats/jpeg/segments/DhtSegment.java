@@ -28,6 +28,11 @@ import org.apache.commons.imaging.common.Allocator;
 
 public class DhtSegment extends AbstractSegment {
     public static class HuffmanTable {
+        /**
+         * Number of bits examined at once by {@link #getLookahead(int)}.
+         */
+        public static final int LOOKAHEAD_BITS = 9;
+
         // some arrays are better off one-based
         // to avoid subtractions by one later when indexing them
         public final int tableClass;
@@ -40,6 +45,8 @@ public class DhtSegment extends AbstractSegment {
         private final int[] minCode = new int[1 + 16]; // 1-based
         private final int[] maxCode = new int[1 + 16]; // 1-based
         private final int[] valPtr = new int[1 + 16]; // 1-based
+        // code length << 8 | value, indexed by the next LOOKAHEAD_BITS bits, 0 for longer codes
+        private final int[] lookahead = new int[1 << LOOKAHEAD_BITS];
 
         HuffmanTable(final int tableClass, final int destinationIdentifier, final int[] bits, final int[] huffVal) {
             this.tableClass = tableClass;
@@ -114,6 +121,26 @@ public class DhtSegment extends AbstractSegment {
                 }
             }
 
+            // run "DECODE" (figure F.16) once for every LOOKAHEAD_BITS bit pattern
+            // so that short codes later resolve in a single lookup
+            for (int bitPattern = 0; bitPattern < lookahead.length; bitPattern++) {
+                i = 1;
+                code = bitPattern >> LOOKAHEAD_BITS - 1;
+                while (i < LOOKAHEAD_BITS && code > maxCode[i]) {
+                    i++;
+                    code = bitPattern >> LOOKAHEAD_BITS - i;
+                }
+                if (code <= maxCode[i]) {
+                    j = valPtr[i] + code - minCode[i];
+                    if (j >= 0 && j < huffVal.length) {
+                        lookahead[bitPattern] = i << 8 | huffVal[j];
+                    }
+                }
+            }
+        }
+
+        public int getLookahead(final int bits) {
+            return lookahead[bits];
         }
 
         public int getHuffVal(final int i) {
@@ -32,6 +32,7 @@ import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterPaet
 import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterSub;
 import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterUp;
 import org.apache.commons.imaging.formats.png.transparencyfilters.AbstractTransparencyFilter;
+import org.apache.commons.io.IOUtils;
 
 abstract class AbstractScanExpediter {
 
@@ -46,6 +47,7 @@ abstract class AbstractScanExpediter {
     final PngChunkPlte pngChunkPlte;
     final GammaCorrection gammaCorrection;
     final AbstractTransparencyFilter abstractTransparencyFilter;
+    private final ScanlineFilter[] scanlineFilters = new ScanlineFilter[FilterType.values().length];
 
     AbstractScanExpediter(final int width, final int height, final InputStream is, final BufferedImage bi, final PngColorType pngColorType, final int bitDepth,
             final int bitsPerPixel, final PngChunkPlte pngChunkPLTE, final GammaCorrection gammaCorrection,
@@ -70,17 +72,11 @@ abstract class AbstractScanExpediter {
     }
 
     byte[] getNextScanline(final InputStream is, final int length, final byte[] prev, final int bytesPerPixel) throws ImagingException, IOException {
-        final int filterType = is.read();
-        if (filterType < 0) {
-            throw new ImagingException("PNG: missing filter type");
-        }
-        if (filterType >= FilterType.values().length) {
-            throw new ImagingException("PNG: unknown filterType: " + filterType);
-        }
+        final FilterType filterType = readFilterType(is);
 
         final byte[] scanline = readBytes("scanline", is, length, "PNG: missing image data");
 
-        return unfilterScanline(FilterType.values()[filterType], scanline, prev, bytesPerPixel);
+        return unfilterScanline(filterType, scanline, prev, bytesPerPixel);
     }
 
     final int getPixelArgb(final int alpha, final int red, final int green, final int blue) {
@@ -183,6 +179,40 @@ abstract class AbstractScanExpediter {
         }
     }
 
+    private FilterType readFilterType(final InputStream is) throws ImagingException, IOException {
+        final int filterType = is.read();
+        if (filterType < 0) {
+            throw new ImagingException("PNG: missing filter type");
+        }
+        if (filterType >= FilterType.values().length) {
+            throw new ImagingException("PNG: unknown filterType: " + filterType);
+        }
+        return FilterType.values()[filterType];
+    }
+
+    /**
+     * Reads and unfilters the next scanline into buffers that the caller reuses from row to row.
+     *
+     * @param is       the image data.
+     * @param scanline the buffer for the filtered bytes, of the length of the scanline.
+     * @param prev     the unfiltered previous scanline, or {@code null} for the first one.
+     * @param dst      the buffer for the unfiltered bytes, of the length of the scanline.
+     */
+    void readNextScanline(final InputStream is, final byte[] scanline, final byte[] prev, final byte[] dst) throws ImagingException, IOException {
+        final FilterType filterType = readFilterType(is);
+        try {
+            IOUtils.readFully(is, scanline);
+        } catch (final IOException e) {
+            throw new IOException("PNG: missing image data, name: scanline, length: " + scanline.length);
+        }
+        ScanlineFilter filter = scanlineFilters[filterType.ordinal()];
+        if (filter == null) {
+            filter = getScanlineFilter(filterType, bytesPerPixel);
+            scanlineFilters[filterType.ordinal()] = filter;
+        }
+        filter.unfilter(scanline, dst, prev);
+    }
+
     ScanlineFilter getScanlineFilter(final FilterType filterType, final int bytesPerPixel) {
         switch (filterType) {
         case NONE:
@@ -21,6 +21,6 @@ package org.apache.commons.imaging.formats.png;
  *
  * @see <a href="https://www.w3.org/TR/png/#9Filters">Portable Network Graphics Specification - Filtering</a>
  */
-enum FilterType {
+public enum FilterType {
     NONE, SUB, UP, AVERAGE, PAETH
 }
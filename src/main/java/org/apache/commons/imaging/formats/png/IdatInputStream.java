@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import static org.apache.commons.imaging.common.BinaryFunctions.read4Bytes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+import org.apache.commons.imaging.ImagingException;
+
+/**
+ * Reads the data of consecutive IDAT chunks as a single stream, as it is read from the underlying stream rather than by reading the chunks first. The CRC of
+ * each chunk is computed as its data is read, and checked at its end. The stream ends at the first chunk after the IDAT chunks, which isn't read past its
+ * type.
+ */
+final class IdatInputStream extends InputStream {
+
+    private final InputStream is;
+    private final CRC32 crc = new CRC32();
+    private final byte[] singleByte = new byte[1];
+    private int remaining;
+    private boolean finished;
+
+    /**
+     * Constructs a stream.
+     *
+     * @param is the PNG stream, at the start of the first IDAT chunk.
+     * @throws ImagingException if the next chunk is not an IDAT chunk, or its length is invalid.
+     * @throws IOException      if the chunk can't be read.
+     */
+    IdatInputStream(final InputStream is) throws ImagingException, IOException {
+        this.is = is;
+        if (!readChunkStart()) {
+            throw new ImagingException("PNG missing image data");
+        }
+    }
+
+    /**
+     * Reads the rest of the image data, which the decoder may not need, so as to check the CRC of all the chunks.
+     *
+     * @throws ImagingException if a CRC is wrong.
+     * @throws IOException      if the chunks can't be read.
+     */
+    void checkRemaining() throws ImagingException, IOException {
+        final byte[] buffer = new byte[4096];
+        while (read(buffer, 0, buffer.length) >= 0) {
+            // skipped
+        }
+    }
+
+    /**
+     * Checks the CRC of the current chunk, and starts the next one if it is an IDAT chunk.
+     *
+     * @return whether there is another IDAT chunk.
+     */
+    private boolean nextChunk() throws ImagingException, IOException {
+        if (finished) {
+            return false;
+        }
+        final int expected = read4Bytes("CRC", is, "Not a Valid PNG File", ByteOrder.BIG_ENDIAN);
+        if (expected != (int) crc.getValue()) {
+            throw new ImagingException("PNG: invalid IDAT chunk CRC");
+        }
+        return readChunkStart();
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(singleByte, 0, 1) < 0 ? -1 : 0xff & singleByte[0];
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (remaining == 0) {
+            if (!nextChunk()) {
+                return -1;
+            }
+        }
+        final int count = is.read(b, off, Math.min(len, remaining));
+        if (count < 0) {
+            throw new ImagingException("PNG: missing image data");
+        }
+        crc.update(b, off, count);
+        remaining -= count;
+        return count;
+    }
+
+    private boolean readChunkStart() throws ImagingException, IOException {
+        final int length = read4Bytes("Length", is, "Not a Valid PNG File", ByteOrder.BIG_ENDIAN);
+        final int chunkType = read4Bytes("ChunkType", is, "Not a Valid PNG File", ByteOrder.BIG_ENDIAN);
+        if (chunkType != ChunkType.IDAT.value) {
+            finished = true;
+            return false;
+        }
+        if (length < 0) {
+            throw new ImagingException("Invalid PNG chunk length: " + length);
+        }
+        remaining = length;
+        crc.reset();
+        crc.update(ChunkType.IDAT.array);
+        return true;
+    }
+}
@@ -22,8 +22,7 @@ import java.awt.color.ICC_ColorSpace;
 import java.awt.color.ICC_Profile;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -72,6 +71,36 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
     private static final String DEFAULT_EXTENSION = ImageFormats.PNG.getDefaultExtension();
     private static final String[] ACCEPTED_EXTENSIONS = ImageFormats.PNG.getExtensions();
 
+    /**
+     * The format of the image data, as given by the chunks preceding it.
+     */
+    private static final class ImageDataFormat {
+
+        final PngChunkIhdr pngChunkIHDR;
+        final PngChunkPlte pngChunkPLTE;
+        final AbstractTransparencyFilter abstractTransparencyFilter;
+        final GammaCorrection gammaCorrection;
+        /** The color space to convert the pixels from to sRGB, or {@code null} if they are already sRGB. */
+        final ICC_ColorSpace colorSpace;
+
+        ImageDataFormat(final PngChunkIhdr pngChunkIHDR, final PngChunkPlte pngChunkPLTE, final AbstractTransparencyFilter abstractTransparencyFilter,
+                final GammaCorrection gammaCorrection, final ICC_ColorSpace colorSpace) {
+            this.pngChunkIHDR = pngChunkIHDR;
+            this.pngChunkPLTE = pngChunkPLTE;
+            this.abstractTransparencyFilter = abstractTransparencyFilter;
+            this.gammaCorrection = gammaCorrection;
+            this.colorSpace = colorSpace;
+        }
+
+        int getBitsPerPixel() {
+            return pngChunkIHDR.getBitDepth() * pngChunkIHDR.getPngColorType().getSamplesPerPixel();
+        }
+
+        boolean hasAlpha() {
+            return pngChunkIHDR.getPngColorType().hasAlpha() || abstractTransparencyFilter != null;
+        }
+    }
+
     public static String getChunkTypeName(final int chunkType) {
         final StringBuilder result = new StringBuilder();
         result.append((char) (0xff & chunkType >> 24));
@@ -146,9 +175,107 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
 
     @Override
     public BufferedImage getBufferedImage(final ByteSource byteSource, final PngImagingParameters params) throws ImagingException, IOException {
+        try (InputStream is = new BufferedInputStream(byteSource.getInputStream())) {
+            readSignature(is);
+            final ImageDataFormat format = readImageDataFormat(is);
+            return getBufferedImage(format, is, params);
+        }
+    }
 
-        final List<PngChunk> chunks = readChunks(byteSource,
-                new ChunkType[] { ChunkType.IHDR, ChunkType.PLTE, ChunkType.IDAT, ChunkType.tRNS, ChunkType.iCCP, ChunkType.gAMA, ChunkType.sRGB, }, false);
+    /**
+     * Decodes the image data, inflating it as it is read from the IDAT chunks.
+     *
+     * @param format the format of the image data.
+     * @param is     the PNG stream, at the first IDAT chunk.
+     * @param params the parameters.
+     */
+    private BufferedImage getBufferedImage(final ImageDataFormat format, final InputStream is, final PngImagingParameters params)
+            throws ImagingException, IOException {
+        final PngChunkIhdr pngChunkIHDR = format.pngChunkIHDR;
+        final int width = pngChunkIHDR.getWidth();
+        final int height = pngChunkIHDR.getHeight();
+        final PngColorType pngColorType = pngChunkIHDR.getPngColorType();
+        final int bitDepth = pngChunkIHDR.getBitDepth();
+        final int bitsPerPixel = format.getBitsPerPixel();
+
+        BufferedImage result;
+        if (pngColorType.isGreyscale()) {
+            result = getBufferedImageFactory(params).getGrayscaleBufferedImage(width, height, format.hasAlpha());
+        } else {
+            result = getBufferedImageFactory(params).getColorBufferedImage(width, height, format.hasAlpha());
+        }
+
+        final IdatInputStream idat = new IdatInputStream(is);
+        try (InflaterInputStream iis = new InflaterInputStream(idat)) {
+            AbstractScanExpediter abstractScanExpediter;
+
+            switch (pngChunkIHDR.getInterlaceMethod()) {
+            case NONE:
+                abstractScanExpediter = new ScanExpediterSimple(width, height, iis, result, pngColorType, bitDepth, bitsPerPixel, format.pngChunkPLTE,
+                        format.gammaCorrection, format.abstractTransparencyFilter);
+                break;
+            case ADAM7:
+                abstractScanExpediter = new ScanExpediterInterlaced(width, height, iis, result, pngColorType, bitDepth, bitsPerPixel, format.pngChunkPLTE,
+                        format.gammaCorrection, format.abstractTransparencyFilter);
+                break;
+            default:
+                throw new ImagingException("Unknown InterlaceMethod: " + pngChunkIHDR.getInterlaceMethod());
+            }
+
+            abstractScanExpediter.drive();
+        }
+        idat.checkRemaining();
+
+        if (format.colorSpace != null) {
+            final ColorSpace csSrgb = ColorModel.getRGBdefault().getColorSpace();
+            result = new ColorTools().convertBetweenColorSpaces(result, format.colorSpace, csSrgb);
+        }
+
+        return result;
+    }
+
+    /**
+     * Opens a reader of the rows of a non-interlaced image, one at a time, so as to process images too large to hold in memory. The rows are decoded as
+     * {@link #getBufferedImage(ByteSource, PngImagingParameters)} does, into the ARGB values it sets in the image; those of a grayscale image have the gray
+     * sample in each of red, green and blue, without the conversion of the grayscale color space of the image.
+     *
+     * @param byteSource the PNG image.
+     * @param params     the parameters.
+     * @return the reader, which the caller shall close.
+     * @throws ImagingException if the image is invalid or interlaced.
+     * @throws IOException      if the image can't be read.
+     */
+    public PngScanlineReader getScanlineReader(final ByteSource byteSource, final PngImagingParameters params) throws ImagingException, IOException {
+        final InputStream is = new BufferedInputStream(byteSource.getInputStream());
+        try {
+            readSignature(is);
+            final ImageDataFormat format = readImageDataFormat(is);
+            final PngChunkIhdr pngChunkIHDR = format.pngChunkIHDR;
+            if (pngChunkIHDR.getInterlaceMethod() != InterlaceMethod.NONE) {
+                throw new ImagingException("PNG: interlaced images can't be read by row");
+            }
+            final int width = pngChunkIHDR.getWidth();
+            final int height = pngChunkIHDR.getHeight();
+            final IdatInputStream idat = new IdatInputStream(is);
+            final InflaterInputStream iis = new InflaterInputStream(idat);
+            final ScanExpediterSimple scanExpediter = new ScanExpediterSimple(width, height, iis, null, pngChunkIHDR.getPngColorType(),
+                    pngChunkIHDR.getBitDepth(), format.getBitsPerPixel(), format.pngChunkPLTE, format.gammaCorrection, format.abstractTransparencyFilter);
+            return new PngScanlineReader(is, idat, iis, scanExpediter, width, height, format.hasAlpha(), format.colorSpace);
+        } catch (final IOException | RuntimeException e) {
+            is.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the chunks preceding the image data, in which the chunks needed to decode it shall be, and interprets them.
+     *
+     * @param is the PNG stream, after the signature.
+     * @return the format of the image data.
+     */
+    private ImageDataFormat readImageDataFormat(final InputStream is) throws ImagingException, IOException {
+        final List<PngChunk> chunks = readChunksBeforeImageData(is,
+                new ChunkType[] { ChunkType.IHDR, ChunkType.PLTE, ChunkType.tRNS, ChunkType.iCCP, ChunkType.gAMA, ChunkType.sRGB, });
 
         if (chunks.isEmpty()) {
             throw new ImagingException("PNG: no chunks");
@@ -171,23 +298,6 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
             pngChunkPLTE = (PngChunkPlte) PLTEs.get(0);
         }
 
-        final List<PngChunk> IDATs = filterChunks(chunks, ChunkType.IDAT);
-        if (IDATs.isEmpty()) {
-            throw new ImagingException("PNG missing image data");
-        }
-
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        for (final PngChunk IDAT : IDATs) {
-            final PngChunkIdat pngChunkIDAT = (PngChunkIdat) IDAT;
-            final byte[] bytes = pngChunkIDAT.getBytes();
-            // System.out.println(i + ": bytes: " + bytes.length);
-            baos.write(bytes);
-        }
-
-        final byte[] compressed = baos.toByteArray();
-
-        baos = null;
-
         AbstractTransparencyFilter abstractTransparencyFilter = null;
 
         final List<PngChunk> tRNSs = filterChunks(chunks, ChunkType.tRNS);
@@ -196,7 +306,7 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
             abstractTransparencyFilter = getTransparencyFilter(pngChunkIHDR.getPngColorType(), pngChunktRNS);
         }
 
-        ICC_Profile iccProfile = null;
+        ICC_ColorSpace colorSpace = null;
         GammaCorrection gammaCorrection = null;
         {
             final List<PngChunk> sRGBs = filterChunks(chunks, ChunkType.sRGB);
@@ -225,11 +335,15 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
                 final PngChunkIccp pngChunkiCCP = (PngChunkIccp) iCCPs.get(0);
                 final byte[] bytes = pngChunkiCCP.getUncompressedProfile();
 
+                final ICC_Profile iccProfile;
                 try {
                     iccProfile = ICC_Profile.getInstance(bytes);
                 } catch (final IllegalArgumentException iae) {
                     throw new ImagingException("The image data does not correspond to a valid ICC Profile", iae);
                 }
+                if (!new IccProfileParser().isSrgb(iccProfile)) {
+                    colorSpace = new ICC_ColorSpace(iccProfile);
+                }
             } else if (gAMAs.size() == 1) {
                 final PngChunkGama pngChunkgAMA = (PngChunkGama) gAMAs.get(0);
                 final double gamma = pngChunkgAMA.getGamma();
@@ -251,63 +365,37 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
             }
         }
 
-        {
-            final int width = pngChunkIHDR.getWidth();
-            final int height = pngChunkIHDR.getHeight();
-            final PngColorType pngColorType = pngChunkIHDR.getPngColorType();
-            final int bitDepth = pngChunkIHDR.getBitDepth();
-
-            if (pngChunkIHDR.getFilterMethod() != 0) {
-                throw new ImagingException("PNG: unknown FilterMethod: " + pngChunkIHDR.getFilterMethod());
-            }
-
-            final int bitsPerPixel = bitDepth * pngColorType.getSamplesPerPixel();
-
-            final boolean hasAlpha = pngColorType.hasAlpha() || abstractTransparencyFilter != null;
-
-            BufferedImage result;
-            if (pngColorType.isGreyscale()) {
-                result = getBufferedImageFactory(params).getGrayscaleBufferedImage(width, height, hasAlpha);
-            } else {
-                result = getBufferedImageFactory(params).getColorBufferedImage(width, height, hasAlpha);
-            }
-
-            final ByteArrayInputStream bais = new ByteArrayInputStream(compressed);
-            final InflaterInputStream iis = new InflaterInputStream(bais);
-
-            AbstractScanExpediter abstractScanExpediter;
-
-            switch (pngChunkIHDR.getInterlaceMethod()) {
-            case NONE:
-                abstractScanExpediter = new ScanExpediterSimple(width, height, iis, result, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE, gammaCorrection,
-                        abstractTransparencyFilter);
-                break;
-            case ADAM7:
-                abstractScanExpediter = new ScanExpediterInterlaced(width, height, iis, result, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE,
-                        gammaCorrection, abstractTransparencyFilter);
-                break;
-            default:
-                throw new ImagingException("Unknown InterlaceMethod: " + pngChunkIHDR.getInterlaceMethod());
-            }
-
-            abstractScanExpediter.drive();
-
-            if (iccProfile != null) {
-                final boolean isSrgb = new IccProfileParser().isSrgb(iccProfile);
-                if (!isSrgb) {
-                    final ICC_ColorSpace cs = new ICC_ColorSpace(iccProfile);
-
-                    final ColorModel srgbCM = ColorModel.getRGBdefault();
-                    final ColorSpace csSrgb = srgbCM.getColorSpace();
-
-                    result = new ColorTools().convertBetweenColorSpaces(result, cs, csSrgb);
-                }
-            }
+        if (pngChunkIHDR.getFilterMethod() != 0) {
+            throw new ImagingException("PNG: unknown FilterMethod: " + pngChunkIHDR.getFilterMethod());
+        }
 
-            return result;
+        return new ImageDataFormat(pngChunkIHDR, pngChunkPLTE, abstractTransparencyFilter, gammaCorrection, colorSpace);
+    }
 
+    private PngChunk createChunk(final int length, final int chunkType, final int crc, final byte[] bytes) throws ImagingException, IOException {
+        if (chunkType == ChunkType.iCCP.value) {
+            return new PngChunkIccp(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.tEXt.value) {
+            return new PngChunkText(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.zTXt.value) {
+            return new PngChunkZtxt(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.IHDR.value) {
+            return new PngChunkIhdr(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.PLTE.value) {
+            return new PngChunkPlte(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.pHYs.value) {
+            return new PngChunkPhys(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.sCAL.value) {
+            return new PngChunkScal(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.IDAT.value) {
+            return new PngChunkIdat(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.gAMA.value) {
+            return new PngChunkGama(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.iTXt.value) {
+            return new PngChunkItxt(length, chunkType, crc, bytes);
+        } else {
+            return new PngChunk(length, chunkType, crc, bytes);
         }
-
     }
 
     /**
@@ -642,29 +730,7 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
             final int crc = BinaryFunctions.read4Bytes("CRC", is, "Not a Valid PNG File", getByteOrder());
 
             if (keep) {
-                if (chunkType == ChunkType.iCCP.value) {
-                    result.add(new PngChunkIccp(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.tEXt.value) {
-                    result.add(new PngChunkText(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.zTXt.value) {
-                    result.add(new PngChunkZtxt(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.IHDR.value) {
-                    result.add(new PngChunkIhdr(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.PLTE.value) {
-                    result.add(new PngChunkPlte(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.pHYs.value) {
-                    result.add(new PngChunkPhys(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.sCAL.value) {
-                    result.add(new PngChunkScal(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.IDAT.value) {
-                    result.add(new PngChunkIdat(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.gAMA.value) {
-                    result.add(new PngChunkGama(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.iTXt.value) {
-                    result.add(new PngChunkItxt(length, chunkType, crc, bytes));
-                } else {
-                    result.add(new PngChunk(length, chunkType, crc, bytes));
-                }
+                result.add(createChunk(length, chunkType, crc, bytes));
 
                 if (returnAfterFirst) {
                     return result;
@@ -681,6 +747,47 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
 
     }
 
+    /**
+     * Reads the chunks preceding the image data, leaving the stream at the start of the first IDAT chunk.
+     *
+     * @param is         the PNG stream, after the signature, which must support {@link InputStream#mark(int)}.
+     * @param chunkTypes the types of the chunks to return.
+     * @return the chunks of the given types.
+     * @throws ImagingException if there is no image data.
+     * @throws IOException      if the chunks can't be read.
+     */
+    private List<PngChunk> readChunksBeforeImageData(final InputStream is, final ChunkType[] chunkTypes) throws ImagingException, IOException {
+        final List<PngChunk> result = new ArrayList<>();
+
+        while (true) {
+            is.mark(8);
+            final int length = BinaryFunctions.read4Bytes("Length", is, "Not a Valid PNG File", getByteOrder());
+            if (length < 0) {
+                throw new ImagingException("Invalid PNG chunk length: " + length);
+            }
+            final int chunkType = BinaryFunctions.read4Bytes("ChunkType", is, "Not a Valid PNG File", getByteOrder());
+            if (chunkType == ChunkType.IDAT.value) {
+                is.reset();
+                return result;
+            }
+            if (chunkType == ChunkType.IEND.value) {
+                throw new ImagingException("PNG missing image data");
+            }
+
+            final boolean keep = keepChunk(chunkType, chunkTypes);
+            byte[] bytes = null;
+            if (keep) {
+                bytes = BinaryFunctions.readBytes("Chunk Data", is, length, "Not a Valid PNG File: Couldn't read Chunk Data.");
+            } else {
+                BinaryFunctions.skipBytes(is, length, "Not a Valid PNG File");
+            }
+            final int crc = BinaryFunctions.read4Bytes("CRC", is, "Not a Valid PNG File", getByteOrder());
+            if (keep) {
+                result.add(createChunk(length, chunkType, crc, bytes));
+            }
+        }
+    }
+
     public void readSignature(final InputStream is) throws ImagingException, IOException {
         BinaryFunctions.readAndVerifyBytes(is, PngConstants.PNG_SIGNATURE, "Not a Valid PNG Segment: Incorrect Signature");
 
@@ -17,6 +17,8 @@ package org.apache.commons.imaging.formats.png;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
 
 import org.apache.commons.imaging.common.XmpImagingParameters;
 
@@ -40,6 +42,26 @@ public class PngImagingParameters extends XmpImagingParameters<PngImagingParamet
 
     private boolean predictorEnabled;
 
+    /**
+     * The filter type of all the rows, or {@code null} to choose it for each row.
+     */
+    private FilterType filterType;
+
+    /**
+     * Deflate compression level. Default value is {@link Deflater#DEFAULT_COMPRESSION}.
+     */
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * Deflate compression strategy. Default value is {@link Deflater#DEFAULT_STRATEGY}.
+     */
+    private int compressionStrategy = Deflater.DEFAULT_STRATEGY;
+
+    /**
+     * Executor encoding bands of rows concurrently, if any.
+     */
+    private Executor executor;
+
     /**
      * Used in write operations to indicate the Physical Scale - sCAL.
      *
@@ -66,6 +88,38 @@ public class PngImagingParameters extends XmpImagingParameters<PngImagingParamet
         return bitDepth;
     }
 
+    /**
+     * Gets the deflate compression level of the image data.
+     *
+     * @return a level from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}, {@link Deflater#NO_COMPRESSION}, or
+     *         {@link Deflater#DEFAULT_COMPRESSION}.
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Gets the deflate compression strategy of the image data.
+     *
+     * @return {@link Deflater#DEFAULT_STRATEGY}, {@link Deflater#FILTERED} or {@link Deflater#HUFFMAN_ONLY}.
+     */
+    public int getCompressionStrategy() {
+        return compressionStrategy;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Gets the filter type applied to all the rows when the predictor is enabled.
+     *
+     * @return the filter type, or {@code null} if it is chosen for each row.
+     */
+    public FilterType getFilterType() {
+        return filterType;
+    }
+
     public PhysicalScale getPhysicalScale() {
         return physicalScale;
     }
@@ -96,6 +150,62 @@ public class PngImagingParameters extends XmpImagingParameters<PngImagingParamet
         return asThis();
     }
 
+    /**
+     * Sets the deflate compression level of the image data. Lower levels write faster, higher levels write smaller files.
+     *
+     * @param compressionLevel a level from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}, {@link Deflater#NO_COMPRESSION}, or
+     *                         {@link Deflater#DEFAULT_COMPRESSION}.
+     * @return this
+     * @throws IllegalArgumentException if the level is not valid.
+     */
+    public PngImagingParameters setCompressionLevel(final int compressionLevel) {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level " + compressionLevel + ", must be -1 or from 0 to 9");
+        }
+        this.compressionLevel = compressionLevel;
+        return asThis();
+    }
+
+    /**
+     * Sets the deflate compression strategy of the image data. {@link Deflater#FILTERED} may compress filtered photographic images slightly better.
+     *
+     * @param compressionStrategy {@link Deflater#DEFAULT_STRATEGY}, {@link Deflater#FILTERED} or {@link Deflater#HUFFMAN_ONLY}.
+     * @return this
+     * @throws IllegalArgumentException if the strategy is not valid.
+     */
+    public PngImagingParameters setCompressionStrategy(final int compressionStrategy) {
+        if (compressionStrategy != Deflater.DEFAULT_STRATEGY && compressionStrategy != Deflater.FILTERED && compressionStrategy != Deflater.HUFFMAN_ONLY) {
+            throw new IllegalArgumentException("Invalid compression strategy " + compressionStrategy + ", must be 0, 1 or 2");
+        }
+        this.compressionStrategy = compressionStrategy;
+        return asThis();
+    }
+
+    /**
+     * Sets an executor to encode an image concurrently. The rows are split into bands of about 512 KB of filtered data, each filtered and deflated in a task of
+     * its own, with a bounded number of them pending at a time. The bands are joined into a single zlib stream, each preset with the end of the previous one
+     * as a dictionary so that compression suffers little; the output differs from the one written without an executor, but decodes to the same image.
+     *
+     * @param executor the executor, or {@code null} to encode the image in the calling thread.
+     * @return this
+     */
+    public PngImagingParameters setExecutor(final Executor executor) {
+        this.executor = executor;
+        return asThis();
+    }
+
+    /**
+     * Sets the filter type applied to all the rows when the predictor is enabled. By default, the filter type of each row is the one giving the smallest sum
+     * of absolute differences, which usually compresses best; a fixed type such as {@link FilterType#SUB} or {@link FilterType#UP} writes faster.
+     *
+     * @param filterType the filter type, or {@code null} to choose it for each row.
+     * @return this
+     */
+    public PngImagingParameters setFilterType(final FilterType filterType) {
+        this.filterType = filterType;
+        return asThis();
+    }
+
     public PngImagingParameters setForceIndexedColor(final boolean forceIndexedColor) {
         this.forceIndexedColor = forceIndexedColor;
         return asThis();
@@ -114,7 +224,7 @@ public class PngImagingParameters extends XmpImagingParameters<PngImagingParamet
     /**
      * Sets the enabled status of the predictor. When performing data compression on an image, a PNG predictor often results in a reduced file size. Predictors
      * are particularly effective on photographic images, but may also work on graphics. The specification of a predictor may result in an increased processing
-     * time when writing an image, but will not affect the time required to read an image.
+     * time when writing an image, but will not affect the time required to read an image. The predictor is not applied to indexed color images.
      *
      * @param predictorEnabled true if a predictor is enabled; otherwise, false.
      * @return this
@@ -124,6 +234,20 @@ public class PngImagingParameters extends XmpImagingParameters<PngImagingParamet
         return asThis();
     }
 
+    /**
+     * Sets the parameters for writing quickly rather than compactly: the predictor is enabled with the {@link FilterType#SUB} filter for all the rows, and the
+     * image data is compressed with {@link Deflater#BEST_SPEED}.
+     *
+     * @return this
+     */
+    public PngImagingParameters setSpeedPreset() {
+        this.predictorEnabled = true;
+        this.filterType = FilterType.SUB;
+        this.compressionLevel = Deflater.BEST_SPEED;
+        this.compressionStrategy = Deflater.DEFAULT_STRATEGY;
+        return asThis();
+    }
+
     public PngImagingParameters setTextChunks(final List<? extends AbstractPngText> textChunks) {
         this.textChunks = Collections.unmodifiableList(textChunks);
         return asThis();
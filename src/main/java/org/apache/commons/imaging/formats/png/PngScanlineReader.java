@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import java.awt.RenderingHints;
+import java.awt.color.ICC_ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorConvertOp;
+import java.awt.image.ColorModel;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.imaging.ColorTools;
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
+
+/**
+ * Reads the rows of a non-interlaced PNG image one at a time, inflating and unfiltering the image data as it is read, so that memory use doesn't depend on
+ * the height of the image. Obtained from {@link PngImageParser#getScanlineReader(org.apache.commons.imaging.bytesource.ByteSource, PngImagingParameters)}.
+ *
+ * <pre>
+ * try (PngScanlineReader reader = new PngImageParser().getScanlineReader(byteSource, params)) {
+ *     int[] row;
+ *     while ((row = reader.readScanline()) != null) {
+ *         // process the reader.getWidth() ARGB values of the row
+ *     }
+ * }
+ * </pre>
+ */
+public final class PngScanlineReader implements Closeable {
+
+    private final InputStream is;
+    private final IdatInputStream idat;
+    private final InflaterInputStream iis;
+    private final ScanExpediterSimple scanExpediter;
+    private final int width;
+    private final int height;
+    private final boolean hasAlpha;
+    private final ICC_ColorSpace colorSpace;
+    private final int[] argb;
+    // created for the first row converted to sRGB, and reused for the others
+    private BufferedImage rowImage;
+    private BufferedImage iccRowImage;
+    private BufferedImage convertedRowImage;
+    private ColorConvertOp colorConvertOp;
+    private int nextRow;
+
+    PngScanlineReader(final InputStream is, final IdatInputStream idat, final InflaterInputStream iis, final ScanExpediterSimple scanExpediter,
+            final int width, final int height, final boolean hasAlpha, final ICC_ColorSpace colorSpace) {
+        this.is = is;
+        this.idat = idat;
+        this.iis = iis;
+        this.scanExpediter = scanExpediter;
+        this.width = width;
+        this.height = height;
+        this.hasAlpha = hasAlpha;
+        this.colorSpace = colorSpace;
+        this.argb = Allocator.intArray(width);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // releases the inflater, which doesn't close the PNG stream
+        try {
+            iis.close();
+        } finally {
+            is.close();
+        }
+    }
+
+    private void convertToSrgb() {
+        if (colorConvertOp == null) {
+            // the row is set into an sRGB image, and converted from the same raster labeled with the color space of the image, as the whole image is
+            rowImage = new BufferedImage(width, 1, hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            iccRowImage = new ColorTools().relabelColorSpace(rowImage, colorSpace);
+            final RenderingHints hints = new RenderingHints(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            hints.put(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY);
+            hints.put(RenderingHints.KEY_DITHERING, RenderingHints.VALUE_DITHER_ENABLE);
+            colorConvertOp = new ColorConvertOp(colorSpace, ColorModel.getRGBdefault().getColorSpace(), hints);
+            convertedRowImage = colorConvertOp.createCompatibleDestImage(iccRowImage, null);
+        }
+        rowImage.setRGB(0, 0, width, 1, argb, 0, width);
+        colorConvertOp.filter(iccRowImage, convertedRowImage);
+        convertedRowImage.getRGB(0, 0, width, 1, argb, 0, width);
+    }
+
+    /**
+     * Gets the height of the image.
+     *
+     * @return the number of rows.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the index of the row the next call to {@link #readScanline()} returns.
+     *
+     * @return the index of the next row, or the height of the image once all rows are read.
+     */
+    public int getNextRow() {
+        return nextRow;
+    }
+
+    /**
+     * Gets the width of the image.
+     *
+     * @return the number of pixels in a row.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Tests whether the pixels may be transparent, from an alpha channel or a tRNS chunk.
+     *
+     * @return whether the alpha of the ARGB values is significant.
+     */
+    public boolean hasAlpha() {
+        return hasAlpha;
+    }
+
+    /**
+     * Reads the next row. The CRCs of the image data chunks are checked as they are read, the last ones when the last row is.
+     *
+     * @return the ARGB values of the pixels of the row, in an array reused by the next call, or {@code null} once all rows are read.
+     * @throws ImagingException if the image data is invalid.
+     * @throws IOException      if the image data can't be read.
+     */
+    public int[] readScanline() throws ImagingException, IOException {
+        if (nextRow >= height) {
+            return null;
+        }
+        scanExpediter.readScanline(argb);
+        if (colorSpace != null) {
+            convertToSrgb();
+        }
+        nextRow++;
+        if (nextRow == height) {
+            idat.checkRemaining();
+        }
+        return argb;
+    }
+}
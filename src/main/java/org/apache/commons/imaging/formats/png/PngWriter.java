@@ -22,18 +22,38 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.PixelDensity;
 import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.internal.CompressionQueue;
 import org.apache.commons.imaging.internal.Debug;
 import org.apache.commons.imaging.palette.Palette;
 import org.apache.commons.imaging.palette.PaletteFactory;
 
 public class PngWriter {
 
+    /**
+     * The number of filtered bytes deflated in each band when writing concurrently.
+     */
+    private static final int BAND_SIZE = 512 * 1024;
+
+    /**
+     * The size of the deflate window, which the end of a band fills for the next one.
+     */
+    private static final int WINDOW_SIZE = 32 * 1024;
+
+    /**
+     * The size of the IDAT chunks written without an executor.
+     */
+    private static final int IDAT_CHUNK_SIZE = 256 * 1024;
+
+    private static final int ADLER32_BASE = 65521;
+
     /*
      * 1. IHDR: image header, which is the first chunk in a PNG data stream. 2. PLTE: palette table associated with indexed PNG images. 3. IDAT: image data
      * chunks. 4. IEND: image trailer, which is the last chunk in a PNG data stream.
@@ -45,6 +65,21 @@ public class PngWriter {
      * 11.3.5: Miscellaneous information). 5. Time information: tIME (see 11.3.6: Time stamp information).
      */
 
+    /**
+     * A band of rows, deflated on its own for writing concurrently.
+     */
+    private static final class Band {
+        final byte[] compressed;
+        final long adler32;
+        final int length;
+
+        Band(final byte[] compressed, final long adler32, final int length) {
+            this.compressed = compressed;
+            this.adler32 = adler32;
+            this.length = length;
+        }
+    }
+
     private static final class ImageHeader {
         public final int width;
         public final int height;
@@ -67,6 +102,141 @@ public class PngWriter {
 
     }
 
+    /**
+     * The samples of a row of pixels.
+     */
+    private static final class ScanlineFormat {
+        final Palette palette;
+        final boolean isGrayscale;
+        final boolean useAlpha;
+        final int bytesPerPixel;
+        final int rowLength;
+
+        ScanlineFormat(final int width, final Palette palette, final boolean isGrayscale, final boolean useAlpha) {
+            this.palette = palette;
+            this.isGrayscale = isGrayscale;
+            this.useAlpha = useAlpha;
+            this.bytesPerPixel = (palette != null || isGrayscale ? 1 : 3) + (useAlpha ? 1 : 0);
+            this.rowLength = Math.multiplyExact(width, bytesPerPixel);
+        }
+
+        void getSamples(final int[] argbRow, final byte[] row) throws ImagingException {
+            int index = 0;
+            for (final int argb : argbRow) {
+                if (palette != null) {
+                    row[index++] = (byte) palette.getPaletteIndex(argb);
+                } else {
+                    final int alpha = 0xff & argb >> 24;
+                    final int red = 0xff & argb >> 16;
+                    final int green = 0xff & argb >> 8;
+                    final int blue = 0xff & argb >> 0;
+
+                    if (isGrayscale) {
+                        row[index++] = (byte) ((red + green + blue) / 3);
+                    } else {
+                        row[index++] = (byte) red;
+                        row[index++] = (byte) green;
+                        row[index++] = (byte) blue;
+                    }
+                    if (useAlpha) {
+                        row[index++] = (byte) alpha;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the Adler-32 checksum of two sequences of bytes from their own checksums, as zlib's adler32_combine() does.
+     *
+     * @param adler1 the checksum of the first sequence.
+     * @param adler2 the checksum of the second sequence.
+     * @param length2 the length of the second sequence.
+     * @return the checksum of the first sequence followed by the second.
+     */
+    static long combineAdler32(final long adler1, final long adler2, final long length2) {
+        final long remainder = length2 % ADLER32_BASE;
+        long sum1 = adler1 & 0xffff;
+        long sum2 = remainder * sum1 % ADLER32_BASE;
+        sum1 += (adler2 & 0xffff) + ADLER32_BASE - 1;
+        sum2 += (adler1 >> 16 & 0xffff) + (adler2 >> 16 & 0xffff) + ADLER32_BASE - remainder;
+        if (sum1 >= ADLER32_BASE) {
+            sum1 -= ADLER32_BASE;
+        }
+        if (sum1 >= ADLER32_BASE) {
+            sum1 -= ADLER32_BASE;
+        }
+        if (sum2 >= ADLER32_BASE << 1) {
+            sum2 -= ADLER32_BASE << 1;
+        }
+        if (sum2 >= ADLER32_BASE) {
+            sum2 -= ADLER32_BASE;
+        }
+        return sum1 | sum2 << 16;
+    }
+
+    /**
+     * Filters and deflates a band of rows as a part of a zlib stream, without its header and trailer. The filtered rows before the band, up to the size of the
+     * deflate window, are the preset dictionary, so that matches may reach back into the previous band as they would in a single stream. Unless it is the
+     * last one, the band ends with a sync flush, which leaves its data byte-aligned and the stream open for the next band.
+     */
+    private static Band encodeBand(final BufferedImage src, final ScanlineFormat format, final FilterType filterType, final int start, final int end,
+            final boolean last, final PngImagingParameters params) throws ImagingException {
+        final int width = src.getWidth();
+        final int scanlineLength = format.rowLength + 1;
+        final int filterStart = Math.max(0, start - (WINDOW_SIZE + scanlineLength - 1) / scanlineLength);
+        final byte[] filtered = Allocator.byteArray(Math.multiplyExact(end - filterStart, scanlineLength));
+
+        final int[] argbRow = Allocator.intArray(width);
+        byte[] row = Allocator.byteArray(format.rowLength);
+        byte[] prior = Allocator.byteArray(format.rowLength);
+        if (filterStart > 0) {
+            src.getRGB(0, filterStart - 1, width, 1, argbRow, 0, width);
+            format.getSamples(argbRow, prior);
+        }
+        final RowFilter rowFilter = new RowFilter(format.bytesPerPixel, format.rowLength, filterType);
+        for (int y = filterStart; y < end; y++) {
+            src.getRGB(0, y, width, 1, argbRow, 0, width);
+            format.getSamples(argbRow, row);
+            System.arraycopy(rowFilter.filter(row, prior), 0, filtered, (y - filterStart) * scanlineLength, scanlineLength);
+            final byte[] swap = prior;
+            prior = row;
+            row = swap;
+        }
+
+        final int offset = (start - filterStart) * scanlineLength;
+        final int length = filtered.length - offset;
+        final Adler32 adler32 = new Adler32();
+        adler32.update(filtered, offset, length);
+
+        final Deflater deflater = new Deflater(params.getCompressionLevel(), true);
+        try {
+            deflater.setStrategy(params.getCompressionStrategy());
+            if (offset > 0) {
+                final int dictionaryLength = Math.min(offset, WINDOW_SIZE);
+                deflater.setDictionary(filtered, offset - dictionaryLength, dictionaryLength);
+            }
+            deflater.setInput(filtered, offset, length);
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream(length / 4);
+            final byte[] buffer = Allocator.byteArray(64 * 1024);
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    baos.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                int count;
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    baos.write(buffer, 0, count);
+                } while (count == buffer.length);
+            }
+            return new Band(baos.toByteArray(), adler32.getValue(), length);
+        } finally {
+            deflater.end();
+        }
+    }
+
     private byte[] deflate(final byte[] bytes) throws IOException {
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
             try (DeflaterOutputStream dos = new DeflaterOutputStream(baos)) {
@@ -89,20 +259,24 @@ public class PngWriter {
     }
 
     private void writeChunk(final OutputStream os, final ChunkType chunkType, final byte[] data) throws IOException {
-        final int dataLength = data == null ? 0 : data.length;
-        writeInt(os, dataLength);
+        writeChunk(os, chunkType, data, data == null ? 0 : data.length);
+    }
+
+    private void writeChunk(final OutputStream os, final ChunkType chunkType, final byte[] data, final int length) throws IOException {
+        writeInt(os, length);
         os.write(chunkType.array);
         if (data != null) {
-            os.write(data);
+            os.write(data, 0, length);
         }
 
-        final PngCrc pngCrc = new PngCrc();
-
-        final long crc1 = pngCrc.startPartialCrc(chunkType.array, chunkType.array.length);
-        final long crc2 = data == null ? crc1 : pngCrc.continuePartialCrc(crc1, data, data.length);
-        final int crc = (int) pngCrc.finishPartialCrc(crc2);
+        // the CRC of PNG chunks is the same as that of zlib
+        final CRC32 crc = new CRC32();
+        crc.update(chunkType.array);
+        if (data != null) {
+            crc.update(data, 0, length);
+        }
 
-        writeInt(os, crc);
+        writeInt(os, (int) crc.getValue());
     }
 
     private void writeChunkIDAT(final OutputStream os, final byte[] bytes) throws IOException {
@@ -304,8 +478,6 @@ public class PngWriter {
         if (paletteFactory == null) {
             paletteFactory = new PaletteFactory();
         }
-        final int compressionLevel = Deflater.DEFAULT_COMPRESSION;
-
         final int width = src.getWidth();
         final int height = src.getHeight();
 
@@ -425,131 +597,18 @@ public class PngWriter {
 
             // IDAT Yes Multiple IDAT chunks shall be consecutive
 
-            // 28 March 2022. At this time, we only apply the predictor
-            // for non-grayscale, true-color images. This choice is made
-            // out of caution and is not necessarily required by the PNG
-            // spec. We may broaden the use of predictors in future versions.
-            final boolean usePredictor = params.isPredictorEnabled() && !isGrayscale && palette == null;
-
-            byte[] uncompressed;
-            if (!usePredictor) {
-                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-                final boolean useAlpha = pngColorType == PngColorType.GREYSCALE_WITH_ALPHA || pngColorType == PngColorType.TRUE_COLOR_WITH_ALPHA;
-
-                final int[] row = Allocator.intArray(width);
-                for (int y = 0; y < height; y++) {
-                    // Debug.debug("y", y + "/" + height);
-                    src.getRGB(0, y, width, 1, row, 0, width);
-
-                    baos.write(FilterType.NONE.ordinal());
-                    for (int x = 0; x < width; x++) {
-                        final int argb = row[x];
-
-                        if (palette != null) {
-                            final int index = palette.getPaletteIndex(argb);
-                            baos.write(0xff & index);
-                        } else {
-                            final int alpha = 0xff & argb >> 24;
-                            final int red = 0xff & argb >> 16;
-                            final int green = 0xff & argb >> 8;
-                            final int blue = 0xff & argb >> 0;
-
-                            if (isGrayscale) {
-                                final int gray = (red + green + blue) / 3;
-                                // if (y == 0)
-                                // {
-                                // Debug.debug("gray: " + x + ", " + y +
-                                // " argb: 0x"
-                                // + Integer.toHexString(argb) + " gray: 0x"
-                                // + Integer.toHexString(gray));
-                                // // Debug.debug(x + ", " + y + " gray", gray);
-                                // // Debug.debug(x + ", " + y + " gray", gray);
-                                // Debug.debug(x + ", " + y + " gray", gray +
-                                // " " + Integer.toHexString(gray));
-                                // Debug.debug();
-                                // }
-                                baos.write(gray);
-                            } else {
-                                baos.write(red);
-                                baos.write(green);
-                                baos.write(blue);
-                            }
-                            if (useAlpha) {
-                                baos.write(alpha);
-                            }
-                        }
-                    }
-                }
-                uncompressed = baos.toByteArray();
-            } else {
-                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-                final boolean useAlpha = pngColorType == PngColorType.GREYSCALE_WITH_ALPHA || pngColorType == PngColorType.TRUE_COLOR_WITH_ALPHA;
-
-                final int[] row = Allocator.intArray(width);
-                for (int y = 0; y < height; y++) {
-                    // Debug.debug("y", y + "/" + height);
-                    src.getRGB(0, y, width, 1, row, 0, width);
-
-                    int priorA = 0;
-                    int priorR = 0;
-                    int priorG = 0;
-                    int priorB = 0;
-                    baos.write(FilterType.SUB.ordinal());
-                    for (int x = 0; x < width; x++) {
-                        final int argb = row[x];
-                        final int alpha = 0xff & argb >> 24;
-                        final int red = 0xff & argb >> 16;
-                        final int green = 0xff & argb >> 8;
-                        final int blue = 0xff & argb;
-
-                        baos.write(red - priorR);
-                        baos.write(green - priorG);
-                        baos.write(blue - priorB);
-                        priorR = red;
-                        priorG = green;
-                        priorB = blue;
-
-                        if (useAlpha) {
-                            baos.write(alpha - priorA);
-                            priorA = alpha;
-                        }
-                    }
-                }
-                uncompressed = baos.toByteArray();
-            }
-
-            // Debug.debug("uncompressed", uncompressed.length);
-
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            final int chunkSize = 256 * 1024;
-            final Deflater deflater = new Deflater(compressionLevel);
-            final DeflaterOutputStream dos = new DeflaterOutputStream(baos, deflater, chunkSize);
+            // The predictor is not applied to indexed color images,
+            // for which the PNG specification recommends no filtering.
+            final boolean usePredictor = params.isPredictorEnabled() && palette == null;
 
-            for (int index = 0; index < uncompressed.length; index += chunkSize) {
-                final int end = Math.min(uncompressed.length, index + chunkSize);
-                final int length = end - index;
-
-                dos.write(uncompressed, index, length);
-                dos.flush();
-                baos.flush();
-
-                final byte[] compressed = baos.toByteArray();
-                baos.reset();
-                if (compressed.length > 0) {
-                    // Debug.debug("compressed", compressed.length);
-                    writeChunkIDAT(os, compressed);
-                }
+            final boolean useAlpha = pngColorType == PngColorType.GREYSCALE_WITH_ALPHA || pngColorType == PngColorType.TRUE_COLOR_WITH_ALPHA;
+            final ScanlineFormat format = new ScanlineFormat(width, palette, isGrayscale, useAlpha);
+            final FilterType filterType = usePredictor ? params.getFilterType() : FilterType.NONE;
 
-            }
-            {
-                dos.finish();
-                final byte[] compressed = baos.toByteArray();
-                if (compressed.length > 0) {
-                    // Debug.debug("compressed final", compressed.length);
-                    writeChunkIDAT(os, compressed);
-                }
+            if (params.getExecutor() != null) {
+                writeImageDataConcurrently(os, src, format, filterType, params);
+            } else {
+                writeImageData(os, src, format, filterType, params);
             }
         }
 
@@ -568,14 +627,117 @@ public class PngWriter {
          */
 
         os.close();
-    } // todo: filter types
-      // proper color types
+    } // todo: proper color types
       // srgb, etc.
 
+    /**
+     * Writes the image data, filtering each row into a reused buffer and deflating it straight into IDAT chunks, so that the memory used doesn't depend on the
+     * height of the image.
+     */
+    private void writeImageData(final OutputStream os, final BufferedImage src, final ScanlineFormat format, final FilterType filterType,
+            final PngImagingParameters params) throws ImagingException, IOException {
+        final int width = src.getWidth();
+        final int height = src.getHeight();
+
+        final int[] argbRow = Allocator.intArray(width);
+        byte[] row = Allocator.byteArray(format.rowLength);
+        byte[] prior = Allocator.byteArray(format.rowLength);
+        final RowFilter rowFilter = new RowFilter(format.bytesPerPixel, format.rowLength, filterType);
+        // all the IDAT chunks but the last are full
+        final byte[] chunk = Allocator.byteArray(IDAT_CHUNK_SIZE);
+        int chunkLength = 0;
+        final Deflater deflater = new Deflater(params.getCompressionLevel());
+        try {
+            deflater.setStrategy(params.getCompressionStrategy());
+            for (int y = 0; y < height; y++) {
+                // Debug.debug("y", y + "/" + height);
+                src.getRGB(0, y, width, 1, argbRow, 0, width);
+                format.getSamples(argbRow, row);
+
+                deflater.setInput(rowFilter.filter(row, prior));
+                while (!deflater.needsInput()) {
+                    chunkLength += deflater.deflate(chunk, chunkLength, chunk.length - chunkLength);
+                    if (chunkLength == chunk.length) {
+                        writeChunk(os, ChunkType.IDAT, chunk, chunkLength);
+                        chunkLength = 0;
+                    }
+                }
+                final byte[] swap = prior;
+                prior = row;
+                row = swap;
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                chunkLength += deflater.deflate(chunk, chunkLength, chunk.length - chunkLength);
+                if (chunkLength == chunk.length || deflater.finished()) {
+                    writeChunk(os, ChunkType.IDAT, chunk, chunkLength);
+                    chunkLength = 0;
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Writes the image data as a single zlib stream, whose bands of rows are filtered and deflated concurrently, each written in an IDAT chunk of its own. The
+     * Adler-32 checksum of the stream is combined from those of the bands.
+     */
+    private void writeImageDataConcurrently(final OutputStream os, final BufferedImage src, final ScanlineFormat format, final FilterType filterType,
+            final PngImagingParameters params) throws ImagingException, IOException {
+        final int height = src.getHeight();
+        final int rowsPerBand = Math.max(1, BAND_SIZE / (format.rowLength + 1));
+        final int bandCount = (height - 1) / rowsPerBand + 1;
+
+        final long[] adler32 = { 1 };
+        final CompressionQueue<Band> queue = new CompressionQueue<>(params.getExecutor(), (index, band) -> {
+            adler32[0] = combineAdler32(adler32[0], band.adler32, band.length);
+            if (index > 0 && index < bandCount - 1) {
+                writeChunkIDAT(os, band.compressed);
+                return;
+            }
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream(band.compressed.length + 6);
+            if (index == 0) {
+                writeZlibHeader(baos, params.getCompressionLevel());
+            }
+            baos.write(band.compressed);
+            if (index == bandCount - 1) {
+                writeInt(baos, (int) adler32[0]);
+            }
+            writeChunkIDAT(os, baos.toByteArray());
+        });
+        for (int index = 0; index < bandCount; index++) {
+            final int start = index * rowsPerBand;
+            final int end = start + Math.min(rowsPerBand, height - start);
+            final boolean last = index == bandCount - 1;
+            queue.submit(index, () -> encodeBand(src, format, filterType, start, end, last, params));
+        }
+        queue.flush();
+    }
+
     private void writeInt(final OutputStream os, final int value) throws IOException {
         os.write(0xff & value >> 24);
         os.write(0xff & value >> 16);
         os.write(0xff & value >> 8);
         os.write(0xff & value >> 0);
     }
+
+    private void writeZlibHeader(final OutputStream os, final int compressionLevel) throws IOException {
+        // deflate with a 32K window, and the compression level as zlib reports it
+        final int cmf = 0x78;
+        final int level;
+        if (compressionLevel == Deflater.DEFAULT_COMPRESSION || compressionLevel == 6) {
+            level = 2;
+        } else if (compressionLevel < 2) {
+            level = 0;
+        } else if (compressionLevel < 6) {
+            level = 1;
+        } else {
+            level = 3;
+        }
+        int flg = level << 6;
+        flg += 31 - (cmf << 8 | flg) % 31;
+        os.write(cmf);
+        os.write(flg);
+    }
 }
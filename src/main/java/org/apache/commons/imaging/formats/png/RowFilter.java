@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import org.apache.commons.imaging.common.Allocator;
+
+/**
+ * Filters the scanlines of an image for writing, with a fixed filter type or, adaptively, with the type giving the smallest sum of the absolute values of the
+ * filtered bytes taken as signed, the heuristic recommended by the PNG specification.
+ *
+ * @see <a href="https://www.w3.org/TR/png/#12Filter-selection">Portable Network Graphics Specification - Filter selection</a>
+ */
+final class RowFilter {
+
+    private static int paethPredictor(final int a, final int b, final int c) {
+        // a = left, b = above, c = upper left
+        final int p = a + b - c;
+        final int pa = Math.abs(p - a);
+        final int pb = Math.abs(p - b);
+        final int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        if (pb <= pc) {
+            return b;
+        }
+        return c;
+    }
+
+    private final int bytesPerPixel;
+    private final FilterType filterType;
+    private final byte[] filtered;
+
+    /**
+     * Constructs a filter.
+     *
+     * @param bytesPerPixel the number of bytes per complete pixel, rounded up to one.
+     * @param rowLength     the number of bytes in a row, before filtering.
+     * @param filterType    the filter type of all the rows, or {@code null} to choose it for each row.
+     */
+    RowFilter(final int bytesPerPixel, final int rowLength, final FilterType filterType) {
+        this.bytesPerPixel = bytesPerPixel;
+        this.filterType = filterType;
+        this.filtered = Allocator.byteArray(rowLength + 1);
+    }
+
+    /**
+     * Filters a row.
+     *
+     * @param row   the bytes of the row.
+     * @param prior the bytes of the row above, all zeros for the first row.
+     * @return the filter type byte followed by the filtered bytes; the array is reused by the next call.
+     */
+    byte[] filter(final byte[] row, final byte[] prior) {
+        final FilterType type = filterType != null ? filterType : selectFilterType(row, prior);
+        filtered[0] = (byte) type.ordinal();
+        final int length = filtered.length - 1;
+        switch (type) {
+        case SUB:
+            for (int i = 0; i < length; i++) {
+                final int left = i < bytesPerPixel ? 0 : row[i - bytesPerPixel];
+                filtered[i + 1] = (byte) (row[i] - left);
+            }
+            break;
+        case UP:
+            for (int i = 0; i < length; i++) {
+                filtered[i + 1] = (byte) (row[i] - prior[i]);
+            }
+            break;
+        case AVERAGE:
+            for (int i = 0; i < length; i++) {
+                final int left = i < bytesPerPixel ? 0 : 0xff & row[i - bytesPerPixel];
+                filtered[i + 1] = (byte) (row[i] - (left + (0xff & prior[i]) >> 1));
+            }
+            break;
+        case PAETH:
+            for (int i = 0; i < length; i++) {
+                final int left = i < bytesPerPixel ? 0 : 0xff & row[i - bytesPerPixel];
+                final int upperLeft = i < bytesPerPixel ? 0 : 0xff & prior[i - bytesPerPixel];
+                filtered[i + 1] = (byte) (row[i] - paethPredictor(left, 0xff & prior[i], upperLeft));
+            }
+            break;
+        default:
+            System.arraycopy(row, 0, filtered, 1, length);
+            break;
+        }
+        return filtered;
+    }
+
+    private FilterType selectFilterType(final byte[] row, final byte[] prior) {
+        long none = 0;
+        long sub = 0;
+        long up = 0;
+        long average = 0;
+        long paeth = 0;
+        final int length = filtered.length - 1;
+        for (int i = 0; i < length; i++) {
+            final int value = 0xff & row[i];
+            final int above = 0xff & prior[i];
+            final int left;
+            final int upperLeft;
+            if (i < bytesPerPixel) {
+                left = 0;
+                upperLeft = 0;
+            } else {
+                left = 0xff & row[i - bytesPerPixel];
+                upperLeft = 0xff & prior[i - bytesPerPixel];
+            }
+            none += Math.abs((byte) value);
+            sub += Math.abs((byte) (value - left));
+            up += Math.abs((byte) (value - above));
+            average += Math.abs((byte) (value - (left + above >> 1)));
+            paeth += Math.abs((byte) (value - paethPredictor(left, above, upperLeft)));
+        }
+        // ties go to the simpler filter
+        FilterType best = FilterType.NONE;
+        long min = none;
+        if (sub < min) {
+            best = FilterType.SUB;
+            min = sub;
+        }
+        if (up < min) {
+            best = FilterType.UP;
+            min = up;
+        }
+        if (average < min) {
+            best = FilterType.AVERAGE;
+            min = average;
+        }
+        if (paeth < min) {
+            best = FilterType.PAETH;
+        }
+        return best;
+    }
+}
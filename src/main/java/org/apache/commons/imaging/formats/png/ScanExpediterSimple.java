@@ -21,35 +21,62 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkPlte;
 import org.apache.commons.imaging.formats.png.transparencyfilters.AbstractTransparencyFilter;
 
 final class ScanExpediterSimple extends AbstractScanExpediter {
+    private final byte[] scanline;
+    private byte[] unfiltered;
+    private byte[] prev;
+    private BitParser bitParser;
+    private BitParser prevBitParser;
+    private int nextRow;
+
     ScanExpediterSimple(final int width, final int height, final InputStream is, final BufferedImage bi, final PngColorType pngColorType, final int bitDepth,
             final int bitsPerPixel, final PngChunkPlte pngChunkPLTE, final GammaCorrection gammaCorrection,
             final AbstractTransparencyFilter abstractTransparencyFilter) {
         super(width, height, is, bi, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE, gammaCorrection, abstractTransparencyFilter);
+        final int pixelBytesPerScanLine = getBitsToBytesRoundingUp(bitsPerPixel * width);
+        // two rows, swapped after each, as a row is unfiltered from the one above
+        this.scanline = Allocator.byteArray(pixelBytesPerScanLine);
+        this.unfiltered = Allocator.byteArray(pixelBytesPerScanLine);
+        this.prev = Allocator.byteArray(pixelBytesPerScanLine);
+        this.bitParser = new BitParser(unfiltered, bitsPerPixel, bitDepth);
+        this.prevBitParser = new BitParser(prev, bitsPerPixel, bitDepth);
     }
 
     @Override
     public void drive() throws ImagingException, IOException {
-        final int bitsPerScanLine = bitsPerPixel * width;
-        final int pixelBytesPerScanLine = getBitsToBytesRoundingUp(bitsPerScanLine);
-        byte[] prev = null;
-
+        final int[] argb = Allocator.intArray(width);
         for (int y = 0; y < height; y++) {
-            final byte[] unfiltered = getNextScanline(is, pixelBytesPerScanLine, prev, bytesPerPixel);
-
-            prev = unfiltered;
-
-            final BitParser bitParser = new BitParser(unfiltered, bitsPerPixel, bitDepth);
-
-            for (int x = 0; x < width; x++) {
-                final int rgb = getRgb(bitParser, x);
+            readScanline(argb);
+            bi.setRGB(0, y, width, 1, argb, 0, width);
+        }
+    }
 
-                bi.setRGB(x, y, rgb);
-            }
+    /**
+     * Reads the next row of the image, without a {@link BufferedImage} to draw it into.
+     *
+     * @param argb the buffer for the ARGB values of the pixels of the row, of the width of the image.
+     * @throws ImagingException if the image data is invalid.
+     * @throws IOException      if the image data can't be read.
+     */
+    void readScanline(final int[] argb) throws ImagingException, IOException {
+        if (nextRow >= height) {
+            throw new ImagingException("PNG: no more scanlines");
         }
+        final byte[] above = prev;
+        final BitParser aboveBitParser = prevBitParser;
+        prev = unfiltered;
+        prevBitParser = bitParser;
+        unfiltered = above;
+        bitParser = aboveBitParser;
 
+        readNextScanline(is, scanline, nextRow == 0 ? null : prev, unfiltered);
+        for (int x = 0; x < width; x++) {
+            argb[x] = getRgb(bitParser, x);
+        }
+        nextRow++;
     }
 }
@@ -17,9 +17,11 @@
 package org.apache.commons.imaging.formats.tiff;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteOrder;
 
 import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.imaging.formats.tiff.constants.TiffPlanarConfiguration;
 import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
 import org.apache.commons.imaging.formats.tiff.datareaders.DataReaderStrips;
@@ -31,8 +33,50 @@ public abstract class AbstractTiffImageData {
 
     public static class Data extends AbstractTiffElement.DataElement {
 
+        private final ByteSource byteSource;
+
         public Data(final long offset, final int length, final byte[] data) {
             super(offset, length, data);
+            this.byteSource = null;
+        }
+
+        /**
+         * Constructs image data read from the byte source each time it is needed, so it is only held in memory while used.
+         *
+         * @param offset     the offset of the data in the byte source.
+         * @param length     the length of the data.
+         * @param byteSource the byte source holding the data.
+         */
+        public Data(final long offset, final int length, final ByteSource byteSource) {
+            super(offset, length, null);
+            this.byteSource = byteSource;
+        }
+
+        /**
+         * Gets a copy of the data.
+         *
+         * @return the data.
+         * @throws UncheckedIOException if the data is read lazily, and can't be read from its byte source.
+         */
+        @Override
+        public byte[] getData() {
+            if (byteSource == null) {
+                return super.getData();
+            }
+            try {
+                return byteSource.getByteArray(offset, length);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        ByteSource getByteSource() {
+            return byteSource;
+        }
+
+        @Override
+        public int getDataLength() {
+            return byteSource == null ? super.getDataLength() : length;
         }
 
         @Override
@@ -40,6 +84,19 @@ public abstract class AbstractTiffImageData {
             return "TIFF image data: " + getDataLength() + " bytes";
         }
 
+        /**
+         * Tests whether the data is read from its byte source each time it is needed.
+         *
+         * @return whether the data is read lazily.
+         */
+        public boolean isLazy() {
+            return byteSource != null;
+        }
+
+        byte[] readData() throws IOException {
+            return byteSource == null ? super.getData() : byteSource.getByteArray(offset, length);
+        }
+
     }
 
     public static class Strips extends AbstractTiffImageData {
@@ -155,5 +212,17 @@ public abstract class AbstractTiffImageData {
 
     public abstract AbstractTiffElement.DataElement[] getImageData();
 
+    /**
+     * Gets the bytes of a strip or tile, reading them from the byte source if they are read lazily.
+     *
+     * @param index the index of the strip or tile.
+     * @return a copy of the bytes of the strip or tile.
+     * @throws IOException if the bytes can't be read from the byte source.
+     */
+    public byte[] getImageDataBytes(final int index) throws IOException {
+        final AbstractTiffElement.DataElement element = getImageData()[index];
+        return element instanceof Data ? ((Data) element).readData() : element.getData();
+    }
+
     public abstract boolean stripsNotTiles();
 }
@@ -20,7 +20,9 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 
@@ -98,6 +100,12 @@ public class TiffDirectory extends AbstractTiffElement implements Iterable<TiffF
 
     private final List<TiffField> entries;
 
+    /**
+     * The entries sorted by tag, keeping the order of the file for repeated tags, and their tags, for looking up fields by binary search.
+     */
+    private final TiffField[] sortedEntries;
+    private final int[] sortedTags;
+
     /**
      * Preserves the byte order derived from the TIFF file header. Some of the legacy methods in this class require byte order as an argument, though that use
      * could be phased out eventually.
@@ -118,6 +126,13 @@ public class TiffDirectory extends AbstractTiffElement implements Iterable<TiffF
 
         this.type = type;
         this.entries = Collections.unmodifiableList(entries);
+        // the sort is stable, so the first of repeated tags is found, as before
+        this.sortedEntries = entries.toArray(new TiffField[0]);
+        Arrays.sort(sortedEntries, Comparator.comparingInt(TiffField::getTag));
+        this.sortedTags = new int[sortedEntries.length];
+        for (int i = 0; i < sortedEntries.length; i++) {
+            sortedTags[i] = sortedEntries[i].getTag();
+        }
         this.nextDirectoryOffset = nextDirectoryOffset;
         this.headerByteOrder = byteOrder;
     }
@@ -138,11 +153,20 @@ public class TiffDirectory extends AbstractTiffElement implements Iterable<TiffF
     }
 
     public TiffField findField(final TagInfo tag, final boolean failIfMissing) throws ImagingException {
-        for (final TiffField field : entries) {
-            if (field.getTag() == tag.tag) {
-                return field;
+        // the lowest index whose tag isn't less than the one looked up
+        int low = 0;
+        int high = sortedTags.length;
+        while (low < high) {
+            final int mid = low + high >>> 1;
+            if (sortedTags[mid] < tag.tag) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
         }
+        if (low < sortedTags.length && sortedTags[low] == tag.tag) {
+            return sortedEntries[low];
+        }
 
         if (failIfMissing) {
             throw new ImagingException("Missing expected field: " + tag.getDescription());
@@ -173,7 +173,7 @@ public class TiffImageParser extends AbstractImageParser<TiffImagingParameters>
     @Override
     public List<BufferedImage> getAllBufferedImages(final ByteSource byteSource) throws ImagingException, IOException {
         final FormatCompliance formatCompliance = FormatCompliance.getDefault();
-        final TiffReader tiffReader = new TiffReader(true);
+        final TiffReader tiffReader = new TiffReader(true, true);
         final TiffContents contents = tiffReader.readDirectories(byteSource, true, formatCompliance);
         final List<BufferedImage> results = new ArrayList<>();
         for (int i = 0; i < contents.directories.size(); i++) {
@@ -228,7 +228,7 @@ public class TiffImageParser extends AbstractImageParser<TiffImagingParameters>
             params = new TiffImagingParameters();
         }
         final FormatCompliance formatCompliance = FormatCompliance.getDefault();
-        final TiffReader reader = new TiffReader(params.isStrict());
+        final TiffReader reader = new TiffReader(params.isStrict(), true);
         final TiffContents contents = reader.readFirstDirectory(byteSource, true, formatCompliance);
         final ByteOrder byteOrder = reader.getByteOrder();
         final TiffDirectory directory = contents.directories.get(0);
@@ -367,6 +367,10 @@ public class TiffImageParser extends AbstractImageParser<TiffImagingParameters>
 
         final ImageDataReader dataReader = imageData.getDataReader(directory, photometricInterpreter, bitsPerPixel, bitsPerSample, predictor, samplesPerPixel,
                 width, height, compression, planarConfiguration, byteOrder);
+        if (params != null) {
+            dataReader.setTileCache(params.getTileCache());
+            dataReader.setExecutor(params.getExecutor());
+        }
 
         final ImageBuilder iBuilder = dataReader.readImageData(subImage, hasAlpha, isAlphaPremultiplied);
         return iBuilder.getBufferedImage();
@@ -842,6 +846,8 @@ public class TiffImageParser extends AbstractImageParser<TiffImagingParameters>
 
         final ImageDataReader dataReader = imageData.getDataReader(directory, photometricInterpreter, bitsPerPixel, bitsPerSample, predictor, samplesPerPixel,
                 width, height, compression, planarConfiguration, byteOrder);
+        dataReader.setTileCache(params.getTileCache());
+        dataReader.setExecutor(params.getExecutor());
 
         return dataReader.readRasterData(subImage);
     }
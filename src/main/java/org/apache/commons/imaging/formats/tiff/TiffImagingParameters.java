@@ -15,6 +15,8 @@
 
 package org.apache.commons.imaging.formats.tiff;
 
+import java.util.concurrent.Executor;
+
 import org.apache.commons.imaging.common.XmpImagingParameters;
 import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreter;
 import org.apache.commons.imaging.formats.tiff.write.TiffOutputSet;
@@ -100,6 +102,32 @@ public class TiffImagingParameters extends XmpImagingParameters<TiffImagingParam
      */
     private Integer t6Options;
 
+    /**
+     * Used in write operations to lay out the image in tiles of this width, rather than in strips, if not zero.
+     */
+    private int tileWidth;
+
+    /**
+     * Used in write operations to lay out the image in tiles of this length, rather than in strips, if not zero.
+     */
+    private int tileLength;
+
+    /**
+     * Cache of decompressed tiles shared between reads, if any.
+     */
+    private TiffTileCache tileCache;
+
+    /**
+     * Executor decoding or encoding strips or tiles concurrently, if any.
+     */
+    private Executor executor;
+
+    /**
+     * Used in write operations to write a BigTIFF file, with 64-bit offsets, even if a classic TIFF file would do. A BigTIFF file is written anyway if a
+     * classic TIFF file would exceed 4 GB.
+     */
+    private boolean bigTiff;
+
     /**
      * Clears settings for sub-image. Subsequent read operations will retrieve the entire image.
      */
@@ -116,6 +144,10 @@ public class TiffImagingParameters extends XmpImagingParameters<TiffImagingParam
         return customPhotometricInterpreter;
     }
 
+    public Executor getExecutor() {
+        return executor;
+    }
+
     public Integer getLzwCompressionBlockSize() {
         return lzwCompressionBlockSize;
     }
@@ -173,6 +205,22 @@ public class TiffImagingParameters extends XmpImagingParameters<TiffImagingParam
         return t6Options;
     }
 
+    public TiffTileCache getTileCache() {
+        return tileCache;
+    }
+
+    public int getTileLength() {
+        return tileLength;
+    }
+
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
+    public boolean isBigTiff() {
+        return bigTiff;
+    }
+
     public boolean isReadThumbnails() {
         return readThumbnails;
     }
@@ -186,6 +234,11 @@ public class TiffImagingParameters extends XmpImagingParameters<TiffImagingParam
         return subImageWidth > 0 && subImageHeight > 0;
     }
 
+    public TiffImagingParameters setBigTiff(final boolean bigTiff) {
+        this.bigTiff = bigTiff;
+        return asThis();
+    }
+
     public TiffImagingParameters setCompression(final Integer compression) {
         this.compression = compression;
         return asThis();
@@ -196,6 +249,21 @@ public class TiffImagingParameters extends XmpImagingParameters<TiffImagingParam
         return asThis();
     }
 
+    /**
+     * Sets an executor to decode or encode the strips or tiles of an image concurrently. When reading, each strip or tile is decompressed and interpreted in a
+     * task of its own, writing to its own part of the image, and the read returns once all of them are done. The reading thread runs the tasks the executor
+     * hasn't started yet itself, so images can be read from the threads of a bounded executor that also decodes them. A custom photometric interpreter is
+     * then called from several threads at once, so it must be thread-safe. When writing, each strip or tile is compressed in a task of its own, with a bounded
+     * number of them pending at a time, and they are written in the same order as without an executor. The number of threads is that of the executor.
+     *
+     * @param executor the executor, or {@code null} to decode or encode them one after the other in the calling thread.
+     * @return this instance.
+     */
+    public TiffImagingParameters setExecutor(final Executor executor) {
+        this.executor = executor;
+        return asThis();
+    }
+
     public TiffImagingParameters setLzwCompressionBlockSize(final Integer lzwCompressionBlockSize) {
         this.lzwCompressionBlockSize = lzwCompressionBlockSize;
         return asThis();
@@ -254,4 +322,32 @@ public class TiffImagingParameters extends XmpImagingParameters<TiffImagingParam
         return asThis();
     }
 
+    /**
+     * Sets a cache of decompressed tiles, which reads of overlapping sub-images of the same byte source can share to avoid decompressing tiles again.
+     *
+     * @param tileCache the cache, or {@code null} to decompress every tile read.
+     * @return this instance.
+     */
+    public TiffImagingParameters setTileCache(final TiffTileCache tileCache) {
+        this.tileCache = tileCache;
+        return asThis();
+    }
+
+    /**
+     * Sets the size of the tiles in which images are written. The TIFF specification requires the width and length of tiles to be multiples of 16.
+     *
+     * @param tileWidth  the width of the tiles, a positive multiple of 16, or zero to write strips.
+     * @param tileLength the length of the tiles, a positive multiple of 16, or zero to write strips.
+     * @return this instance.
+     * @throws IllegalArgumentException if only one of the sizes is zero, or a size is not a multiple of 16.
+     */
+    public TiffImagingParameters setTileSize(final int tileWidth, final int tileLength) {
+        if (tileWidth < 0 || tileWidth % 16 != 0 || tileLength < 0 || tileLength % 16 != 0 || (tileWidth == 0) != (tileLength == 0)) {
+            throw new IllegalArgumentException("Invalid tile size " + tileWidth + "x" + tileLength + ", must be positive multiples of 16, or both zero");
+        }
+        this.tileWidth = tileWidth;
+        this.tileLength = tileLength;
+        return asThis();
+    }
+
 }
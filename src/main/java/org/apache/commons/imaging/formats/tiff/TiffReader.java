@@ -24,6 +24,8 @@ import static org.apache.commons.imaging.common.BinaryFunctions.readBytes;
 import static org.apache.commons.imaging.common.BinaryFunctions.skipBytes;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_ENTRY_MAX_VALUE_LENGTH;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_ENTRY_MAX_VALUE_LENGTH_BIG;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_HEADER_SIZE;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_HEADER_SIZE_BIG;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_VERSION_BIG;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_VERSION_STANDARD;
 
@@ -128,12 +130,25 @@ public class TiffReader extends BinaryFileParser {
     }
 
     private final boolean strict;
+    private final boolean lazyImageData;
     private boolean bigTiff;
     private boolean standardTiff;
     private int entryMaxValueLength;
 
     public TiffReader(final boolean strict) {
+        this(strict, false);
+    }
+
+    /**
+     * Constructs a reader, which may defer reading the strips and tiles of the images.
+     *
+     * @param strict        whether to fail on TIFF files not following the specification.
+     * @param lazyImageData whether the strips and tiles are read from the byte source only when decoded, instead of with their directory. The byte source
+     *                      must then stay readable, and unchanged, as long as the image data is used.
+     */
+    public TiffReader(final boolean strict, final boolean lazyImageData) {
         this.strict = strict;
+        this.lazyImageData = lazyImageData;
     }
 
     private JpegImageData getJpegRawImageData(final ByteSource byteSource, final TiffDirectory directory) throws ImagingException, IOException {
@@ -169,8 +184,12 @@ public class TiffReader extends BinaryFileParser {
 
         for (int i = 0; i < elements.size(); i++) {
             final TiffDirectory.ImageDataElement element = elements.get(i);
-            final byte[] bytes = byteSource.getByteArray(element.offset, element.length);
-            data[i] = new AbstractTiffImageData.Data(element.offset, element.length, bytes);
+            if (lazyImageData) {
+                data[i] = new AbstractTiffImageData.Data(element.offset, element.length, byteSource);
+            } else {
+                final byte[] bytes = byteSource.getByteArray(element.offset, element.length);
+                data[i] = new AbstractTiffImageData.Data(element.offset, element.length, bytes);
+            }
         }
 
         if (directory.imageDataInStrips()) {
@@ -360,7 +379,12 @@ public class TiffReader extends BinaryFileParser {
                 }
             }
 
-            final long nextDirectoryOffset = 0xFFFFffffL & read4Bytes("nextDirectoryOffset", is, "Not a Valid TIFF File", getByteOrder());
+            final long nextDirectoryOffset;
+            if (standardTiff) {
+                nextDirectoryOffset = 0xFFFFffffL & read4Bytes("nextDirectoryOffset", is, "Not a Valid TIFF File", getByteOrder());
+            } else {
+                nextDirectoryOffset = read8Bytes("nextDirectoryOffset", is, "Not a Valid TIFF File", getByteOrder());
+            }
 
             final TiffDirectory directory = new TiffDirectory(dirType, fields, directoryOffset, nextDirectoryOffset, getByteOrder());
 
@@ -392,7 +416,12 @@ public class TiffReader extends BinaryFileParser {
                         int subDirectoryType;
                         boolean subDirectoryRead = false;
                         try {
-                            subDirectoryOffset = directory.getFieldValue(offsetField);
+                            if (field.getFieldType() == AbstractFieldType.IFD8 || field.getFieldType() == AbstractFieldType.LONG8) {
+                                // BigTIFF
+                                subDirectoryOffset = field.getLongValue();
+                            } else {
+                                subDirectoryOffset = directory.getFieldValue(offsetField);
+                            }
                             subDirectoryType = directoryTypes[i];
                             subDirectoryRead = readDirectory(byteSource, subDirectoryOffset, subDirectoryType, formatCompliance, listener, true, visited);
 
@@ -476,7 +505,7 @@ public class TiffReader extends BinaryFileParser {
             throw new ImagingException("Unknown TIFF Version: " + tiffVersion);
         }
 
-        skipBytes(is, offsetToFirstIFD - 8, "Not a Valid TIFF File: couldn't find IFDs");
+        skipBytes(is, offsetToFirstIFD - (bigTiff ? TIFF_HEADER_SIZE_BIG : TIFF_HEADER_SIZE), "Not a Valid TIFF File: couldn't find IFDs");
 
         return new TiffHeader(byteOrder, tiffVersion, offsetToFirstIFD, bigTiff);
     }
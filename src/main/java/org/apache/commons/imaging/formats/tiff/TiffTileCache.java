@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.commons.imaging.bytesource.ByteSource;
+
+/**
+ * A cache of decompressed TIFF tiles, shared by the reads given it with {@link TiffImagingParameters#setTileCache(TiffTileCache)}. The cache holds up to a
+ * maximum number of bytes of tiles, evicting the least recently used tiles first.
+ *
+ * <p>
+ * Tiles are identified by their byte source and their position in it, so they are only found again by reads using the same {@link ByteSource} instance.
+ * The cache doesn't keep the byte sources reachable: the tiles of a byte source that is no longer used are evicted like any other. Only tiles read lazily
+ * from their byte source, as done by {@link TiffImageParser#getBufferedImage(ByteSource, TiffImagingParameters)}, are cached. The cache is thread-safe.
+ * </p>
+ */
+public final class TiffTileCache {
+
+    private static final class Key {
+        private final long sourceId;
+        private final long offset;
+        private final int length;
+
+        Key(final long sourceId, final long offset, final int length) {
+            this.sourceId = sourceId;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return sourceId == other.sourceId && offset == other.offset && length == other.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Long.hashCode(sourceId) + Long.hashCode(offset)) + length;
+        }
+    }
+
+    private final long maximumSize;
+    // in access order, the least recently used tile first
+    private final Map<Key, byte[]> tiles = new LinkedHashMap<>(16, 0.75f, true);
+    // weakly, so the tiles don't keep their byte sources alive; the tiles of a collected source age out
+    private final Map<ByteSource, Long> sourceIds = new WeakHashMap<>();
+    private long nextSourceId;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Constructs a cache holding up to the given number of bytes of decompressed tiles.
+     *
+     * @param maximumSize the maximum number of bytes held.
+     * @throws IllegalArgumentException if the maximum size is negative.
+     */
+    public TiffTileCache(final long maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("Invalid maximum size " + maximumSize + ", must not be negative");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Removes all the tiles from the cache. The counters are kept.
+     */
+    public synchronized void clear() {
+        tiles.clear();
+        size = 0;
+    }
+
+    /**
+     * Gets a decompressed tile.
+     *
+     * @param tile the compressed tile.
+     * @return a copy of the decompressed tile, or {@code null} if it isn't in the cache.
+     */
+    public synchronized byte[] get(final AbstractTiffElement.DataElement tile) {
+        final Key key = getKey(tile);
+        if (key == null) {
+            return null;
+        }
+        final byte[] decompressed = tiles.get(key);
+        if (decompressed == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return decompressed.clone();
+    }
+
+    /**
+     * Gets the number of tiles evicted to keep the cache within its maximum size.
+     *
+     * @return the number of evictions.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the number of tiles found in the cache.
+     *
+     * @return the number of hits.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    private Key getKey(final AbstractTiffElement.DataElement tile) {
+        if (!(tile instanceof AbstractTiffImageData.Data) || !((AbstractTiffImageData.Data) tile).isLazy()) {
+            return null;
+        }
+        final Long sourceId = sourceIds.computeIfAbsent(((AbstractTiffImageData.Data) tile).getByteSource(), byteSource -> nextSourceId++);
+        return new Key(sourceId, tile.offset, tile.length);
+    }
+
+    /**
+     * Gets the maximum number of bytes of tiles held.
+     *
+     * @return the maximum size.
+     */
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Gets the number of tiles looked up, but not found in the cache.
+     *
+     * @return the number of misses.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of bytes of tiles held.
+     *
+     * @return the size of the cache.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Adds a decompressed tile, evicting the least recently used tiles if the cache is full. Tiles larger than the maximum size are not added.
+     *
+     * @param tile         the compressed tile.
+     * @param decompressed the decompressed tile, of which the cache keeps a copy.
+     */
+    public synchronized void put(final AbstractTiffElement.DataElement tile, final byte[] decompressed) {
+        final Key key = getKey(tile);
+        if (key == null || decompressed.length > maximumSize) {
+            return;
+        }
+        final byte[] previous = tiles.put(key, decompressed.clone());
+        if (previous != null) {
+            size -= previous.length;
+        }
+        size += decompressed.length;
+        final Iterator<byte[]> iterator = tiles.values().iterator();
+        while (size > maximumSize) {
+            size -= iterator.next().length;
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+}
@@ -33,7 +33,10 @@ public final class TiffConstants {
     public static final int TIFF_DIRECTORY_FOOTER_LENGTH = 4;
     public static final int TIFF_ENTRY_LENGTH = 12;
     public static final int TIFF_ENTRY_MAX_VALUE_LENGTH = 4;
-    public static final int TIFF_ENTRY_LENGTH_BIG = 12;
+    public static final int TIFF_HEADER_SIZE_BIG = 16;
+    public static final int TIFF_DIRECTORY_HEADER_LENGTH_BIG = 8;
+    public static final int TIFF_DIRECTORY_FOOTER_LENGTH_BIG = 8;
+    public static final int TIFF_ENTRY_LENGTH_BIG = 20;
     public static final int TIFF_ENTRY_MAX_VALUE_LENGTH_BIG = 8;
 
     public static final int TIFF_COMPRESSION_UNCOMPRESSED_1 = 1;
@@ -48,8 +48,6 @@ public final class DataReaderStrips extends ImageDataReader {
     private final int rowsPerStrip;
     private final TiffPlanarConfiguration planarConfiguration;
     private final ByteOrder byteOrder;
-    private int x;
-    private int y;
     private final AbstractTiffImageData.Strips imageData;
 
     public DataReaderStrips(final TiffDirectory directory, final PhotometricInterpreter photometricInterpreter, final int bitsPerPixel,
@@ -66,8 +64,13 @@ public final class DataReaderStrips extends ImageDataReader {
         this.byteOrder = byteOrder;
     }
 
-    private void interpretStrip(final ImageBuilder imageBuilder, final byte[] bytes, final int pixelsPerStrip, final int yLimit)
+    /**
+     * Interprets a strip, whose first row is at the given row of the image builder. The strip is interpreted independently of the others, so strips can be
+     * interpreted concurrently.
+     */
+    private void interpretStrip(final ImageBuilder imageBuilder, final byte[] bytes, final int pixelsPerStrip, final int yStrip, final int yLimit)
             throws ImagingException, IOException {
+        final int y = yStrip;
         if (y >= yLimit) {
             return;
         }
@@ -81,8 +84,6 @@ public final class DataReaderStrips extends ImageDataReader {
             }
             final int i0 = y;
             final int i1 = y + nRows;
-            x = 0;
-            y += nRows;
             final int[] samples = new int[1];
             final int[] b = unpackFloatingPointSamples(width, i1 - i0, width, bytes, bitsPerPixel, byteOrder);
 
@@ -140,22 +141,23 @@ public final class DataReaderStrips extends ImageDataReader {
         // verify that all samples are one byte in size
         final boolean allSamplesAreOneByte = isHomogenous(8);
 
-        if (predictor != 2 && bitsPerPixel == 8 && allSamplesAreOneByte) {
+        if (bitsPerPixel == 8 && allSamplesAreOneByte) {
             int k = 0;
             int nRows = pixelsPerStrip / width;
             if (y + nRows > yLimit) {
                 nRows = yLimit - y;
             }
+            if (predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING) {
+                applyPredictorToBlock(width, nRows, 1, bytes);
+            }
             final int i0 = y;
             final int i1 = y + nRows;
-            x = 0;
-            y += nRows;
-            final int[] samples = new int[1];
+            final int[] samples = Allocator.intArray(width);
             for (int i = i0; i < i1; i++) {
                 for (int j = 0; j < width; j++) {
-                    samples[0] = bytes[k++] & 0xff;
-                    photometricInterpreter.interpretPixel(imageBuilder, samples, j, i);
+                    samples[j] = bytes[k++] & 0xff;
                 }
+                photometricInterpreter.interpretRow(imageBuilder, samples, 0, 0, i, width);
             }
             return;
         }
@@ -167,8 +169,6 @@ public final class DataReaderStrips extends ImageDataReader {
             }
             final int i0 = y;
             final int i1 = y + nRows;
-            x = 0;
-            y += nRows;
             if (predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING) {
                 applyPredictorToBlock(width, nRows, samplesPerPixel, bytes);
             }
@@ -198,30 +198,19 @@ public final class DataReaderStrips extends ImageDataReader {
 
         // original code before May 2012 modification
         // this logic will handle all cases not conforming to the
-        // special case handled above
+        // special case handled above, reading and interpreting
+        // the samples a row at a time
         try (BitInputStream bis = new BitInputStream(new ByteArrayInputStream(bytes), byteOrder)) {
-
-            int[] samples = Allocator.intArray(bitsPerSampleLength);
-            resetPredictor();
-            for (int i = 0; i < pixelsPerStrip; i++) {
-                getSamplesAsBytes(bis, samples);
-
-                if (x < width) {
-                    samples = applyPredictor(samples);
-
-                    photometricInterpreter.interpretPixel(imageBuilder, samples, x, y);
-                }
-
-                x++;
-                if (x >= width) {
-                    x = 0;
-                    resetPredictor();
-                    y++;
-                    bis.flushCache();
-                    if (y >= yLimit) {
-                        break;
-                    }
-                }
+            int nRows = pixelsPerStrip / width;
+            if (y + nRows > yLimit) {
+                nRows = yLimit - y;
+            }
+            // the predictor is reversed on the bytes if it can be, rather than on each sample
+            final boolean applyPredictor = !applyPredictorToBytes(bytes, width, nRows, byteOrder);
+            final int[] samples = Allocator.intArray(width * bitsPerSampleLength);
+            for (int i = y; i < y + nRows; i++) {
+                getRowSamplesAsBytes(bis, samples, width, applyPredictor);
+                photometricInterpreter.interpretRow(imageBuilder, samples, 0, 0, i, width);
             }
         }
     }
@@ -249,11 +238,10 @@ public final class DataReaderStrips extends ImageDataReader {
         final int strip1 = (subImage.y + subImage.height - 1) / rowsPerStrip;
         final int workingHeight = (strip1 - strip0 + 1) * rowsPerStrip;
 
-        // the legacy code uses a member element "y" to keep track
-        // of the row index of the output image that is being processed
-        // by interpretStrip. y is set to zero before the first
-        // call to interpretStrip. y0 will be the index of the first row
-        // in the full image (the source image) that will be processed.
+        // interpretStrip is given the row index of the output image at
+        // which each strip starts, the first strip starting at zero.
+        // y0 will be the index of the first row in the full image
+        // (the source image) that will be processed.
         final int y0 = strip0 * rowsPerStrip;
         final int yLimit = subImage.y - y0 + subImage.height;
 
@@ -273,7 +261,7 @@ public final class DataReaderStrips extends ImageDataReader {
             // Pixel definitions are organized in an interleaved format
             // For example, red-green-blue values for each pixel
             // would appear contiguous in input sequence.
-            for (int strip = strip0; strip <= strip1; strip++) {
+            decodeBlocks(strip0, strip1, strip -> {
                 final long rowsPerStripLong = 0xFFFFffffL & rowsPerStrip;
                 final long rowsRemaining = height - strip * rowsPerStripLong;
                 final long rowsInThisStrip = Math.min(rowsRemaining, rowsPerStripLong);
@@ -281,19 +269,19 @@ public final class DataReaderStrips extends ImageDataReader {
                 final long bytesPerStrip = rowsInThisStrip * bytesPerRow;
                 final long pixelsPerStrip = rowsInThisStrip * width;
 
-                final byte[] compressed = imageData.getImageData(strip).getData();
+                final byte[] compressed = imageData.getImageDataBytes(strip);
 
                 if (compression == TIFF_COMPRESSION_JPEG) {
                     final int yBlock = strip * rowsPerStrip;
                     final int yWork = yBlock - y0;
                     DataInterpreterJpeg.intepretBlock(directory, workingBuilder, 0, yWork, width, (int) rowsInThisStrip, compressed);
-                    continue;
+                    return;
                 }
 
                 final byte[] decompressed = decompress(compressed, compression, (int) bytesPerStrip, width, (int) rowsInThisStrip);
 
-                interpretStrip(workingBuilder, decompressed, (int) pixelsPerStrip, yLimit);
-            }
+                interpretStrip(workingBuilder, decompressed, (int) pixelsPerStrip, (strip - strip0) * rowsPerStrip, yLimit);
+            });
         } else {
             // pixel definitions are organized in a 3 separate sections of input
             // sequence. For example, red-green-blue values would be given as
@@ -303,7 +291,7 @@ public final class DataReaderStrips extends ImageDataReader {
                 throw new ImagingException("TIFF file in non-supported configuration: JPEG compression used in planar configuration.");
             }
             final int nStripsInPlane = imageData.getImageDataLength() / 3;
-            for (int strip = strip0; strip <= strip1; strip++) {
+            decodeBlocks(strip0, strip1, strip -> {
                 final long rowsPerStripLong = 0xFFFFffffL & rowsPerStrip;
                 final long rowsRemaining = height - strip * rowsPerStripLong;
                 final long rowsInThisStrip = Math.min(rowsRemaining, rowsPerStripLong);
@@ -314,7 +302,7 @@ public final class DataReaderStrips extends ImageDataReader {
                 final byte[] b = Allocator.byteArray((int) bytesPerStrip);
                 for (int iPlane = 0; iPlane < 3; iPlane++) {
                     final int planeStrip = iPlane * nStripsInPlane + strip;
-                    final byte[] compressed = imageData.getImageData(planeStrip).getData();
+                    final byte[] compressed = imageData.getImageDataBytes(planeStrip);
                     final byte[] decompressed = decompress(compressed, compression, (int) bytesPerStrip, width, (int) rowsInThisStrip);
                     int index = iPlane;
                     for (final byte element : decompressed) {
@@ -322,8 +310,8 @@ public final class DataReaderStrips extends ImageDataReader {
                         index += 3;
                     }
                 }
-                interpretStrip(workingBuilder, b, (int) pixelsPerStrip, height);
-            }
+                interpretStrip(workingBuilder, b, (int) pixelsPerStrip, (strip - strip0) * rowsPerStrip, height);
+            });
         }
 
         if (subImage.x == 0 && subImage.y == y0 && subImage.width == width && subImage.height == workingHeight) {
@@ -375,19 +363,19 @@ public final class DataReaderStrips extends ImageDataReader {
         final int strip0 = yRaster / rowsPerStrip;
         final int strip1 = (yRaster + rasterHeight - 1) / rowsPerStrip;
 
-        for (int strip = strip0; strip <= strip1; strip++) {
+        decodeBlocks(strip0, strip1, strip -> {
             final int yStrip = strip * rowsPerStrip;
             final int rowsRemaining = height - yStrip;
             final int rowsInThisStrip = Math.min(rowsRemaining, rowsPerStrip);
             final int bytesPerRow = (bitsPerPixel * width + 7) / 8;
             final int bytesPerStrip = rowsInThisStrip * bytesPerRow;
 
-            final byte[] compressed = imageData.getImageData(strip).getData();
+            final byte[] compressed = imageData.getImageDataBytes(strip);
             final byte[] decompressed = decompress(compressed, compression, bytesPerStrip, width, rowsInThisStrip);
 
             final int[] blockData = unpackFloatingPointSamples(width, rowsInThisStrip, width, decompressed, bitsPerPixel, byteOrder);
             transferBlockToRaster(0, yStrip, width, rowsInThisStrip, blockData, xRaster, yRaster, rasterWidth, rasterHeight, samplesPerPixel, rasterDataFloat);
-        }
+        });
         return new TiffRasterDataFloat(rasterWidth, rasterHeight, samplesPerPixel, rasterDataFloat);
     }
 
@@ -420,18 +408,18 @@ public final class DataReaderStrips extends ImageDataReader {
         final int strip0 = yRaster / rowsPerStrip;
         final int strip1 = (yRaster + rasterHeight - 1) / rowsPerStrip;
 
-        for (int strip = strip0; strip <= strip1; strip++) {
+        decodeBlocks(strip0, strip1, strip -> {
             final int yStrip = strip * rowsPerStrip;
             final int rowsRemaining = height - yStrip;
             final int rowsInThisStrip = Math.min(rowsRemaining, rowsPerStrip);
             final int bytesPerRow = (bitsPerPixel * width + 7) / 8;
             final int bytesPerStrip = rowsInThisStrip * bytesPerRow;
 
-            final byte[] compressed = imageData.getImageData(strip).getData();
+            final byte[] compressed = imageData.getImageDataBytes(strip);
             final byte[] decompressed = decompress(compressed, compression, bytesPerStrip, width, rowsInThisStrip);
             final int[] blockData = unpackIntSamples(width, rowsInThisStrip, width, decompressed, predictor, bitsPerPixel, byteOrder);
             transferBlockToRaster(0, yStrip, width, rowsInThisStrip, blockData, xRaster, yRaster, rasterWidth, rasterHeight, rasterDataInt);
-        }
+        });
         return new TiffRasterDataInt(rasterWidth, rasterHeight, rasterDataInt);
     }
 }
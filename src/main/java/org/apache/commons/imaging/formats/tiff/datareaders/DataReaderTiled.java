@@ -32,6 +32,7 @@ import java.nio.ByteOrder;
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.formats.tiff.AbstractTiffElement;
 import org.apache.commons.imaging.formats.tiff.AbstractTiffImageData;
 import org.apache.commons.imaging.formats.tiff.TiffDirectory;
 import org.apache.commons.imaging.formats.tiff.TiffRasterData;
@@ -73,6 +74,28 @@ public final class DataReaderTiled extends ImageDataReader {
         this.byteOrder = byteOrder;
     }
 
+    /**
+     * Decompresses a tile, or gets it from the tile cache if it was decompressed before. The predictors are reversed in place on the decompressed bytes, so
+     * with a predictor, a copy of the cached bytes is returned.
+     */
+    private byte[] decompressTile(final int tile, final int bytesPerTile) throws ImagingException, IOException {
+        final AbstractTiffElement.DataElement element = imageData.getImageData()[tile];
+        final boolean copy = predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING
+                || predictor == TiffTagConstants.PREDICTOR_VALUE_FLOATING_POINT_DIFFERENCING;
+        if (tileCache != null) {
+            final byte[] cached = tileCache.get(element);
+            if (cached != null) {
+                return copy ? cached.clone() : cached;
+            }
+        }
+        final byte[] decompressed = decompress(imageData.getImageDataBytes(tile), compression, bytesPerTile, tileWidth, tileLength);
+        if (tileCache != null) {
+            tileCache.put(element, decompressed);
+            return copy ? decompressed.clone() : decompressed;
+        }
+        return decompressed;
+    }
+
     private void interpretTile(final ImageBuilder imageBuilder, final byte[] bytes, final int startX, final int startY, final int xLimit, final int yLimit)
             throws ImagingException, IOException {
 
@@ -165,38 +188,15 @@ public final class DataReaderTiled extends ImageDataReader {
 
         // End of May 2012 changes
         try (BitInputStream bis = new BitInputStream(new ByteArrayInputStream(bytes), byteOrder)) {
-
-            final int pixelsPerTile = tileWidth * tileLength;
-
-            int tileX = 0;
-            int tileY = 0;
-
-            int[] samples = Allocator.intArray(bitsPerSampleLength);
-            resetPredictor();
-            for (int i = 0; i < pixelsPerTile; i++) {
-
-                final int x = tileX + startX;
-                final int y = tileY + startY;
-
-                getSamplesAsBytes(bis, samples);
-
-                if (x < xLimit && y < yLimit) {
-                    samples = applyPredictor(samples);
-                    photometricInterpreter.interpretPixel(imageBuilder, samples, x, y);
-                }
-
-                tileX++;
-
-                if (tileX >= tileWidth) {
-                    tileX = 0;
-                    resetPredictor();
-                    tileY++;
-                    bis.flushCache();
-                    if (tileY >= tileLength) {
-                        break;
-                    }
-                }
-
+            // the part of the tile within the limits, which may be padded past them
+            final int i1 = Math.min(startY + tileLength, yLimit);
+            final int count = Math.min(tileWidth, xLimit - startX);
+            // the predictor is reversed on the bytes if it can be, rather than on each sample
+            final boolean applyPredictor = !applyPredictorToBytes(bytes, tileWidth, i1 - startY, byteOrder);
+            final int[] samples = Allocator.intArray(tileWidth * bitsPerSampleLength);
+            for (int i = startY; i < i1; i++) {
+                getRowSamplesAsBytes(bis, samples, tileWidth, applyPredictor);
+                photometricInterpreter.interpretRow(imageBuilder, samples, 0, startX, i, count);
             }
         }
     }
@@ -242,26 +242,27 @@ public final class DataReaderTiled extends ImageDataReader {
         // interpretTile method to implement bounds checking for a subimage.
         final ImageBuilder workingBuilder = new ImageBuilder(workingWidth, workingHeight, hasAlpha, isAlphaPreMultiplied);
 
-        for (int iRow = row0; iRow <= row1; iRow++) {
-            for (int iCol = col0; iCol <= col1; iCol++) {
-                final int tile = iRow * nColumnsOfTiles + iCol;
-                final byte[] compressed = imageData.tiles[tile].getData();
-                final int x = iCol * tileWidth - x0;
-                final int y = iRow * tileLength - y0;
-                // Handle JPEG based compression
-                if (compression == TIFF_COMPRESSION_JPEG) {
-                    if (planarConfiguration == TiffPlanarConfiguration.PLANAR) {
-                        throw new ImagingException("TIFF file in non-supported configuration: JPEG compression used in planar configuration.");
-                    }
-                    DataInterpreterJpeg.intepretBlock(directory, workingBuilder, x, y, tileWidth, tileLength, compressed);
-                    continue;
+        // the tiles are numbered from 0 in rows of nCol tiles, each one
+        // written to its own area of the workingBuilder
+        decodeBlocks(0, nRow * nCol - 1, index -> {
+            final int iRow = row0 + index / nCol;
+            final int iCol = col0 + index % nCol;
+            final int tile = iRow * nColumnsOfTiles + iCol;
+            final int x = iCol * tileWidth - x0;
+            final int y = iRow * tileLength - y0;
+            // Handle JPEG based compression
+            if (compression == TIFF_COMPRESSION_JPEG) {
+                if (planarConfiguration == TiffPlanarConfiguration.PLANAR) {
+                    throw new ImagingException("TIFF file in non-supported configuration: JPEG compression used in planar configuration.");
                 }
+                DataInterpreterJpeg.intepretBlock(directory, workingBuilder, x, y, tileWidth, tileLength, imageData.getImageDataBytes(tile));
+                return;
+            }
 
-                final byte[] decompressed = decompress(compressed, compression, bytesPerTile, tileWidth, tileLength);
+            final byte[] decompressed = decompressTile(tile, bytesPerTile);
 
-                interpretTile(workingBuilder, decompressed, x, y, width, height);
-            }
-        }
+            interpretTile(workingBuilder, decompressed, x, y, width, height);
+        });
 
         if (subImage.x == x0 && subImage.y == y0 && subImage.width == workingWidth && subImage.height == workingHeight) {
             return workingBuilder;
@@ -311,19 +312,20 @@ public final class DataReaderTiled extends ImageDataReader {
         final int row1 = (yRaster + rasterHeight - 1) / tileLength;
 
         final int nColumnsOfTiles = (width + tileWidth - 1) / tileWidth;
+        final int nCol = col1 - col0 + 1;
+        final int nRow = row1 - row0 + 1;
 
-        for (int iRow = row0; iRow <= row1; iRow++) {
-            for (int iCol = col0; iCol <= col1; iCol++) {
-                final int tile = iRow * nColumnsOfTiles + iCol;
-                final byte[] compressed = imageData.tiles[tile].getData();
-                final byte[] decompressed = decompress(compressed, compression, bytesPerTile, tileWidth, tileLength);
-                final int x = iCol * tileWidth;
-                final int y = iRow * tileLength;
+        decodeBlocks(0, nRow * nCol - 1, index -> {
+            final int iRow = row0 + index / nCol;
+            final int iCol = col0 + index % nCol;
+            final int tile = iRow * nColumnsOfTiles + iCol;
+            final byte[] decompressed = decompressTile(tile, bytesPerTile);
+            final int x = iCol * tileWidth;
+            final int y = iRow * tileLength;
 
-                final int[] blockData = unpackFloatingPointSamples(tileWidth, tileLength, tileWidth, decompressed, bitsPerPixel, byteOrder);
-                transferBlockToRaster(x, y, tileWidth, tileLength, blockData, xRaster, yRaster, rasterWidth, rasterHeight, samplesPerPixel, rasterDataFloat);
-            }
-        }
+            final int[] blockData = unpackFloatingPointSamples(tileWidth, tileLength, tileWidth, decompressed, bitsPerPixel, byteOrder);
+            transferBlockToRaster(x, y, tileWidth, tileLength, blockData, xRaster, yRaster, rasterWidth, rasterHeight, samplesPerPixel, rasterDataFloat);
+        });
 
         return new TiffRasterDataFloat(rasterWidth, rasterHeight, samplesPerPixel, rasterDataFloat);
     }
@@ -357,18 +359,19 @@ public final class DataReaderTiled extends ImageDataReader {
         final int row1 = (yRaster + rasterHeight - 1) / tileLength;
 
         final int nColumnsOfTiles = (width + tileWidth - 1) / tileWidth;
+        final int nCol = col1 - col0 + 1;
+        final int nRow = row1 - row0 + 1;
 
-        for (int iRow = row0; iRow <= row1; iRow++) {
-            for (int iCol = col0; iCol <= col1; iCol++) {
-                final int tile = iRow * nColumnsOfTiles + iCol;
-                final byte[] compressed = imageData.tiles[tile].getData();
-                final byte[] decompressed = decompress(compressed, compression, bytesPerTile, tileWidth, tileLength);
-                final int x = iCol * tileWidth;
-                final int y = iRow * tileLength;
-                final int[] blockData = unpackIntSamples(tileWidth, tileLength, tileWidth, decompressed, predictor, bitsPerPixel, byteOrder);
-                transferBlockToRaster(x, y, tileWidth, tileLength, blockData, xRaster, yRaster, rasterWidth, rasterHeight, rasterDataInt);
-            }
-        }
+        decodeBlocks(0, nRow * nCol - 1, index -> {
+            final int iRow = row0 + index / nCol;
+            final int iCol = col0 + index % nCol;
+            final int tile = iRow * nColumnsOfTiles + iCol;
+            final byte[] decompressed = decompressTile(tile, bytesPerTile);
+            final int x = iCol * tileWidth;
+            final int y = iRow * tileLength;
+            final int[] blockData = unpackIntSamples(tileWidth, tileLength, tileWidth, decompressed, predictor, bitsPerPixel, byteOrder);
+            transferBlockToRaster(x, y, tileWidth, tileLength, blockData, xRaster, yRaster, rasterWidth, rasterHeight, rasterDataInt);
+        });
         return new TiffRasterDataInt(rasterWidth, rasterHeight, rasterDataInt);
     }
 }
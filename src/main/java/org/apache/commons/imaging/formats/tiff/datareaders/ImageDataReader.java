@@ -30,11 +30,16 @@ import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TI
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_FLAG_T6_OPTIONS_UNCOMPRESSED_MODE;
 
 import java.awt.Rectangle;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.common.Allocator;
@@ -44,6 +49,7 @@ import org.apache.commons.imaging.common.ZlibDeflate;
 import org.apache.commons.imaging.formats.tiff.TiffDirectory;
 import org.apache.commons.imaging.formats.tiff.TiffField;
 import org.apache.commons.imaging.formats.tiff.TiffRasterData;
+import org.apache.commons.imaging.formats.tiff.TiffTileCache;
 import org.apache.commons.imaging.formats.tiff.constants.TiffPlanarConfiguration;
 import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
 import org.apache.commons.imaging.formats.tiff.itu_t4.T4AndT6Compression;
@@ -143,6 +149,22 @@ import org.apache.commons.imaging.mylzw.MyLzwDecompressor;
  */
 public abstract class ImageDataReader {
 
+    /**
+     * Decodes one block, a strip or a tile, of an image.
+     */
+    @FunctionalInterface
+    protected interface BlockDecoder {
+
+        /**
+         * Decodes a block.
+         *
+         * @param block the index of the block.
+         * @throws ImagingException in the event of an incompatible data form.
+         * @throws IOException      in the event of I/O error.
+         */
+        void decode(int block) throws ImagingException, IOException;
+    }
+
     protected final TiffDirectory directory;
     protected final PhotometricInterpreter photometricInterpreter;
     private final int[] bitsPerSample;
@@ -157,6 +179,10 @@ public abstract class ImageDataReader {
 
     protected final TiffPlanarConfiguration planarConfiguration;
 
+    protected TiffTileCache tileCache;
+
+    protected Executor executor;
+
     public ImageDataReader(final TiffDirectory directory, final PhotometricInterpreter photometricInterpreter, final int[] bitsPerSample, final int predictor,
             final int samplesPerPixel, final int sampleFormat, final int width, final int height, final TiffPlanarConfiguration planarConfiguration) {
         this.directory = directory;
@@ -174,11 +200,23 @@ public abstract class ImageDataReader {
     }
 
     protected int[] applyPredictor(final int[] samples) {
+        return applyPredictor(samples, last);
+    }
+
+    /**
+     * Applies the predictor to the samples of a pixel, given the samples of the previous pixel in the row. This keeps the state of the predictor out of the
+     * reader, so that blocks can be decoded concurrently.
+     *
+     * @param samples  the samples of the pixel, replaced by their predicted values.
+     * @param previous the predicted samples of the previous pixel, or zeros at the start of a row, updated to the samples of this pixel.
+     * @return the samples.
+     */
+    protected int[] applyPredictor(final int[] samples, final int[] previous) {
         if (predictor == 2) {
             // Horizontal differencing.
             for (int i = 0; i < samples.length; i++) {
-                samples[i] = 0xff & samples[i] + last[i];
-                last[i] = samples[i];
+                samples[i] = 0xff & samples[i] + previous[i];
+                previous[i] = samples[i];
             }
         }
 
@@ -186,12 +224,186 @@ public abstract class ImageDataReader {
     }
 
     protected void applyPredictorToBlock(final int width, final int height, final int nSamplesPerPixel, final byte[] p) {
-        final int k = width * nSamplesPerPixel;
-        for (int i = 0; i < height; i++) {
-            final int j0 = i * k + nSamplesPerPixel;
-            final int j1 = (i + 1) * k;
-            for (int j = j0; j < j1; j++) {
-                p[j] += p[j - nSamplesPerPixel];
+        reverseHorizontalDifferencing(p, width, height, nSamplesPerPixel, 1, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Reverses the horizontal differencing predictor on the decompressed bytes of a block whose samples are all 8, 16 or 32 bits, so that the samples can
+     * be read as they are, without applying the predictor to each of them.
+     *
+     * @param bytes       the decompressed bytes of the block, interleaved (chunky) samples in rows of {@code blockWidth} pixels.
+     * @param blockWidth  the width of the block.
+     * @param blockHeight the number of rows of the block.
+     * @param byteOrder   the byte order of the samples.
+     * @return true if the predictor was reversed, false if it is still to be applied to the samples.
+     */
+    protected boolean applyPredictorToBytes(final byte[] bytes, final int blockWidth, final int blockHeight, final ByteOrder byteOrder) {
+        if (predictor != TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING) {
+            return true;
+        }
+        for (final int bytesPerSample : new int[] { 1, 2, 4 }) {
+            if (isHomogenous(bytesPerSample * 8)) {
+                reverseHorizontalDifferencing(bytes, blockWidth, blockHeight, samplesPerPixel, bytesPerSample, byteOrder);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reverses the horizontal differencing predictor in place: each sample of a row becomes the sum of itself and of the sample {@code stride} samples before
+     * it. This works directly on the bytes, without unpacking the samples. Rows missing from the end of the bytes are skipped.
+     *
+     * @param bytes          the bytes of the samples.
+     * @param blockWidth     the number of pixels in a row.
+     * @param blockHeight    the number of rows.
+     * @param stride         the number of samples per pixel in a row: the samples per pixel for interleaved (chunky) data, or 1 for a plane of planar data.
+     * @param bytesPerSample the size of the samples, 1, 2 or 4 bytes.
+     * @param byteOrder      the byte order of the samples.
+     */
+    static void reverseHorizontalDifferencing(final byte[] bytes, final int blockWidth, final int blockHeight, final int stride, final int bytesPerSample,
+            final ByteOrder byteOrder) {
+        final int bytesPerRow = blockWidth * stride * bytesPerSample;
+        if (bytesPerRow == 0) {
+            return;
+        }
+        final int rows = Math.min(blockHeight, bytes.length / bytesPerRow);
+        final int step = stride * bytesPerSample;
+        final boolean bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+        for (int row = 0; row < rows; row++) {
+            final int rowStart = row * bytesPerRow;
+            final int rowEnd = rowStart + bytesPerRow;
+            for (int lane = rowStart; lane < rowStart + step; lane += bytesPerSample) {
+                // a running sum per sample of the pixel, so each byte is read and written once
+                switch (bytesPerSample) {
+                case 1: {
+                    byte sum = 0;
+                    for (int k = lane; k < rowEnd; k += step) {
+                        sum += bytes[k];
+                        bytes[k] = sum;
+                    }
+                    break;
+                }
+                case 2: {
+                    int sum = 0;
+                    for (int k = lane; k < rowEnd; k += step) {
+                        if (bigEndian) {
+                            sum += bytes[k] << 8 | bytes[k + 1] & 0xff;
+                            bytes[k] = (byte) (sum >> 8);
+                            bytes[k + 1] = (byte) sum;
+                        } else {
+                            sum += bytes[k + 1] << 8 | bytes[k] & 0xff;
+                            bytes[k] = (byte) sum;
+                            bytes[k + 1] = (byte) (sum >> 8);
+                        }
+                    }
+                    break;
+                }
+                default: {
+                    int sum = 0;
+                    for (int k = lane; k < rowEnd; k += step) {
+                        if (bigEndian) {
+                            sum += bytes[k] << 24 | (bytes[k + 1] & 0xff) << 16 | (bytes[k + 2] & 0xff) << 8 | bytes[k + 3] & 0xff;
+                            bytes[k] = (byte) (sum >> 24);
+                            bytes[k + 1] = (byte) (sum >> 16);
+                            bytes[k + 2] = (byte) (sum >> 8);
+                            bytes[k + 3] = (byte) sum;
+                        } else {
+                            sum += bytes[k + 3] << 24 | (bytes[k + 2] & 0xff) << 16 | (bytes[k + 1] & 0xff) << 8 | bytes[k] & 0xff;
+                            bytes[k] = (byte) sum;
+                            bytes[k + 1] = (byte) (sum >> 8);
+                            bytes[k + 2] = (byte) (sum >> 16);
+                            bytes[k + 3] = (byte) (sum >> 24);
+                        }
+                    }
+                    break;
+                }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reverses the differencing of the floating-point predictor in place on a row of bytes, before they are regrouped into samples: each byte becomes the sum
+     * of itself and of the byte {@code stride} bytes before it.
+     *
+     * @param bytes  the bytes.
+     * @param offset the index of the first byte of the row.
+     * @param length the number of bytes in the row.
+     * @param stride the number of samples per pixel in the row, or 1 for a plane of planar data.
+     */
+    static void reverseFloatingPointDifferencing(final byte[] bytes, final int offset, final int length, final int stride) {
+        final int end = offset + length;
+        for (int lane = offset; lane < offset + stride && lane < end; lane++) {
+            byte sum = 0;
+            for (int k = lane; k < end; k += stride) {
+                sum += bytes[k];
+                bytes[k] = sum;
+            }
+        }
+    }
+
+    /**
+     * Decodes the blocks from the first to the last, inclusive. If an executor is set, the blocks are decoded concurrently, so each must write to a distinct
+     * part of the output; this method returns once all of them are decoded. The calling thread decodes the blocks the executor hasn't started.
+     *
+     * @param firstBlock the index of the first block.
+     * @param lastBlock  the index of the last block.
+     * @param decoder    the decoder of a single block.
+     * @throws ImagingException in the event of an incompatible data form.
+     * @throws IOException      in the event of I/O error, or if interrupted while waiting for the blocks.
+     */
+    protected void decodeBlocks(final int firstBlock, final int lastBlock, final BlockDecoder decoder) throws ImagingException, IOException {
+        if (executor == null || firstBlock >= lastBlock) {
+            for (int block = firstBlock; block <= lastBlock; block++) {
+                decoder.decode(block);
+            }
+            return;
+        }
+        final List<FutureTask<Void>> tasks = new ArrayList<>(lastBlock - firstBlock + 1);
+        try {
+            for (int block = firstBlock; block <= lastBlock; block++) {
+                final int index = block;
+                final FutureTask<Void> task = new FutureTask<>(() -> {
+                    decoder.decode(index);
+                    return null;
+                });
+                tasks.add(task);
+                try {
+                    executor.execute(task);
+                } catch (final RejectedExecutionException e) {
+                    // run below, by the calling thread
+                }
+            }
+            // The calling thread runs the blocks no thread of the executor has started, from the last, which the executor reaches last. Only blocks
+            // already running are waited for, so this can't deadlock when called from a thread of a bounded executor, and a rejected block still runs.
+            for (int i = tasks.size() - 1; i >= 0; i--) {
+                tasks.get(i).run();
+            }
+            for (final FutureTask<Void> task : tasks) {
+                task.get();
+            }
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ImagingException("Could not decode image data", cause);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final InterruptedIOException interrupted = new InterruptedIOException("Interrupted while decoding image data");
+            interrupted.initCause(e);
+            throw interrupted;
+        } finally {
+            // after a failure, the blocks not yet started are not needed
+            for (final FutureTask<Void> task : tasks) {
+                task.cancel(false);
             }
         }
     }
@@ -253,9 +465,8 @@ public abstract class ImageDataReader {
             return T4AndT6Compression.decompressT6(compressedOrdered, tileWidth, tileHeight);
         }
         case TIFF_COMPRESSION_LZW: {
-            final InputStream is = new ByteArrayInputStream(compressedOrdered);
             final int lzwMinimumCodeSize = 8;
-            return new MyLzwDecompressor(lzwMinimumCodeSize, ByteOrder.BIG_ENDIAN, true).decompress(is, expectedSize);
+            return new MyLzwDecompressor(lzwMinimumCodeSize, ByteOrder.BIG_ENDIAN, true).decompress(compressedOrdered, expectedSize);
         }
 
         // Packbits
@@ -283,19 +494,48 @@ public abstract class ImageDataReader {
      */
     void getSamplesAsBytes(final BitInputStream bis, final int[] result) throws IOException {
         for (int i = 0; i < bitsPerSample.length; i++) {
-            final int bits = bitsPerSample[i];
-            int sample = bis.readBits(bits);
-            if (bits < 8) {
-                final int sign = sample & 1;
-                sample = sample << 8 - bits; // scale to byte.
-                if (sign > 0) {
-                    sample = sample | (1 << 8 - bits) - 1; // extend to byte
-                }
-            } else if (bits > 8) {
-                sample = sample >> bits - 8; // extend to byte.
+            result[i] = readSampleAsByte(bis, bitsPerSample[i]);
+        }
+    }
+
+    /**
+     * Reads the samples of a row of pixels, as {@link #getSamplesAsBytes(BitInputStream, int[])} does for each pixel, and applies the predictor to them
+     * unless it was already applied to the bytes. The stream is then moved to the start of the next row.
+     *
+     * @param bis            the stream to read from.
+     * @param samples        the samples array to populate, packed one pixel after the other.
+     * @param count          the number of pixels in the row.
+     * @param applyPredictor whether to apply the predictor to the samples.
+     * @throws IOException if the samples can't be read.
+     */
+    void getRowSamplesAsBytes(final BitInputStream bis, final int[] samples, final int count, final boolean applyPredictor) throws IOException {
+        final int n = count * bitsPerSampleLength;
+        for (int k = 0; k < n;) {
+            for (final int bits : bitsPerSample) {
+                samples[k++] = readSampleAsByte(bis, bits);
+            }
+        }
+        if (applyPredictor && predictor == 2) {
+            // Horizontal differencing, as applyPredictor does from the start of the row.
+            for (int k = bitsPerSampleLength; k < n; k++) {
+                samples[k] = 0xff & samples[k] + samples[k - bitsPerSampleLength];
+            }
+        }
+        bis.flushCache();
+    }
+
+    private int readSampleAsByte(final BitInputStream bis, final int bits) throws IOException {
+        int sample = bis.readBits(bits);
+        if (bits < 8) {
+            final int sign = sample & 1;
+            sample = sample << 8 - bits; // scale to byte.
+            if (sign > 0) {
+                sample = sample | (1 << 8 - bits) - 1; // extend to byte
             }
-            result[i] = sample;
+        } else if (bits > 8) {
+            sample = sample >> bits - 8; // extend to byte.
         }
+        return sample;
     }
 
     /**
@@ -337,6 +577,24 @@ public abstract class ImageDataReader {
      */
     public abstract TiffRasterData readRasterData(Rectangle subImage) throws ImagingException, IOException;
 
+    /**
+     * Sets the executor decoding the strips or tiles of the image concurrently.
+     *
+     * @param executor the executor, or {@code null} to decode them one after the other in the calling thread.
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the cache of decompressed tiles to use. Only tiled images use it.
+     *
+     * @param tileCache the cache, or {@code null} to decompress every tile read.
+     */
+    public void setTileCache(final TiffTileCache tileCache) {
+        this.tileCache = tileCache;
+    }
+
     protected void resetPredictor() {
         Arrays.fill(last, 0);
     }
@@ -561,7 +819,7 @@ public abstract class ImageDataReader {
         final int bytesPerSample = bitsPerSample / 8;
         final int bytesPerScan = scanSize * samplesPerPixel * bytesPerSample;
         final int nBytes = bytesPerScan * height;
-        final int length = bytes.length < nBytes ? nBytes / bytesPerScan : height;
+        final int length = bytes.length < nBytes ? bytes.length / bytesPerScan : height;
         final int[] samples = Allocator.intArray(scanSize * samplesPerPixel * height);
         // floating-point differencing is indicated by a predictor value of 3.
         if (predictor == TiffTagConstants.PREDICTOR_VALUE_FLOATING_POINT_DIFFERENCING) {
@@ -574,30 +832,19 @@ public abstract class ImageDataReader {
             }
 
             if (planarConfiguration == TiffPlanarConfiguration.CHUNKY) {
-                final int bytesInRow = scanSize * 4 * samplesPerPixel;
+                final int valuesInRow = scanSize * samplesPerPixel;
+                final int valuesInBlock = width * samplesPerPixel;
+                final int bytesInRow = valuesInRow * 4;
                 for (int i = 0; i < length; i++) {
                     final int aOffset = i * bytesInRow;
-                    final int bOffset = aOffset + scanSize * samplesPerPixel;
-                    final int cOffset = bOffset + scanSize * samplesPerPixel;
-                    final int dOffset = cOffset + scanSize * samplesPerPixel;
-                    // in this loop, the source bytes give delta values.
+                    // in this loop, the source bytes give delta values, between
+                    // the bytes of the same sample of successive pixels.
                     // we adjust them to give true values. This operation is
                     // done on a row-by-row basis.
-                    for (int j = 1; j < bytesInRow; j++) {
-                        bytes[aOffset + j] += bytes[aOffset + j - 1];
-                    }
+                    reverseFloatingPointDifferencing(bytes, aOffset, bytesInRow, samplesPerPixel);
                     // pack the bytes into the integer bit-equivalent of
                     // floating point values
-                    int index = i * scanSize;
-                    for (int j = 0; j < width * samplesPerPixel; j++) {
-                        final int a = bytes[aOffset + j];
-                        final int b = bytes[bOffset + j];
-                        final int c = bytes[cOffset + j];
-                        final int d = bytes[dOffset + j];
-                        // Pack the 4 byte components into a single integer
-                        // in the byte order used by the TIFF standard
-                        samples[index++] = (a & 0xff) << 24 | (b & 0xff) << 16 | (c & 0xff) << 8 | d & 0xff;
-                    }
+                    unshuffleFloatingPointBytes(bytes, aOffset, valuesInRow, samples, i * valuesInRow, valuesInBlock);
                 }
             } else {
                 final int bytesInRow = scanSize * 4;
@@ -607,27 +854,8 @@ public abstract class ImageDataReader {
 
                     for (int i = 0; i < length; i++) {
                         final int aOffset = i * bytesInRow + planarByteOffset;
-                        final int bOffset = aOffset + scanSize;
-                        final int cOffset = bOffset + scanSize;
-                        final int dOffset = cOffset + scanSize;
-                        // in this loop, the source bytes give delta values.
-                        // we adjust them to give true values. This operation is
-                        // done on a row-by-row basis.
-                        for (int j = 1; j < bytesInRow; j++) {
-                            bytes[aOffset + j] += bytes[aOffset + j - 1];
-                        }
-                        // pack the bytes into the integer bit-equivalent of
-                        // floating point values
-                        int index = planarIntOffset + i * scanSize;
-                        for (int j = 0; j < width; j++) {
-                            final int a = bytes[aOffset + j];
-                            final int b = bytes[bOffset + j];
-                            final int c = bytes[cOffset + j];
-                            final int d = bytes[dOffset + j];
-                            // Pack the 4 byte components into a single integer
-                            // in the byte order used by the TIFF standard
-                            samples[index++] = (a & 0xff) << 24 | (b & 0xff) << 16 | (c & 0xff) << 8 | d & 0xff;
-                        }
+                        reverseFloatingPointDifferencing(bytes, aOffset, bytesInRow, 1);
+                        unshuffleFloatingPointBytes(bytes, aOffset, scanSize, samples, planarIntOffset + i * scanSize, width);
                     }
                 }
 
@@ -694,6 +922,30 @@ public abstract class ImageDataReader {
         return samples;
     }
 
+    /**
+     * Regroups a row of bytes of 32-bit floating-point values, given by the floating-point predictor in groups of the same order of magnitude, into the
+     * integer bit-equivalents of the values.
+     *
+     * @param bytes        the bytes, after reversing their differencing.
+     * @param offset       the index of the first byte of the row.
+     * @param valuesInRow  the number of values in the row, and so in each group of bytes.
+     * @param samples      the values.
+     * @param samplesIndex the index of the first value of the row.
+     * @param count        the number of values to regroup, from the start of the row.
+     */
+    private static void unshuffleFloatingPointBytes(final byte[] bytes, final int offset, final int valuesInRow, final int[] samples, final int samplesIndex,
+            final int count) {
+        final int bOffset = offset + valuesInRow;
+        final int cOffset = bOffset + valuesInRow;
+        final int dOffset = cOffset + valuesInRow;
+        for (int j = 0; j < count; j++) {
+            // Pack the 4 byte components into a single integer
+            // in the byte order used by the TIFF standard
+            samples[samplesIndex + j] = (bytes[offset + j] & 0xff) << 24 | (bytes[bOffset + j] & 0xff) << 16 | (bytes[cOffset + j] & 0xff) << 8
+                    | bytes[dOffset + j] & 0xff;
+        }
+    }
+
     /**
      * Given a source file that specifies numerical data as short integers, unpack the raw bytes obtained from the source file and organize them into an array
      * of integers.
@@ -726,7 +978,10 @@ public abstract class ImageDataReader {
 
         // The logic that follows is simplified by the fact that
         // the existing API only supports two-byte signed integers.
-        final boolean useDifferencing = predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING;
+        if (predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING) {
+            // on the bytes, in the modulo arithmetic of the samples, before they are unpacked
+            reverseHorizontalDifferencing(bytes, scanSize, height, 1, bytesPerSample, byteOrder);
+        }
 
         for (int i = 0; i < length; i++) {
             final int index = i * scanSize;
@@ -754,11 +1009,6 @@ public abstract class ImageDataReader {
                     }
                 }
             }
-            if (useDifferencing) {
-                for (int j = 1; j < width; j++) {
-                    samples[index + j] += samples[index + j - 1];
-                }
-            }
         }
 
         return samples;
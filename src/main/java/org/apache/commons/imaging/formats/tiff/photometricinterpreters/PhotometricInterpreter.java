@@ -49,4 +49,29 @@ public abstract class PhotometricInterpreter {
     }
 
     public abstract void interpretPixel(ImageBuilder imageBuilder, int[] samples, int x, int y) throws ImagingException, IOException;
+
+    /**
+     * Interprets a run of consecutive pixels of a row, whose samples are packed one pixel after the other, {@code samplesPerPixel} samples per pixel.
+     * <p>
+     * This implementation interprets the pixels one at a time with {@link #interpretPixel(ImageBuilder, int[], int, int)}. The interpreters of the common
+     * color spaces override it to convert the whole run into ARGB values at once, and store them with {@link ImageBuilder#setRgb(int, int, int[], int, int)}.
+     * </p>
+     *
+     * @param imageBuilder the image builder receiving the pixels.
+     * @param samples      the samples of the pixels.
+     * @param offset       the index of the first sample of the first pixel.
+     * @param x            the X coordinate of the first pixel.
+     * @param y            the Y coordinate of the pixels.
+     * @param count        the number of pixels.
+     * @throws ImagingException if the samples can't be interpreted.
+     * @throws IOException      if the samples can't be interpreted.
+     */
+    public void interpretRow(final ImageBuilder imageBuilder, final int[] samples, final int offset, final int x, final int y, final int count)
+            throws ImagingException, IOException {
+        final int[] pixel = new int[samplesPerPixel];
+        for (int i = 0, k = offset; i < count; i++, k += samplesPerPixel) {
+            System.arraycopy(samples, k, pixel, 0, samplesPerPixel);
+            interpretPixel(imageBuilder, pixel, x + i, y);
+        }
+    }
 }
@@ -19,6 +19,7 @@ package org.apache.commons.imaging.formats.tiff.photometricinterpreters;
 import java.io.IOException;
 
 import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.ImageBuilder;
 
 public class PhotometricInterpreterBiLevel extends PhotometricInterpreter {
@@ -51,4 +52,15 @@ public class PhotometricInterpreterBiLevel extends PhotometricInterpreter {
 
         imageBuilder.setRgb(x, y, rgb);
     }
+
+    @Override
+    public void interpretRow(final ImageBuilder imageBuilder, final int[] samples, final int offset, final int x, final int y, final int count)
+            throws ImagingException, IOException {
+        final int[] argb = Allocator.intArray(count);
+        for (int i = 0, k = offset; i < count; i++, k += samplesPerPixel) {
+            final int sample = invert ? 255 - samples[k] : samples[k];
+            argb[i] = 0xff000000 | sample << 16 | sample << 8 | sample;
+        }
+        imageBuilder.setRgb(x, y, argb, 0, count);
+    }
 }
@@ -20,6 +20,7 @@ import java.io.IOException;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.color.ColorConversions;
+import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.ImageBuilder;
 
 public class PhotometricInterpreterCieLab extends PhotometricInterpreter {
@@ -37,4 +38,13 @@ public class PhotometricInterpreterCieLab extends PhotometricInterpreter {
         imageBuilder.setRgb(x, y, rgb);
     }
 
+    @Override
+    public void interpretRow(final ImageBuilder imageBuilder, final int[] samples, final int offset, final int x, final int y, final int count)
+            throws ImagingException, IOException {
+        final int[] argb = Allocator.intArray(count);
+        for (int i = 0, k = offset; i < count; i++, k += samplesPerPixel) {
+            argb[i] = ColorConversions.convertCieLabToArgbTest(samples[k], (byte) samples[k + 1], (byte) samples[k + 2]);
+        }
+        imageBuilder.setRgb(x, y, argb, 0, count);
+    }
 }
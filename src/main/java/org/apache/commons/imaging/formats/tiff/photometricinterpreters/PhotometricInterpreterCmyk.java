@@ -20,6 +20,7 @@ import java.io.IOException;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.color.ColorConversions;
+import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.ImageBuilder;
 
 public class PhotometricInterpreterCmyk extends PhotometricInterpreter {
@@ -39,4 +40,13 @@ public class PhotometricInterpreterCmyk extends PhotometricInterpreter {
         imageBuilder.setRgb(x, y, rgb);
     }
 
+    @Override
+    public void interpretRow(final ImageBuilder imageBuilder, final int[] samples, final int offset, final int x, final int y, final int count)
+            throws ImagingException, IOException {
+        final int[] argb = Allocator.intArray(count);
+        for (int i = 0, k = offset; i < count; i++, k += samplesPerPixel) {
+            argb[i] = ColorConversions.convertCmykToRgb(samples[k], samples[k + 1], samples[k + 2], samples[k + 3]);
+        }
+        imageBuilder.setRgb(x, y, argb, 0, count);
+    }
 }
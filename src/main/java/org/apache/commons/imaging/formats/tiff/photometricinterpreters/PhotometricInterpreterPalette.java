@@ -96,4 +96,14 @@ public class PhotometricInterpreterPalette extends PhotometricInterpreter {
     public void interpretPixel(final ImageBuilder imageBuilder, final int[] samples, final int x, final int y) throws ImagingException, IOException {
         imageBuilder.setRgb(x, y, indexColorMap[samples[0] & bitsPerPixelMask]);
     }
+
+    @Override
+    public void interpretRow(final ImageBuilder imageBuilder, final int[] samples, final int offset, final int x, final int y, final int count)
+            throws ImagingException, IOException {
+        final int[] argb = Allocator.intArray(count);
+        for (int i = 0, k = offset; i < count; i++, k += samplesPerPixel) {
+            argb[i] = indexColorMap[samples[k] & bitsPerPixelMask];
+        }
+        imageBuilder.setRgb(x, y, argb, 0, count);
+    }
 }
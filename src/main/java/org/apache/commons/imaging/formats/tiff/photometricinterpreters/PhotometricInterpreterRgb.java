@@ -19,6 +19,7 @@ package org.apache.commons.imaging.formats.tiff.photometricinterpreters;
 import java.io.IOException;
 
 import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.ImageBuilder;
 
 public class PhotometricInterpreterRgb extends PhotometricInterpreter {
@@ -37,4 +38,14 @@ public class PhotometricInterpreterRgb extends PhotometricInterpreter {
         imageBuilder.setRgb(x, y, rgb);
 
     }
+
+    @Override
+    public void interpretRow(final ImageBuilder imageBuilder, final int[] samples, final int offset, final int x, final int y, final int count)
+            throws ImagingException, IOException {
+        final int[] argb = Allocator.intArray(count);
+        for (int i = 0, k = offset; i < count; i++, k += samplesPerPixel) {
+            argb[i] = 0xff000000 | samples[k] << 16 | samples[k + 1] << 8 | samples[k + 2];
+        }
+        imageBuilder.setRgb(x, y, argb, 0, count);
+    }
 }
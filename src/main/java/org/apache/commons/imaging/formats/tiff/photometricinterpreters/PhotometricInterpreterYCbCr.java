@@ -19,10 +19,26 @@ package org.apache.commons.imaging.formats.tiff.photometricinterpreters;
 import java.io.IOException;
 
 import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.ImageBuilder;
 
 public class PhotometricInterpreterYCbCr extends PhotometricInterpreter {
 
+    // The chroma terms of interpretPixel for each byte value, computed the same way, so that interpretRow gives the same colors.
+    private static final double[] CR_TO_RED = new double[256];
+    private static final double[] CB_TO_GREEN = new double[256];
+    private static final double[] CR_TO_GREEN = new double[256];
+    private static final double[] CB_TO_BLUE = new double[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            CR_TO_RED[i] = 1.402 * (i - 128.0);
+            CB_TO_GREEN[i] = 0.34414 * (i - 128.0);
+            CR_TO_GREEN[i] = 0.71414 * (i - 128.0);
+            CB_TO_BLUE[i] = 1.772 * (i - 128.0);
+        }
+    }
+
     /**
      * This method converts a YUV (aka YCbCr) colorspace to a RGB colorspace. This is handy when trying to reconstruct an image in Java from YCbCr transmitted
      * data. This routine expects the data to fall in the standard PC 0..255 range per pixel, with the array dimensions corresponding to the imageWidth and
@@ -73,4 +89,21 @@ public class PhotometricInterpreterYCbCr extends PhotometricInterpreter {
         imageBuilder.setRgb(x, y, rgb);
 
     }
+
+    @Override
+    public void interpretRow(final ImageBuilder imageBuilder, final int[] samples, final int offset, final int x, final int y, final int count)
+            throws ImagingException, IOException {
+        final int[] argb = Allocator.intArray(count);
+        for (int i = 0, k = offset; i < count; i++, k += samplesPerPixel) {
+            final int Y = samples[k];
+            final int cb = samples[k + 1] & 0xff;
+            final int cr = samples[k + 2] & 0xff;
+
+            final int red = limit((int) (Y + CR_TO_RED[cr]), 0, 255);
+            final int green = limit((int) (Y - CB_TO_GREEN[cb] - CR_TO_GREEN[cr]), 0, 255);
+            final int blue = limit((int) (Y + CB_TO_BLUE[cb]), 0, 255);
+            argb[i] = 0xff000000 | red << 16 | green << 8 | blue;
+        }
+        imageBuilder.setRgb(x, y, argb, 0, count);
+    }
 }
@@ -17,22 +17,15 @@
 package org.apache.commons.imaging.formats.tiff.write;
 
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.DEFAULT_TIFF_BYTE_ORDER;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_CCITT_1D;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_3;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_4;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_DEFLATE_ADOBE;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_LZW;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_PACKBITS;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_UNCOMPRESSED;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_FLAG_T6_OPTIONS_UNCOMPRESSED_MODE;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_HEADER_SIZE;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_VERSION_BIG;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_VERSION_STANDARD;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -40,22 +33,21 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.PixelDensity;
 import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.BinaryOutputStream;
-import org.apache.commons.imaging.common.PackBits;
-import org.apache.commons.imaging.common.RationalNumber;
-import org.apache.commons.imaging.common.ZlibDeflate;
 import org.apache.commons.imaging.formats.tiff.AbstractTiffElement;
 import org.apache.commons.imaging.formats.tiff.AbstractTiffImageData;
 import org.apache.commons.imaging.formats.tiff.TiffImagingParameters;
 import org.apache.commons.imaging.formats.tiff.constants.ExifTagConstants;
 import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryConstants;
 import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
-import org.apache.commons.imaging.formats.tiff.itu_t4.T4AndT6Compression;
-import org.apache.commons.imaging.mylzw.MyLzwCompressor;
+import org.apache.commons.imaging.formats.tiff.fieldtypes.AbstractFieldType;
+import org.apache.commons.imaging.formats.tiff.taginfos.TagInfo;
+import org.apache.commons.imaging.internal.CompressionQueue;
 
 public abstract class AbstractTiffImageWriter {
 
@@ -75,17 +67,6 @@ public abstract class AbstractTiffImageWriter {
         this.byteOrder = byteOrder;
     }
 
-    private void applyPredictor(final int width, final int bytesPerSample, final byte[] b) {
-        final int nBytesPerRow = bytesPerSample * width;
-        final int nRows = b.length / nBytesPerRow;
-        for (int iRow = 0; iRow < nRows; iRow++) {
-            final int offset = iRow * nBytesPerRow;
-            for (int i = nBytesPerRow - 1; i >= bytesPerSample; i--) {
-                b[offset + i] -= b[offset + i - bytesPerSample];
-            }
-        }
-    }
-
     /**
      * Check an image to see if any of its pixels are non-opaque.
      *
@@ -117,7 +98,7 @@ public abstract class AbstractTiffImageWriter {
         return false;
     }
 
-    private void combineUserExifIntoFinalExif(final TiffOutputSet userExif, final TiffOutputSet outputSet) throws ImagingException {
+    void combineUserExifIntoFinalExif(final TiffOutputSet userExif, final TiffOutputSet outputSet) throws ImagingException {
         final List<TiffOutputDirectory> outputDirectories = outputSet.getDirectories();
         outputDirectories.sort(TiffOutputDirectory.COMPARATOR);
         for (final TiffOutputDirectory userDirectory : userExif.getDirectories()) {
@@ -135,7 +116,8 @@ public abstract class AbstractTiffImageWriter {
         }
     }
 
-    private byte[][] getStrips(final BufferedImage src, final int samplesPerPixel, final int bitsPerSample, final int rowsPerStrip) {
+    private byte[][] getStrips(final BufferedImage src, final ImageDataEncoder encoder, final int rowsPerStrip, final Executor executor)
+            throws ImagingException, IOException {
         final int width = src.getWidth();
         final int height = src.getHeight();
 
@@ -143,76 +125,79 @@ public abstract class AbstractTiffImageWriter {
 
         // Write Strips
         final byte[][] result = new byte[Allocator.check(stripCount)][];
-
-        int remainingRows = height;
+        final CompressionQueue<byte[]> queue = new CompressionQueue<>(executor, (index, compressed) -> result[index] = compressed);
 
         for (int i = 0; i < stripCount; i++) {
-            final int rowsInStrip = Math.min(rowsPerStrip, remainingRows);
-            remainingRows -= rowsInStrip;
-
-            final int bitsInRow = bitsPerSample * samplesPerPixel * width;
-            final int bytesPerRow = (bitsInRow + 7) / 8;
-            final int bytesInStrip = rowsInStrip * bytesPerRow;
-
-            final byte[] uncompressed = Allocator.byteArray(bytesInStrip);
-
-            int counter = 0;
-            int y = i * rowsPerStrip;
-            final int stop = i * rowsPerStrip + rowsPerStrip;
-
-            for (; y < height && y < stop; y++) {
-                int bitCache = 0;
-                int bitsInCache = 0;
-                for (int x = 0; x < width; x++) {
-                    final int rgb = src.getRGB(x, y);
-                    final int red = 0xff & rgb >> 16;
-                    final int green = 0xff & rgb >> 8;
-                    final int blue = 0xff & rgb >> 0;
-
-                    if (bitsPerSample == 1) {
-                        int sample = (red + green + blue) / 3;
-                        if (sample > 127) {
-                            sample = 0;
-                        } else {
-                            sample = 1;
-                        }
-                        bitCache <<= 1;
-                        bitCache |= sample;
-                        bitsInCache++;
-                        if (bitsInCache == 8) {
-                            uncompressed[counter++] = (byte) bitCache;
-                            bitCache = 0;
-                            bitsInCache = 0;
-                        }
-                    } else if (samplesPerPixel == 4) {
-                        uncompressed[counter++] = (byte) red;
-                        uncompressed[counter++] = (byte) green;
-                        uncompressed[counter++] = (byte) blue;
-                        uncompressed[counter++] = (byte) (rgb >> 24);
-                    } else {
-                        // samples per pixel is 3
-                        uncompressed[counter++] = (byte) red;
-                        uncompressed[counter++] = (byte) green;
-                        uncompressed[counter++] = (byte) blue;
-                    }
-                }
-                if (bitsInCache > 0) {
-                    bitCache <<= 8 - bitsInCache;
-                    uncompressed[counter++] = (byte) bitCache;
-                }
-            }
+            final int y = i * rowsPerStrip;
+            final int rowsInStrip = Math.min(rowsPerStrip, height - y);
+            queue.submit(i, () -> {
+                final int[] argb = src.getRGB(0, y, width, rowsInStrip, null, 0, width);
+                final byte[] uncompressed = encoder.getSamples(argb, 0, width, width, rowsInStrip, width, rowsInStrip);
+                return encoder.compress(uncompressed, width, rowsPerStrip);
+            });
+        }
+        queue.flush();
 
-            result[i] = uncompressed;
+        return result;
+    }
+
+    private byte[][] getTiles(final BufferedImage src, final ImageDataEncoder encoder, final int tileWidth, final int tileLength, final Executor executor)
+            throws ImagingException, IOException {
+        final int width = src.getWidth();
+        final int height = src.getHeight();
+
+        final int tilesAcross = (width + tileWidth - 1) / tileWidth;
+        final int tilesDown = (height + tileLength - 1) / tileLength;
+
+        final byte[][] result = new byte[Allocator.check(Math.multiplyExact(tilesAcross, tilesDown))][];
+        final CompressionQueue<byte[]> queue = new CompressionQueue<>(executor, (index, compressed) -> result[index] = compressed);
+
+        for (int row = 0; row < tilesDown; row++) {
+            final int y = row * tileLength;
+            final int rowsInTile = Math.min(tileLength, height - y);
+            for (int column = 0; column < tilesAcross; column++) {
+                final int x = column * tileWidth;
+                final int columnsInTile = Math.min(tileWidth, width - x);
+                queue.submit(row * tilesAcross + column, () -> {
+                    final int[] argb = src.getRGB(x, y, columnsInTile, rowsInTile, null, 0, columnsInTile);
+                    final byte[] uncompressed = encoder.getSamples(argb, 0, columnsInTile, columnsInTile, rowsInTile, tileWidth, tileLength);
+                    return encoder.compress(uncompressed, tileWidth, tileLength);
+                });
+            }
         }
+        queue.flush();
 
         return result;
     }
 
+    private AbstractTiffElement.DataElement[] getImageData(final byte[][] blocks) {
+        final AbstractTiffElement.DataElement[] imageData = new AbstractTiffElement.DataElement[blocks.length];
+        Arrays.setAll(imageData, i -> new AbstractTiffImageData.Data(0, blocks[i].length, blocks[i]));
+        return imageData;
+    }
+
     protected TiffOutputSummary validateDirectories(final TiffOutputSet outputSet) throws ImagingException {
+        return validateDirectories(outputSet, false);
+    }
+
+    TiffOutputSummary validateDirectories(final TiffOutputSet outputSet, final boolean bigTiff) throws ImagingException {
         if (outputSet.isEmpty()) {
             throw new ImagingException("No directories.");
         }
 
+        // directory offsets take 8 bytes in BigTIFF files, 4 otherwise
+        final AbstractFieldType offsetFieldType = TiffOutputField.getOffsetFieldType(bigTiff);
+        final TagInfo[] offsetTags = { ExifTagConstants.EXIF_TAG_EXIF_OFFSET, ExifTagConstants.EXIF_TAG_GPSINFO, ExifTagConstants.EXIF_TAG_INTEROP_OFFSET };
+        for (final TiffOutputDirectory directory : outputSet) {
+            for (final TagInfo offsetTag : offsetTags) {
+                final TiffOutputField field = directory.findField(offsetTag);
+                if (field != null && field.abstractFieldType.getSize() != offsetFieldType.getSize()) {
+                    directory.removeField(offsetTag);
+                    directory.add(TiffOutputField.createOffsetField(field.tagInfo, byteOrder, bigTiff));
+                }
+            }
+        }
+
         TiffOutputDirectory exifDirectory = null;
         TiffOutputDirectory gpsDirectory = null;
         TiffOutputDirectory interoperabilityDirectory = null;
@@ -314,7 +299,7 @@ public abstract class AbstractTiffImageWriter {
         final TiffOutputDirectory rootDirectory = directoryTypeMap.get(TiffDirectoryConstants.DIRECTORY_TYPE_ROOT);
 
         // prepare results
-        final TiffOutputSummary result = new TiffOutputSummary(byteOrder, rootDirectory, directoryTypeMap);
+        final TiffOutputSummary result = new TiffOutputSummary(byteOrder, bigTiff, rootDirectory, directoryTypeMap);
 
         if (interoperabilityDirectory == null && interoperabilityDirectoryOffsetField != null) {
             // perhaps we should just discard field?
@@ -326,7 +311,7 @@ public abstract class AbstractTiffImageWriter {
             }
 
             if (interoperabilityDirectoryOffsetField == null) {
-                interoperabilityDirectoryOffsetField = TiffOutputField.createOffsetField(ExifTagConstants.EXIF_TAG_INTEROP_OFFSET, byteOrder);
+                interoperabilityDirectoryOffsetField = TiffOutputField.createOffsetField(ExifTagConstants.EXIF_TAG_INTEROP_OFFSET, byteOrder, bigTiff);
                 exifDirectory.add(interoperabilityDirectoryOffsetField);
             }
 
@@ -340,7 +325,7 @@ public abstract class AbstractTiffImageWriter {
         }
         if (exifDirectory != null) {
             if (exifDirectoryOffsetField == null) {
-                exifDirectoryOffsetField = TiffOutputField.createOffsetField(ExifTagConstants.EXIF_TAG_EXIF_OFFSET, byteOrder);
+                exifDirectoryOffsetField = TiffOutputField.createOffsetField(ExifTagConstants.EXIF_TAG_EXIF_OFFSET, byteOrder, bigTiff);
                 rootDirectory.add(exifDirectoryOffsetField);
             }
 
@@ -353,7 +338,7 @@ public abstract class AbstractTiffImageWriter {
         }
         if (gpsDirectory != null) {
             if (gpsDirectoryOffsetField == null) {
-                gpsDirectoryOffsetField = TiffOutputField.createOffsetField(ExifTagConstants.EXIF_TAG_GPSINFO, byteOrder);
+                gpsDirectoryOffsetField = TiffOutputField.createOffsetField(ExifTagConstants.EXIF_TAG_GPSINFO, byteOrder, bigTiff);
                 rootDirectory.add(gpsDirectoryOffsetField);
             }
 
@@ -367,6 +352,22 @@ public abstract class AbstractTiffImageWriter {
 
     public abstract void write(OutputStream os, TiffOutputSet outputSet) throws IOException, ImagingException;
 
+    /**
+     * Writes the directories of an output set, as a BigTIFF file if requested.
+     *
+     * @param os        the stream to write to.
+     * @param outputSet the directories.
+     * @param bigTiff   whether to write a BigTIFF file, with 64-bit offsets.
+     * @throws IOException      if the file can't be written.
+     * @throws ImagingException if the directories are invalid, or this writer doesn't write BigTIFF files.
+     */
+    public void write(final OutputStream os, final TiffOutputSet outputSet, final boolean bigTiff) throws IOException, ImagingException {
+        if (bigTiff) {
+            throw new ImagingException(getClass().getSimpleName() + " doesn't write BigTIFF files");
+        }
+        write(os, outputSet);
+    }
+
     public void writeImage(final BufferedImage src, final OutputStream os, final TiffImagingParameters params) throws ImagingException, IOException {
         final TiffOutputSet userExif = params.getOutputSet();
 
@@ -400,201 +401,33 @@ public abstract class AbstractTiffImageWriter {
         // the value of such a little-used feature does not seem
         // commensurate with the complexity of the extra code it would require.
 
-        int compression = TIFF_COMPRESSION_LZW;
-        short predictor = TiffTagConstants.PREDICTOR_VALUE_NONE;
-
-        int stripSizeInBits = 64000; // the default from legacy implementation
-        final Integer compressionParameter = params.getCompression();
-        if (compressionParameter != null) {
-            compression = compressionParameter;
-            final Integer stripSizeInBytes = params.getLzwCompressionBlockSize();
-            if (stripSizeInBytes != null) {
-                if (stripSizeInBytes < 8000) {
-                    throw new ImagingException("Block size parameter " + stripSizeInBytes + " is less than 8000 minimum");
-                }
-                stripSizeInBits = stripSizeInBytes * 8;
-            }
-        }
-
-        int samplesPerPixel;
-        int bitsPerSample;
-        int photometricInterpretation;
-        if (compression == TIFF_COMPRESSION_CCITT_1D || compression == TIFF_COMPRESSION_CCITT_GROUP_3 || compression == TIFF_COMPRESSION_CCITT_GROUP_4) {
-            samplesPerPixel = 1;
-            bitsPerSample = 1;
-            photometricInterpretation = 0;
-        } else {
-            samplesPerPixel = hasAlpha ? 4 : 3;
-            bitsPerSample = 8;
-            photometricInterpretation = 2;
-        }
-
-        int rowsPerStrip = stripSizeInBits / (width * bitsPerSample * samplesPerPixel);
-        rowsPerStrip = Math.max(1, rowsPerStrip); // must have at least one.
-
-        final byte[][] strips = getStrips(src, samplesPerPixel, bitsPerSample, rowsPerStrip);
-
-        // System.out.println("width: " + width);
-        // System.out.println("height: " + height);
-        // System.out.println("fRowsPerStrip: " + fRowsPerStrip);
-        // System.out.println("fSamplesPerPixel: " + fSamplesPerPixel);
-        // System.out.println("stripCount: " + stripCount);
-
-        int t4Options = 0;
-        int t6Options = 0;
-        switch (compression) {
-        case TIFF_COMPRESSION_CCITT_1D:
-            for (int i = 0; i < strips.length; i++) {
-                strips[i] = T4AndT6Compression.compressModifiedHuffman(strips[i], width, strips[i].length / ((width + 7) / 8));
-            }
-            break;
-        case TIFF_COMPRESSION_CCITT_GROUP_3: {
-            final Integer t4Parameter = params.getT4Options();
-            if (t4Parameter != null) {
-                t4Options = t4Parameter.intValue();
-            }
-            t4Options &= 0x7;
-            final boolean is2D = (t4Options & 1) != 0;
-            final boolean usesUncompressedMode = (t4Options & 2) != 0;
-            if (usesUncompressedMode) {
-                throw new ImagingException("T.4 compression with the uncompressed mode extension is not yet supported");
-            }
-            final boolean hasFillBitsBeforeEOL = (t4Options & 4) != 0;
-            for (int i = 0; i < strips.length; i++) {
-                if (is2D) {
-                    strips[i] = T4AndT6Compression.compressT4_2D(strips[i], width, strips[i].length / ((width + 7) / 8), hasFillBitsBeforeEOL, rowsPerStrip);
-                } else {
-                    strips[i] = T4AndT6Compression.compressT4_1D(strips[i], width, strips[i].length / ((width + 7) / 8), hasFillBitsBeforeEOL);
-                }
-            }
-            break;
-        }
-        case TIFF_COMPRESSION_CCITT_GROUP_4: {
-            final Integer t6Parameter = params.getT6Options();
-            if (t6Parameter != null) {
-                t6Options = t6Parameter.intValue();
-            }
-            t6Options &= 0x4;
-            final boolean usesUncompressedMode = (t6Options & TIFF_FLAG_T6_OPTIONS_UNCOMPRESSED_MODE) != 0;
-            if (usesUncompressedMode) {
-                throw new ImagingException("T.6 compression with the uncompressed mode extension is not yet supported");
-            }
-            for (int i = 0; i < strips.length; i++) {
-                strips[i] = T4AndT6Compression.compressT6(strips[i], width, strips[i].length / ((width + 7) / 8));
-            }
-            break;
-        }
-        case TIFF_COMPRESSION_PACKBITS:
-            for (int i = 0; i < strips.length; i++) {
-                strips[i] = PackBits.compress(strips[i]);
-            }
-            break;
-        case TIFF_COMPRESSION_LZW:
-            predictor = TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING;
-            for (int i = 0; i < strips.length; i++) {
-                final byte[] uncompressed = strips[i];
-                this.applyPredictor(width, samplesPerPixel, strips[i]);
-
-                final int LZW_MINIMUM_CODE_SIZE = 8;
-                final MyLzwCompressor compressor = new MyLzwCompressor(LZW_MINIMUM_CODE_SIZE, ByteOrder.BIG_ENDIAN, true);
-                final byte[] compressed = compressor.compress(uncompressed);
-                strips[i] = compressed;
-            }
-            break;
-        case TIFF_COMPRESSION_DEFLATE_ADOBE:
-            predictor = TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING;
-            for (int i = 0; i < strips.length; i++) {
-                this.applyPredictor(width, samplesPerPixel, strips[i]);
-                strips[i] = ZlibDeflate.compress(strips[i]);
-            }
-            break;
-        case TIFF_COMPRESSION_UNCOMPRESSED:
-            break;
-        default:
-            throw new ImagingException(
-                    "Invalid compression parameter (Only CCITT 1D/Group 3/Group 4, LZW, Packbits, Zlib Deflate and uncompressed supported).");
-        }
-
-        final AbstractTiffElement.DataElement[] imageData = new AbstractTiffElement.DataElement[strips.length];
-        Arrays.setAll(imageData, i -> new AbstractTiffImageData.Data(0, strips[i].length, strips[i]));
+        final ImageDataEncoder encoder = new ImageDataEncoder(params, hasAlpha);
 
         final TiffOutputSet outputSet = new TiffOutputSet(byteOrder);
         final TiffOutputDirectory directory = outputSet.addRootDirectory();
-
-        // WriteField stripOffsetsField;
-
-        directory.add(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH, width);
-        directory.add(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH, height);
-        directory.add(TiffTagConstants.TIFF_TAG_PHOTOMETRIC_INTERPRETATION, (short) photometricInterpretation);
-        directory.add(TiffTagConstants.TIFF_TAG_COMPRESSION, (short) compression);
-        directory.add(TiffTagConstants.TIFF_TAG_SAMPLES_PER_PIXEL, (short) samplesPerPixel);
-
-        switch (samplesPerPixel) {
-        case 3:
-            directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE, (short) bitsPerSample, (short) bitsPerSample, (short) bitsPerSample);
-            break;
-        case 4:
-            directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE, (short) bitsPerSample, (short) bitsPerSample, (short) bitsPerSample,
-                    (short) bitsPerSample);
-            directory.add(TiffTagConstants.TIFF_TAG_EXTRA_SAMPLES, (short) TiffTagConstants.EXTRA_SAMPLE_UNASSOCIATED_ALPHA);
-            break;
-        case 1:
-            directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE, (short) bitsPerSample);
-            break;
-        default:
-            break;
-        }
-        // {
-        // stripOffsetsField = new WriteField(TIFF_TAG_STRIP_OFFSETS,
-        // FIELD_TYPE_LONG, stripOffsets.length, FIELD_TYPE_LONG
-        // .writeData(stripOffsets, byteOrder));
-        // directory.add(stripOffsetsField);
-        // }
-        // {
-        // WriteField field = new WriteField(TIFF_TAG_STRIP_BYTE_COUNTS,
-        // FIELD_TYPE_LONG, stripByteCounts.length,
-        // FIELD_TYPE_LONG.writeData(stripByteCounts,
-        // WRITE_BYTE_ORDER));
-        // directory.add(field);
-        // }
-        directory.add(TiffTagConstants.TIFF_TAG_ROWS_PER_STRIP, rowsPerStrip);
-        if (pixelDensity.isUnitless()) {
-            directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT, (short) 0);
-            directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION, RationalNumber.valueOf(pixelDensity.getRawHorizontalDensity()));
-            directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION, RationalNumber.valueOf(pixelDensity.getRawVerticalDensity()));
-        } else if (pixelDensity.isInInches()) {
-            directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT, (short) 2);
-            directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION, RationalNumber.valueOf(pixelDensity.horizontalDensityInches()));
-            directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION, RationalNumber.valueOf(pixelDensity.verticalDensityInches()));
+        encoder.addFields(directory, width, height, pixelDensity, xmpXml);
+
+        final AbstractTiffImageData abstractTiffImageData;
+        if (params.getTileWidth() == 0) {
+            final int rowsPerStrip = encoder.getRowsPerStrip(width);
+            final byte[][] strips = getStrips(src, encoder, rowsPerStrip, params.getExecutor());
+            directory.add(TiffTagConstants.TIFF_TAG_ROWS_PER_STRIP, rowsPerStrip);
+            abstractTiffImageData = new AbstractTiffImageData.Strips(getImageData(strips), rowsPerStrip);
         } else {
-            directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT, (short) 1);
-            directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION, RationalNumber.valueOf(pixelDensity.horizontalDensityCentimetres()));
-            directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION, RationalNumber.valueOf(pixelDensity.verticalDensityCentimetres()));
+            final int tileWidth = params.getTileWidth();
+            final int tileLength = params.getTileLength();
+            final byte[][] tiles = getTiles(src, encoder, tileWidth, tileLength, params.getExecutor());
+            directory.add(TiffTagConstants.TIFF_TAG_TILE_WIDTH, tileWidth);
+            directory.add(TiffTagConstants.TIFF_TAG_TILE_LENGTH, tileLength);
+            abstractTiffImageData = new AbstractTiffImageData.Tiles(getImageData(tiles), tileWidth, tileLength);
         }
-        if (t4Options != 0) {
-            directory.add(TiffTagConstants.TIFF_TAG_T4_OPTIONS, t4Options);
-        }
-        if (t6Options != 0) {
-            directory.add(TiffTagConstants.TIFF_TAG_T6_OPTIONS, t6Options);
-        }
-
-        if (null != xmpXml) {
-            final byte[] xmpXmlBytes = xmpXml.getBytes(StandardCharsets.UTF_8);
-            directory.add(TiffTagConstants.TIFF_TAG_XMP, xmpXmlBytes);
-        }
-
-        if (predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING) {
-            directory.add(TiffTagConstants.TIFF_TAG_PREDICTOR, predictor);
-        }
-
-        final AbstractTiffImageData abstractTiffImageData = new AbstractTiffImageData.Strips(imageData, rowsPerStrip);
         directory.setTiffImageData(abstractTiffImageData);
 
         if (userExif != null) {
             combineUserExifIntoFinalExif(userExif, outputSet);
         }
 
-        write(os, outputSet);
+        write(os, outputSet, params.isBigTiff());
     }
 
     protected void writeImageFileHeader(final BinaryOutputStream bos) throws IOException {
@@ -610,9 +443,29 @@ public abstract class AbstractTiffImageWriter {
             bos.write('M');
         }
 
-        bos.write2Bytes(42); // tiffVersion
+        bos.write2Bytes(TIFF_VERSION_STANDARD); // tiffVersion
 
         bos.write4Bytes((int) offsetToFirstIFD);
     }
 
+    void writeImageFileHeader(final BinaryOutputStream bos, final long offsetToFirstIFD, final boolean bigTiff) throws IOException {
+        if (!bigTiff) {
+            writeImageFileHeader(bos, offsetToFirstIFD);
+            return;
+        }
+        if (byteOrder == ByteOrder.LITTLE_ENDIAN) {
+            bos.write('I');
+            bos.write('I');
+        } else {
+            bos.write('M');
+            bos.write('M');
+        }
+
+        bos.write2Bytes(TIFF_VERSION_BIG); // tiffVersion
+        bos.write2Bytes(8); // bytesizeOfOffset
+        bos.write2Bytes(0);
+
+        bos.write8Bytes(offsetToFirstIFD);
+    }
+
 }
@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.write;
+
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_CCITT_1D;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_3;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_4;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_DEFLATE_ADOBE;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_LZW;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_PACKBITS;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_UNCOMPRESSED;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_FLAG_T6_OPTIONS_UNCOMPRESSED_MODE;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.PixelDensity;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.common.PackBits;
+import org.apache.commons.imaging.common.RationalNumber;
+import org.apache.commons.imaging.common.ZlibDeflate;
+import org.apache.commons.imaging.formats.tiff.TiffImagingParameters;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.itu_t4.T4AndT6Compression;
+import org.apache.commons.imaging.mylzw.MyLzwCompressor;
+
+/**
+ * Encodes the strips or tiles, the "blocks", of an image written from ARGB pixels, as set up by the parameters of the write. The pixel format and
+ * compression are chosen once, then each block is converted and compressed independently of the others.
+ */
+final class ImageDataEncoder {
+
+    private final int compression;
+    private final short predictor;
+    private final int samplesPerPixel;
+    private final int bitsPerSample;
+    private final int photometricInterpretation;
+    private final int stripSizeInBits;
+    private final int t4Options;
+    private final int t6Options;
+
+    ImageDataEncoder(final TiffImagingParameters params, final boolean hasAlpha) throws ImagingException {
+        int compression = TIFF_COMPRESSION_LZW;
+        int stripSizeInBits = 64000; // the default from legacy implementation
+        final Integer compressionParameter = params.getCompression();
+        if (compressionParameter != null) {
+            compression = compressionParameter;
+            final Integer stripSizeInBytes = params.getLzwCompressionBlockSize();
+            if (stripSizeInBytes != null) {
+                if (stripSizeInBytes < 8000) {
+                    throw new ImagingException("Block size parameter " + stripSizeInBytes + " is less than 8000 minimum");
+                }
+                stripSizeInBits = stripSizeInBytes * 8;
+            }
+        }
+        this.compression = compression;
+        this.stripSizeInBits = stripSizeInBits;
+
+        if (compression == TIFF_COMPRESSION_CCITT_1D || compression == TIFF_COMPRESSION_CCITT_GROUP_3 || compression == TIFF_COMPRESSION_CCITT_GROUP_4) {
+            samplesPerPixel = 1;
+            bitsPerSample = 1;
+            photometricInterpretation = 0;
+        } else {
+            samplesPerPixel = hasAlpha ? 4 : 3;
+            bitsPerSample = 8;
+            photometricInterpretation = 2;
+        }
+
+        int t4Options = 0;
+        int t6Options = 0;
+        short predictor = TiffTagConstants.PREDICTOR_VALUE_NONE;
+        switch (compression) {
+        case TIFF_COMPRESSION_CCITT_1D:
+            break;
+        case TIFF_COMPRESSION_CCITT_GROUP_3: {
+            final Integer t4Parameter = params.getT4Options();
+            if (t4Parameter != null) {
+                t4Options = t4Parameter.intValue();
+            }
+            t4Options &= 0x7;
+            final boolean usesUncompressedMode = (t4Options & 2) != 0;
+            if (usesUncompressedMode) {
+                throw new ImagingException("T.4 compression with the uncompressed mode extension is not yet supported");
+            }
+            break;
+        }
+        case TIFF_COMPRESSION_CCITT_GROUP_4: {
+            final Integer t6Parameter = params.getT6Options();
+            if (t6Parameter != null) {
+                t6Options = t6Parameter.intValue();
+            }
+            t6Options &= 0x4;
+            final boolean usesUncompressedMode = (t6Options & TIFF_FLAG_T6_OPTIONS_UNCOMPRESSED_MODE) != 0;
+            if (usesUncompressedMode) {
+                throw new ImagingException("T.6 compression with the uncompressed mode extension is not yet supported");
+            }
+            break;
+        }
+        case TIFF_COMPRESSION_LZW:
+        case TIFF_COMPRESSION_DEFLATE_ADOBE:
+            predictor = TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING;
+            break;
+        case TIFF_COMPRESSION_PACKBITS:
+        case TIFF_COMPRESSION_UNCOMPRESSED:
+            break;
+        default:
+            throw new ImagingException(
+                    "Invalid compression parameter (Only CCITT 1D/Group 3/Group 4, LZW, Packbits, Zlib Deflate and uncompressed supported).");
+        }
+        this.t4Options = t4Options;
+        this.t6Options = t6Options;
+        this.predictor = predictor;
+    }
+
+    /**
+     * Adds the fields describing the image data, other than its layout, to a directory.
+     */
+    void addFields(final TiffOutputDirectory directory, final int width, final int height, final PixelDensity pixelDensity, final String xmpXml)
+            throws ImagingException {
+        directory.add(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH, width);
+        directory.add(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH, height);
+        directory.add(TiffTagConstants.TIFF_TAG_PHOTOMETRIC_INTERPRETATION, (short) photometricInterpretation);
+        directory.add(TiffTagConstants.TIFF_TAG_COMPRESSION, (short) compression);
+        directory.add(TiffTagConstants.TIFF_TAG_SAMPLES_PER_PIXEL, (short) samplesPerPixel);
+
+        switch (samplesPerPixel) {
+        case 3:
+            directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE, (short) bitsPerSample, (short) bitsPerSample, (short) bitsPerSample);
+            break;
+        case 4:
+            directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE, (short) bitsPerSample, (short) bitsPerSample, (short) bitsPerSample,
+                    (short) bitsPerSample);
+            directory.add(TiffTagConstants.TIFF_TAG_EXTRA_SAMPLES, (short) TiffTagConstants.EXTRA_SAMPLE_UNASSOCIATED_ALPHA);
+            break;
+        case 1:
+            directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE, (short) bitsPerSample);
+            break;
+        default:
+            break;
+        }
+        if (pixelDensity.isUnitless()) {
+            directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT, (short) 0);
+            directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION, RationalNumber.valueOf(pixelDensity.getRawHorizontalDensity()));
+            directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION, RationalNumber.valueOf(pixelDensity.getRawVerticalDensity()));
+        } else if (pixelDensity.isInInches()) {
+            directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT, (short) 2);
+            directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION, RationalNumber.valueOf(pixelDensity.horizontalDensityInches()));
+            directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION, RationalNumber.valueOf(pixelDensity.verticalDensityInches()));
+        } else {
+            directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT, (short) 1);
+            directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION, RationalNumber.valueOf(pixelDensity.horizontalDensityCentimetres()));
+            directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION, RationalNumber.valueOf(pixelDensity.verticalDensityCentimetres()));
+        }
+        if (t4Options != 0) {
+            directory.add(TiffTagConstants.TIFF_TAG_T4_OPTIONS, t4Options);
+        }
+        if (t6Options != 0) {
+            directory.add(TiffTagConstants.TIFF_TAG_T6_OPTIONS, t6Options);
+        }
+
+        if (null != xmpXml) {
+            final byte[] xmpXmlBytes = xmpXml.getBytes(StandardCharsets.UTF_8);
+            directory.add(TiffTagConstants.TIFF_TAG_XMP, xmpXmlBytes);
+        }
+
+        if (predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING) {
+            directory.add(TiffTagConstants.TIFF_TAG_PREDICTOR, predictor);
+        }
+    }
+
+    private void applyPredictor(final int width, final int bytesPerSample, final byte[] b) {
+        final int nBytesPerRow = bytesPerSample * width;
+        final int nRows = b.length / nBytesPerRow;
+        for (int iRow = 0; iRow < nRows; iRow++) {
+            final int offset = iRow * nBytesPerRow;
+            for (int i = nBytesPerRow - 1; i >= bytesPerSample; i--) {
+                b[offset + i] -= b[offset + i - bytesPerSample];
+            }
+        }
+    }
+
+    /**
+     * Compresses a block. The block is used as a working buffer, so its content is lost.
+     *
+     * @param uncompressed the samples of the block, as given by {@link #getSamples(int[], int, int, int, int, int, int)}.
+     * @param blockWidth   the width of the block.
+     * @param blockLength  the number of rows per block of the layout, which the last strip may fall short of.
+     * @return the compressed block.
+     */
+    byte[] compress(final byte[] uncompressed, final int blockWidth, final int blockLength) throws ImagingException, IOException {
+        switch (compression) {
+        case TIFF_COMPRESSION_CCITT_1D:
+            return T4AndT6Compression.compressModifiedHuffman(uncompressed, blockWidth, uncompressed.length / ((blockWidth + 7) / 8));
+        case TIFF_COMPRESSION_CCITT_GROUP_3: {
+            final boolean is2D = (t4Options & 1) != 0;
+            final boolean hasFillBitsBeforeEOL = (t4Options & 4) != 0;
+            if (is2D) {
+                return T4AndT6Compression.compressT4_2D(uncompressed, blockWidth, uncompressed.length / ((blockWidth + 7) / 8), hasFillBitsBeforeEOL,
+                        blockLength);
+            }
+            return T4AndT6Compression.compressT4_1D(uncompressed, blockWidth, uncompressed.length / ((blockWidth + 7) / 8), hasFillBitsBeforeEOL);
+        }
+        case TIFF_COMPRESSION_CCITT_GROUP_4:
+            return T4AndT6Compression.compressT6(uncompressed, blockWidth, uncompressed.length / ((blockWidth + 7) / 8));
+        case TIFF_COMPRESSION_PACKBITS:
+            return PackBits.compress(uncompressed);
+        case TIFF_COMPRESSION_LZW: {
+            applyPredictor(blockWidth, samplesPerPixel, uncompressed);
+            final int LZW_MINIMUM_CODE_SIZE = 8;
+            final MyLzwCompressor compressor = new MyLzwCompressor(LZW_MINIMUM_CODE_SIZE, ByteOrder.BIG_ENDIAN, true);
+            return compressor.compress(uncompressed);
+        }
+        case TIFF_COMPRESSION_DEFLATE_ADOBE:
+            applyPredictor(blockWidth, samplesPerPixel, uncompressed);
+            return ZlibDeflate.compress(uncompressed);
+        default:
+            // TIFF_COMPRESSION_UNCOMPRESSED, the others are rejected by the constructor
+            return uncompressed;
+        }
+    }
+
+    /**
+     * Gets the number of rows per strip, so that strips hold about the block size given by the parameters.
+     */
+    int getRowsPerStrip(final int width) {
+        final int rowsPerStrip = stripSizeInBits / (width * bitsPerSample * samplesPerPixel);
+        return Math.max(1, rowsPerStrip); // must have at least one.
+    }
+
+    /**
+     * Converts pixels to the samples of a block.
+     *
+     * @param argb       the pixels, as given by {@link java.awt.image.BufferedImage#getRGB(int, int, int, int, int[], int, int)}.
+     * @param offset     the index of the first pixel of the block.
+     * @param scanSize   the distance between the rows of pixels.
+     * @param width       the number of pixels per row, at most the width of the block.
+     * @param height      the number of rows of pixels, at most the length of the block.
+     * @param blockWidth  the width of the block, whose pixels past the given width are left blank.
+     * @param blockLength the number of rows of the block, whose rows past the given height are left blank.
+     * @return the uncompressed samples.
+     */
+    byte[] getSamples(final int[] argb, final int offset, final int scanSize, final int width, final int height, final int blockWidth,
+            final int blockLength) {
+        final int bitsInRow = bitsPerSample * samplesPerPixel * blockWidth;
+        final int bytesPerRow = (bitsInRow + 7) / 8;
+        final byte[] uncompressed = Allocator.byteArray(Math.multiplyExact(blockLength, bytesPerRow));
+
+        for (int y = 0; y < height; y++) {
+            int counter = y * bytesPerRow;
+            int bitCache = 0;
+            int bitsInCache = 0;
+            for (int x = 0; x < width; x++) {
+                final int rgb = argb[offset + y * scanSize + x];
+                final int red = 0xff & rgb >> 16;
+                final int green = 0xff & rgb >> 8;
+                final int blue = 0xff & rgb >> 0;
+
+                if (bitsPerSample == 1) {
+                    int sample = (red + green + blue) / 3;
+                    if (sample > 127) {
+                        sample = 0;
+                    } else {
+                        sample = 1;
+                    }
+                    bitCache <<= 1;
+                    bitCache |= sample;
+                    bitsInCache++;
+                    if (bitsInCache == 8) {
+                        uncompressed[counter++] = (byte) bitCache;
+                        bitCache = 0;
+                        bitsInCache = 0;
+                    }
+                } else if (samplesPerPixel == 4) {
+                    uncompressed[counter++] = (byte) red;
+                    uncompressed[counter++] = (byte) green;
+                    uncompressed[counter++] = (byte) blue;
+                    uncompressed[counter++] = (byte) (rgb >> 24);
+                } else {
+                    // samples per pixel is 3
+                    uncompressed[counter++] = (byte) red;
+                    uncompressed[counter++] = (byte) green;
+                    uncompressed[counter++] = (byte) blue;
+                }
+            }
+            if (bitsInCache > 0) {
+                bitCache <<= 8 - bitsInCache;
+                uncompressed[counter] = (byte) bitCache;
+            }
+        }
+        return uncompressed;
+    }
+
+}
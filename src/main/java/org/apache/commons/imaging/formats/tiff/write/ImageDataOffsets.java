@@ -22,11 +22,11 @@ import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.formats.tiff.AbstractTiffElement;
 
 final class ImageDataOffsets {
-    final int[] imageDataOffsets;
+    final long[] imageDataOffsets;
     final TiffOutputField imageDataOffsetsField;
     final AbstractTiffOutputItem[] outputItems;
 
-    ImageDataOffsets(final AbstractTiffElement.DataElement[] imageData, final int[] imageDataOffsets, final TiffOutputField imageDataOffsetsField) {
+    ImageDataOffsets(final AbstractTiffElement.DataElement[] imageData, final long[] imageDataOffsets, final TiffOutputField imageDataOffsetsField) {
         this.imageDataOffsets = imageDataOffsets;
         this.imageDataOffsetsField = imageDataOffsetsField;
 
@@ -17,6 +17,7 @@
 package org.apache.commons.imaging.formats.tiff.write;
 
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_HEADER_SIZE;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_HEADER_SIZE_BIG;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -28,6 +29,8 @@ import org.apache.commons.imaging.common.BinaryOutputStream;
 
 public class TiffImageWriterLossy extends AbstractTiffImageWriter {
 
+    private static final long MAX_CLASSIC_LENGTH = 0xFFFFffffL;
+
     public TiffImageWriterLossy() {
         // with default byte order
     }
@@ -36,8 +39,8 @@ public class TiffImageWriterLossy extends AbstractTiffImageWriter {
         super(byteOrder);
     }
 
-    private void updateOffsetsStep(final List<AbstractTiffOutputItem> outputItems) {
-        int offset = TIFF_HEADER_SIZE;
+    private long updateOffsetsStep(final List<AbstractTiffOutputItem> outputItems, final long start) {
+        long offset = start;
 
         for (final AbstractTiffOutputItem outputItem : outputItems) {
             outputItem.setOffset(offset);
@@ -47,27 +50,84 @@ public class TiffImageWriterLossy extends AbstractTiffImageWriter {
             final int remainder = imageDataPaddingLength(itemLength);
             offset += remainder;
         }
+        return offset;
+    }
+
+    /**
+     * Tells whether an output set is too large to be written as a classic TIFF file, with 32-bit offsets.
+     *
+     * @param outputSet the directories.
+     * @param start     the offset in the file of the first directory.
+     * @return whether the file must be written as BigTIFF.
+     * @throws ImagingException if the directories are invalid.
+     */
+    boolean isBigTiffRequired(final TiffOutputSet outputSet, final long start) throws ImagingException {
+        // offsets that can't be laid out in classic fields at all
+        if (start > MAX_CLASSIC_LENGTH) {
+            return true;
+        }
+        for (final TiffOutputDirectory directory : outputSet.getDirectories()) {
+            if (directory.getWrittenImageDataMaxOffset() > MAX_CLASSIC_LENGTH) {
+                return true;
+            }
+        }
+        final TiffOutputSummary outputSummary = validateDirectories(outputSet, false);
+        return updateOffsetsStep(outputSet.getOutputItems(outputSummary), start) > MAX_CLASSIC_LENGTH;
     }
 
+    /**
+     * Writes the directories of an output set, as a classic TIFF file unless it would exceed 4 GB, in which case it is written as BigTIFF.
+     */
     @Override
     public void write(final OutputStream os, final TiffOutputSet outputSet) throws IOException, ImagingException {
-        final TiffOutputSummary outputSummary = validateDirectories(outputSet);
-
-        final List<AbstractTiffOutputItem> outputItems = outputSet.getOutputItems(outputSummary);
-
-        updateOffsetsStep(outputItems);
+        write(os, outputSet, false);
+    }
 
-        outputSummary.updateOffsets(byteOrder);
+    /**
+     * Writes the directories of an output set, as a BigTIFF file if requested or if a classic TIFF file would exceed 4 GB.
+     */
+    @Override
+    public void write(final OutputStream os, final TiffOutputSet outputSet, final boolean bigTiff) throws IOException, ImagingException {
+        final boolean big = bigTiff || isBigTiffRequired(outputSet, TIFF_HEADER_SIZE);
+        final int headerSize = big ? TIFF_HEADER_SIZE_BIG : TIFF_HEADER_SIZE;
 
         final BinaryOutputStream bos = BinaryOutputStream.create(os, byteOrder);
 
         // NB: resource is intentionally left open
-        writeStep(bos, outputItems);
+        writeImageFileHeader(bos, headerSize, big);
+        writeDirectories(bos, outputSet, headerSize, big);
     }
 
-    private void writeStep(final BinaryOutputStream bos, final List<AbstractTiffOutputItem> outputItems) throws IOException, ImagingException {
-        writeImageFileHeader(bos);
+    /**
+     * Writes the directories of an output set, and the values and image data they refer to.
+     *
+     * @param bos       the stream to write to.
+     * @param outputSet the directories.
+     * @param start     the offset in the file of the first byte written, which must be a multiple of 4.
+     * @param bigTiff   whether the file is a BigTIFF file.
+     * @return the offset in the file following the last byte written.
+     * @throws IOException      if the directories can't be written.
+     * @throws ImagingException if the directories are invalid, or a classic TIFF file would exceed 4 GB.
+     */
+    long writeDirectories(final BinaryOutputStream bos, final TiffOutputSet outputSet, final long start, final boolean bigTiff)
+            throws IOException, ImagingException {
+        final TiffOutputSummary outputSummary = validateDirectories(outputSet, bigTiff);
+
+        final List<AbstractTiffOutputItem> outputItems = outputSet.getOutputItems(outputSummary);
+
+        final long end = updateOffsetsStep(outputItems, start);
+        if (!bigTiff && end > MAX_CLASSIC_LENGTH) {
+            throw new ImagingException("TIFF file too large, must not exceed 4 GB unless written as BigTIFF");
+        }
+
+        outputSummary.updateOffsets(byteOrder);
 
+        return writeStep(bos, outputItems, start);
+    }
+
+    private long writeStep(final BinaryOutputStream bos, final List<AbstractTiffOutputItem> outputItems, final long start)
+            throws IOException, ImagingException {
+        long offset = start;
         for (final AbstractTiffOutputItem outputItem : outputItems) {
             outputItem.writeItem(bos);
 
@@ -77,7 +137,8 @@ public class TiffImageWriterLossy extends AbstractTiffImageWriter {
             for (int j = 0; j < remainder; j++) {
                 bos.write(0);
             }
+            offset += length + remainder;
         }
-
+        return offset;
     }
 }
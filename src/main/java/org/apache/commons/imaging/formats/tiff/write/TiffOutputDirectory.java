@@ -17,8 +17,11 @@
 package org.apache.commons.imaging.formats.tiff.write;
 
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_DIRECTORY_FOOTER_LENGTH;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_DIRECTORY_FOOTER_LENGTH_BIG;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_DIRECTORY_HEADER_LENGTH;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_DIRECTORY_HEADER_LENGTH_BIG;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_ENTRY_LENGTH;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_ENTRY_LENGTH_BIG;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_ENTRY_MAX_VALUE_LENGTH;
 
 import java.io.IOException;
@@ -73,6 +76,22 @@ import org.apache.commons.imaging.formats.tiff.taginfos.TagInfoShorts;
 import org.apache.commons.imaging.formats.tiff.taginfos.TagInfoXpString;
 
 public final class TiffOutputDirectory extends AbstractTiffOutputItem implements Iterable<TiffOutputField> {
+
+    /**
+     * Image data written ahead of the directory, whose offsets are already known.
+     */
+    private static final class WrittenImageData {
+        final boolean stripsNotTiles;
+        final long[] offsets;
+        final int[] byteCounts;
+
+        WrittenImageData(final boolean stripsNotTiles, final long[] offsets, final int[] byteCounts) {
+            this.stripsNotTiles = stripsNotTiles;
+            this.offsets = offsets;
+            this.byteCounts = byteCounts;
+        }
+    }
+
     public static final Comparator<TiffOutputDirectory> COMPARATOR = Comparator.comparingInt(TiffOutputDirectory::getType);
     private final int type;
     private final List<TiffOutputField> fields = new ArrayList<>();
@@ -80,6 +99,9 @@ public final class TiffOutputDirectory extends AbstractTiffOutputItem implements
     private TiffOutputDirectory nextDirectory;
     private JpegImageData jpegImageData;
     private AbstractTiffImageData abstractTiffImageData;
+    private WrittenImageData writtenImageData;
+    // the layout of the directory, set when it is laid out in a file
+    private boolean bigTiff;
 
     public TiffOutputDirectory(final int type, final ByteOrder byteOrder) {
         this.type = type;
@@ -450,10 +472,17 @@ public final class TiffOutputDirectory extends AbstractTiffOutputItem implements
 
     @Override
     public int getItemLength() {
+        if (bigTiff) {
+            return TIFF_ENTRY_LENGTH_BIG * fields.size() + TIFF_DIRECTORY_HEADER_LENGTH_BIG + TIFF_DIRECTORY_FOOTER_LENGTH_BIG;
+        }
         return TIFF_ENTRY_LENGTH * fields.size() + TIFF_DIRECTORY_HEADER_LENGTH + TIFF_DIRECTORY_FOOTER_LENGTH;
     }
 
     protected List<AbstractTiffOutputItem> getOutputItems(final TiffOutputSummary outputSummary) throws ImagingException {
+        bigTiff = outputSummary.bigTiff;
+        // image data offsets take 8 bytes in BigTIFF files
+        final AbstractFieldType offsetFieldType = bigTiff ? AbstractFieldType.LONG8 : AbstractFieldType.LONG;
+
         // first validate directory fields.
 
         removeFieldIfPresent(TiffTagConstants.TIFF_TAG_JPEG_INTERCHANGE_FORMAT);
@@ -478,6 +507,16 @@ public final class TiffOutputDirectory extends AbstractTiffOutputItem implements
         removeFieldIfPresent(TiffTagConstants.TIFF_TAG_TILE_OFFSETS);
         removeFieldIfPresent(TiffTagConstants.TIFF_TAG_TILE_BYTE_COUNTS);
 
+        if (null != writtenImageData) {
+            final TagInfo offsetTag = writtenImageData.stripsNotTiles ? TiffTagConstants.TIFF_TAG_STRIP_OFFSETS : TiffTagConstants.TIFF_TAG_TILE_OFFSETS;
+            final TagInfo byteCountsTag = writtenImageData.stripsNotTiles ? TiffTagConstants.TIFF_TAG_STRIP_BYTE_COUNTS
+                    : TiffTagConstants.TIFF_TAG_TILE_BYTE_COUNTS;
+            add(new TiffOutputField(offsetTag, offsetFieldType, writtenImageData.offsets.length,
+                    TiffOutputSummary.writeOffsets(offsetFieldType, writtenImageData.offsets, outputSummary.byteOrder)));
+            add(new TiffOutputField(byteCountsTag, AbstractFieldType.LONG, writtenImageData.byteCounts.length,
+                    AbstractFieldType.LONG.writeData(writtenImageData.byteCounts, outputSummary.byteOrder)));
+        }
+
         TiffOutputField imageDataOffsetField;
         ImageDataOffsets imageDataInfo = null;
         if (null != abstractTiffImageData) {
@@ -497,13 +536,13 @@ public final class TiffOutputDirectory extends AbstractTiffOutputItem implements
 
             // TiffOutputField imageDataOffsetsField = null;
 
-            final int[] imageDataOffsets = Allocator.intArray(imageData.length);
+            final long[] imageDataOffsets = Allocator.longArray(imageData.length);
             final int[] imageDataByteCounts = Allocator.intArray(imageData.length);
             Arrays.setAll(imageDataByteCounts, i -> imageData[i].length);
 
             // Append imageData-related fields to first directory
-            imageDataOffsetField = new TiffOutputField(offsetTag, AbstractFieldType.LONG, imageDataOffsets.length,
-                    AbstractFieldType.LONG.writeData(imageDataOffsets, outputSummary.byteOrder));
+            imageDataOffsetField = new TiffOutputField(offsetTag, offsetFieldType, imageDataOffsets.length,
+                    TiffOutputSummary.writeOffsets(offsetFieldType, imageDataOffsets, outputSummary.byteOrder));
             add(imageDataOffsetField);
 
             final byte[] data = AbstractFieldType.LONG.writeData(imageDataByteCounts, outputSummary.byteOrder);
@@ -518,7 +557,7 @@ public final class TiffOutputDirectory extends AbstractTiffOutputItem implements
         sortFields();
 
         for (final TiffOutputField field : fields) {
-            if (field.isLocalValue()) {
+            if (field.isLocalValue(bigTiff)) {
                 continue;
             }
 
@@ -592,6 +631,32 @@ public final class TiffOutputDirectory extends AbstractTiffOutputItem implements
         this.abstractTiffImageData = rawTiffImageData;
     }
 
+    /**
+     * Sets the offsets and byte counts of image data written ahead of the directory, such as by {@link TiffStreamingImageWriter}, rather than with it.
+     *
+     * @param stripsNotTiles whether the image data is laid out in strips rather than tiles.
+     * @param offsets        the offsets of the strips or tiles.
+     * @param byteCounts     the lengths of the strips or tiles.
+     */
+    void setWrittenImageData(final boolean stripsNotTiles, final long[] offsets, final int[] byteCounts) {
+        this.writtenImageData = new WrittenImageData(stripsNotTiles, offsets, byteCounts);
+    }
+
+    /**
+     * Gets the largest offset of the image data written ahead of the directory.
+     *
+     * @return the largest offset, or 0 if no image data was written ahead.
+     */
+    long getWrittenImageDataMaxOffset() {
+        long max = 0;
+        if (writtenImageData != null) {
+            for (final long offset : writtenImageData.offsets) {
+                max = Math.max(max, offset);
+            }
+        }
+        return max;
+    }
+
     public void sortFields() {
         final Comparator<TiffOutputField> comparator = (e1, e2) -> {
             if (e1.tag != e2.tag) {
@@ -605,11 +670,15 @@ public final class TiffOutputDirectory extends AbstractTiffOutputItem implements
     @Override
     public void writeItem(final BinaryOutputStream bos) throws IOException, ImagingException {
         // Write Directory Field Count
-        bos.write2Bytes(fields.size()); // DirectoryFieldCount
+        if (bigTiff) {
+            bos.write8Bytes(fields.size()); // DirectoryFieldCount
+        } else {
+            bos.write2Bytes(fields.size()); // DirectoryFieldCount
+        }
 
         // Write Fields
         for (final TiffOutputField field : fields) {
-            field.writeField(bos);
+            field.writeField(bos, bigTiff);
 
             // Debug.debug("\t" + "writing field (" + field.tag + ", 0x" +
             // Integer.toHexString(field.tag) + ")", field.tagInfo);
@@ -624,7 +693,10 @@ public final class TiffOutputDirectory extends AbstractTiffOutputItem implements
 
         // Write nextDirectoryOffset
         if (nextDirectoryOffset == UNDEFINED_VALUE) {
-            bos.write4Bytes(0);
+            nextDirectoryOffset = 0;
+        }
+        if (bigTiff) {
+            bos.write8Bytes(nextDirectoryOffset);
         } else {
             bos.write4Bytes((int) nextDirectoryOffset);
         }
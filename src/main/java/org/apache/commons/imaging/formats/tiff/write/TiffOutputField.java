@@ -17,6 +17,7 @@
 package org.apache.commons.imaging.formats.tiff.write;
 
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_ENTRY_MAX_VALUE_LENGTH;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_ENTRY_MAX_VALUE_LENGTH_BIG;
 
 import java.io.IOException;
 import java.nio.ByteOrder;
@@ -31,7 +32,22 @@ public class TiffOutputField {
     private static final String NEWLINE = System.lineSeparator();
 
     protected static TiffOutputField createOffsetField(final TagInfo tagInfo, final ByteOrder byteOrder) throws ImagingException {
-        return new TiffOutputField(tagInfo, AbstractFieldType.LONG, 1, AbstractFieldType.LONG.writeData(0, byteOrder));
+        return createOffsetField(tagInfo, byteOrder, false);
+    }
+
+    static TiffOutputField createOffsetField(final TagInfo tagInfo, final ByteOrder byteOrder, final boolean bigTiff) throws ImagingException {
+        final AbstractFieldType fieldType = getOffsetFieldType(bigTiff);
+        return new TiffOutputField(tagInfo, fieldType, 1, fieldType.writeData(0, byteOrder));
+    }
+
+    /**
+     * Gets the type of the fields holding the offsets of directories.
+     *
+     * @param bigTiff whether the file is a BigTIFF file.
+     * @return the type of the offset fields.
+     */
+    static AbstractFieldType getOffsetFieldType(final boolean bigTiff) {
+        return bigTiff ? AbstractFieldType.IFD8 : AbstractFieldType.LONG;
     }
 
     public final int tag;
@@ -75,7 +91,11 @@ public class TiffOutputField {
     }
 
     protected final boolean isLocalValue() {
-        return bytes.length <= TIFF_ENTRY_MAX_VALUE_LENGTH;
+        return isLocalValue(false);
+    }
+
+    final boolean isLocalValue(final boolean bigTiff) {
+        return bytes.length <= (bigTiff ? TIFF_ENTRY_MAX_VALUE_LENGTH_BIG : TIFF_ENTRY_MAX_VALUE_LENGTH);
     }
 
     protected void setData(final byte[] bytes) throws ImagingException {
@@ -129,20 +149,21 @@ public class TiffOutputField {
     }
 
     protected void writeField(final BinaryOutputStream bos) throws IOException, ImagingException {
+        writeField(bos, false);
+    }
+
+    void writeField(final BinaryOutputStream bos, final boolean bigTiff) throws IOException, ImagingException {
         bos.write2Bytes(tag);
         bos.write2Bytes(abstractFieldType.getType());
-        bos.write4Bytes(count);
-
-        if (isLocalValue()) {
-            if (separateValueItem != null) {
-                throw new ImagingException("Unexpected separate value item.");
-            }
-            if (bytes.length > 4) {
-                throw new ImagingException("Local value has invalid length: " + bytes.length);
-            }
+        if (bigTiff) {
+            bos.write8Bytes(0xFFFFffffL & count);
+        } else {
+            bos.write4Bytes(count);
+        }
 
+        if (isLocalValue(bigTiff)) {
             bos.write(bytes);
-            final int remainder = TIFF_ENTRY_MAX_VALUE_LENGTH - bytes.length;
+            final int remainder = (bigTiff ? TIFF_ENTRY_MAX_VALUE_LENGTH_BIG : TIFF_ENTRY_MAX_VALUE_LENGTH) - bytes.length;
             for (int i = 0; i < remainder; i++) {
                 bos.write(0);
             }
@@ -151,7 +172,11 @@ public class TiffOutputField {
                 throw new ImagingException("Missing separate value item.");
             }
 
-            bos.write4Bytes((int) separateValueItem.getOffset());
+            if (bigTiff) {
+                bos.write8Bytes(separateValueItem.getOffset());
+            } else {
+                bos.write4Bytes((int) separateValueItem.getOffset());
+            }
         }
     }
 }
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.formats.tiff.fieldtypes.AbstractFieldType;
 
 final class TiffOutputSummary {
@@ -36,14 +37,17 @@ final class TiffOutputSummary {
     }
 
     public final ByteOrder byteOrder;
+    public final boolean bigTiff;
     public final TiffOutputDirectory rootDirectory;
     public final Map<Integer, TiffOutputDirectory> directoryTypeMap;
     private final List<OffsetItem> offsetItems = new ArrayList<>();
 
     private final List<ImageDataOffsets> imageDataItems = new ArrayList<>();
 
-    TiffOutputSummary(final ByteOrder byteOrder, final TiffOutputDirectory rootDirectory, final Map<Integer, TiffOutputDirectory> directoryTypeMap) {
+    TiffOutputSummary(final ByteOrder byteOrder, final boolean bigTiff, final TiffOutputDirectory rootDirectory,
+            final Map<Integer, TiffOutputDirectory> directoryTypeMap) {
         this.byteOrder = byteOrder;
+        this.bigTiff = bigTiff;
         this.rootDirectory = rootDirectory;
         this.directoryTypeMap = directoryTypeMap;
     }
@@ -58,18 +62,36 @@ final class TiffOutputSummary {
 
     public void updateOffsets(final ByteOrder byteOrder) throws ImagingException {
         for (final OffsetItem offset : offsetItems) {
-            final byte[] value = AbstractFieldType.LONG.writeData((int) offset.item.getOffset(), byteOrder);
-            offset.itemOffsetField.setData(value);
+            final TiffOutputField field = offset.itemOffsetField;
+            field.setData(writeOffsets(field.abstractFieldType, new long[] { offset.item.getOffset() }, byteOrder));
         }
 
         for (final ImageDataOffsets imageDataInfo : imageDataItems) {
             for (int j = 0; j < imageDataInfo.outputItems.length; j++) {
                 final AbstractTiffOutputItem item = imageDataInfo.outputItems[j];
-                imageDataInfo.imageDataOffsets[j] = (int) item.getOffset();
+                imageDataInfo.imageDataOffsets[j] = item.getOffset();
             }
 
-            imageDataInfo.imageDataOffsetsField.setData(AbstractFieldType.LONG.writeData(imageDataInfo.imageDataOffsets, byteOrder));
+            final TiffOutputField field = imageDataInfo.imageDataOffsetsField;
+            field.setData(writeOffsets(field.abstractFieldType, imageDataInfo.imageDataOffsets, byteOrder));
         }
     }
 
+    /**
+     * Encodes offsets as 8-byte values if the field has a BigTIFF type, otherwise as 4-byte values.
+     */
+    static byte[] writeOffsets(final AbstractFieldType fieldType, final long[] offsets, final ByteOrder byteOrder) throws ImagingException {
+        if (fieldType.getSize() == 8) {
+            return fieldType.writeData(offsets, byteOrder);
+        }
+        final int[] values = Allocator.intArray(offsets.length);
+        for (int i = 0; i < offsets.length; i++) {
+            if (offsets[i] > 0xFFFFffffL) {
+                throw new ImagingException("Offset " + offsets[i] + " too large for a 32-bit field, must be written as BigTIFF");
+            }
+            values[i] = (int) offsets[i];
+        }
+        return fieldType.writeData(values, byteOrder);
+    }
+
 }
@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.write;
+
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.DEFAULT_TIFF_BYTE_ORDER;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_HEADER_SIZE_BIG;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.util.BitSet;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.PixelDensity;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.formats.tiff.TiffImagingParameters;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.internal.CompressionQueue;
+
+/**
+ * Writes a TIFF image to a channel as its pixels are supplied, rather than from a whole image held in memory.
+ *
+ * <p>
+ * Pixels are supplied either as rows, from top to bottom, with {@link #writeRows(BufferedImage)}, or, if the image is laid out in tiles (see
+ * {@link TiffImagingParameters#setTileSize(int, int)}), as tiles in any order with {@link #writeTile(int, int, BufferedImage)}. Each strip or tile is
+ * compressed and written to the channel as soon as its pixels are complete, so that no more than one row of strips or tiles is held in memory. The image file
+ * directory is written by {@link #finish()}, after the image data, and the header is then updated to point to it, which is why the channel must be seekable.
+ * </p>
+ *
+ * <p>
+ * If an executor is set with {@link TiffImagingParameters#setExecutor(java.util.concurrent.Executor)}, strips and tiles are compressed concurrently, a bounded
+ * number at a time, and written in the order their pixels were supplied.
+ * </p>
+ *
+ * <p>
+ * The image is written from the position of the channel when the writer is constructed. The channel is not closed by the writer. The file is written as
+ * BigTIFF if requested with {@link TiffImagingParameters#setBigTiff(boolean)}, or if it exceeds 4 GB.
+ * </p>
+ */
+public final class TiffStreamingImageWriter {
+
+    private final SeekableByteChannel channel;
+    private final ByteOrder byteOrder;
+    private final long start;
+    private final int width;
+    private final int height;
+    private final TiffImagingParameters params;
+    private final ImageDataEncoder encoder;
+    private final boolean stripsNotTiles;
+    private final int blockWidth;
+    private final int blockLength;
+    private final int blocksAcross;
+    // relative to the start of the file, zero until the strip or tile is written
+    private final long[] offsets;
+    private final int[] byteCounts;
+    private final BitSet blocksSupplied = new BitSet();
+    private final CompressionQueue<byte[]> queue;
+    // the pixels of the row of strips or tiles being supplied by writeRows()
+    private int[] band;
+    private int rowsWritten;
+    private boolean tilesWritten;
+    private boolean finished;
+
+    /**
+     * Constructs a writer using the default byte order, leaving room for the TIFF header.
+     *
+     * @param channel  the channel to write to.
+     * @param width    the width of the image.
+     * @param height   the height of the image.
+     * @param hasAlpha whether the alpha channel of the pixels is written.
+     * @param params   the parameters, such as the compression and tile size, or {@code null} to use the defaults.
+     * @throws ImagingException if the parameters are invalid.
+     * @throws IOException      if the channel can't be written.
+     */
+    public TiffStreamingImageWriter(final SeekableByteChannel channel, final int width, final int height, final boolean hasAlpha,
+            final TiffImagingParameters params) throws ImagingException, IOException {
+        this(channel, DEFAULT_TIFF_BYTE_ORDER, width, height, hasAlpha, params);
+    }
+
+    /**
+     * Constructs a writer, leaving room for the TIFF header.
+     *
+     * @param channel   the channel to write to.
+     * @param byteOrder the byte order of the file.
+     * @param width     the width of the image.
+     * @param height    the height of the image.
+     * @param hasAlpha  whether the alpha channel of the pixels is written.
+     * @param params    the parameters, such as the compression and tile size, or {@code null} to use the defaults.
+     * @throws ImagingException if the parameters are invalid.
+     * @throws IOException      if the channel can't be written.
+     */
+    public TiffStreamingImageWriter(final SeekableByteChannel channel, final ByteOrder byteOrder, final int width, final int height,
+            final boolean hasAlpha, final TiffImagingParameters params) throws ImagingException, IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid image size " + width + "x" + height + ", must be positive");
+        }
+        this.channel = channel;
+        this.byteOrder = byteOrder;
+        this.width = width;
+        this.height = height;
+        this.params = params == null ? new TiffImagingParameters() : params;
+        this.encoder = new ImageDataEncoder(this.params, hasAlpha);
+
+        stripsNotTiles = this.params.getTileWidth() == 0;
+        if (stripsNotTiles) {
+            blockWidth = width;
+            blockLength = Math.min(encoder.getRowsPerStrip(width), height);
+        } else {
+            blockWidth = this.params.getTileWidth();
+            blockLength = this.params.getTileLength();
+        }
+        blocksAcross = (width + blockWidth - 1) / blockWidth;
+        final int blocksDown = (height + blockLength - 1) / blockLength;
+        offsets = Allocator.longArray(blocksAcross * blocksDown);
+        byteCounts = Allocator.intArray(blocksAcross * blocksDown);
+        queue = new CompressionQueue<>(this.params.getExecutor(), this::writeBlock);
+
+        start = channel.position();
+        // room for either header, written by finish() once the format and the offset of the directory are known
+        write(ByteBuffer.allocate(TIFF_HEADER_SIZE_BIG));
+    }
+
+    private void checkNotFinished() {
+        if (finished) {
+            throw new IllegalStateException("The image has already been finished");
+        }
+    }
+
+    /**
+     * Writes the image file directory, once all the pixels have been supplied, and updates the header to point to it. The position of the channel is left
+     * at the end of the image.
+     *
+     * @throws ImagingException if the directory is invalid.
+     * @throws IOException      if the directory can't be written.
+     * @throws IllegalStateException if some strips or tiles haven't been written, or the image has already been finished.
+     */
+    public void finish() throws ImagingException, IOException {
+        checkNotFinished();
+        queue.flush();
+        for (int i = 0; i < offsets.length; i++) {
+            if (offsets[i] == 0) {
+                throw new IllegalStateException(stripsNotTiles ? "Missing rows from " + rowsWritten + ", of " + height
+                        : "Missing tile " + i % blocksAcross + "," + i / blocksAcross);
+            }
+        }
+        finished = true;
+
+        PixelDensity pixelDensity = params.getPixelDensity();
+        if (pixelDensity == null) {
+            pixelDensity = PixelDensity.createFromPixelsPerInch(72, 72);
+        }
+        final TiffOutputSet outputSet = new TiffOutputSet(byteOrder);
+        final TiffOutputDirectory directory = outputSet.addRootDirectory();
+        encoder.addFields(directory, width, height, pixelDensity, params.getXmpXml());
+        if (stripsNotTiles) {
+            directory.add(TiffTagConstants.TIFF_TAG_ROWS_PER_STRIP, blockLength);
+        } else {
+            directory.add(TiffTagConstants.TIFF_TAG_TILE_WIDTH, blockWidth);
+            directory.add(TiffTagConstants.TIFF_TAG_TILE_LENGTH, blockLength);
+        }
+        directory.setWrittenImageData(stripsNotTiles, offsets, byteCounts);
+
+        final TiffImageWriterLossy writer = new TiffImageWriterLossy(byteOrder);
+        final TiffOutputSet userExif = params.getOutputSet();
+        if (userExif != null) {
+            writer.combineUserExifIntoFinalExif(userExif, outputSet);
+        }
+
+        // the image data is padded to a multiple of 4 bytes, so the directory is word aligned
+        final long directoryOffset = channel.position() - start;
+        final boolean bigTiff = params.isBigTiff() || writer.isBigTiffRequired(outputSet, directoryOffset);
+        final BufferedOutputStream os = new BufferedOutputStream(Channels.newOutputStream(channel));
+        // NB: resource is intentionally left open
+        final long end = writer.writeDirectories(BinaryOutputStream.create(os, byteOrder), outputSet, directoryOffset, bigTiff);
+        os.flush();
+
+        final ByteArrayOutputStream header = new ByteArrayOutputStream(TIFF_HEADER_SIZE_BIG);
+        try (BinaryOutputStream bos = BinaryOutputStream.create(header, byteOrder)) {
+            writer.writeImageFileHeader(bos, directoryOffset, bigTiff);
+        }
+        channel.position(start);
+        write(ByteBuffer.wrap(header.toByteArray()));
+        channel.position(start + end);
+    }
+
+    private void flushBand() throws ImagingException, IOException {
+        final int bandIndex = (rowsWritten - 1) / blockLength;
+        final int rows = rowsWritten - bandIndex * blockLength;
+        // the band is handed over to the compressions, the next rows go to a new one
+        final int[] pixels = band;
+        band = null;
+        for (int column = 0; column < blocksAcross; column++) {
+            final int x = column * blockWidth;
+            final int columns = Math.min(blockWidth, width - x);
+            // the last strip is not padded, unlike the last row of tiles
+            final int length = stripsNotTiles ? rows : blockLength;
+            final int index = bandIndex * blocksAcross + column;
+            blocksSupplied.set(index);
+            queue.submit(index, () -> encoder.compress(encoder.getSamples(pixels, x, width, columns, rows, blockWidth, length), blockWidth, length));
+        }
+    }
+
+    private void write(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void writeBlock(final int index, final byte[] compressed) throws ImagingException, IOException {
+        final long offset = channel.position() - start;
+        final int padding = AbstractTiffImageWriter.imageDataPaddingLength(compressed.length);
+        final ByteBuffer buffer = ByteBuffer.allocate(compressed.length + padding);
+        buffer.put(compressed);
+        buffer.position(0);
+        write(buffer);
+        offsets[index] = offset;
+        byteCounts[index] = compressed.length;
+    }
+
+    /**
+     * Writes rows of pixels, following those already written. The rows must span the width of the image, and the strips or tiles are written as soon as all
+     * their rows have been supplied.
+     *
+     * @param rows the rows of pixels.
+     * @throws ImagingException if the pixels can't be compressed.
+     * @throws IOException      if the pixels can't be written.
+     * @throws IllegalArgumentException if the rows don't have the width of the image, or would exceed its height.
+     * @throws IllegalStateException if tiles have been written with {@link #writeTile(int, int, BufferedImage)}, or the image has been finished.
+     */
+    public void writeRows(final BufferedImage rows) throws ImagingException, IOException {
+        checkNotFinished();
+        if (tilesWritten) {
+            throw new IllegalStateException("Rows can't be written after tiles");
+        }
+        if (rows.getWidth() != width) {
+            throw new IllegalArgumentException("Invalid row width " + rows.getWidth() + ", must be " + width);
+        }
+        if (rows.getHeight() > height - rowsWritten) {
+            throw new IllegalArgumentException("Invalid number of rows " + rows.getHeight() + ", must not exceed " + (height - rowsWritten));
+        }
+        int y = 0;
+        while (y < rows.getHeight()) {
+            if (band == null) {
+                band = Allocator.intArray(width * blockLength);
+            }
+            final int bandRow = rowsWritten % blockLength;
+            final int count = Math.min(blockLength - bandRow, rows.getHeight() - y);
+            rows.getRGB(0, y, width, count, band, bandRow * width, width);
+            y += count;
+            rowsWritten += count;
+            if (bandRow + count == blockLength || rowsWritten == height) {
+                flushBand();
+            }
+        }
+    }
+
+    /**
+     * Writes a tile of pixels. Tiles can be written in any order, each once. The tiles of the last column and row of the image only need to cover the part of
+     * the tile inside the image.
+     *
+     * @param column the column of the tile, counting from 0 at the left.
+     * @param row    the row of the tile, counting from 0 at the top.
+     * @param tile   the pixels of the tile.
+     * @throws ImagingException if the pixels can't be compressed.
+     * @throws IOException      if the pixels can't be written.
+     * @throws IllegalArgumentException if the tile is outside the image, too small, or has already been written.
+     * @throws IllegalStateException if the image is laid out in strips, rows have been written with {@link #writeRows(BufferedImage)}, or the image has been
+     *                               finished.
+     */
+    public void writeTile(final int column, final int row, final BufferedImage tile) throws ImagingException, IOException {
+        checkNotFinished();
+        if (stripsNotTiles) {
+            throw new IllegalStateException("The image is laid out in strips, not tiles");
+        }
+        if (rowsWritten > 0) {
+            throw new IllegalStateException("Tiles can't be written after rows");
+        }
+        final int blocksDown = offsets.length / blocksAcross;
+        if (column < 0 || column >= blocksAcross || row < 0 || row >= blocksDown) {
+            throw new IllegalArgumentException("Invalid tile " + column + "," + row + ", must be within " + blocksAcross + "x" + blocksDown);
+        }
+        final int index = row * blocksAcross + column;
+        if (blocksSupplied.get(index)) {
+            throw new IllegalArgumentException("Tile " + column + "," + row + " has already been written");
+        }
+        final int columns = Math.min(blockWidth, width - column * blockWidth);
+        final int rows = Math.min(blockLength, height - row * blockLength);
+        if (tile.getWidth() < columns || tile.getHeight() < rows) {
+            throw new IllegalArgumentException("Invalid tile size " + tile.getWidth() + "x" + tile.getHeight() + ", must be at least " + columns + "x" + rows);
+        }
+        tilesWritten = true;
+        blocksSupplied.set(index);
+        final int[] argb = tile.getRGB(0, 0, columns, rows, null, 0, columns);
+        queue.submit(index, () -> encoder.compress(encoder.getSamples(argb, 0, columns, columns, rows, blockWidth, blockLength), blockWidth, blockLength));
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.internal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.apache.commons.imaging.ImagingException;
+
+/**
+ * Compresses blocks of image data, such as TIFF strips or tiles, concurrently if given an executor, and hands them to a sink in the order they were submitted,
+ * so that the output doesn't depend on the scheduling of the compressions. No more than a bounded number of blocks are pending at a time, which caps the
+ * memory held by their samples: once the bound is reached, submitting a block waits for the oldest one.
+ *
+ * @param <T> the type of the compressed blocks.
+ */
+public final class CompressionQueue<T> {
+
+    /**
+     * Compresses a block.
+     */
+    @FunctionalInterface
+    public interface Compressor<T> {
+        T compress() throws ImagingException, IOException;
+    }
+
+    /**
+     * Receives the compressed blocks, on the thread submitting or flushing them.
+     */
+    @FunctionalInterface
+    public interface Sink<T> {
+        void accept(int index, T compressed) throws ImagingException, IOException;
+    }
+
+    private static final class Block<T> {
+        final int index;
+        final FutureTask<T> task;
+
+        Block(final int index, final FutureTask<T> task) {
+            this.index = index;
+            this.task = task;
+        }
+    }
+
+    private final Executor executor;
+    private final int maxPending;
+    private final Sink<T> sink;
+    private final ArrayDeque<Block<T>> pending = new ArrayDeque<>();
+
+    /**
+     * Constructs a queue with room for two pending blocks per available processor.
+     *
+     * @param executor the executor compressing the blocks, or {@code null} to compress them on the submitting thread.
+     * @param sink     the receiver of the compressed blocks.
+     */
+    public CompressionQueue(final Executor executor, final Sink<T> sink) {
+        this(executor, 2 * Runtime.getRuntime().availableProcessors(), sink);
+    }
+
+    /**
+     * Constructs a queue.
+     *
+     * @param executor   the executor compressing the blocks, or {@code null} to compress them on the submitting thread.
+     * @param maxPending the maximum number of blocks submitted, but not yet handed to the sink.
+     * @param sink       the receiver of the compressed blocks.
+     */
+    public CompressionQueue(final Executor executor, final int maxPending, final Sink<T> sink) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("Invalid maximum number of pending blocks " + maxPending + ", must be positive");
+        }
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.sink = sink;
+    }
+
+    /**
+     * Cancels the blocks not yet handed to the sink.
+     */
+    public void cancel() {
+        for (final Block<T> block : pending) {
+            block.task.cancel(false);
+        }
+        pending.clear();
+    }
+
+    private void deliverOldest() throws ImagingException, IOException {
+        boolean delivered = false;
+        try {
+            final Block<T> block = pending.remove();
+            // compresses the block here if the executor hasn't started it, so a submitting thread of a busy bounded executor can't deadlock waiting for it
+            block.task.run();
+            sink.accept(block.index, block.task.get());
+            delivered = true;
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ImagingException("Could not compress image data", cause);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final InterruptedIOException interrupted = new InterruptedIOException("Interrupted while compressing image data");
+            interrupted.initCause(e);
+            throw interrupted;
+        } finally {
+            // after a failure, the blocks not yet started are not needed
+            if (!delivered) {
+                cancel();
+            }
+        }
+    }
+
+    /**
+     * Hands all the pending blocks to the sink, waiting for their compression to complete.
+     *
+     * @throws ImagingException if a block can't be compressed, or the sink fails.
+     * @throws IOException      if a block can't be compressed, the sink fails, or the thread is interrupted.
+     */
+    public void flush() throws ImagingException, IOException {
+        while (!pending.isEmpty()) {
+            deliverOldest();
+        }
+    }
+
+    /**
+     * Submits a block. Without an executor, the block is compressed and handed to the sink at once; otherwise this method returns once the block is
+     * scheduled, and no more than the maximum number of blocks are pending.
+     *
+     * @param index      the index of the block, passed to the sink.
+     * @param compressor the compressor of the block, which must not share mutable state with the compressors of other blocks.
+     * @throws ImagingException if a block can't be compressed, or the sink fails.
+     * @throws IOException      if a block can't be compressed, the sink fails, or the thread is interrupted.
+     * @throws java.util.concurrent.RejectedExecutionException if the executor rejects the block, which is then not pending.
+     */
+    public void submit(final int index, final Compressor<T> compressor) throws ImagingException, IOException {
+        if (executor == null) {
+            sink.accept(index, compressor.compress());
+            return;
+        }
+        final FutureTask<T> task = new FutureTask<>(compressor::compress);
+        // only once scheduled, as a rejected block would never complete
+        executor.execute(task);
+        pending.add(new Block<>(index, task));
+        while (pending.size() > maxPending) {
+            deliverOldest();
+        }
+    }
+}
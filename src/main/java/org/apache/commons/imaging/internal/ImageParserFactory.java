@@ -17,8 +17,12 @@
 package org.apache.commons.imaging.internal;
 
 import java.io.IOException;
-import java.util.function.Predicate;
-import java.util.function.Supplier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.imaging.AbstractImageParser;
 import org.apache.commons.imaging.ImageFormat;
@@ -34,6 +38,24 @@ import org.apache.commons.imaging.bytesource.ByteSource;
  */
 public final class ImageParserFactory {
 
+    /**
+     * The parsers, created once: they keep no state between calls, so they can be shared by any number of threads.
+     */
+    private static final List<AbstractImageParser<?>> IMAGE_PARSERS = Collections.unmodifiableList(AbstractImageParser.getAllImageParsers());
+
+    private static final Map<ImageFormat, AbstractImageParser<?>> IMAGE_PARSERS_BY_FORMAT = new HashMap<>();
+
+    /**
+     * The parsers by lower case file extension, filled as known extensions are looked up.
+     */
+    private static final Map<String, AbstractImageParser<?>> IMAGE_PARSERS_BY_EXTENSION = new ConcurrentHashMap<>();
+
+    static {
+        for (final ImageFormat format : ImageFormats.values()) {
+            IMAGE_PARSERS.stream().filter(parser -> parser.canAcceptType(format)).findFirst().ifPresent(parser -> IMAGE_PARSERS_BY_FORMAT.put(format, parser));
+        }
+    }
+
     public static <T extends ImagingParameters<T>> AbstractImageParser<T> getImageParser(final ByteSource byteSource) throws IOException {
         // TODO: circular dependency between Imaging and internal Util class below.
         final ImageFormat format = Imaging.guessFormat(byteSource);
@@ -49,20 +71,37 @@ public final class ImageParserFactory {
         throw new IllegalArgumentException("Can't parse this format.");
     }
 
+    // This generics suppression is as good as the parser registered for the format or extension. If it violates a generics design,
+    // then there will be an error during runtime.
+    @SuppressWarnings("unchecked")
     public static <T extends ImagingParameters<T>> AbstractImageParser<T> getImageParser(final ImageFormat format) {
-        return getImageParser(parser -> parser.canAcceptType(format), () -> new IllegalArgumentException("Unknown ImageFormat: " + format));
+        final AbstractImageParser<?> parser = IMAGE_PARSERS_BY_FORMAT.get(format);
+        if (parser == null) {
+            throw new IllegalArgumentException("Unknown ImageFormat: " + format);
+        }
+        return (AbstractImageParser<T>) parser;
     }
 
-    // This generics suppression is as good as the predicate given. If the predicate violates a generics design,
-    // then there will be an error during runtime.
     @SuppressWarnings("unchecked")
-    private static <T extends ImagingParameters<T>> AbstractImageParser<T> getImageParser(final Predicate<AbstractImageParser<?>> pred,
-            final Supplier<? extends RuntimeException> supplier) {
-        return (AbstractImageParser<T>) AbstractImageParser.getAllImageParsers().stream().filter(pred).findFirst().orElseThrow(supplier);
+    public static <T extends ImagingParameters<T>> AbstractImageParser<T> getImageParser(final String fileExtension) {
+        final int index = fileExtension.lastIndexOf('.');
+        final String extension = index < 0 ? "" : fileExtension.substring(index + 1).toLowerCase(Locale.ENGLISH);
+        AbstractImageParser<?> imageParser = IMAGE_PARSERS_BY_EXTENSION.get(extension);
+        if (imageParser == null) {
+            imageParser = IMAGE_PARSERS.stream().filter(parser -> parser.canAcceptExtension(fileExtension)).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown extension: " + fileExtension));
+            IMAGE_PARSERS_BY_EXTENSION.put(extension, imageParser);
+        }
+        return (AbstractImageParser<T>) imageParser;
     }
 
-    public static <T extends ImagingParameters<T>> AbstractImageParser<T> getImageParser(final String fileExtension) {
-        return getImageParser(parser -> parser.canAcceptExtension(fileExtension), () -> new IllegalArgumentException("Unknown extension: " + fileExtension));
+    /**
+     * Gets the shared instances of all image parsers.
+     *
+     * @return an unmodifiable list of the image parsers.
+     */
+    public static List<AbstractImageParser<?>> getImageParsers() {
+        return IMAGE_PARSERS;
     }
 
     private ImageParserFactory() {
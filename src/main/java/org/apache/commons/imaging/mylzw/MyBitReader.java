@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.mylzw;
+
+import java.nio.ByteOrder;
+
+/**
+ * Reads codes of varying bit lengths from a byte array, as {@link MyBitInputStream} does from a stream, but without a call to the stream for each byte.
+ */
+final class MyBitReader {
+
+    private final byte[] bytes;
+    private final int limit;
+    private final boolean bigEndian;
+    private final int endOfData;
+    private int position;
+    private int bitsInCache;
+    private int bitCache;
+
+    /**
+     * Constructs a reader.
+     *
+     * @param bytes       the bytes to read.
+     * @param byteOrder   the order of the bits: the most significant first for big-endian, the least significant first for little-endian.
+     * @param tiffLZWMode whether the end of the bytes reads as the TIFF end-of-information code (257), rather than -1.
+     */
+    MyBitReader(final byte[] bytes, final ByteOrder byteOrder, final boolean tiffLZWMode) {
+        this.bytes = bytes;
+        this.limit = bytes.length;
+        this.bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+        // pernicious special case!
+        this.endOfData = tiffLZWMode ? 257 : -1;
+    }
+
+    /**
+     * Reads a code.
+     *
+     * @param count the number of bits of the code, no more than 24.
+     * @return the code, or the end-of-data value if too few bits are left.
+     */
+    int readBits(final int count) {
+        while (bitsInCache < count) {
+            if (position >= limit) {
+                return endOfData;
+            }
+            final int next = bytes[position++] & 0xff;
+            if (bigEndian) {
+                bitCache = bitCache << 8 | next;
+            } else {
+                bitCache |= next << bitsInCache;
+            }
+            bitsInCache += 8;
+        }
+        bitsInCache -= count;
+        final int mask = (1 << count) - 1;
+        if (bigEndian) {
+            final int sample = bitCache >>> bitsInCache & mask;
+            bitCache &= (1 << bitsInCache) - 1;
+            return sample;
+        }
+        final int sample = bitCache & mask;
+        bitCache >>>= count;
+        return sample;
+    }
+}
@@ -16,16 +16,22 @@
  */
 package org.apache.commons.imaging.mylzw;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.ByteOrder;
 import java.util.Arrays;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.common.Allocator;
-
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Decompresses LZW data, as found in GIF and TIFF files.
+ * <p>
+ * Each string of the table is kept as the code of its prefix, the string without its last byte, and that last byte, so adding a string doesn't allocate.
+ * The strings are written straight into the output array, from their last byte back to their first.
+ * </p>
+ */
 public final class MyLzwDecompressor {
 
     public interface Listener {
@@ -36,7 +42,10 @@ public final class MyLzwDecompressor {
     }
 
     private static final int MAX_TABLE_SIZE = 1 << 12;
-    private final byte[][] table;
+    private final int[] prefixes;
+    private final byte[] suffixes;
+    private final byte[] firstBytes;
+    private final int[] lengths;
     private int codeSize;
     private final int initialCodeSize;
     private int codes = -1;
@@ -44,6 +53,7 @@ public final class MyLzwDecompressor {
     private final Listener listener;
     private final int clearCode;
     private final int eoiCode;
+    private byte[] output;
     private int written;
     private final boolean tiffLZWMode;
 
@@ -57,7 +67,10 @@ public final class MyLzwDecompressor {
         this.tiffLZWMode = tiffLZWMode;
         this.initialCodeSize = initialCodeSize;
 
-        table = new byte[MAX_TABLE_SIZE][];
+        prefixes = new int[MAX_TABLE_SIZE];
+        suffixes = new byte[MAX_TABLE_SIZE];
+        firstBytes = new byte[MAX_TABLE_SIZE];
+        lengths = new int[MAX_TABLE_SIZE];
         clearCode = 1 << initialCodeSize;
         eoiCode = clearCode + 1;
 
@@ -68,9 +81,15 @@ public final class MyLzwDecompressor {
         initializeTable();
     }
 
-    private void addStringToTable(final byte[] bytes) {
+    /**
+     * Adds the string of a code followed by a byte to the table.
+     */
+    private void addStringToTable(final int prefix, final byte b) {
         if (codes < 1 << codeSize) {
-            table[codes] = bytes;
+            prefixes[codes] = prefix;
+            suffixes[codes] = b;
+            firstBytes[codes] = firstBytes[prefix];
+            lengths[codes] = lengths[prefix] + 1;
             codes++;
         }
         // If the table already full, then we simply ignore these bytes
@@ -79,10 +98,10 @@ public final class MyLzwDecompressor {
         checkCodeSize();
     }
 
-    private byte[] appendBytes(final byte[] bytes, final byte b) {
-        final byte[] result = Arrays.copyOf(bytes, bytes.length + 1);
-        result[result.length - 1] = b;
-        return result;
+    private void checkCode(final int code) throws ImagingException {
+        if (code >= codes || code < 0) {
+            throw new ImagingException("Bad Code: " + code + " codes: " + codes + " code_size: " + codeSize + ", table: " + MAX_TABLE_SIZE);
+        }
     }
 
     private void checkCodeSize() {
@@ -102,53 +121,78 @@ public final class MyLzwDecompressor {
         incrementCodeSize();
     }
 
-    public byte[] decompress(final InputStream is, final int expectedLength) throws IOException {
+    /**
+     * Decompresses LZW data.
+     *
+     * @param compressed     the compressed data.
+     * @param expectedLength the length of the decompressed data; decompression stops once it is reached.
+     * @return the decompressed data, which may be shorter than expected if the compressed data ends early, or slightly longer.
+     * @throws ImagingException if the compressed data is invalid.
+     */
+    public byte[] decompress(final byte[] compressed, final int expectedLength) throws ImagingException {
+        final MyBitReader reader = new MyBitReader(compressed, byteOrder, tiffLZWMode);
+        output = Allocator.byteArray(expectedLength);
+        written = 0;
         int code;
         int oldCode = -1;
-        try (MyBitInputStream mbis = new MyBitInputStream(is, byteOrder, tiffLZWMode);
-                ByteArrayOutputStream baos = new ByteArrayOutputStream(Allocator.checkByteArray(expectedLength))) {
-
-            clearTable();
-
-            while ((code = getNextCode(mbis)) != eoiCode) {
-                if (code == clearCode) {
-                    clearTable();
-
-                    if (written >= expectedLength) {
-                        break;
-                    }
-                    code = getNextCode(mbis);
-
-                    if (code == eoiCode) {
-                        break;
-                    }
-                    writeToResult(baos, stringFromCode(code));
-                } else if (isInTable(code)) {
-                    writeToResult(baos, stringFromCode(code));
-
-                    addStringToTable(appendBytes(stringFromCode(oldCode), firstChar(stringFromCode(code))));
-                } else {
-                    final byte[] outString = appendBytes(stringFromCode(oldCode), firstChar(stringFromCode(oldCode)));
-                    writeToResult(baos, outString);
-                    addStringToTable(outString);
-                }
-                oldCode = code;
+
+        clearTable();
+
+        while ((code = getNextCode(reader)) != eoiCode) {
+            if (code == clearCode) {
+                clearTable();
 
                 if (written >= expectedLength) {
                     break;
                 }
+                code = getNextCode(reader);
+
+                if (code == eoiCode) {
+                    break;
+                }
+                checkCode(code);
+                writeToResult(code);
+            } else if (isInTable(code)) {
+                checkCode(code);
+                writeToResult(code);
+
+                checkCode(oldCode);
+                addStringToTable(oldCode, firstBytes[code]);
+            } else {
+                // the string of the previous code, followed by its first byte
+                checkCode(oldCode);
+                writeToResult(oldCode);
+                writeToResult(firstBytes[oldCode]);
+                addStringToTable(oldCode, firstBytes[oldCode]);
             }
+            oldCode = code;
 
-            return baos.toByteArray();
+            if (written >= expectedLength) {
+                break;
+            }
         }
+
+        final byte[] result = written == output.length ? output : Arrays.copyOf(output, written);
+        output = null;
+        return result;
     }
 
-    private byte firstChar(final byte[] bytes) {
-        return bytes[0];
+    /**
+     * Decompresses LZW data, read to the end of a stream, which is then closed.
+     *
+     * @param is             the stream of compressed data.
+     * @param expectedLength the length of the decompressed data; decompression stops once it is reached.
+     * @return the decompressed data, which may be shorter than expected if the compressed data ends early, or slightly longer.
+     * @throws IOException if the stream can't be read, or the compressed data is invalid.
+     */
+    public byte[] decompress(final InputStream is, final int expectedLength) throws IOException {
+        try (InputStream in = is) {
+            return decompress(IOUtils.toByteArray(in), expectedLength);
+        }
     }
 
-    private int getNextCode(final MyBitInputStream is) throws IOException {
-        final int code = is.readBits(codeSize);
+    private int getNextCode(final MyBitReader reader) {
+        final int code = reader.readBits(codeSize);
 
         if (null != listener) {
             listener.code(code);
@@ -167,12 +211,15 @@ public final class MyLzwDecompressor {
 
         final int initialEntriesCount = 1 << codeSize + 2;
 
-        if (initialEntriesCount > table.length) {
-            throw new ImagingException(String.format("Invalid Lzw table length [%d]; entries count is [%d]", table.length, initialEntriesCount));
+        if (initialEntriesCount > MAX_TABLE_SIZE) {
+            throw new ImagingException(String.format("Invalid Lzw table length [%d]; entries count is [%d]", MAX_TABLE_SIZE, initialEntriesCount));
         }
 
         for (int i = 0; i < initialEntriesCount; i++) {
-            table[i] = new byte[] { (byte) i, };
+            prefixes[i] = -1;
+            suffixes[i] = (byte) i;
+            firstBytes[i] = (byte) i;
+            lengths[i] = 1;
         }
     }
 
@@ -180,15 +227,31 @@ public final class MyLzwDecompressor {
         return code < codes;
     }
 
-    private byte[] stringFromCode(final int code) throws ImagingException {
-        if (code >= codes || code < 0) {
-            throw new ImagingException("Bad Code: " + code + " codes: " + codes + " code_size: " + codeSize + ", table: " + table.length);
+    /**
+     * Makes room in the output for more bytes, which are only expected past its end if the data is slightly longer than expected.
+     */
+    private void reserve(final int length) {
+        if (written + length > output.length) {
+            output = Arrays.copyOf(output, Math.max(written + length, output.length + (output.length >> 1)));
         }
-        return table[code];
     }
 
-    private void writeToResult(final OutputStream os, final byte[] bytes) throws IOException {
-        os.write(bytes);
-        written += bytes.length;
+    private void writeToResult(final byte b) {
+        reserve(1);
+        output[written++] = b;
+    }
+
+    /**
+     * Writes the string of a code, walking back from its last byte through its prefixes.
+     */
+    private void writeToResult(final int code) {
+        int length = lengths[code];
+        reserve(length);
+        written += length;
+        int c = code;
+        for (int i = written - 1; length > 0; i--, length--) {
+            output[i] = suffixes[c];
+            c = prefixes[c];
+        }
     }
 }
@@ -18,12 +18,15 @@
 package org.apache.commons.imaging;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.File;
 import java.util.Arrays;
 import java.util.stream.Stream;
 
+import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.io.FilenameUtils;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
@@ -60,6 +63,14 @@ public class ImagingGuessFormatTest extends AbstractImagingTest {
                 new Object[] { ImageFormats.UNKNOWN, UNKNOWN_IMAGE_FILE }).stream();
     }
 
+    public static Stream<Object[]> magicNumbers() {
+        return Arrays.asList(new Object[] { ImageFormats.JBIG2, new byte[] { (byte) 0x97, 0x4A, 0x42, 0x32 } },
+                new Object[] { ImageFormats.UNKNOWN, new byte[] { (byte) 0x97, 0x4A, 0x42, 0x33 } },
+                new Object[] { ImageFormats.WEBP, new byte[] { 'R', 'I', 'F', 'F', 1, 2, 3, 4, 'W', 'E', 'B', 'P', 0 } },
+                new Object[] { ImageFormats.UNKNOWN, new byte[] { 'R', 'I', 'F', 'F', 1, 2, 3, 4, 'W', 'A', 'V', 'E' } },
+                new Object[] { ImageFormats.RGBE, new byte[] { '#', '?' } }, new Object[] { ImageFormats.UNKNOWN, new byte[] { 0, 0, 0, 0 } }).stream();
+    }
+
     @ParameterizedTest
     @MethodSource("data")
     public void testGuessFormat(final ImageFormats expectedFormat, final String pathToFile) throws Exception {
@@ -70,4 +81,17 @@ public class ImagingGuessFormatTest extends AbstractImagingTest {
         assertEquals(expectedFormat, guessedFormat);
     }
 
+    @ParameterizedTest
+    @MethodSource("magicNumbers")
+    public void testGuessFormatFromMagicNumbers(final ImageFormats expectedFormat, final byte[] bytes) throws Exception {
+        assertEquals(expectedFormat, Imaging.guessFormat(bytes));
+    }
+
+    @Test
+    public void testGuessFormatTruncatedMagicNumbers() {
+        assertThrows(IllegalArgumentException.class, () -> Imaging.guessFormat(new byte[] { 0x47 }));
+        assertThrows(IllegalArgumentException.class, () -> Imaging.guessFormat(new byte[] { (byte) 0x97, 0x4A, 0x42 }));
+        assertThrows(IllegalArgumentException.class, () -> Imaging.guessFormat(ByteSource.array(new byte[] { 'R', 'I', 'F', 'F', 1, 2 }, "image.webp")));
+    }
+
 }
@@ -19,6 +19,7 @@ package org.apache.commons.imaging.bytesource;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
@@ -26,12 +27,22 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
+import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
@@ -41,6 +52,15 @@ public class ByteSourceDataTest extends AbstractByteSourceTest {
         ByteSource getByteSource(byte[] src) throws IOException;
     }
 
+    private final class ByteSourceChannelFactory implements ByteSourceFactory {
+        @Override
+        public ByteSource getByteSource(final byte[] src) throws IOException {
+            final Path file = createTempFile(src).toPath();
+
+            return ByteSource.channel(FileChannel.open(file), file.getFileName().toString());
+        }
+    }
+
     private final class ByteSourceFileFactory implements ByteSourceFactory {
         @Override
         public ByteSource getByteSource(final byte[] src) throws IOException {
@@ -74,6 +94,30 @@ public class ByteSourceDataTest extends AbstractByteSourceTest {
 
     }
 
+    private static final class ByteSourceInputStreamChunkedFactory implements ByteSourceFactory {
+        private final long spillThreshold;
+
+        ByteSourceInputStreamChunkedFactory(final long spillThreshold) {
+            this.spillThreshold = spillThreshold;
+        }
+
+        @Override
+        public ByteSource getByteSource(final byte[] src) throws IOException {
+            // small chunks, so reads cross them
+            return ByteSource.inputStream(new ByteArrayInputStream(src), null, 100, spillThreshold);
+        }
+    }
+
+    private final class ByteSourceMappedFactory implements ByteSourceFactory {
+        @Override
+        public ByteSource getByteSource(final byte[] src) throws IOException {
+            final Path file = createTempFile(src).toPath();
+
+            // small regions, so reads cross them
+            return new FileChannelByteSource(FileChannel.open(file), file.getFileName().toString(), 100);
+        }
+    }
+
     private final class ByteSourcePathFactory implements ByteSourceFactory {
         @Override
         public ByteSource getByteSource(final byte[] src) throws IOException {
@@ -90,12 +134,34 @@ public class ByteSourceDataTest extends AbstractByteSourceTest {
         return Arrays.asList(getTestByteArrays()).stream();
     }
 
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testByteSourceChannelFactory(final byte[] testByteArray) throws Exception {
+        writeAndReadBytes(new ByteSourceChannelFactory(), testByteArray);
+        readByteArrays(new ByteSourceChannelFactory(), testByteArray);
+    }
+
     @ParameterizedTest
     @MethodSource("data")
     public void testByteSourceFileFactory(final byte[] testByteArray) throws Exception {
         writeAndReadBytes(new ByteSourceFileFactory(), testByteArray);
     }
 
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testByteSourceInputStreamChunkedFactory(final byte[] testByteArray) throws Exception {
+        writeAndReadBytes(new ByteSourceInputStreamChunkedFactory(Long.MAX_VALUE), testByteArray);
+        readByteArrays(new ByteSourceInputStreamChunkedFactory(Long.MAX_VALUE), testByteArray);
+    }
+
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testByteSourceInputStreamSpillFactory(final byte[] testByteArray) throws Exception {
+        writeAndReadBytes(new ByteSourceInputStreamChunkedFactory(300), testByteArray);
+        readByteArrays(new ByteSourceInputStreamChunkedFactory(300), testByteArray);
+        readByteArrays(new ByteSourceInputStreamChunkedFactory(0), testByteArray);
+    }
+
     @ParameterizedTest
     @MethodSource("data")
     public void testByteSourceInputStreamFileFactory(final byte[] testByteArray) throws Exception {
@@ -106,6 +172,62 @@ public class ByteSourceDataTest extends AbstractByteSourceTest {
     @MethodSource("data")
     public void testByteSourceInputStreamRawFactory(final byte[] testByteArray) throws Exception {
         writeAndReadBytes(new ByteSourceInputStreamRawFactory(), testByteArray);
+        readByteArrays(new ByteSourceInputStreamRawFactory(), testByteArray);
+    }
+
+    @Test
+    public void testInvalidInputStreamBuffer() {
+        assertThrows(IllegalArgumentException.class, () -> ByteSource.inputStream(new ByteArrayInputStream(new byte[1]), null, 0, Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> ByteSource.inputStream(new ByteArrayInputStream(new byte[1]), null, 100, -1));
+    }
+
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testByteSourceMappedFactory(final byte[] testByteArray) throws Exception {
+        writeAndReadBytes(new ByteSourceMappedFactory(), testByteArray);
+        readByteArrays(new ByteSourceMappedFactory(), testByteArray);
+    }
+
+    @Test
+    public void testCloseSpilledInputStream() throws IOException {
+        final byte[] src = new byte[1000];
+        new Random(1).nextBytes(src);
+        final ByteSource byteSource = ByteSource.inputStream(new ByteArrayInputStream(src), null, 100, 300);
+        assertArrayEquals(Arrays.copyOfRange(src, 500, 600), byteSource.getByteArray(500, 100));
+        byteSource.close();
+        // the spilled bytes went with the temporary file
+        assertThrows(ClosedChannelException.class, () -> byteSource.getByteArray(500, 100));
+        assertArrayEquals(Arrays.copyOfRange(src, 0, 100), byteSource.getByteArray(0, 100));
+    }
+
+    @Test
+    public void testMappedConcurrentReads() throws Exception {
+        final byte[] src = new byte[10_000];
+        new Random(1).nextBytes(src);
+        final Path file = createTempFile(src).toPath();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (FileChannel channel = FileChannel.open(file)) {
+            final ByteSource byteSource = new FileChannelByteSource(channel, file.getFileName().toString(), 100);
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                final int seed = i;
+                futures.add(executor.submit(() -> {
+                    final Random random = new Random(seed);
+                    for (int j = 0; j < 500; j++) {
+                        final int start = random.nextInt(src.length);
+                        final int length = random.nextInt(Math.min(src.length - start, 300) + 1);
+                        assertArrayEquals(Arrays.copyOfRange(src, start, start + length), byteSource.getByteArray(start, length));
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(src.length, byteSource.size());
+        } finally {
+            executor.shutdown();
+        }
     }
 
     @ParameterizedTest
@@ -114,6 +236,27 @@ public class ByteSourceDataTest extends AbstractByteSourceTest {
         writeAndReadBytes(new ByteSourcePathFactory(), testByteArray);
     }
 
+    protected void readByteArrays(final ByteSourceFactory byteSourceFactory, final byte[] src) throws IOException {
+        final ByteSource byteSource = byteSourceFactory.getByteSource(src);
+
+        assertEquals(src.length, byteSource.size());
+        for (int start = 0; start <= src.length; start += 1 + start) {
+            final int length = Math.min(src.length - start, 150);
+            assertArrayEquals(Arrays.copyOfRange(src, start, start + length), byteSource.getByteArray(start, length));
+        }
+        assertThrows(ImagingException.class, () -> byteSource.getByteArray(src.length, 1));
+        assertThrows(ImagingException.class, () -> byteSource.getByteArray(-1, 1));
+        assertThrows(ImagingException.class, () -> byteSource.getByteArray(0, Integer.MAX_VALUE));
+
+        if (src.length > 2) {
+            try (InputStream is = byteSource.getInputStream(1)) {
+                assertEquals(src.length - 2, is.skip(src.length - 2));
+                assertEquals(0xff & src[src.length - 1], is.read());
+                assertEquals(-1, is.read());
+            }
+        }
+    }
+
     protected void writeAndReadBytes(final ByteSourceFactory byteSourceFactory, final byte[] src) throws IOException {
         final ByteSource byteSource = byteSourceFactory.getByteSource(src);
 
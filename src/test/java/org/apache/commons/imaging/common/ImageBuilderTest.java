@@ -142,4 +142,16 @@ public class ImageBuilderTest {
         }
     }
 
+    @Test
+    public void testSetRgbRow() {
+        final ImageBuilder imageBuilder = new ImageBuilder(10, 3, false);
+        final int[] argb = { 1, 2, 3, 4, 5, 6 };
+        imageBuilder.setRgb(4, 1, argb, 2, 4);
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 10; x++) {
+                final int expected = y == 1 && x >= 4 && x < 8 ? argb[x - 2] : 0;
+                assertEquals(expected, imageBuilder.getRgb(x, y), "Invalid pixel at " + x + ", " + y);
+            }
+        }
+    }
 }
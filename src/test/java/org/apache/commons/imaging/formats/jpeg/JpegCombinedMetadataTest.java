@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.test.TestResources;
+import org.apache.commons.io.build.AbstractOrigin.FileOrigin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class JpegCombinedMetadataTest extends JpegBaseTest {
+
+    /**
+     * Describes the result of a call: its value, or the class of the exception it threw.
+     */
+    private static String describe(final Callable<?> callable) {
+        try {
+            final Object value = callable.call();
+            return value instanceof byte[] ? Arrays.toString((byte[]) value) : Objects.toString(value);
+        } catch (final Exception e) {
+            return e.getClass().getName();
+        }
+    }
+
+    public static Stream<File> data() throws Exception {
+        return getJpegImages().stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testSameAsSeparateCalls(final File imageFile) throws Exception {
+        final ByteSource byteSource = ByteSource.file(imageFile);
+        final JpegImageParser parser = new JpegImageParser();
+        final JpegImagingParameters params = new JpegImagingParameters();
+        final JpegCombinedMetadata metadata = parser.getCombinedMetadata(byteSource, params);
+
+        assertEquals(describe(() -> parser.getExifRawData(byteSource)), describe(metadata::getExifRawData));
+        assertEquals(describe(() -> parser.getExifMetadata(byteSource, null)), describe(metadata::getExifMetadata));
+        assertEquals(describe(() -> parser.getPhotoshopMetadata(byteSource, params)), describe(metadata::getPhotoshopMetadata));
+        assertEquals(describe(() -> parser.getXmpXml(byteSource, params)), describe(metadata::getXmpXml));
+        assertEquals(describe(() -> parser.getIccProfileBytes(byteSource, params)), describe(metadata::getIccProfileBytes));
+        assertEquals(describe(() -> parser.getImageSize(byteSource, params)), describe(metadata::getImageSize));
+        assertEquals(describe(() -> new JpegImageMetadata(parser.getPhotoshopMetadata(byteSource, params), parser.getExifMetadata(byteSource, null))),
+                describe(() -> new JpegImageMetadata(metadata.getPhotoshopMetadata(), metadata.getExifMetadata())));
+        assertEquals(describe(() -> Objects.toString(metadata.getMetadata())), describe(() -> Objects.toString(parser.getMetadata(byteSource, params))));
+    }
+
+    @Test
+    public void testSingleTraversal() throws Exception {
+        final File file = TestResources.resourceToFile("/images/jpeg/iptc/IMAGING-168/111083453-c07f1880-851e-11eb-8b61-2757f7d934bf.jpg");
+        final int[] traversals = { 0 };
+        final ByteSource byteSource = new ByteSource(new FileOrigin(file), file.getName()) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                traversals[0]++;
+                return super.getInputStream();
+            }
+        };
+
+        final JpegCombinedMetadata metadata = new JpegImageParser().getCombinedMetadata(byteSource, null);
+        assertNotNull(metadata.getImageInfo());
+        assertNotNull(metadata.getPhotoshopMetadata());
+        metadata.getMetadata();
+        metadata.getExifMetadata();
+        metadata.getXmpXml();
+        metadata.getIccProfileBytes();
+        metadata.getImageSize();
+        assertEquals(1, traversals[0]);
+
+        traversals[0] = 0;
+        new JpegImageParser().getImageInfo(byteSource, null);
+        assertEquals(1, traversals[0]);
+    }
+}
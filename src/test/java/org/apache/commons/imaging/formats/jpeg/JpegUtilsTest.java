@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.test.TestResources;
+import org.apache.commons.io.build.AbstractOrigin.FileOrigin;
+import org.junit.jupiter.api.Test;
+
+public class JpegUtilsTest {
+
+    private static final String CANON_JPEG = "/data/images/jpg/1/Canon Powershot SD750 - 2007.12.26.n.IMG_3704.JPG";
+
+    /**
+     * Visitor recording the segments it visits, only wanting the given markers.
+     */
+    private static final class RecordingVisitor implements JpegUtils.Visitor {
+        private final List<Integer> wanted;
+        final List<Integer> visited = new ArrayList<>();
+        boolean visitedSos;
+
+        RecordingVisitor(final Integer... wanted) {
+            this.wanted = Arrays.asList(wanted);
+        }
+
+        @Override
+        public boolean beginSegment(final int marker) {
+            return wanted.contains(marker);
+        }
+
+        @Override
+        public boolean beginSos() {
+            return false;
+        }
+
+        @Override
+        public boolean visitSegment(final int marker, final byte[] markerBytes, final int segmentLength, final byte[] segmentLengthBytes,
+                final byte[] segmentData) {
+            assertEquals(segmentLength - 2, segmentData.length);
+            visited.add(marker);
+            return true;
+        }
+
+        @Override
+        public void visitSos(final int marker, final byte[] markerBytes, final byte[] imageData) {
+            visitedSos = true;
+        }
+    }
+
+    @Test
+    public void testTraverseJfifReadsOnlyHeaders() throws IOException {
+        final File file = TestResources.resourceToFile(CANON_JPEG);
+        final long[] bytesRead = { 0 };
+        final ByteSource byteSource = new ByteSource(new FileOrigin(file), file.getName()) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return new FilterInputStream(Files.newInputStream(file.toPath())) {
+                    @Override
+                    public int read() throws IOException {
+                        final int b = super.read();
+                        if (b >= 0) {
+                            bytesRead[0]++;
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(final byte[] b, final int off, final int len) throws IOException {
+                        final int n = super.read(b, off, len);
+                        if (n > 0) {
+                            bytesRead[0] += n;
+                        }
+                        return n;
+                    }
+                };
+            }
+        };
+
+        final RecordingVisitor visitor = new RecordingVisitor(JpegConstants.SOF0_MARKER);
+        new JpegUtils().traverseJfif(byteSource, visitor);
+        assertEquals(Arrays.asList(JpegConstants.SOF0_MARKER), visitor.visited);
+        assertFalse(visitor.visitedSos);
+        // only the 10 KB of headers are needed, the 2 MB of image data are never read
+        assertTrue(bytesRead[0] < 32 * 1024, "read " + bytesRead[0] + " bytes");
+    }
+
+    @Test
+    public void testTraverseJfifSkipsUnwantedSegments() throws IOException {
+        final ByteSource byteSource = ByteSource.file(TestResources.resourceToFile(CANON_JPEG));
+        final RecordingVisitor all = new RecordingVisitor(JpegConstants.JPEG_APP1_MARKER, JpegConstants.DQT_MARKER, JpegConstants.SOF0_MARKER,
+                JpegConstants.DHT_MARKER);
+        new JpegUtils().traverseJfif(byteSource, all);
+        assertEquals(Arrays.asList(JpegConstants.JPEG_APP1_MARKER, JpegConstants.DQT_MARKER, JpegConstants.SOF0_MARKER, JpegConstants.DHT_MARKER),
+                all.visited);
+
+        final RecordingVisitor tables = new RecordingVisitor(JpegConstants.DQT_MARKER, JpegConstants.DHT_MARKER);
+        new JpegUtils().traverseJfif(byteSource, tables);
+        assertEquals(Arrays.asList(JpegConstants.DQT_MARKER, JpegConstants.DHT_MARKER), tables.visited);
+    }
+
+    @Test
+    public void testTraverseJfifTruncatedSkippedSegment() {
+        // an APP1 segment of 256 bytes, with only 4 bytes present
+        final byte[] bytes = { (byte) 0xff, (byte) 0xd8, (byte) 0xff, (byte) 0xe1, 0x01, 0x00, 0x00, 0x00, 0x00, 0x00 };
+        assertThrows(IOException.class, () -> new JpegUtils().traverseJfif(ByteSource.array(bytes), new RecordingVisitor()));
+    }
+}
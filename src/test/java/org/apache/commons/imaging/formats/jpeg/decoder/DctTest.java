@@ -85,6 +85,24 @@ public class DctTest {
         return ret;
     }
 
+    private static double[][] REFERENCE_reducedInverseDCT(final double[][] matrix, final int size) {
+        final double[][] ret = new double[size][size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                double sum = 0;
+                for (int u = 0; u < size; u++) {
+                    for (int v = 0; v < size; v++) {
+                        final float cu = u == 0 ? (float) (1.0 / Math.sqrt(2)) : 1;
+                        final float cv = v == 0 ? (float) (1.0 / Math.sqrt(2)) : 1;
+                        sum += cu * cv * matrix[v][u] * Math.cos((2 * x + 1) * u * Math.PI / (2 * size)) * Math.cos((2 * y + 1) * v * Math.PI / (2 * size));
+                    }
+                }
+                ret[y][x] = 0.25f * sum;
+            }
+        }
+        return ret;
+    }
+
     @Test
     public void testMatrices() {
         final float[] originalData = new float[8 * 8];
@@ -123,6 +141,41 @@ public class DctTest {
         }
     }
 
+    @Test
+    public void testReducedMatrices() {
+        final float[][] originalData8x8 = new float[8][8];
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                originalData8x8[y][x] = 8 * y + x;
+            }
+        }
+        final double[][] transformed8x8 = REFERENCE_forwardDCT(originalData8x8);
+
+        for (final int size : new int[] { 2, 4 }) {
+            final float[] data = new float[8 * 8];
+            for (int y = 0; y < 8; y++) {
+                for (int x = 0; x < 8; x++) {
+                    data[8 * y + x] = (float) transformed8x8[y][x];
+                }
+            }
+            if (size == 2) {
+                Dct.inverseDct2x2(data);
+            } else {
+                Dct.inverseDct4x4(data);
+            }
+            final double[][] reversed = REFERENCE_reducedInverseDCT(transformed8x8, size);
+            double sum = 0;
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    assertEquals(reversed[y][x], data[8 * y + x], 0.001);
+                    sum += data[8 * y + x];
+                }
+            }
+            // the reduced block keeps the average of the original block
+            assertEquals(31.5, sum / (size * size), 0.001);
+        }
+    }
+
     @Test
     public void testVectors() {
         final float[] originalData = new float[8];
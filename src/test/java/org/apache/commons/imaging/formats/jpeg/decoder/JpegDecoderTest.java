@@ -17,20 +17,72 @@
 
 package org.apache.commons.imaging.formats.jpeg.decoder;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.formats.jpeg.JpegImagingParameters;
 import org.apache.commons.imaging.test.TestResources;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 /**
  * Tests for the JpegDecoder.
  */
 public class JpegDecoderTest {
 
+    private static BufferedImage createGradient(final int imageType) {
+        final BufferedImage source = new BufferedImage(123, 77, imageType);
+        final Graphics2D graphics = source.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, 123, 77, Color.BLUE));
+        graphics.fillRect(0, 0, 123, 77);
+        graphics.setColor(Color.WHITE);
+        graphics.drawString("Imaging", 10, 40);
+        graphics.dispose();
+        return source;
+    }
+
+    private static byte[] encode(final BufferedImage image, final boolean progressive) throws IOException {
+        final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(baos)) {
+            final ImageWriteParam param = writer.getDefaultWriteParam();
+            if (progressive) {
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+
+    private static int[] getRgb(final BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
     /**
      * Test that a bad file does not hang or take too long to be processed.
      */
@@ -41,4 +93,93 @@ public class JpegDecoderTest {
         final ByteSource byteSourceFile = ByteSource.file(inputFile);
         assertThrows(ImagingException.class, () -> new JpegDecoder().decode(byteSourceFile));
     }
+
+    /**
+     * Test a grayscale image with 2x2 sampling factors and restart intervals of 32 data units.
+     */
+    @Test
+    public void testDecodeRestartIntervals() throws ImagingException, IOException {
+        final File inputFile = TestResources.resourceToFile("/data/images/jpg/6/image.jpeg");
+        final BufferedImage image = new JpegDecoder().decode(ByteSource.file(inputFile));
+        final Raster expected = ImageIO.read(inputFile).getRaster();
+        assertEquals(expected.getWidth(), image.getWidth());
+        assertEquals(expected.getHeight(), image.getHeight());
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                final int gray = image.getRGB(x, y) & 0xff;
+                assertTrue(Math.abs(gray - expected.getSample(x, y, 0)) <= 1);
+            }
+        }
+    }
+
+    /**
+     * A progressive JPEG holds the same coefficients as its sequential counterpart, split over spectral selection and successive approximation scans.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_BYTE_GRAY })
+    public void testDecodeProgressive(final int imageType) throws ImagingException, IOException {
+        final BufferedImage source = createGradient(imageType);
+        final BufferedImage sequential = new JpegDecoder().decode(ByteSource.array(encode(source, false)));
+        final BufferedImage progressive = new JpegDecoder().decode(ByteSource.array(encode(source, true)));
+        assertEquals(123, progressive.getWidth());
+        assertEquals(77, progressive.getHeight());
+        assertArrayEquals(getRgb(sequential), getRgb(progressive));
+    }
+
+    /**
+     * Test that restart intervals decoded concurrently produce the same image as decoding them in sequence.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = { "/data/images/jpg/6/image.jpeg", "/IMAGING-136/1402522741337.jpg" })
+    public void testDecodeRestartIntervalsConcurrently(final String resource) throws ImagingException, IOException {
+        final File inputFile = TestResources.resourceToFile(resource);
+        final BufferedImage expected = new JpegDecoder().decode(ByteSource.file(inputFile));
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final BufferedImage image = new JpegDecoder(new JpegImagingParameters().setExecutor(executor)).decode(ByteSource.file(inputFile));
+            assertArrayEquals(getRgb(expected), getRgb(image));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test that a downscaled decoding is close to the averages of the pixels of the full size image, for sequential and progressive images.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = { 2, 4, 8 })
+    public void testDecodeScaled(final int scaleDenominator) throws ImagingException, IOException {
+        final JpegImagingParameters params = new JpegImagingParameters().setScaleDenominator(scaleDenominator);
+        for (final boolean progressive : new boolean[] { false, true }) {
+            final byte[] bytes = encode(createGradient(BufferedImage.TYPE_INT_RGB), progressive);
+            final BufferedImage full = new JpegDecoder().decode(ByteSource.array(bytes));
+            final BufferedImage image = new JpegDecoder(params).decode(ByteSource.array(bytes));
+            assertEquals((123 + scaleDenominator - 1) / scaleDenominator, image.getWidth());
+            assertEquals((77 + scaleDenominator - 1) / scaleDenominator, image.getHeight());
+
+            long error = 0;
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    final int rgb = image.getRGB(x, y);
+                    for (int shift = 0; shift < 24; shift += 8) {
+                        int sum = 0;
+                        int count = 0;
+                        for (int yy = y * scaleDenominator; yy < Math.min(77, (y + 1) * scaleDenominator); yy++) {
+                            for (int xx = x * scaleDenominator; xx < Math.min(123, (x + 1) * scaleDenominator); xx++) {
+                                sum += full.getRGB(xx, yy) >> shift & 0xff;
+                                count++;
+                            }
+                        }
+                        error += Math.abs(sum / count - (rgb >> shift & 0xff));
+                    }
+                }
+            }
+            assertTrue(error < 2L * 3 * image.getWidth() * image.getHeight(), "mean error " + (double) error / (3 * image.getWidth() * image.getHeight()));
+        }
+    }
+
+    @Test
+    public void testInvalidScaleDenominator() {
+        assertThrows(IllegalArgumentException.class, () -> new JpegImagingParameters().setScaleDenominator(3));
+    }
 }
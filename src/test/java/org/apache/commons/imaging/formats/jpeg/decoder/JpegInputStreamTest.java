@@ -16,6 +16,7 @@
  */
 package org.apache.commons.imaging.formats.jpeg.decoder;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import org.apache.commons.imaging.ImagingException;
@@ -30,10 +31,10 @@ public class JpegInputStreamTest {
 
     @Test
     public void testNextBitThrowsImageReadExceptionOne() {
-        final int[] byteArray = new int[6];
+        final byte[] byteArray = new byte[6];
         byteArray[0] = (byte) -1;
         byteArray[1] = (byte) 74;
-        final JpegInputStream jpegInputStream = new JpegInputStream(byteArray);
+        final JpegInputStream jpegInputStream = new JpegInputStream(byteArray, 0, byteArray.length);
 
         assertThrows(ImagingException.class, jpegInputStream::nextBit);
 
@@ -41,11 +42,43 @@ public class JpegInputStreamTest {
 
     @Test
     public void testNextBitThrowsImageReadExceptionTwo() {
-        final int[] byteArray = {};
-        final JpegInputStream jpegInputStream = new JpegInputStream(byteArray);
+        final byte[] byteArray = {};
+        final JpegInputStream jpegInputStream = new JpegInputStream(byteArray, 0, byteArray.length);
 
         assertThrows(IllegalStateException.class, jpegInputStream::nextBit);
 
     }
 
+    @Test
+    public void testReadBitsMatchesNextBit() throws ImagingException {
+        // 0xFF 0x00 is a stuffed 0xFF data byte, 0xFF 0xD9 ends the entropy-coded data
+        final byte[] data = { 0x11, (byte) 0xA5, (byte) 0xFF, 0x00, 0x3C, (byte) 0x81, (byte) 0xFF, (byte) 0xD9 };
+        final JpegInputStream bitwise = new JpegInputStream(data, 1, data.length);
+        final JpegInputStream buffered = new JpegInputStream(data, 1, data.length);
+        for (final int n : new int[] { 3, 9, 0, 1, 11, 8 }) {
+            int expected = 0;
+            for (int i = 0; i < n; i++) {
+                expected = expected << 1 | bitwise.nextBit();
+            }
+            assertEquals(expected, buffered.peekBits(JpegInputStream.MAX_PEEK_BITS) >>> JpegInputStream.MAX_PEEK_BITS - n & (1 << n) - 1);
+            assertEquals(expected, buffered.readBits(n));
+        }
+        assertThrows(ImagingException.class, () -> buffered.readBits(1));
+        assertThrows(ImagingException.class, bitwise::nextBit);
+    }
+
+    @Test
+    public void testSplitByRstMarkers() throws ImagingException {
+        // two bytes of header, three intervals separated by RST0 and RST1, then EOI
+        final byte[] data = { 0x12, 0x34, 0x55, (byte) 0xFF, 0x00, (byte) 0xFF, (byte) 0xD0, 0x66, (byte) 0xFF, (byte) 0xD1, 0x77, (byte) 0xFF, (byte) 0xD9 };
+        final JpegInputStream[] streams = JpegDecoder.splitByRstMarkers(data, 2, data.length);
+        assertEquals(3, streams.length);
+        assertEquals(0x55FF, streams[0].readBits(16));
+        assertThrows(IllegalStateException.class, () -> streams[0].readBits(1));
+        assertEquals(0x66, streams[1].readBits(8));
+        assertThrows(IllegalStateException.class, () -> streams[1].readBits(1));
+        assertEquals(0x77, streams[2].readBits(8));
+        assertThrows(ImagingException.class, () -> streams[2].readBits(1));
+    }
+
 }
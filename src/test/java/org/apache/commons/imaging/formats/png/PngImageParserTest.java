@@ -17,20 +17,68 @@
 
 package org.apache.commons.imaging.formats.png;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
 
 import org.apache.commons.imaging.ImageInfo;
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.imaging.common.AllocationRequestException;
 import org.junit.jupiter.api.Test;
 
 public class PngImageParserTest extends AbstractPngTest {
 
+    private static void writeChunk(final ByteArrayOutputStream os, final int chunkType, final byte[] data, final int offset, final int length) {
+        final CRC32 crc = new CRC32();
+        final ByteBuffer buffer = ByteBuffer.allocate(length + 12);
+        buffer.putInt(length).putInt(chunkType).put(data, offset, length);
+        crc.update(buffer.array(), 4, length + 4);
+        buffer.putInt((int) crc.getValue());
+        os.write(buffer.array(), 0, buffer.capacity());
+    }
+
+    /**
+     * Rewrites a PNG file with its image data split into IDAT chunks of growing sizes, the first one empty.
+     */
+    private static byte[] splitImageData(final byte[] png) {
+        final ByteBuffer buffer = ByteBuffer.wrap(png);
+        buffer.position(PngConstants.PNG_SIGNATURE.size());
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        os.write(png, 0, PngConstants.PNG_SIGNATURE.size());
+        final ByteArrayOutputStream imageData = new ByteArrayOutputStream();
+        while (buffer.hasRemaining()) {
+            final int length = buffer.getInt();
+            final int chunkType = buffer.getInt();
+            if (chunkType == ChunkType.IDAT.value) {
+                imageData.write(png, buffer.position(), length);
+            } else {
+                if (chunkType == ChunkType.IEND.value) {
+                    final byte[] data = imageData.toByteArray();
+                    for (int offset = 0, size = 0; offset < data.length; offset += size, size++) {
+                        writeChunk(os, ChunkType.IDAT.value, data, offset, Math.min(size, data.length - offset));
+                    }
+                }
+                writeChunk(os, chunkType, png, buffer.position(), length);
+            }
+            buffer.position(buffer.position() + length + 4);
+        }
+        return os.toByteArray();
+    }
+
     private static byte[] getPngImageBytes(final BufferedImage image, final PngImagingParameters params) throws IOException {
         try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
             new PngWriter().writeImage(image, os, params, null);
@@ -72,4 +120,96 @@ public class PngImageParserTest extends AbstractPngTest {
         final ImageInfo imageInfo = new PngImageParser().getImageInfo(bytes, null);
         assertTrue(imageInfo.usesPalette());
     }
+
+    @Test
+    public void testImageDataCrc() throws IOException {
+        final BufferedImage image = new BufferedImage(30, 20, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(1, 1, 0x00FFffFF);
+        final byte[] bytes = splitImageData(getPngImageBytes(image, new PngImagingParameters()));
+        // the last byte of the CRC of the last IDAT chunk, before the 12 bytes of the IEND chunk
+        bytes[bytes.length - 13] ^= 1;
+        assertThrows(ImagingException.class, () -> new PngImageParser().getBufferedImage(bytes, null));
+    }
+
+    @Test
+    public void testSplitImageData() throws IOException {
+        final BufferedImage image = new BufferedImage(30, 20, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 20; y++) {
+            for (int x = 0; x < 30; x++) {
+                image.setRGB(x, y, x * 0x3010507 ^ y * 0x1020304);
+            }
+        }
+        final byte[] bytes = getPngImageBytes(image, new PngImagingParameters().setPredictorEnabled(true));
+        final BufferedImage expected = new PngImageParser().getBufferedImage(bytes, null);
+        final BufferedImage actual = new PngImageParser().getBufferedImage(splitImageData(bytes), null);
+        assertArrayEquals(expected.getRGB(0, 0, 30, 20, null, 0, 30), actual.getRGB(0, 0, 30, 20, null, 0, 30));
+        assertArrayEquals(image.getRGB(0, 0, 30, 20, null, 0, 30), actual.getRGB(0, 0, 30, 20, null, 0, 30));
+    }
+
+    @Test
+    public void testScanlineReader() throws IOException {
+        final BufferedImage image = new BufferedImage(30, 20, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 20; y++) {
+            for (int x = 0; x < 30; x++) {
+                image.setRGB(x, y, x * 0x3010507 ^ y * 0x1020304);
+            }
+        }
+        final byte[] bytes = splitImageData(getPngImageBytes(image, new PngImagingParameters().setPredictorEnabled(true)));
+        final BufferedImage expected = new PngImageParser().getBufferedImage(bytes, null);
+        try (PngScanlineReader reader = new PngImageParser().getScanlineReader(ByteSource.array(bytes), null)) {
+            assertEquals(30, reader.getWidth());
+            assertEquals(20, reader.getHeight());
+            assertTrue(reader.hasAlpha());
+            for (int y = 0; y < 20; y++) {
+                assertEquals(y, reader.getNextRow());
+                assertArrayEquals(expected.getRGB(0, y, 30, 1, null, 0, 30), reader.readScanline(), "row " + y);
+            }
+            assertNull(reader.readScanline());
+        }
+    }
+
+    @Test
+    public void testScanlineReaderIccProfile() throws IOException {
+        final BufferedImage image = new BufferedImage(30, 20, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 20; y++) {
+            for (int x = 0; x < 30; x++) {
+                image.setRGB(x, y, x * 0x3010507 ^ y * 0x1020304);
+            }
+        }
+        final byte[] png = getPngImageBytes(image, new PngImagingParameters());
+        // an iCCP chunk with a profile other than sRGB, after the IHDR chunk
+        final ByteArrayOutputStream iccp = new ByteArrayOutputStream();
+        iccp.write(new byte[] { 'I', 'C', 'C', 0, 0 }, 0, 5);
+        try (DeflaterOutputStream dos = new DeflaterOutputStream(iccp)) {
+            dos.write(ICC_Profile.getInstance(ColorSpace.CS_LINEAR_RGB).getData());
+        }
+        final int ihdrEnd = PngConstants.PNG_SIGNATURE.size() + 12 + 13;
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        os.write(png, 0, ihdrEnd);
+        writeChunk(os, ChunkType.iCCP.value, iccp.toByteArray(), 0, iccp.size());
+        os.write(png, ihdrEnd, png.length - ihdrEnd);
+        final byte[] bytes = os.toByteArray();
+
+        final BufferedImage expected = new PngImageParser().getBufferedImage(bytes, null);
+        try (PngScanlineReader reader = new PngImageParser().getScanlineReader(ByteSource.array(bytes), null)) {
+            for (int y = 0; y < 20; y++) {
+                assertArrayEquals(expected.getRGB(0, y, 30, 1, null, 0, 30), reader.readScanline(), "row " + y);
+            }
+        }
+        // converted, not as written
+        assertFalse(Arrays.equals(image.getRGB(0, 0, 30, 1, null, 0, 30), expected.getRGB(0, 0, 30, 1, null, 0, 30)));
+    }
+
+    @Test
+    public void testScanlineReaderInterlaced() throws IOException {
+        final byte[] bytes = getPngImageBytes(new BufferedImage(30, 20, BufferedImage.TYPE_INT_RGB), new PngImagingParameters());
+        // the interlace method, the last byte of the IHDR chunk data, and the CRC of the chunk
+        final int interlaceMethod = PngConstants.PNG_SIGNATURE.size() + 8 + 12;
+        bytes[interlaceMethod] = (byte) InterlaceMethod.ADAM7.ordinal();
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, interlaceMethod - 16, 17);
+        ByteBuffer.wrap(bytes).putInt(interlaceMethod + 1, (int) crc.getValue());
+        final ImagingException e = assertThrows(ImagingException.class, () -> new PngImageParser().getScanlineReader(ByteSource.array(bytes), null));
+        assertEquals("PNG: interlaced images can't be read by row", e.getMessage());
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.apache.commons.imaging.Imaging;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class PngParallelEncodeTest {
+
+    private static final int WIDTH = 700;
+    private static final int HEIGHT = 600;
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    public static void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        executor.shutdown();
+    }
+
+    private static BufferedImage createImage(final int type) {
+        final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, type);
+        final Random random = new Random(type);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                // gradients, repeated patterns and some noise
+                final int noise = random.nextInt(8);
+                image.setRGB(x, y, (x + y & 0xff) << 24 | (x * 3 + noise & 0xff) << 16 | (y / 5 * 17 & 0xff) << 8 | (x ^ y) & 0xff);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Inflates the concatenated IDAT chunks, which checks the Adler-32 checksum at the end of the zlib stream.
+     */
+    private static byte[] inflateImageData(final byte[] png) throws DataFormatException {
+        final ByteBuffer buffer = ByteBuffer.wrap(png);
+        buffer.position(PngConstants.PNG_SIGNATURE.size());
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        while (buffer.hasRemaining()) {
+            final int length = buffer.getInt();
+            final int type = buffer.getInt();
+            if (type == ChunkType.IDAT.value) {
+                compressed.write(png, buffer.position(), length);
+            }
+            buffer.position(buffer.position() + length + 4);
+        }
+        final Inflater inflater = new Inflater();
+        inflater.setInput(compressed.toByteArray());
+        final ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        final byte[] chunk = new byte[8192];
+        while (!inflater.finished()) {
+            final int count = inflater.inflate(chunk);
+            assertTrue(count > 0 || !inflater.needsInput(), "truncated zlib stream");
+            inflated.write(chunk, 0, count);
+        }
+        assertEquals(0, inflater.getRemaining());
+        inflater.end();
+        return inflated.toByteArray();
+    }
+
+    private static byte[] write(final BufferedImage image, final PngImagingParameters params) throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new PngWriter().writeImage(image, os, params, null);
+        return os.toByteArray();
+    }
+
+    @Test
+    public void testCombineAdler32() {
+        final byte[] bytes = new byte[100_000];
+        new Random(1).nextBytes(bytes);
+        final Adler32 whole = new Adler32();
+        whole.update(bytes);
+        for (final int split : new int[] { 0, 1, 65520, 65521, 65522, 99_999, 100_000 }) {
+            final Adler32 first = new Adler32();
+            first.update(bytes, 0, split);
+            final Adler32 second = new Adler32();
+            second.update(bytes, split, bytes.length - split);
+            assertEquals(whole.getValue(), PngWriter.combineAdler32(first.getValue(), second.getValue(), bytes.length - split), "split at " + split);
+        }
+    }
+
+    @Test
+    public void testSameImageAsSerial() throws Exception {
+        final int[] types = { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_BYTE_GRAY };
+        for (final int type : types) {
+            final BufferedImage image = createImage(type);
+            for (final boolean predictor : new boolean[] { false, true }) {
+                final PngImagingParameters serial = new PngImagingParameters().setPredictorEnabled(predictor);
+                final PngImagingParameters concurrent = new PngImagingParameters().setPredictorEnabled(predictor).setExecutor(executor);
+                final byte[] expected = write(image, serial);
+                final byte[] actual = write(image, concurrent);
+
+                // the same filtered rows, in a different zlib stream
+                assertArrayEquals(inflateImageData(expected), inflateImageData(actual), "type " + type + ", predictor " + predictor);
+                final BufferedImage read = Imaging.getBufferedImage(actual);
+                assertArrayEquals(Imaging.getBufferedImage(expected).getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH), read.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH));
+                // not much larger than a single stream
+                assertTrue(actual.length < expected.length * 1.02 + 1024, actual.length + " bytes instead of " + expected.length);
+            }
+        }
+    }
+
+    @Test
+    public void testIndependentOfScheduling() throws Exception {
+        final BufferedImage image = createImage(BufferedImage.TYPE_INT_ARGB);
+        final ExecutorService singleThread = Executors.newSingleThreadExecutor();
+        try {
+            for (final int level : new int[] { 0, 1, -1, 9 }) {
+                final PngImagingParameters params = new PngImagingParameters().setPredictorEnabled(true).setCompressionLevel(level);
+                final byte[] expected = write(image, params.setExecutor(singleThread));
+                assertArrayEquals(expected, write(image, params.setExecutor(executor)));
+                assertArrayEquals(inflateImageData(write(image, params.setExecutor(null))), inflateImageData(expected));
+            }
+        } finally {
+            singleThread.shutdown();
+        }
+    }
+}
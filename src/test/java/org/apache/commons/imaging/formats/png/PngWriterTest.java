@@ -16,13 +16,21 @@
  */
 package org.apache.commons.imaging.formats.png;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import javax.imageio.ImageIO;
 
 import org.apache.commons.imaging.Imaging;
 import org.apache.commons.imaging.ImagingTestConstants;
@@ -43,6 +51,21 @@ public class PngWriterTest extends AbstractPngTest {
             { "2/28569-8.png", "1" }, { "2/28569.png", "1" }, { "3/testImage.png", "116" }, { "3/testImageNoAlpha.png", "1" },
             { "4/buttons_level_menu_down.ipad.png", "2" }, { "5/trns-gray.png", "26" }, { "5/trns-palette8.png", "18" }, { "5/trns-rgb.png", "26" }, };
 
+    private static BufferedImage createImage(final boolean alpha, final boolean gray) {
+        final int width = 61;
+        final int height = 37;
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // smooth areas, where the predictors help, and noise, where they don't
+                final int value = x < width / 2 ? x * 3 + y * 2 : x * 7919 ^ y * 104729;
+                final int rgb = gray ? (value & 0xff) * 0x010101 : value & 0xffffff ^ y << 16;
+                image.setRGB(x, y, (alpha ? (x + y) * 5 : 0xff) << 24 | rgb);
+            }
+        }
+        return image;
+    }
+
     private static int countColors(final byte[] bytes) throws IOException {
         final BufferedImage imageParsed = Imaging.getBufferedImage(bytes);
         return new PaletteFactory().makeExactRgbPaletteSimple(imageParsed, Integer.MAX_VALUE).length();
@@ -103,4 +126,58 @@ public class PngWriterTest extends AbstractPngTest {
             assertEquals(colourCount, countColors(palettedBytes), filePath);
         }
     }
+
+    @Test
+    public void testFilterTypes() throws IOException {
+        final FilterType[] filterTypes = { null, FilterType.NONE, FilterType.SUB, FilterType.UP, FilterType.AVERAGE, FilterType.PAETH };
+        for (final boolean alpha : new boolean[] { false, true }) {
+            for (final boolean gray : new boolean[] { false, true }) {
+                final BufferedImage image = createImage(alpha, gray);
+                // the reader converts gray samples, so compare with the unfiltered image
+                final BufferedImage unfiltered = Imaging.getBufferedImage(getImageBytes(image, new PngImagingParameters(), null));
+                final int[] expected = unfiltered.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+                for (final FilterType filterType : filterTypes) {
+                    final PngImagingParameters params = new PngImagingParameters().setPredictorEnabled(true).setFilterType(filterType)
+                            .setCompressionLevel(Deflater.BEST_COMPRESSION).setCompressionStrategy(Deflater.FILTERED);
+                    final BufferedImage read = Imaging.getBufferedImage(getImageBytes(image, params, null));
+                    assertArrayEquals(expected, read.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()),
+                            "alpha " + alpha + ", gray " + gray + ", filter " + filterType);
+                }
+                final BufferedImage read = Imaging.getBufferedImage(getImageBytes(image, new PngImagingParameters().setSpeedPreset(), null));
+                assertArrayEquals(expected, read.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidCompression() {
+        final PngImagingParameters params = new PngImagingParameters();
+        assertThrows(IllegalArgumentException.class, () -> params.setCompressionLevel(10));
+        assertThrows(IllegalArgumentException.class, () -> params.setCompressionLevel(-2));
+        assertThrows(IllegalArgumentException.class, () -> params.setCompressionStrategy(3));
+        assertEquals(Deflater.DEFAULT_COMPRESSION, params.getCompressionLevel());
+        assertEquals(Deflater.DEFAULT_STRATEGY, params.getCompressionStrategy());
+    }
+
+    @Test
+    public void testManyImageDataChunks() throws IOException {
+        // noise, which doesn't compress, so the image data takes several chunks
+        final int width = 600;
+        final int height = 500;
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final Random random = new Random(3);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        final int[] expected = image.getRGB(0, 0, width, height, null, 0, width);
+        for (final boolean predictor : new boolean[] { false, true }) {
+            final byte[] bytes = getImageBytes(image, new PngImagingParameters().setPredictorEnabled(predictor), null);
+            final int chunks = Collections.frequency(new PngImageParser().getChunkTypes(new ByteArrayInputStream(bytes, PngConstants.PNG_SIGNATURE.size(), bytes.length)), "IDAT");
+            assertTrue(chunks > 1, chunks + " IDAT chunks");
+            assertArrayEquals(expected, Imaging.getBufferedImage(bytes).getRGB(0, 0, width, height, null, 0, width));
+            assertArrayEquals(expected, ImageIO.read(new ByteArrayInputStream(bytes)).getRGB(0, 0, width, height, null, 0, width));
+        }
+    }
 }
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.ByteConversions;
+import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.fieldtypes.AbstractFieldType;
+import org.apache.commons.imaging.formats.tiff.taginfos.TagInfo;
+import org.apache.commons.imaging.formats.tiff.taginfos.TagInfoShort;
+import org.junit.jupiter.api.Test;
+
+public class TiffDirectoryTest {
+
+    private static TiffField createField(final int tag, final int value) {
+        final byte[] bytes = ByteConversions.toBytes((short) value, ByteOrder.LITTLE_ENDIAN);
+        return new TiffField(tag, TiffDirectoryConstants.DIRECTORY_TYPE_ROOT, AbstractFieldType.SHORT, 1, 0, bytes, ByteOrder.LITTLE_ENDIAN, 0);
+    }
+
+    @Test
+    public void testFindField() throws ImagingException {
+        final List<TiffField> fields = new ArrayList<>();
+        // not in tag order, as in some files
+        for (int i = 0; i < 300; i++) {
+            fields.add(createField(0x8000 + (i * 37) % 300 * 2, i));
+        }
+        final TiffDirectory directory = new TiffDirectory(TiffDirectoryConstants.DIRECTORY_TYPE_ROOT, fields, 8, 0, ByteOrder.LITTLE_ENDIAN);
+
+        for (final TiffField field : fields) {
+            final TagInfoShort tag = new TagInfoShort("Test", field.getTag(), null);
+            assertSame(field, directory.findField(tag));
+            assertEquals(field.getIntValue(), directory.getFieldValue(tag));
+        }
+        // between, before and after the tags present
+        for (final int tag : new int[] { 0x8001, 0x7fff, 0x8000 + 600 }) {
+            final TagInfo tagInfo = new TagInfo("Missing", tag, AbstractFieldType.SHORT);
+            assertNull(directory.findField(tagInfo));
+            assertThrows(ImagingException.class, () -> directory.findField(tagInfo, true));
+        }
+        assertEquals(fields, directory.getDirectoryEntries());
+    }
+
+    @Test
+    public void testFindRepeatedField() throws ImagingException {
+        final List<TiffField> fields = new ArrayList<>();
+        fields.add(createField(TiffTagConstants.TIFF_TAG_COMPRESSION.tag, 5));
+        fields.add(createField(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH.tag, 10));
+        fields.add(createField(TiffTagConstants.TIFF_TAG_COMPRESSION.tag, 1));
+        final TiffDirectory directory = new TiffDirectory(TiffDirectoryConstants.DIRECTORY_TYPE_ROOT, fields, 8, 0, ByteOrder.LITTLE_ENDIAN);
+
+        // the first of the repeated fields
+        assertSame(fields.get(0), directory.findField(TiffTagConstants.TIFF_TAG_COMPRESSION));
+        assertEquals(10, directory.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH));
+        assertNull(new TiffDirectory(TiffDirectoryConstants.DIRECTORY_TYPE_ROOT, new ArrayList<>(), 8, 0, ByteOrder.LITTLE_ENDIAN)
+                .findField(TiffTagConstants.TIFF_TAG_COMPRESSION));
+    }
+}
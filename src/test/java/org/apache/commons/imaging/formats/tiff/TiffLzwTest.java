@@ -17,7 +17,9 @@
 
 package org.apache.commons.imaging.formats.tiff;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -25,6 +27,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.imaging.ImagingException;
@@ -201,6 +204,34 @@ public class TiffLzwTest extends TiffBaseTest {
         }
     }
 
+    @Test
+    public void testDecompressBytes() throws Exception {
+        final byte[] src = new byte[100_000];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = (byte) (i % 1000 < 500 ? i / 7 : i * 31 >> 3);
+        }
+        // GIF data, with a small code size and the codes packed from the least significant bit
+        final byte[] gifSrc = new byte[src.length];
+        for (int i = 0; i < src.length; i++) {
+            gifSrc[i] = (byte) (src[i] & 0x0f);
+        }
+        final byte[] gifCompressed = new MyLzwCompressor(4, ByteOrder.LITTLE_ENDIAN, false).compress(gifSrc);
+        assertArrayEquals(gifSrc, new MyLzwDecompressor(4, ByteOrder.LITTLE_ENDIAN, false).decompress(gifCompressed, gifSrc.length));
+
+        final byte[] compressed = new MyLzwCompressor(8, ByteOrder.BIG_ENDIAN, true).compress(src);
+        final MyLzwDecompressor decompressor = new MyLzwDecompressor(8, ByteOrder.BIG_ENDIAN, true);
+        assertArrayEquals(src, decompressor.decompress(compressed, src.length));
+        // the decompressor can be reused
+        assertArrayEquals(src, decompressor.decompress(new ByteArrayInputStream(compressed), src.length));
+
+        // truncated data, whose end reads as the end-of-information code
+        final byte[] truncated = decompressor.decompress(Arrays.copyOf(compressed, compressed.length / 2), src.length);
+        assertArrayEquals(Arrays.copyOf(src, truncated.length), truncated);
+        // truncated GIF data, which has no end-of-information code
+        assertThrows(ImagingException.class,
+                () -> new MyLzwDecompressor(4, ByteOrder.LITTLE_ENDIAN, false).decompress(Arrays.copyOf(gifCompressed, gifCompressed.length / 2), src.length));
+    }
+
     @Test
     public void testMedium() throws Exception {
         final int LENGTH = 1024 * 32;
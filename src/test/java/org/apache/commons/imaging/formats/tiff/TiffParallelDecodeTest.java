@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.FormatCompliance;
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.test.TestResources;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class TiffParallelDecodeTest extends TiffBaseTest {
+
+    private static ExecutorService executor;
+
+    private static int[] getPixels(final BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    private static TiffRasterData readRaster(final File file, final TiffImagingParameters params) throws ImagingException, IOException {
+        final TiffContents contents = new TiffReader(true).readDirectories(ByteSource.file(file), true, FormatCompliance.getDefault());
+        return contents.directories.get(0).getRasterData(params);
+    }
+
+    @BeforeAll
+    public static void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        executor.shutdown();
+    }
+
+    private void checkRaster(final String path) throws ImagingException, IOException {
+        final File file = TestResources.resourceToFile(path);
+        final TiffRasterData expected = readRaster(file, null);
+        assertArrayEquals(expected.getData(), readRaster(file, new TiffImagingParameters().setExecutor(executor)).getData());
+
+        final int x = expected.getWidth() / 3;
+        final int y = expected.getHeight() / 4;
+        final int width = expected.getWidth() / 2;
+        final int height = expected.getHeight() / 2;
+        final TiffImagingParameters params = new TiffImagingParameters().setExecutor(executor);
+        params.setSubImage(x, y, width, height);
+        final TiffRasterData subRaster = readRaster(file, params);
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                assertEquals(expected.getValue(x + j, y + i), subRaster.getValue(j, i));
+            }
+        }
+    }
+
+    @Test
+    public void testNestedInExecutor() throws Exception {
+        final File file = TestResources.resourceToFile("/data/images/tiff/5/Oregon Scientific DS6639 - DSC_0307 - small - LZW - tiled.tif");
+        final TiffImageParser parser = new TiffImageParser();
+        final BufferedImage reference = parser.getBufferedImage(file, null);
+        // the only thread of the executor waits for the tiles it decodes
+        final ExecutorService single = Executors.newSingleThreadExecutor();
+        try {
+            final Future<BufferedImage> future = single.submit(() -> parser.getBufferedImage(file, new TiffImagingParameters().setExecutor(single)));
+            assertArrayEquals(getPixels(reference), getPixels(future.get(1, TimeUnit.MINUTES)));
+        } finally {
+            single.shutdown();
+        }
+        // a shut down executor rejects the tiles, which the calling thread decodes instead
+        assertArrayEquals(getPixels(reference), getPixels(parser.getBufferedImage(file, new TiffImagingParameters().setExecutor(single))));
+    }
+
+    @Test
+    public void testRasterData() throws ImagingException, IOException {
+        // strips of 2 rows
+        checkRaster("/data/images/tiff/9/Sample64BitFloatingPointPix451x337.tiff");
+        // tiles
+        checkRaster("/data/images/tiff/9/USGS_13_n38w077_dir5.tiff");
+    }
+
+    @Test
+    public void testSameAsSerial() throws ImagingException, IOException {
+        final TiffImageParser parser = new TiffImageParser();
+        for (final File imageFile : getTiffImages()) {
+            final BufferedImage expected = parser.getBufferedImage(imageFile, new TiffImagingParameters());
+            final BufferedImage actual = parser.getBufferedImage(imageFile, new TiffImagingParameters().setExecutor(executor));
+            assertEquals(expected.getWidth(), actual.getWidth());
+            assertEquals(expected.getHeight(), actual.getHeight());
+            assertArrayEquals(getPixels(expected), getPixels(actual), imageFile.getName());
+        }
+    }
+
+    @Test
+    public void testTiledSubImage() throws ImagingException, IOException {
+        final File file = TestResources.resourceToFile("/data/images/tiff/5/Oregon Scientific DS6639 - DSC_0307 - small - LZW - tiled.tif");
+        final TiffImageParser parser = new TiffImageParser();
+        final BufferedImage reference = parser.getBufferedImage(file, null);
+        final int x = reference.getWidth() / 3;
+        final int y = reference.getHeight() / 4;
+        final int width = reference.getWidth() / 2;
+        final int height = reference.getHeight() / 2;
+
+        final TiffImagingParameters params = new TiffImagingParameters().setExecutor(executor);
+        params.setSubImage(x, y, width, height);
+        final BufferedImage image = parser.getBufferedImage(file, params);
+        assertArrayEquals(getPixels(reference.getSubimage(x, y, width, height)), getPixels(image));
+    }
+}
@@ -16,7 +16,9 @@
  */
 package org.apache.commons.imaging.formats.tiff;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.awt.image.BufferedImage;
@@ -27,6 +29,8 @@ import java.util.List;
 
 import org.apache.commons.imaging.Imaging;
 import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.io.build.AbstractOrigin.ByteArrayOrigin;
 import org.junit.jupiter.api.Test;
 
 public class TiffSubImageTest extends TiffBaseTest {
@@ -119,4 +123,35 @@ public class TiffSubImageTest extends TiffBaseTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testSubImageReadsOnlyItsStrips() throws ImagingException, IOException {
+        final TiffImageParser tiffImageParser = new TiffImageParser();
+        final BufferedImage src = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 256; y++) {
+            for (int x = 0; x < 256; x++) {
+                src.setRGB(x, y, x << 16 | y << 8 | x ^ y);
+            }
+        }
+        final byte[] imageBytes;
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            tiffImageParser.writeImage(src, baos, new TiffImagingParameters());
+            imageBytes = baos.toByteArray();
+        }
+        final long[] bytesRead = { 0 };
+        final ByteSource byteSource = new ByteSource(new ByteArrayOrigin(imageBytes), null) {
+            @Override
+            public byte[] getByteArray(final long position, final int length) throws IOException {
+                bytesRead[0] += length;
+                return super.getByteArray(position, length);
+            }
+        };
+
+        final TiffImagingParameters params = new TiffImagingParameters();
+        params.setSubImage(100, 100, 8, 8);
+        final BufferedImage image = tiffImageParser.getBufferedImage(byteSource, params);
+        // only the strips holding the sub-image are read
+        assertTrue(bytesRead[0] < imageBytes.length / 8, "read " + bytesRead[0] + " of " + imageBytes.length + " bytes");
+        assertArrayEquals(src.getRGB(100, 100, 8, 8, null, 0, 8), image.getRGB(0, 0, 8, 8, null, 0, 8));
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.test.TestResources;
+import org.junit.jupiter.api.Test;
+
+public class TiffTileCacheTest extends TiffBaseTest {
+
+    private static final String TILED_IMAGE = "/data/images/tiff/5/Oregon Scientific DS6639 - DSC_0307 - small - LZW - tiled.tif";
+
+    private static int[] getPixels(final BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    private static BufferedImage read(final ByteSource byteSource, final TiffTileCache tileCache, final int x, final int y, final int width,
+            final int height) throws ImagingException, IOException {
+        final TiffImagingParameters params = new TiffImagingParameters();
+        params.setTileCache(tileCache);
+        params.setSubImage(x, y, width, height);
+        return new TiffImageParser().getBufferedImage(byteSource, params);
+    }
+
+    @Test
+    public void testEviction() throws ImagingException, IOException {
+        final File file = TestResources.resourceToFile(TILED_IMAGE);
+        final ByteSource byteSource = ByteSource.file(file);
+        final BufferedImage reference = new TiffImageParser().getBufferedImage(file, null);
+        final int width = reference.getWidth();
+        final int height = reference.getHeight();
+
+        final TiffTileCache unbounded = new TiffTileCache(Long.MAX_VALUE);
+        read(byteSource, unbounded, 0, 0, width, height);
+        final long tiles = unbounded.getMissCount();
+        assertTrue(tiles > 1);
+
+        // room for a single tile
+        final TiffTileCache tileCache = new TiffTileCache(unbounded.getSize() / tiles);
+        final BufferedImage image = read(byteSource, tileCache, 0, 0, width, height);
+        assertArrayEquals(getPixels(reference), getPixels(image));
+        assertEquals(tiles, tileCache.getMissCount());
+        assertEquals(tiles - 1, tileCache.getEvictionCount());
+        assertTrue(tileCache.getSize() <= tileCache.getMaximumSize());
+
+        tileCache.clear();
+        assertEquals(0, tileCache.getSize());
+        assertEquals(tiles, tileCache.getMissCount());
+    }
+
+    @Test
+    public void testByteSourceNotRetained() throws ImagingException, IOException, InterruptedException {
+        final TiffTileCache tileCache = new TiffTileCache(Long.MAX_VALUE);
+        ByteSource byteSource = ByteSource.array(Files.readAllBytes(TestResources.resourceToFile(TILED_IMAGE).toPath()));
+        final WeakReference<ByteSource> reference = new WeakReference<>(byteSource);
+        read(byteSource, tileCache, 0, 0, 10, 10);
+        assertTrue(tileCache.getSize() > 0);
+
+        byteSource = null;
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get());
+    }
+
+    @Test
+    public void testInvalidMaximumSize() {
+        assertThrows(IllegalArgumentException.class, () -> new TiffTileCache(-1));
+    }
+
+    @Test
+    public void testOverlappingSubImages() throws ImagingException, IOException {
+        final File file = TestResources.resourceToFile(TILED_IMAGE);
+        final ByteSource byteSource = ByteSource.file(file);
+        final BufferedImage reference = new TiffImageParser().getBufferedImage(file, null);
+        final int width = reference.getWidth();
+        final int height = reference.getHeight();
+        final TiffTileCache tileCache = new TiffTileCache(Long.MAX_VALUE);
+
+        final BufferedImage left = read(byteSource, tileCache, 0, 0, width / 2 + 1, height);
+        assertEquals(0, tileCache.getHitCount());
+        final long misses = tileCache.getMissCount();
+        assertTrue(misses > 0);
+
+        // the middle column of tiles is shared with the left half
+        final BufferedImage right = read(byteSource, tileCache, width / 2, 0, width - width / 2, height);
+        assertTrue(tileCache.getHitCount() > 0);
+        assertEquals(0, tileCache.getEvictionCount());
+
+        assertArrayEquals(getPixels(reference.getSubimage(0, 0, width / 2 + 1, height)), getPixels(left));
+        assertArrayEquals(getPixels(reference.getSubimage(width / 2, 0, width - width / 2, height)), getPixels(right));
+
+        // a second read of the whole image decompresses nothing
+        final long hits = tileCache.getHitCount();
+        final long allMisses = tileCache.getMissCount();
+        assertArrayEquals(getPixels(reference), getPixels(read(byteSource, tileCache, 0, 0, width, height)));
+        assertEquals(allMisses, tileCache.getMissCount());
+        assertTrue(tileCache.getHitCount() > hits);
+    }
+}
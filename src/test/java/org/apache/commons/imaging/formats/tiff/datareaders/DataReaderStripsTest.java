@@ -18,6 +18,9 @@ package org.apache.commons.imaging.formats.tiff.datareaders;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 import org.apache.commons.imaging.formats.tiff.constants.TiffPlanarConfiguration;
 import org.junit.jupiter.api.Test;
 
@@ -35,4 +38,17 @@ public class DataReaderStripsTest {
         predicted = strips.applyPredictor(samples);
         assertArrayEquals(expected, predicted);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUnpackIntSamplesDifferenced() {
+        final int[] bitsPerPixel = { 16 };
+        final DataReaderStrips strips = new DataReaderStrips(null, null, 16, bitsPerPixel, 2, 1, 0, 4, 2, 2, TiffPlanarConfiguration.CHUNKY, null, 2, null);
+        // the differences wrap around, as the predictor works modulo 2^16
+        final int[] expected = { -30000, 30000, 5, -7, 32767, -32768, 0, 1 };
+        final ByteBuffer buffer = ByteBuffer.allocate(2 * expected.length).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < expected.length; i++) {
+            buffer.putShort((short) (i % 4 == 0 ? expected[i] : expected[i] - expected[i - 1]));
+        }
+        assertArrayEquals(expected, strips.unpackIntSamples(4, 2, 4, buffer.array(), 2, 16, ByteOrder.LITTLE_ENDIAN));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.datareaders;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ImageDataReaderTest {
+
+    private static final int WIDTH = 7;
+    private static final int HEIGHT = 3;
+
+    private static long[] createSamples(final int count, final int bits) {
+        final Random random = new Random(bits);
+        final long[] samples = new long[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = random.nextLong() & (1L << bits) - 1;
+        }
+        return samples;
+    }
+
+    /**
+     * Differences the samples the way an encoder does, each from the sample a pixel before it in the row.
+     */
+    private static long[] difference(final long[] samples, final int stride, final int bits) {
+        final long[] differences = samples.clone();
+        final int samplesPerRow = WIDTH * stride;
+        for (int i = 0; i < samples.length; i++) {
+            if (i % samplesPerRow >= stride) {
+                differences[i] = samples[i] - samples[i - stride] & (1L << bits) - 1;
+            }
+        }
+        return differences;
+    }
+
+    private static byte[] toBytes(final long[] samples, final int bytesPerSample, final ByteOrder byteOrder) {
+        final ByteBuffer buffer = ByteBuffer.allocate(samples.length * bytesPerSample).order(byteOrder);
+        for (final long sample : samples) {
+            switch (bytesPerSample) {
+            case 1:
+                buffer.put((byte) sample);
+                break;
+            case 2:
+                buffer.putShort((short) sample);
+                break;
+            default:
+                buffer.putInt((int) sample);
+                break;
+            }
+        }
+        return buffer.array();
+    }
+
+    @Test
+    public void testReverseFloatingPointDifferencing() {
+        // two rows of two samples per pixel, differenced byte by byte
+        final int stride = 2;
+        final long[] bytes = createSamples(2 * WIDTH * stride * 4, 8);
+        final long[] differences = new long[bytes.length];
+        final int bytesInRow = WIDTH * stride * 4;
+        for (int row = 0; row < 2; row++) {
+            final long[] rowBytes = new long[bytesInRow];
+            System.arraycopy(bytes, row * bytesInRow, rowBytes, 0, bytesInRow);
+            for (int i = 0; i < bytesInRow; i++) {
+                differences[row * bytesInRow + i] = i < stride ? rowBytes[i] : rowBytes[i] - rowBytes[i - stride] & 0xff;
+            }
+        }
+        final byte[] actual = toBytes(differences, 1, ByteOrder.BIG_ENDIAN);
+        ImageDataReader.reverseFloatingPointDifferencing(actual, 0, bytesInRow, stride);
+        ImageDataReader.reverseFloatingPointDifferencing(actual, bytesInRow, bytesInRow, stride);
+        assertArrayEquals(toBytes(bytes, 1, ByteOrder.BIG_ENDIAN), actual);
+    }
+
+    @Test
+    public void testReverseHorizontalDifferencing() {
+        for (final ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+            for (final int bytesPerSample : new int[] { 1, 2, 4 }) {
+                for (final int stride : new int[] { 1, 3 }) {
+                    final int bits = bytesPerSample * 8;
+                    final long[] samples = createSamples(WIDTH * HEIGHT * stride, bits);
+                    final byte[] actual = toBytes(difference(samples, stride, bits), bytesPerSample, byteOrder);
+                    ImageDataReader.reverseHorizontalDifferencing(actual, WIDTH, HEIGHT, stride, bytesPerSample, byteOrder);
+                    assertArrayEquals(toBytes(samples, bytesPerSample, byteOrder), actual, bits + " bits, stride " + stride + ", " + byteOrder);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReverseHorizontalDifferencingPartialBlock() {
+        // the last strip of an image may have fewer rows than the block
+        final long[] samples = createSamples(WIDTH * 2, 16);
+        final byte[] actual = toBytes(difference(samples, 1, 16), 2, ByteOrder.LITTLE_ENDIAN);
+        ImageDataReader.reverseHorizontalDifferencing(actual, WIDTH, HEIGHT, 1, 2, ByteOrder.LITTLE_ENDIAN);
+        assertArrayEquals(toBytes(samples, 2, ByteOrder.LITTLE_ENDIAN), actual);
+    }
+}
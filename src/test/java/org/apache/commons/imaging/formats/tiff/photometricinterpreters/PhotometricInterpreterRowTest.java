@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.photometricinterpreters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.ImageBuilder;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that interpreting a row gives the same pixels as interpreting them one at a time.
+ */
+public class PhotometricInterpreterRowTest {
+
+    private static final int WIDTH = 40;
+
+    private static void checkRow(final PhotometricInterpreter interpreter, final int samplesPerPixel, final int maxSample) throws ImagingException, IOException {
+        final Random random = new Random(samplesPerPixel * 31 + maxSample);
+        // one pixel of padding, which must be skipped
+        final int offset = samplesPerPixel;
+        final int[] samples = new int[offset + WIDTH * samplesPerPixel];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = random.nextInt(maxSample + 1);
+        }
+        final int x = 5;
+        final int y = 2;
+        final int count = WIDTH - 10;
+
+        final ImageBuilder expected = new ImageBuilder(WIDTH, 4, true);
+        for (int i = 0; i < count; i++) {
+            final int[] pixel = new int[samplesPerPixel];
+            System.arraycopy(samples, offset + i * samplesPerPixel, pixel, 0, samplesPerPixel);
+            interpreter.interpretPixel(expected, pixel, x + i, y);
+        }
+        final ImageBuilder actual = new ImageBuilder(WIDTH, 4, true);
+        interpreter.interpretRow(actual, samples, offset, x, y, count);
+
+        for (int row = 0; row < 4; row++) {
+            for (int column = 0; column < WIDTH; column++) {
+                assertEquals(expected.getRgb(column, row), actual.getRgb(column, row), "Invalid pixel at " + column + ", " + row);
+            }
+        }
+    }
+
+    @Test
+    public void testInterpretRow() throws ImagingException, IOException {
+        checkRow(new PhotometricInterpreterRgb(3, new int[] { 8, 8, 8 }, 1, WIDTH, 4), 3, 255);
+        checkRow(new PhotometricInterpreterRgb(4, new int[] { 8, 8, 8, 8 }, 1, WIDTH, 4), 4, 255);
+        checkRow(new PhotometricInterpreterYCbCr(3, new int[] { 8, 8, 8 }, 1, WIDTH, 4), 3, 255);
+        checkRow(new PhotometricInterpreterCmyk(4, new int[] { 8, 8, 8, 8 }, 1, WIDTH, 4), 4, 255);
+        checkRow(new PhotometricInterpreterCieLab(3, new int[] { 8, 8, 8 }, 1, WIDTH, 4), 3, 255);
+        checkRow(new PhotometricInterpreterBiLevel(1, new int[] { 8 }, 1, WIDTH, 4, false), 1, 255);
+        checkRow(new PhotometricInterpreterBiLevel(1, new int[] { 8 }, 1, WIDTH, 4, true), 1, 255);
+        final int[] colorMap = new int[3 * 16];
+        for (int i = 0; i < colorMap.length; i++) {
+            colorMap[i] = i * 1021 & 0xffff;
+        }
+        // samples past the palette, which are masked
+        checkRow(new PhotometricInterpreterPalette(1, new int[] { 4 }, 1, WIDTH, 4, colorMap), 1, 255);
+        // the per-pixel fallback
+        checkRow(new PhotometricInterpreterLogLuv(3, new int[] { 8, 8, 8 }, 1, WIDTH, 4), 3, 255);
+    }
+}
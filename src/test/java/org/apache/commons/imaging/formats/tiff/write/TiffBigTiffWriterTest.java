@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.write;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.common.ByteConversions;
+import org.apache.commons.imaging.formats.tiff.TiffImageMetadata;
+import org.apache.commons.imaging.formats.tiff.TiffImageParser;
+import org.apache.commons.imaging.formats.tiff.TiffImagingParameters;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TiffBigTiffWriterTest {
+
+    private static final int WIDTH = 90;
+    private static final int HEIGHT = 60;
+
+    @TempDir
+    Path tempDir;
+
+    private static BufferedImage createImage() {
+        final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, x * 2 << 16 | y * 4 << 8 | (x ^ y) & 0xff);
+            }
+        }
+        return image;
+    }
+
+    private static int[] getPixels(final BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    private static int getVersion(final byte[] bytes) {
+        final ByteOrder byteOrder = bytes[0] == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        return ByteConversions.toUInt16(bytes, 2, byteOrder);
+    }
+
+    private static byte[] write(final BufferedImage image, final ByteOrder byteOrder, final TiffImagingParameters params) throws ImagingException, IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new TiffImageWriterLossy(byteOrder).writeImage(image, os, params);
+        return os.toByteArray();
+    }
+
+    @Test
+    public void testBigTiffRequired() throws ImagingException {
+        final TiffOutputSet outputSet = new TiffOutputSet();
+        final TiffOutputDirectory directory = outputSet.addRootDirectory();
+        directory.add(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH, 1);
+        final TiffImageWriterLossy writer = new TiffImageWriterLossy();
+        assertFalse(writer.isBigTiffRequired(outputSet, TiffConstants.TIFF_HEADER_SIZE));
+        // a directory following 4 GB of image data
+        assertTrue(writer.isBigTiffRequired(outputSet, 0xFFFFfff0L));
+        assertTrue(writer.isBigTiffRequired(outputSet, 0x100000000L));
+    }
+
+    @Test
+    public void testBigTiffRequiredByWrittenImageData() throws ImagingException {
+        final TiffOutputSet outputSet = new TiffOutputSet();
+        final TiffOutputDirectory directory = outputSet.addRootDirectory();
+        directory.add(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH, 1);
+        final TiffImageWriterLossy writer = new TiffImageWriterLossy();
+        directory.setWrittenImageData(true, new long[] { TiffConstants.TIFF_HEADER_SIZE, 0x80000000L }, new int[] { 100, 100 });
+        assertFalse(writer.isBigTiffRequired(outputSet, 0x80000100L));
+        // strips written past 4 GB, as by a streaming writer, ahead of a directory itself within reach of 32-bit offsets
+        directory.setWrittenImageData(true, new long[] { TiffConstants.TIFF_HEADER_SIZE, 0x100000000L }, new int[] { 100, 100 });
+        assertTrue(writer.isBigTiffRequired(outputSet, 0x80000100L));
+    }
+
+    @Test
+    public void testClassicByDefault() throws ImagingException, IOException {
+        assertEquals(TiffConstants.TIFF_VERSION_STANDARD, getVersion(write(createImage(), ByteOrder.LITTLE_ENDIAN, new TiffImagingParameters())));
+    }
+
+    @Test
+    public void testMetadata() throws ImagingException, IOException {
+        final TiffOutputSet outputSet = new TiffOutputSet();
+        outputSet.setGpsInDegrees(-77.5, 38.25);
+        final TiffImagingParameters params = new TiffImagingParameters().setBigTiff(true);
+        params.setOutputSet(outputSet);
+        final byte[] bytes = write(createImage(), ByteOrder.BIG_ENDIAN, params);
+        assertEquals(TiffConstants.TIFF_VERSION_BIG, getVersion(bytes));
+
+        final TiffImageMetadata metadata = (TiffImageMetadata) Imaging.getMetadata(bytes);
+        final TiffImageMetadata.GpsInfo gpsInfo = metadata.getGpsInfo();
+        assertNotNull(gpsInfo);
+        assertEquals(-77.5, gpsInfo.getLongitudeAsDegreesEast(), 1e-6);
+        assertEquals(38.25, gpsInfo.getLatitudeAsDegreesNorth(), 1e-6);
+    }
+
+    @Test
+    public void testStreaming() throws ImagingException, IOException {
+        final BufferedImage image = createImage();
+        final File file = tempDir.resolve("big.tiff").toFile();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            final TiffImagingParameters params = new TiffImagingParameters().setBigTiff(true);
+            params.setTileSize(32, 32);
+            final TiffStreamingImageWriter writer = new TiffStreamingImageWriter(channel, ByteOrder.BIG_ENDIAN, WIDTH, HEIGHT, false, params);
+            writer.writeRows(image);
+            writer.finish();
+        }
+        assertEquals(TiffConstants.TIFF_VERSION_BIG, getVersion(Files.readAllBytes(file.toPath())));
+        assertArrayEquals(getPixels(image), getPixels(new TiffImageParser().getBufferedImage(file, null)));
+    }
+
+    @Test
+    public void testWriteImage() throws ImagingException, IOException {
+        final BufferedImage image = createImage();
+        for (final ByteOrder byteOrder : new ByteOrder[] { ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN }) {
+            for (final int tileSize : new int[] { 0, 32 }) {
+                final TiffImagingParameters params = new TiffImagingParameters().setBigTiff(true);
+                params.setCompression(TiffConstants.TIFF_COMPRESSION_LZW);
+                params.setTileSize(tileSize, tileSize);
+                final byte[] bytes = write(image, byteOrder, params);
+                assertEquals(TiffConstants.TIFF_VERSION_BIG, getVersion(bytes));
+                final BufferedImage result = new TiffImageParser().getBufferedImage(ByteSource.array(bytes), null);
+                assertArrayEquals(getPixels(image), getPixels(result));
+            }
+        }
+    }
+}
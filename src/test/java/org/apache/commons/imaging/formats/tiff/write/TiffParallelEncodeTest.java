@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.write;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.formats.tiff.TiffImagingParameters;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TiffParallelEncodeTest {
+
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 200;
+
+    private static ExecutorService executor;
+
+    @TempDir
+    Path tempDir;
+
+    private static BufferedImage createImage() {
+        final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, (x * y & 0xff) << 24 | x << 16 | y << 8 | (x ^ y) & 0xff);
+            }
+        }
+        return image;
+    }
+
+    private static TiffImagingParameters params(final int compression, final int tileSize) {
+        final TiffImagingParameters params = new TiffImagingParameters();
+        params.setCompression(compression);
+        params.setTileSize(tileSize, tileSize);
+        // small strips, so there are many of them
+        params.setLzwCompressionBlockSize(8000);
+        return params;
+    }
+
+    @BeforeAll
+    public static void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        executor.shutdown();
+    }
+
+    private static byte[] write(final BufferedImage image, final TiffImagingParameters params) throws ImagingException, IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new TiffImageWriterLossy().writeImage(image, os, params);
+        return os.toByteArray();
+    }
+
+    private byte[] writeStreaming(final BufferedImage image, final TiffImagingParameters params) throws ImagingException, IOException {
+        final Path path = Files.createTempFile(tempDir, "streaming", ".tiff");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            final TiffStreamingImageWriter writer = new TiffStreamingImageWriter(channel, WIDTH, HEIGHT, true, params);
+            for (int y = 0; y < HEIGHT; y += 7) {
+                writer.writeRows(image.getSubimage(0, y, WIDTH, Math.min(7, HEIGHT - y)));
+            }
+            writer.finish();
+        }
+        return Files.readAllBytes(path);
+    }
+
+    @Test
+    public void testSameAsSerial() throws ImagingException, IOException {
+        final BufferedImage image = createImage();
+        for (final int compression : new int[] { TiffConstants.TIFF_COMPRESSION_LZW, TiffConstants.TIFF_COMPRESSION_DEFLATE_ADOBE,
+                TiffConstants.TIFF_COMPRESSION_PACKBITS }) {
+            for (final int tileSize : new int[] { 0, 64 }) {
+                final byte[] expected = write(image, params(compression, tileSize));
+                assertArrayEquals(expected, write(image, params(compression, tileSize).setExecutor(executor)));
+                assertArrayEquals(writeStreaming(image, params(compression, tileSize)),
+                        writeStreaming(image, params(compression, tileSize).setExecutor(executor)));
+            }
+        }
+    }
+}
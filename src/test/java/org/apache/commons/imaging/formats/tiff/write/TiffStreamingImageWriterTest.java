@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.write;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.formats.tiff.TiffImageParser;
+import org.apache.commons.imaging.formats.tiff.TiffImagingParameters;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TiffStreamingImageWriterTest {
+
+    private static final int WIDTH = 100;
+    private static final int HEIGHT = 70;
+
+    @TempDir
+    Path tempDir;
+
+    private static BufferedImage createImage(final boolean hasAlpha) {
+        final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, (hasAlpha ? (x + y) * 7 % 256 : 0xff) << 24 | x * 2 << 16 | y * 3 << 8 | (x ^ y) & 0xff);
+            }
+        }
+        return image;
+    }
+
+    private static int[] getPixels(final BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    private static TiffImagingParameters params(final int compression, final int tileWidth, final int tileLength) {
+        final TiffImagingParameters params = new TiffImagingParameters();
+        params.setCompression(compression);
+        params.setTileSize(tileWidth, tileLength);
+        return params;
+    }
+
+    private FileChannel open(final File file) throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private void checkRows(final int compression, final int tileWidth, final int tileLength, final boolean hasAlpha, final ByteOrder byteOrder)
+            throws ImagingException, IOException {
+        final BufferedImage image = createImage(hasAlpha);
+        final File file = tempDir.resolve("rows.tiff").toFile();
+        try (FileChannel channel = open(file)) {
+            final TiffStreamingImageWriter writer = new TiffStreamingImageWriter(channel, byteOrder, WIDTH, HEIGHT, hasAlpha,
+                    params(compression, tileWidth, tileLength));
+            // bands of rows which don't line up with the strips or tiles
+            for (int y = 0; y < HEIGHT; y += 13) {
+                writer.writeRows(image.getSubimage(0, y, WIDTH, Math.min(13, HEIGHT - y)));
+            }
+            writer.finish();
+        }
+        assertArrayEquals(getPixels(image), getPixels(new TiffImageParser().getBufferedImage(file, null)));
+    }
+
+    @Test
+    public void testFinishIncomplete() throws ImagingException, IOException {
+        final BufferedImage image = createImage(false);
+        try (FileChannel channel = open(tempDir.resolve("incomplete.tiff").toFile())) {
+            final TiffStreamingImageWriter writer = new TiffStreamingImageWriter(channel, WIDTH, HEIGHT, false, null);
+            writer.writeRows(image.getSubimage(0, 0, WIDTH, HEIGHT - 1));
+            assertThrows(IllegalStateException.class, writer::finish);
+        }
+        try (FileChannel channel = open(tempDir.resolve("incomplete-tiled.tiff").toFile())) {
+            final TiffStreamingImageWriter writer = new TiffStreamingImageWriter(channel, WIDTH, HEIGHT, false,
+                    params(TiffConstants.TIFF_COMPRESSION_LZW, 32, 32));
+            writer.writeTile(0, 0, image);
+            assertThrows(IllegalArgumentException.class, () -> writer.writeTile(0, 0, image));
+            assertThrows(IllegalArgumentException.class, () -> writer.writeTile(4, 0, image));
+            assertThrows(IllegalStateException.class, () -> writer.writeRows(image));
+            assertThrows(IllegalStateException.class, writer::finish);
+        }
+    }
+
+    @Test
+    public void testInvalidTileSize() {
+        final TiffImagingParameters params = new TiffImagingParameters();
+        assertThrows(IllegalArgumentException.class, () -> params.setTileSize(20, 16));
+        assertThrows(IllegalArgumentException.class, () -> params.setTileSize(16, 0));
+        assertThrows(IllegalArgumentException.class, () -> params.setTileSize(-16, 16));
+        params.setTileSize(0, 0);
+        assertEquals(0, params.getTileWidth());
+    }
+
+    @Test
+    public void testRows() throws ImagingException, IOException {
+        checkRows(TiffConstants.TIFF_COMPRESSION_UNCOMPRESSED, 0, 0, false, ByteOrder.BIG_ENDIAN);
+        checkRows(TiffConstants.TIFF_COMPRESSION_LZW, 0, 0, true, ByteOrder.LITTLE_ENDIAN);
+        checkRows(TiffConstants.TIFF_COMPRESSION_PACKBITS, 32, 16, false, ByteOrder.LITTLE_ENDIAN);
+        checkRows(TiffConstants.TIFF_COMPRESSION_DEFLATE_ADOBE, 48, 32, true, ByteOrder.BIG_ENDIAN);
+    }
+
+    @Test
+    public void testSingleRows() throws ImagingException, IOException {
+        final TiffImagingParameters params = params(TiffConstants.TIFF_COMPRESSION_LZW, 0, 0);
+        final BufferedImage image = createImage(false);
+        final File file = tempDir.resolve("strips.tiff").toFile();
+        try (FileChannel channel = open(file)) {
+            final TiffStreamingImageWriter writer = new TiffStreamingImageWriter(channel, WIDTH, HEIGHT, false, params);
+            for (int y = 0; y < HEIGHT; y++) {
+                writer.writeRows(image.getSubimage(0, y, WIDTH, 1));
+            }
+            writer.finish();
+        }
+        assertArrayEquals(getPixels(image), getPixels(new TiffImageParser().getBufferedImage(file, null)));
+    }
+
+    @Test
+    public void testTilesInAnyOrder() throws ImagingException, IOException {
+        final BufferedImage image = createImage(true);
+        final List<int[]> tiles = new ArrayList<>();
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 4; column++) {
+                tiles.add(new int[] { column, row });
+            }
+        }
+        Collections.shuffle(tiles, new Random(42));
+
+        final File file = tempDir.resolve("tiles.tiff").toFile();
+        try (FileChannel channel = open(file)) {
+            final TiffStreamingImageWriter writer = new TiffStreamingImageWriter(channel, WIDTH, HEIGHT, true,
+                    params(TiffConstants.TIFF_COMPRESSION_LZW, 32, 32));
+            for (final int[] tile : tiles) {
+                final int x = tile[0] * 32;
+                final int y = tile[1] * 32;
+                writer.writeTile(tile[0], tile[1], image.getSubimage(x, y, Math.min(32, WIDTH - x), Math.min(32, HEIGHT - y)));
+            }
+            writer.finish();
+        }
+        assertArrayEquals(getPixels(image), getPixels(new TiffImageParser().getBufferedImage(file, null)));
+    }
+
+    @Test
+    public void testWriteImageTiled() throws ImagingException, IOException {
+        final BufferedImage image = createImage(false);
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new TiffImageWriterLossy().writeImage(image, os, params(TiffConstants.TIFF_COMPRESSION_LZW, 16, 48));
+        final File file = tempDir.resolve("image.tiff").toFile();
+        Files.write(file.toPath(), os.toByteArray());
+        assertArrayEquals(getPixels(image), getPixels(new TiffImageParser().getBufferedImage(file, null)));
+    }
+}
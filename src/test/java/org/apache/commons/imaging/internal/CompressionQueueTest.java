@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.imaging.ImagingException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class CompressionQueueTest {
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    public static void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testFailure() {
+        final CompressionQueue<byte[]> queue = new CompressionQueue<>(executor, 2, (index, compressed) -> {
+            // discarded
+        });
+        assertThrows(ImagingException.class, () -> {
+            for (int i = 0; i < 10; i++) {
+                final int index = i;
+                queue.submit(i, () -> {
+                    if (index == 3) {
+                        throw new ImagingException("Failed block " + index);
+                    }
+                    return new byte[index];
+                });
+            }
+            queue.flush();
+        });
+    }
+
+    @Test
+    public void testNestedInExecutor() throws Exception {
+        // the only thread of the executor submits the blocks and waits for them
+        final ExecutorService single = Executors.newSingleThreadExecutor();
+        try {
+            final List<Integer> delivered = new ArrayList<>();
+            single.submit(() -> {
+                final CompressionQueue<byte[]> queue = new CompressionQueue<>(single, 2, (index, compressed) -> delivered.add(index));
+                for (int i = 0; i < 10; i++) {
+                    final int index = i;
+                    queue.submit(i, () -> new byte[index]);
+                }
+                queue.flush();
+                return null;
+            }).get(1, TimeUnit.MINUTES);
+            assertEquals(10, delivered.size());
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejected() throws Exception {
+        final ExecutorService single = Executors.newSingleThreadExecutor();
+        final List<Integer> delivered = new ArrayList<>();
+        final CompressionQueue<byte[]> queue = new CompressionQueue<>(single, 4, (index, compressed) -> delivered.add(index));
+        queue.submit(0, () -> new byte[0]);
+        single.shutdown();
+        assertThrows(RejectedExecutionException.class, () -> queue.submit(1, () -> new byte[1]));
+        // the rejected block isn't waited for
+        queue.flush();
+        assertEquals(Collections.singletonList(0), delivered);
+    }
+
+    @Test
+    public void testOrderAndBound() throws Exception {
+        final List<Integer> delivered = new ArrayList<>();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final int maxPending = 3;
+        final CompressionQueue<byte[]> queue = new CompressionQueue<>(executor, maxPending, (index, compressed) -> {
+            assertEquals(index, compressed.length);
+            delivered.add(index);
+        });
+        for (int i = 0; i < 20; i++) {
+            final int index = i;
+            queue.submit(i, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    // the early blocks take longest
+                    TimeUnit.MILLISECONDS.sleep(20 - index);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return new byte[index];
+            });
+        }
+        queue.flush();
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, delivered);
+        assertTrue(maxRunning.get() <= maxPending + 1);
+    }
+}
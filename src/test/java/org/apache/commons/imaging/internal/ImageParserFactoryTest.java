@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.commons.imaging.AbstractImageParser;
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.formats.jpeg.JpegImageParser;
+import org.apache.commons.imaging.formats.tiff.TiffImageParser;
+import org.junit.jupiter.api.Test;
+
+public class ImageParserFactoryTest {
+
+    @Test
+    public void testGetImageParser() {
+        final AbstractImageParser<?> tiffParser = ImageParserFactory.getImageParser(ImageFormats.TIFF);
+        assertTrue(tiffParser instanceof TiffImageParser);
+        assertSame(tiffParser, ImageParserFactory.getImageParser(ImageFormats.TIFF));
+        assertSame(tiffParser, ImageParserFactory.getImageParser("image.TIF"));
+        assertSame(tiffParser, ImageParserFactory.getImageParser(".tiff"));
+        assertTrue(ImageParserFactory.getImageParser("photo.jpeg") instanceof JpegImageParser);
+        assertTrue(ImageParserFactory.getImageParsers().contains(tiffParser));
+        assertEquals(AbstractImageParser.getAllImageParsers().size(), ImageParserFactory.getImageParsers().size());
+    }
+
+    @Test
+    public void testGetImageParserUnknown() {
+        assertThrows(IllegalArgumentException.class, () -> ImageParserFactory.getImageParser(ImageFormats.UNKNOWN));
+        assertThrows(IllegalArgumentException.class, () -> ImageParserFactory.getImageParser("image.unknown"));
+        assertThrows(IllegalArgumentException.class, () -> ImageParserFactory.getImageParser("image"));
+    }
+}